@@ -0,0 +1,53 @@
+package com.github.dbmdz.flusswerk.benchmarks;
+
+import com.github.dbmdz.flusswerk.framework.flow.Flow;
+import com.github.dbmdz.flusswerk.framework.flow.FlowSpec;
+import com.github.dbmdz.flusswerk.framework.flow.builder.FlowBuilder;
+import com.github.dbmdz.flusswerk.framework.locking.NoOpLockManager;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.reporting.Tracing;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of {@link Flow#process(Message)} per message with a flow that does nothing
+ * but pass the message on, so that only logging data, tracing, metrics and lock handling count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlowBenchmark {
+
+  private Flow flow;
+  private IndexMessage message;
+  private Tracing tracing;
+
+  @Setup
+  public void setUp() {
+    FlowSpec flowSpec = FlowBuilder.messageProcessor(IndexMessage.class).process(m -> m).build();
+    tracing = new Tracing();
+    flow = new Flow(flowSpec, new NoOpLockManager(), tracing);
+    message = IndexMessage.example();
+  }
+
+  @Benchmark
+  public Collection<Message> process() {
+    tracing.register(message.getTracing());
+    Collection<Message> result = flow.process(message);
+    tracing.deregister();
+    return result;
+  }
+}
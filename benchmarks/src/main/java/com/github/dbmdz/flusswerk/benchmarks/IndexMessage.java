@@ -0,0 +1,72 @@
+package com.github.dbmdz.flusswerk.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/** A typical Flusswerk message: an identifier and some metadata for the next processing step. */
+public class IndexMessage extends Message {
+
+  private final String id;
+  private final String collection;
+  private final List<String> files;
+  private final boolean reindex;
+
+  @JsonCreator
+  public IndexMessage(
+      @JsonProperty("id") String id,
+      @JsonProperty("collection") String collection,
+      @JsonProperty("files") List<String> files,
+      @JsonProperty("reindex") boolean reindex) {
+    this.id = id;
+    this.collection = collection;
+    this.files = files;
+    this.reindex = reindex;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getCollection() {
+    return collection;
+  }
+
+  public List<String> getFiles() {
+    return files;
+  }
+
+  public boolean isReindex() {
+    return reindex;
+  }
+
+  /** @return a message of typical size with a tracing path of three steps */
+  public static IndexMessage example() {
+    return withFiles(4);
+  }
+
+  /**
+   * @param count the number of files
+   * @return a message like {@link #example()} with the given number of files
+   */
+  public static IndexMessage withFiles(int count) {
+    IndexMessage message =
+        new IndexMessage(
+            "bsb11409154",
+            "digitale-sammlungen",
+            IntStream.rangeClosed(1, count)
+                .mapToObj(i -> String.format("bsb11409154_%05d.jpg", i))
+                .collect(Collectors.toList()),
+            false);
+    message.setTracing(
+        List.of(
+            "01FBXFJ1D0TS2M5SK6ZZ5BVQ6N",
+            "01FBXFJ1D0X1NSJ0FWXKSC59AV",
+            "01FBXFJ1D0VTFSD6Z9ARYXKFN4"));
+    message.getEnvelope().setRetries(1);
+    return message;
+  }
+}
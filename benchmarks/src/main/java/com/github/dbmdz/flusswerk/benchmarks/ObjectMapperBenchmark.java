@@ -0,0 +1,76 @@
+package com.github.dbmdz.flusswerk.benchmarks;
+
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading and writing messages via the generic {@link
+ * com.fasterxml.jackson.databind.ObjectMapper} methods with the cached readers and writers of
+ * {@link FlusswerkObjectMapper}, with and without bytecode binding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectMapperBenchmark {
+
+  private FlusswerkObjectMapper mapper;
+  private FlusswerkObjectMapper bytecodeMapper;
+  private IndexMessage message;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    var incomingMessageType = new IncomingMessageType(IndexMessage.class);
+    mapper = new FlusswerkObjectMapper(incomingMessageType);
+    bytecodeMapper = new FlusswerkObjectMapper(incomingMessageType);
+    bytecodeMapper.enableBytecodeBinding();
+    message = IndexMessage.example();
+    json = mapper.serialize(message);
+  }
+
+  @Benchmark
+  public Message readValue() throws IOException {
+    return mapper.readValue(json, IndexMessage.class);
+  }
+
+  @Benchmark
+  public Message deserialize() throws IOException {
+    return mapper.deserialize(json);
+  }
+
+  @Benchmark
+  public Message deserializeWithBytecodeBinding() throws IOException {
+    return bytecodeMapper.deserialize(json);
+  }
+
+  @Benchmark
+  public byte[] writeValueAsBytes() throws IOException {
+    return mapper.writeValueAsBytes(message);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return mapper.serialize(message);
+  }
+
+  @Benchmark
+  public byte[] serializeWithBytecodeBinding() throws IOException {
+    return bytecodeMapper.serialize(message);
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.dbmdz.flusswerk.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the allocations of serializing outgoing messages into a fresh growing buffer with the
+ * pooled output buffers of {@link FlusswerkObjectMapper}. Run with <code>-prof gc</code> and
+ * compare <code>gc.alloc.rate.norm</code> (bytes allocated per message).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  /** Number of files in the message, 4 for a typical message and 5000 for a large one. */
+  @Param({"4", "5000"})
+  public int files;
+
+  private FlusswerkObjectMapper mapper;
+  private ObjectWriter writer;
+  private IndexMessage message;
+
+  @Setup
+  public void setUp() {
+    mapper = new FlusswerkObjectMapper(new IncomingMessageType(IndexMessage.class));
+    writer = mapper.writerFor(IndexMessage.class);
+    message = IndexMessage.withFiles(files);
+  }
+
+  @Benchmark
+  public byte[] freshBuffer() throws IOException {
+    return writer.writeValueAsBytes(message);
+  }
+
+  @Benchmark
+  public byte[] pooledBuffer() throws IOException {
+    return mapper.serialize(message);
+  }
+}
@@ -0,0 +1,613 @@
+package com.github.dbmdz.flusswerk.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a {@code StreamingMessageCodec} for every message class annotated with {@code
+ * GenerateCodec} and registers all generated codecs for the {@link java.util.ServiceLoader}.
+ *
+ * <p>The codec reads and writes the parameters of the constructor annotated with {@code
+ * JsonCreator} plus the fields all messages have. Strings, primitives, their wrappers and string
+ * collections are handled directly with the streaming API, all other types are delegated to
+ * Jackson. Public getters and fields that Jackson would serialize, but that are no creator
+ * parameters, are reported as errors, since the codec would drop them. Annotate them with {@code
+ * JsonIgnore} if that is intended.
+ */
+@SupportedAnnotationTypes(CodecProcessor.GENERATE_CODEC)
+public class CodecProcessor extends AbstractProcessor {
+
+  static final String GENERATE_CODEC = "com.github.dbmdz.flusswerk.framework.jackson.GenerateCodec";
+  private static final String MESSAGE_CODEC =
+      "com.github.dbmdz.flusswerk.framework.jackson.MessageCodec";
+  private static final String MESSAGE = "com.github.dbmdz.flusswerk.framework.model.Message";
+  private static final String JSON_CREATOR = "com.fasterxml.jackson.annotation.JsonCreator";
+  private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+  private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+  private static final Set<String> COMMON_FIELDS = Set.of("tracingId", "tracing", "envelope");
+  private static final Set<String> STRING_COLLECTIONS =
+      Set.of(
+          "java.util.List<java.lang.String>",
+          "java.util.Collection<java.lang.String>",
+          "java.lang.Iterable<java.lang.String>");
+
+  private final Set<String> generatedCodecs = new TreeSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          error(element, "@GenerateCodec is only supported for classes");
+          continue;
+        }
+        generate((TypeElement) element);
+      }
+    }
+    if (roundEnv.processingOver() && !generatedCodecs.isEmpty()) {
+      writeServiceFile();
+    }
+    return true;
+  }
+
+  private void generate(TypeElement messageClass) {
+    TypeMirror message = processingEnv.getElementUtils().getTypeElement(MESSAGE).asType();
+    if (!processingEnv.getTypeUtils().isAssignable(messageClass.asType(), message)) {
+      error(messageClass, "@GenerateCodec is only supported for subclasses of Message");
+      return;
+    }
+    if (!messageClass.getTypeParameters().isEmpty()) {
+      error(messageClass, "@GenerateCodec is not supported for generic classes");
+      return;
+    }
+    if (messageClass.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(messageClass, "@GenerateCodec is not supported for abstract classes");
+      return;
+    }
+    ExecutableElement creator = findCreator(messageClass);
+    if (creator == null) {
+      error(messageClass, "@GenerateCodec needs a non-private constructor annotated @JsonCreator");
+      return;
+    }
+    List<Property> properties = new ArrayList<>();
+    for (VariableElement parameter : creator.getParameters()) {
+      String name = propertyName(parameter);
+      if (COMMON_FIELDS.contains(name)) {
+        error(parameter, "Property " + name + " is already used by Message");
+        return;
+      }
+      String accessor = findAccessor(messageClass, name);
+      if (accessor == null) {
+        error(parameter, "No getter or field for property " + name);
+        return;
+      }
+      properties.add(new Property(name, parameter.asType(), accessor, properties.size()));
+    }
+    if (!checkSerializedProperties(messageClass, properties)) {
+      return;
+    }
+
+    String packageName = packageOf(messageClass);
+    String codecName = codecName(messageClass);
+    String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+    try (Writer writer =
+        processingEnv.getFiler().createSourceFile(qualifiedCodecName, messageClass).openWriter()) {
+      writer.write(source(packageName, codecName, messageClass, properties));
+    } catch (IOException e) {
+      error(messageClass, "Could not write codec: " + e.getMessage());
+      return;
+    }
+    generatedCodecs.add(qualifiedCodecName);
+  }
+
+  private ExecutableElement findCreator(TypeElement messageClass) {
+    for (ExecutableElement constructor :
+        ElementFilter.constructorsIn(messageClass.getEnclosedElements())) {
+      if (annotation(constructor, JSON_CREATOR) != null
+          && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return constructor;
+      }
+    }
+    return null;
+  }
+
+  private String propertyName(VariableElement parameter) {
+    String name = jsonPropertyName(parameter);
+    return name != null ? name : parameter.getSimpleName().toString();
+  }
+
+  /** @return the name given with {@code JsonProperty} or null */
+  private static String jsonPropertyName(Element element) {
+    AnnotationMirror jsonProperty = annotation(element, JSON_PROPERTY);
+    if (jsonProperty != null) {
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+          jsonProperty.getElementValues().entrySet()) {
+        if (entry.getKey().getSimpleName().contentEquals("value")) {
+          String value = (String) entry.getValue().getValue();
+          if (!value.isEmpty()) {
+            return value;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reports getters and fields Jackson would serialize that the codec cannot write, since it only
+   * writes creator parameters.
+   *
+   * @return true if the codec writes all serialized properties
+   */
+  private boolean checkSerializedProperties(TypeElement messageClass, List<Property> properties) {
+    Set<String> written = new TreeSet<>(COMMON_FIELDS);
+    properties.forEach(property -> written.add(property.name));
+    List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(messageClass);
+    Set<String> ignored = new TreeSet<>();
+    for (VariableElement field : ElementFilter.fieldsIn(members)) {
+      if (annotation(field, JSON_IGNORE) != null) {
+        ignored.add(field.getSimpleName().toString());
+      }
+    }
+    boolean complete = true;
+    for (Element member : members) {
+      if (!isSerialized(member)) {
+        continue;
+      }
+      String name = serializedName(member);
+      if (name == null || written.contains(name) || ignored.contains(name)) {
+        continue;
+      }
+      error(
+          member,
+          "Property "
+              + name
+              + " is serialized by Jackson, but the codec would drop it. Add it to the"
+              + " @JsonCreator constructor or annotate it @JsonIgnore");
+      complete = false;
+    }
+    return complete;
+  }
+
+  /** Public instance getters and fields of subclasses of Message, like Jackson finds them. */
+  private boolean isSerialized(Element member) {
+    Set<Modifier> modifiers = member.getModifiers();
+    if (!modifiers.contains(Modifier.PUBLIC)
+        || modifiers.contains(Modifier.STATIC)
+        || modifiers.contains(Modifier.TRANSIENT)
+        || annotation(member, JSON_IGNORE) != null) {
+      return false;
+    }
+    TypeElement declaring = (TypeElement) member.getEnclosingElement();
+    String declaringName = declaring.getQualifiedName().toString();
+    if (declaringName.equals(MESSAGE) || declaringName.equals("java.lang.Object")) {
+      return false;
+    }
+    if (member.getKind() == ElementKind.FIELD) {
+      return true;
+    }
+    return member.getKind() == ElementKind.METHOD
+        && ((ExecutableElement) member).getParameters().isEmpty();
+  }
+
+  /** @return the property name of a field or getter, null for other methods */
+  private static String serializedName(Element member) {
+    String explicit = jsonPropertyName(member);
+    if (explicit != null) {
+      return explicit;
+    }
+    String name = member.getSimpleName().toString();
+    if (member.getKind() == ElementKind.FIELD) {
+      return name;
+    }
+    TypeMirror returnType = ((ExecutableElement) member).getReturnType();
+    String property;
+    if (name.startsWith("get") && returnType.getKind() != TypeKind.VOID) {
+      property = name.substring(3);
+    } else if (name.startsWith("is") && returnType.getKind() == TypeKind.BOOLEAN) {
+      property = name.substring(2);
+    } else {
+      return null;
+    }
+    if (property.isEmpty()) {
+      return null;
+    }
+    // Like Jackson, lower the leading upper case letters, e.g. getURL → url
+    char[] chars = property.toCharArray();
+    for (int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+      chars[i] = Character.toLowerCase(chars[i]);
+    }
+    return new String(chars);
+  }
+
+  private String findAccessor(TypeElement messageClass, String name) {
+    String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(messageClass);
+    for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+      String methodName = method.getSimpleName().toString();
+      boolean isGetter =
+          methodName.equals("get" + capitalized)
+              || (methodName.equals("is" + capitalized)
+                  && method.getReturnType().getKind() == TypeKind.BOOLEAN);
+      if (isGetter && method.getParameters().isEmpty() && isAccessible(method)) {
+        return methodName + "()";
+      }
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(members)) {
+      if (field.getSimpleName().contentEquals(name) && isAccessible(field)) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isAccessible(Element element) {
+    return !element.getModifiers().contains(Modifier.PRIVATE)
+        && !element.getModifiers().contains(Modifier.STATIC);
+  }
+
+  private static AnnotationMirror annotation(Element element, String annotationType) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+      if (type.getQualifiedName().contentEquals(annotationType)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private String packageOf(TypeElement messageClass) {
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(messageClass);
+    return packageElement.getQualifiedName().toString();
+  }
+
+  /** Nested classes get the names of their enclosing classes as prefix, e.g. Outer_InnerCodec. */
+  private static String codecName(TypeElement messageClass) {
+    StringBuilder name = new StringBuilder(messageClass.getSimpleName());
+    Element enclosing = messageClass.getEnclosingElement();
+    while (enclosing.getKind().isClass() || enclosing.getKind().isInterface()) {
+      name.insert(0, enclosing.getSimpleName() + "_");
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name.append("Codec").toString();
+  }
+
+  private String source(
+      String packageName, String codecName, TypeElement messageClass, List<Property> properties) {
+    String type = messageClass.getQualifiedName().toString();
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source
+        .append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+        .append("import com.fasterxml.jackson.core.JsonParser;\n")
+        .append("import com.fasterxml.jackson.core.JsonToken;\n")
+        .append("import com.fasterxml.jackson.core.type.TypeReference;\n")
+        .append("import com.fasterxml.jackson.databind.DeserializationContext;\n")
+        .append("import com.fasterxml.jackson.databind.SerializerProvider;\n")
+        .append("import com.github.dbmdz.flusswerk.framework.jackson.StreamingMessageCodec;\n")
+        .append("import java.io.IOException;\n")
+        .append("import javax.annotation.processing.Generated;\n\n")
+        .append("@Generated(\"")
+        .append(CodecProcessor.class.getName())
+        .append("\")\n")
+        .append("public final class ")
+        .append(codecName)
+        .append(" extends StreamingMessageCodec<")
+        .append(type)
+        .append("> {\n\n");
+
+    for (Property property : properties) {
+      if (property.readKind() == Kind.OBJECT && !property.type.getKind().isPrimitive()) {
+        source
+            .append("  private static final TypeReference<")
+            .append(property.type)
+            .append("> ")
+            .append(property.typeReference())
+            .append(" = new TypeReference<")
+            .append(property.type)
+            .append(">() {};\n");
+      }
+    }
+
+    source
+        .append("\n  public ")
+        .append(codecName)
+        .append("() {\n    super(")
+        .append(type)
+        .append(".class);\n  }\n\n");
+
+    // write
+    source
+        .append("  @Override\n  public void write(")
+        .append(type)
+        .append(
+            " message, JsonGenerator generator, SerializerProvider provider)\n"
+                + "      throws IOException {\n")
+        .append("    generator.writeStartObject();\n");
+    for (Property property : properties) {
+      source.append("    ").append(property.write()).append("\n");
+    }
+    source
+        .append("    writeCommonFields(message, generator, provider);\n")
+        .append("    generator.writeEndObject();\n  }\n\n");
+
+    // read
+    source
+        .append("  @Override\n  public ")
+        .append(type)
+        .append(" read(JsonParser parser, DeserializationContext context) throws IOException {\n");
+    for (Property property : properties) {
+      source
+          .append("    ")
+          .append(property.type)
+          .append(" ")
+          .append(property.variable())
+          .append(" = ")
+          .append(defaultValue(property.type))
+          .append(";\n");
+    }
+    source
+        .append("    CommonFields common = new CommonFields();\n")
+        .append("    JsonToken token = parser.currentToken();\n")
+        .append("    if (token == JsonToken.START_OBJECT) {\n")
+        .append("      token = parser.nextToken();\n")
+        .append("    }\n")
+        .append("    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {\n")
+        .append("      String field = parser.getCurrentName();\n")
+        .append("      parser.nextToken();\n")
+        .append("      switch (field) {\n");
+    for (Property property : properties) {
+      source
+          .append("        case \"")
+          .append(property.name)
+          .append("\":\n          ")
+          .append(property.read())
+          .append("\n          break;\n");
+    }
+    source
+        .append("        default:\n")
+        .append("          if (!readCommonField(field, parser, context, common)) {\n")
+        .append("            parser.skipChildren();\n")
+        .append("          }\n")
+        .append("      }\n")
+        .append("    }\n")
+        .append("    return common.applyTo(new ")
+        .append(type)
+        .append("(");
+    for (int i = 0; i < properties.size(); i++) {
+      source.append(i == 0 ? "" : ", ").append(properties.get(i).variable());
+    }
+    source.append("));\n  }\n}\n");
+    return source.toString();
+  }
+
+  private static String defaultValue(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return "false";
+      case CHAR:
+        return "'\\0'";
+      case BYTE:
+      case SHORT:
+      case INT:
+        return "0";
+      case LONG:
+        return "0L";
+      case FLOAT:
+        return "0.0f";
+      case DOUBLE:
+        return "0.0";
+      default:
+        return "null";
+    }
+  }
+
+  private void writeServiceFile() {
+    try {
+      FileObject file =
+          processingEnv
+              .getFiler()
+              .createResource(
+                  StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + MESSAGE_CODEC);
+      try (Writer writer = file.openWriter()) {
+        for (String codec : generatedCodecs) {
+          writer.write(codec);
+          writer.write("\n");
+        }
+      }
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "Could not register codecs: " + e.getMessage());
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  /** How a property is read and written. */
+  private enum Kind {
+    STRING,
+    STRINGS,
+    INT,
+    LONG,
+    DOUBLE,
+    FLOAT,
+    BOOLEAN,
+    OBJECT
+  }
+
+  /** A creator parameter with its getter. */
+  private static class Property {
+    private final String name;
+    private final TypeMirror type;
+    private final String accessor;
+    private final int index;
+
+    Property(String name, TypeMirror type, String accessor, int index) {
+      this.name = name;
+      this.type = type;
+      this.accessor = accessor;
+      this.index = index;
+    }
+
+    String variable() {
+      return "p" + index;
+    }
+
+    String typeReference() {
+      return "TYPE_" + index;
+    }
+
+    Kind readKind() {
+      switch (type.getKind()) {
+        case INT:
+          return Kind.INT;
+        case LONG:
+          return Kind.LONG;
+        case DOUBLE:
+          return Kind.DOUBLE;
+        case FLOAT:
+          return Kind.FLOAT;
+        case BOOLEAN:
+          return Kind.BOOLEAN;
+        case DECLARED:
+          return declaredKind((DeclaredType) type);
+        default:
+          return Kind.OBJECT;
+      }
+    }
+
+    private static Kind declaredKind(DeclaredType type) {
+      String name = type.toString();
+      switch (name) {
+        case "java.lang.String":
+          return Kind.STRING;
+        case "java.lang.Integer":
+          return Kind.INT;
+        case "java.lang.Long":
+          return Kind.LONG;
+        case "java.lang.Double":
+          return Kind.DOUBLE;
+        case "java.lang.Boolean":
+          return Kind.BOOLEAN;
+        default:
+          return STRING_COLLECTIONS.contains(name) ? Kind.STRINGS : Kind.OBJECT;
+      }
+    }
+
+    String write() {
+      String value = "message." + accessor;
+      boolean primitive = type.getKind().isPrimitive() && type.getKind() != TypeKind.CHAR;
+      if (primitive && type.getKind() == TypeKind.BOOLEAN) {
+        return "generator.writeBooleanField(\"" + name + "\", " + value + ");";
+      }
+      if (primitive) {
+        return "generator.writeNumberField(\"" + name + "\", " + value + ");";
+      }
+      switch (readKind()) {
+        case STRING:
+          return "writeString(generator, \"" + name + "\", " + value + ");";
+        case STRINGS:
+          return "writeStrings(generator, \"" + name + "\", " + value + ");";
+        default:
+          return "writeObject(generator, \"" + name + "\", " + value + ", provider);";
+      }
+    }
+
+    String read() {
+      boolean primitive = type.getKind().isPrimitive();
+      switch (readKind()) {
+        case STRING:
+          return variable() + " = readString(parser, context);";
+        case STRINGS:
+          return variable() + " = readStrings(parser, context);";
+        case INT:
+          return assign("Integer", "readInt(parser, context)", primitive, "");
+        case LONG:
+          return assign("Long", "readLong(parser, context)", primitive, "");
+        case DOUBLE:
+          return assign("Double", "readDouble(parser, context)", primitive, "");
+        case FLOAT:
+          return assign("Double", "readDouble(parser, context)", true, ".floatValue()");
+        case BOOLEAN:
+          return assign("Boolean", "readBoolean(parser, context)", primitive, "");
+        default:
+          if (primitive) {
+            String boxed = boxed(type.getKind());
+            return assign(
+                boxed,
+                "readObject(parser, context, context.constructType(" + boxed + ".class))",
+                true,
+                "");
+          }
+          return variable()
+              + " = readObject(parser, context, context.getTypeFactory().constructType("
+              + typeReference()
+              + "));";
+      }
+    }
+
+    /** Primitives keep their default value if the field is null. */
+    private String assign(String boxed, String expression, boolean primitive, String conversion) {
+      if (!primitive) {
+        return variable() + " = " + expression + ";";
+      }
+      return "{ "
+          + boxed
+          + " value = "
+          + expression
+          + "; if (value != null) { "
+          + variable()
+          + " = value"
+          + conversion
+          + "; } }";
+    }
+
+    private static String boxed(TypeKind kind) {
+      switch (kind) {
+        case BYTE:
+          return "Byte";
+        case SHORT:
+          return "Short";
+        case CHAR:
+          return "Character";
+        default:
+          throw new IllegalArgumentException("Unexpected primitive " + kind);
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.github.dbmdz.flusswerk.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.dbmdz.flusswerk.framework.jackson.DefaultMixin;
+import com.github.dbmdz.flusswerk.framework.jackson.EnvelopeMixin;
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.jackson.MessageCodec;
+import com.github.dbmdz.flusswerk.framework.model.Envelope;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("The CodecProcessor")
+class CodecProcessorTest {
+
+  private SampleMessage message;
+
+  @BeforeEach
+  void setUp() {
+    message =
+        new SampleMessage(
+            "bsb12345678",
+            42,
+            1L << 40,
+            true,
+            0.75,
+            null,
+            List.of("a.jpg", "b.jpg"),
+            SampleMessage.State.UPDATED,
+            Map.of("pages", 42));
+    message.setTracingId("tracing-id");
+    message.setTracing(List.of("first", "second"));
+    message.getEnvelope().setRetries(2);
+    message.getEnvelope().setTimestamp(LocalDateTime.of(2021, 7, 1, 12, 30));
+  }
+
+  @DisplayName("should register generated codecs for the ServiceLoader")
+  @Test
+  void shouldRegisterCodecs() {
+    List<Class<?>> messageClasses =
+        ServiceLoader.load(MessageCodec.class).stream()
+            .map(provider -> (Class<?>) provider.get().getMessageClass())
+            .collect(Collectors.toList());
+    assertThat(messageClasses)
+        .containsExactlyInAnyOrder(SampleMessage.class, Messages.Nested.class);
+  }
+
+  @DisplayName("should generate codecs that read what they write")
+  @Test
+  void shouldReadWhatItWrites() throws IOException {
+    var mapper = new FlusswerkObjectMapper(new IncomingMessageType(SampleMessage.class));
+
+    Message restored = mapper.deserialize(mapper.serialize(message));
+
+    assertThat(restored).usingRecursiveComparison().isEqualTo(message);
+  }
+
+  @DisplayName("should generate codecs compatible with plain Jackson")
+  @Test
+  void shouldBeCompatibleWithPlainJackson() throws IOException {
+    var mapper = new FlusswerkObjectMapper(new IncomingMessageType(SampleMessage.class));
+    // Configured like FlusswerkObjectMapper, but without codecs
+    var plainMapper =
+        new ObjectMapper()
+            .addMixIn(Message.class, DefaultMixin.class)
+            .addMixIn(Envelope.class, EnvelopeMixin.class)
+            .registerModule(new JavaTimeModule());
+
+    Message fromPlain = mapper.deserialize(plainMapper.writeValueAsBytes(message));
+    Message fromCodec = plainMapper.readValue(mapper.serialize(message), SampleMessage.class);
+
+    assertThat(fromPlain).usingRecursiveComparison().isEqualTo(message);
+    assertThat(fromCodec).usingRecursiveComparison().isEqualTo(message);
+  }
+
+  @DisplayName("should support nested classes and varargs creators")
+  @Test
+  void shouldSupportNestedClasses() throws IOException {
+    var mapper = new FlusswerkObjectMapper(new IncomingMessageType(Messages.Nested.class));
+    var nested = new Messages.Nested("a", "b");
+
+    Messages.Nested restored = (Messages.Nested) mapper.deserialize(mapper.serialize(nested));
+
+    assertThat(restored.values).containsExactly("a", "b");
+  }
+
+  @DisplayName("should reject properties the codec would drop")
+  @Test
+  void shouldRejectPropertiesTheCodecWouldDrop(@TempDir Path output) {
+    List<Diagnostic<? extends JavaFileObject>> errors =
+        compile(
+            output,
+            "@GenerateCodec public class Article extends Message {",
+            "  private final String id;",
+            "  public String title;",
+            "  @JsonCreator public Article(@JsonProperty(\"id\") String id) { this.id = id; }",
+            "  public String getId() { return id; }",
+            "  public int getWordCount() { return 0; }",
+            "  @JsonIgnore public String getSummary() { return id; }",
+            "}");
+
+    assertThat(errors)
+        .extracting(error -> error.getMessage(Locale.ROOT))
+        .hasSize(2)
+        .anyMatch(message -> message.startsWith("Property title "))
+        .anyMatch(message -> message.startsWith("Property wordCount "));
+  }
+
+  @DisplayName("should accept ignored properties")
+  @Test
+  void shouldAcceptIgnoredProperties(@TempDir Path output) {
+    List<Diagnostic<? extends JavaFileObject>> errors =
+        compile(
+            output,
+            "@GenerateCodec public class Article extends Message {",
+            "  @JsonIgnore private final String id;",
+            "  @JsonCreator public Article(@JsonProperty(\"name\") String name) { id = name; }",
+            "  public String getName() { return id; }",
+            "  public String getId() { return id; }",
+            "}");
+
+    assertThat(errors).isEmpty();
+  }
+
+  /** Compiles a message class with the processor and returns the errors. */
+  private static List<Diagnostic<? extends JavaFileObject>> compile(Path output, String... lines) {
+    String source =
+        "import com.fasterxml.jackson.annotation.*;\n"
+            + "import com.github.dbmdz.flusswerk.framework.jackson.GenerateCodec;\n"
+            + "import com.github.dbmdz.flusswerk.framework.model.Message;\n"
+            + String.join("\n", lines);
+    JavaFileObject file =
+        new SimpleJavaFileObject(URI.create("string:///Article.java"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+          }
+        };
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaCompiler.CompilationTask task =
+        compiler.getTask(
+            null,
+            null,
+            diagnostics,
+            List.of("-classpath", System.getProperty("java.class.path"), "-d", output.toString()),
+            null,
+            List.of(file));
+    task.setProcessors(List.of(new CodecProcessor()));
+    task.call();
+    return diagnostics.getDiagnostics().stream()
+        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,34 @@
+package com.github.dbmdz.flusswerk.processor;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.dbmdz.flusswerk.framework.jackson.GenerateCodec;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+
+class Messages {
+
+  /** Nested message with varargs creator. */
+  @GenerateCodec
+  static class Nested extends Message {
+    final String[] values;
+
+    @JsonCreator
+    Nested(@JsonProperty("values") String... values) {
+      this.values = values;
+    }
+  }
+
+  /** Message without generated codec. */
+  static class Plain extends Message {
+    private final String id;
+
+    @JsonCreator
+    Plain(@JsonProperty("id") String id) {
+      this.id = id;
+    }
+
+    public String getId() {
+      return id;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.github.dbmdz.flusswerk.processor;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.dbmdz.flusswerk.framework.jackson.GenerateCodec;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.List;
+import java.util.Map;
+
+@GenerateCodec
+public class SampleMessage extends Message {
+
+  public enum State {
+    NEW,
+    UPDATED
+  }
+
+  private final String id;
+  private final int pages;
+  private final long size;
+  private final boolean reindex;
+  private final double score;
+  private final Integer priority;
+  private final List<String> files;
+  private final State state;
+  private final Map<String, Integer> counts;
+
+  @JsonCreator
+  public SampleMessage(
+      @JsonProperty("id") String id,
+      @JsonProperty("pages") int pages,
+      @JsonProperty("size") long size,
+      @JsonProperty("reindex") boolean reindex,
+      @JsonProperty("score") double score,
+      @JsonProperty("priority") Integer priority,
+      @JsonProperty("files") List<String> files,
+      @JsonProperty("state") State state,
+      @JsonProperty("counts") Map<String, Integer> counts) {
+    this.id = id;
+    this.pages = pages;
+    this.size = size;
+    this.reindex = reindex;
+    this.score = score;
+    this.priority = priority;
+    this.files = files;
+    this.state = state;
+    this.counts = counts;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public int getPages() {
+    return pages;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public boolean isReindex() {
+    return reindex;
+  }
+
+  public double getScore() {
+    return score;
+  }
+
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public List<String> getFiles() {
+    return files;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public Map<String, Integer> getCounts() {
+    return counts;
+  }
+}
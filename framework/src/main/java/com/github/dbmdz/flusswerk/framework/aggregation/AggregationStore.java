@@ -0,0 +1,47 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the parts of groups of correlated messages until an {@link Aggregator} completes them.
+ * Implementations must be safe for concurrent use, so that every group is claimed at most once.
+ *
+ * @param <M> The message class
+ */
+public interface AggregationStore<M extends Message> {
+
+  /**
+   * Adds a part to a group and starts the group if necessary. Adding a part with an id that is
+   * already in the group replaces that part, so redelivered messages are not counted twice.
+   *
+   * @param key the correlation key of the group
+   * @param partId the id of the part within the group
+   * @param part the message to keep
+   * @param started the time to record if this part starts a new group
+   * @return the number of distinct parts in the group
+   * @throws IOException if the part cannot be stored
+   */
+  int add(String key, String partId, M part, Instant started) throws IOException;
+
+  /**
+   * Removes a group and returns its parts. Only one caller gets the parts, any other caller gets
+   * nothing.
+   *
+   * @param key the correlation key of the group
+   * @return the parts of the group or nothing if there is no such group (anymore)
+   * @throws IOException if the parts cannot be loaded or removed
+   */
+  Optional<List<M>> claim(String key) throws IOException;
+
+  /**
+   * @param time the latest start time to include
+   * @return the correlation keys of all groups started at or before <code>time</code>
+   * @throws IOException if the groups cannot be loaded
+   */
+  Collection<String> startedBefore(Instant time) throws IOException;
+}
@@ -0,0 +1,108 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.RetryProcessingException;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Collects messages that share a correlation key (e.g. all pages of a document) until all expected
+ * parts have arrived or the group timed out. Use it with {@link
+ * com.github.dbmdz.flusswerk.framework.flow.builder.MessageProcessorStep#aggregate(Aggregator,
+ * Function)} to send one combined message per group.
+ *
+ * <p>There is no timer: timed out groups are completed with the next message that arrives, checked
+ * at most once per second. The parts of a timed out group are usually fewer than expected. Groups
+ * are removed from the store as soon as they are complete, so they are lost if sending the combined
+ * message fails.
+ *
+ * @param <M> The message class
+ */
+public class Aggregator<M extends Message> {
+
+  private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(1);
+
+  private final Function<M, String> correlationKey;
+  private final Function<M, String> partId;
+  private final ToIntFunction<M> expectedParts;
+  private final Duration timeout;
+  private final AggregationStore<M> store;
+  private final Clock clock;
+  private final AtomicReference<Instant> nextSweep;
+
+  /**
+   * @param correlationKey the key of the group a message belongs to
+   * @param partId the id of a message within its group, so that redelivered messages are only
+   *     counted once
+   * @param expectedParts the number of parts of the group a message belongs to
+   * @param timeout complete groups that are not complete after this time (<code>null</code> to wait
+   *     forever)
+   * @param store to keep the parts until the group is complete
+   */
+  public Aggregator(
+      Function<M, String> correlationKey,
+      Function<M, String> partId,
+      ToIntFunction<M> expectedParts,
+      Duration timeout,
+      AggregationStore<M> store) {
+    this(correlationKey, partId, expectedParts, timeout, store, Clock.systemUTC());
+  }
+
+  Aggregator(
+      Function<M, String> correlationKey,
+      Function<M, String> partId,
+      ToIntFunction<M> expectedParts,
+      Duration timeout,
+      AggregationStore<M> store,
+      Clock clock) {
+    this.correlationKey = requireNonNull(correlationKey);
+    this.partId = requireNonNull(partId);
+    this.expectedParts = requireNonNull(expectedParts);
+    this.timeout = timeout;
+    this.store = requireNonNull(store);
+    this.clock = requireNonNull(clock);
+    this.nextSweep = new AtomicReference<>(Instant.MIN);
+  }
+
+  /**
+   * Adds a message to its group.
+   *
+   * @param message the message to add
+   * @return the parts of every group completed by now, either because all parts arrived or because
+   *     the group timed out
+   */
+  public List<List<M>> add(M message) {
+    String key = requireNonNull(correlationKey.apply(message), "Correlation key must not be null");
+    Instant now = clock.instant();
+    List<List<M>> completed = new ArrayList<>();
+    try {
+      int parts = store.add(key, partId.apply(message), message, now);
+      if (parts >= expectedParts.applyAsInt(message)) {
+        store.claim(key).ifPresent(completed::add);
+      }
+      if (timeout != null && sweepIsDue(now)) {
+        for (String expired : store.startedBefore(now.minus(timeout))) {
+          store.claim(expired).ifPresent(completed::add);
+        }
+      }
+    } catch (IOException e) {
+      throw new RetryProcessingException("Could not aggregate message for group %s", key)
+          .causedBy(e);
+    }
+    return completed;
+  }
+
+  private boolean sweepIsDue(Instant now) {
+    Instant due = nextSweep.get();
+    return !now.isBefore(due) && nextSweep.compareAndSet(due, now.plus(SWEEP_INTERVAL));
+  }
+}
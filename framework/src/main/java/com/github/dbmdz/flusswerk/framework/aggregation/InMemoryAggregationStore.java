@@ -0,0 +1,59 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps groups of correlated messages in memory. Only suitable if all parts of a group are
+ * processed by the same application instance, and parts are lost on restart.
+ *
+ * @param <M> The message class
+ */
+public class InMemoryAggregationStore<M extends Message> implements AggregationStore<M> {
+
+  private static class Group<M> {
+    private final Instant started;
+    private final Map<String, M> parts = new LinkedHashMap<>();
+
+    Group(Instant started) {
+      this.started = started;
+    }
+  }
+
+  private final Map<String, Group<M>> groups = new HashMap<>();
+
+  @Override
+  public synchronized int add(String key, String partId, M part, Instant started) {
+    Group<M> group = groups.computeIfAbsent(key, k -> new Group<>(started));
+    group.parts.put(partId, part);
+    return group.parts.size();
+  }
+
+  @Override
+  public synchronized Optional<List<M>> claim(String key) {
+    Group<M> group = groups.remove(key);
+    if (group == null) {
+      return Optional.empty();
+    }
+    return Optional.of(new ArrayList<>(group.parts.values()));
+  }
+
+  @Override
+  public synchronized Collection<String> startedBefore(Instant time) {
+    List<String> keys = new ArrayList<>();
+    groups.forEach(
+        (key, group) -> {
+          if (!group.started.isAfter(time)) {
+            keys.add(key);
+          }
+        });
+    return keys;
+  }
+}
@@ -0,0 +1,144 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.redisson.api.RScript;
+import org.redisson.api.RScript.Mode;
+import org.redisson.api.RScript.ReturnType;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * Keeps groups of correlated messages in Redis, so that parts of a group can be processed by any
+ * application instance. Each group is a hash of its parts, and a sorted set keeps the start times
+ * of all groups. Adding and claiming are Lua scripts, so every group is claimed exactly once. Parts
+ * expire after a while, so that groups that are never completed do not fill up Redis, and start
+ * times older than that are trimmed whenever a part is added. Choose a time to live longer than the
+ * timeout of the {@link Aggregator}, otherwise groups might not be completed by the timeout.
+ *
+ * @param <M> The message class
+ */
+public class RedisAggregationStore<M extends Message> implements AggregationStore<M> {
+
+  private static final String ADD =
+      "redis.call('hset', KEYS[2], ARGV[1], ARGV[2]); "
+          + "redis.call('pexpire', KEYS[2], ARGV[3]); "
+          + "redis.call('zremrangebyscore', KEYS[1], '-inf', '(' .. (ARGV[4] - ARGV[3])); "
+          + "redis.call('zadd', KEYS[1], 'NX', ARGV[4], ARGV[5]); "
+          + "return redis.call('hlen', KEYS[2]);";
+
+  // The parts might have expired or been claimed already, an empty group is no group at all
+  private static final String CLAIM =
+      "redis.call('zrem', KEYS[1], ARGV[1]); "
+          + "local parts = redis.call('hvals', KEYS[2]); "
+          + "if #parts == 0 then return nil; end; "
+          + "redis.call('del', KEYS[2]); "
+          + "return parts;";
+
+  private final RedissonClient client;
+  private final String keyspace;
+  private final FlusswerkObjectMapper objectMapper;
+  private final long ttl;
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param objectMapper to store the parts
+   * @param ttl how long to keep the parts of a group after its last part has been added and the
+   *     start time of a group after it started
+   */
+  public RedisAggregationStore(
+      RedissonClient client, String keyspace, FlusswerkObjectMapper objectMapper, Duration ttl) {
+    this.client = requireNonNull(client);
+    this.keyspace = requireNonNull(keyspace);
+    this.objectMapper = requireNonNull(objectMapper);
+    this.ttl = ttl.toMillis();
+  }
+
+  @Override
+  public int add(String key, String partId, M part, Instant started) throws IOException {
+    byte[] payload = objectMapper.serialize(part);
+    Long parts;
+    try {
+      parts =
+          script()
+              .eval(
+                  Mode.READ_WRITE,
+                  ADD,
+                  ReturnType.INTEGER,
+                  List.of(startedKey(), groupKey(key)),
+                  partId.getBytes(UTF_8),
+                  payload,
+                  bytes(ttl),
+                  bytes(started.toEpochMilli()),
+                  key.getBytes(UTF_8));
+    } catch (RuntimeException e) {
+      throw new IOException("Could not add part to group " + key + " in Redis", e);
+    }
+    return parts.intValue();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Optional<List<M>> claim(String key) throws IOException {
+    List<byte[]> payloads;
+    try {
+      payloads =
+          script()
+              .eval(
+                  Mode.READ_WRITE,
+                  CLAIM,
+                  ReturnType.MULTI,
+                  List.of(startedKey(), groupKey(key)),
+                  (Object) key.getBytes(UTF_8));
+    } catch (RuntimeException e) {
+      throw new IOException("Could not claim group " + key + " in Redis", e);
+    }
+    if (payloads == null) {
+      return Optional.empty();
+    }
+    List<M> parts = new ArrayList<>(payloads.size());
+    for (byte[] payload : payloads) {
+      parts.add((M) objectMapper.deserialize(payload));
+    }
+    return Optional.of(parts);
+  }
+
+  @Override
+  public Collection<String> startedBefore(Instant time) throws IOException {
+    try {
+      return client
+          .<String>getScoredSortedSet(startedKey(), StringCodec.INSTANCE)
+          .valueRange(Double.NEGATIVE_INFINITY, true, time.toEpochMilli(), true);
+    } catch (RuntimeException e) {
+      throw new IOException("Could not load started groups from Redis", e);
+    }
+  }
+
+  String startedKey() {
+    return keyspace + "::aggregation::started";
+  }
+
+  String groupKey(String key) {
+    return keyspace + "::aggregation::group::" + key;
+  }
+
+  private RScript script() {
+    return client.getScript(ByteArrayCodec.INSTANCE);
+  }
+
+  private static byte[] bytes(long value) {
+    return Long.toString(value).getBytes(UTF_8);
+  }
+}
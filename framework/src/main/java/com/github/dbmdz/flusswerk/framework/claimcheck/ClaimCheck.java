@@ -0,0 +1,99 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements the claim check pattern: outgoing payloads above a threshold are moved to a {@link
+ * ClaimCheckStore} and only a reference is sent via RabbitMQ. The reference is transported in the
+ * AMQP header {@value #HEADER}.
+ */
+public class ClaimCheck {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClaimCheck.class);
+
+  /** AMQP header containing the reference to the payload. */
+  public static final String HEADER = "x-flusswerk-claim-check";
+
+  private final ClaimCheckStore store;
+  private final long threshold;
+
+  /** Never offload outgoing payloads. Incoming claim checks cannot be resolved. */
+  public ClaimCheck() {
+    this(null, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param store where to keep large payloads (null to disable claim checks)
+   * @param threshold offload payloads larger than this number of bytes
+   */
+  public ClaimCheck(ClaimCheckStore store, long threshold) {
+    this.store = store;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param headers the AMQP headers of a message (might be null)
+   * @return the reference to the payload if the message is a claim check
+   */
+  public static Optional<String> referenceFrom(Map<String, Object> headers) {
+    if (headers == null || headers.get(HEADER) == null) {
+      return Optional.empty();
+    }
+    // RabbitMQ delivers string headers as LongString
+    return Optional.of(headers.get(HEADER).toString());
+  }
+
+  /**
+   * @param payload the payload to send
+   * @return true if the payload should be sent as a claim check
+   */
+  public boolean shouldOffload(byte[] payload) {
+    return store != null && payload.length > threshold;
+  }
+
+  /**
+   * @param payload the payload to store
+   * @return the reference to send instead of the payload
+   * @throws IOException if the payload cannot be stored
+   */
+  public String offload(byte[] payload) throws IOException {
+    return requireStore().put(payload);
+  }
+
+  /**
+   * @param reference the reference as received in the {@value #HEADER} header
+   * @return the original payload
+   * @throws IOException if the payload cannot be loaded
+   */
+  public byte[] retrieve(String reference) throws IOException {
+    return requireStore().get(reference);
+  }
+
+  /**
+   * Removes the payload after its message has been acknowledged. Failures are only logged, since
+   * the message itself has been handled successfully.
+   *
+   * @param reference the reference as received in the {@value #HEADER} header
+   */
+  public void release(String reference) {
+    if (store == null) {
+      return;
+    }
+    try {
+      store.delete(reference);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete payload for claim check {}", reference, e);
+    }
+  }
+
+  private ClaimCheckStore requireStore() throws IOException {
+    if (store == null) {
+      throw new IOException("Claim checks are not configured");
+    }
+    return store;
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import java.io.IOException;
+
+/**
+ * Storage for message payloads that are too large to be sent through RabbitMQ. Instead of the
+ * payload, only the reference returned by {@link #put(byte[])} is sent.
+ */
+public interface ClaimCheckStore {
+
+  /**
+   * @param payload the payload to store
+   * @return the reference to retrieve the payload later
+   * @throws IOException if the payload cannot be stored
+   */
+  String put(byte[] payload) throws IOException;
+
+  /**
+   * @param reference a reference as returned by {@link #put(byte[])}
+   * @return the stored payload
+   * @throws IOException if there is no such payload or it cannot be read
+   */
+  byte[] get(String reference) throws IOException;
+
+  /**
+   * Removes a payload that is not needed anymore. Unknown references are ignored.
+   *
+   * @param reference a reference as returned by {@link #put(byte[])}
+   * @throws IOException if the payload cannot be removed
+   */
+  void delete(String reference) throws IOException;
+}
@@ -0,0 +1,54 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Keeps payloads as files in a directory, usually a volume shared by all Flusswerk applications of
+ * a workflow.
+ */
+public class FileSystemClaimCheckStore implements ClaimCheckStore {
+
+  private final Path directory;
+
+  /** @param directory the directory for the payloads (will be created if necessary) */
+  public FileSystemClaimCheckStore(Path directory) {
+    this.directory = directory.toAbsolutePath().normalize();
+  }
+
+  @Override
+  public String put(byte[] payload) throws IOException {
+    Files.createDirectories(directory);
+    String reference = UUID.randomUUID().toString();
+    // Write to a temporary file first so readers never see incomplete payloads
+    Path temporary = Files.createTempFile(directory, reference, ".tmp");
+    try {
+      Files.write(temporary, payload);
+      Files.move(temporary, path(reference), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return reference;
+  }
+
+  @Override
+  public byte[] get(String reference) throws IOException {
+    return Files.readAllBytes(path(reference));
+  }
+
+  @Override
+  public void delete(String reference) throws IOException {
+    Files.deleteIfExists(path(reference));
+  }
+
+  private Path path(String reference) throws IOException {
+    Path path = directory.resolve(reference).normalize();
+    if (!directory.equals(path.getParent())) {
+      throw new IOException("Invalid claim check reference: " + reference);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,75 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+
+/**
+ * Keeps payloads in Redis. Payloads expire after a while, so that payloads of messages that are
+ * never consumed do not fill up Redis.
+ */
+public class RedisClaimCheckStore implements ClaimCheckStore {
+
+  private final RedissonClient client;
+  private final String keyspace;
+  private final long ttl;
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param ttl how long to keep payloads at most
+   */
+  public RedisClaimCheckStore(RedissonClient client, String keyspace, Duration ttl) {
+    this.client = requireNonNull(client);
+    this.keyspace = requireNonNull(keyspace);
+    this.ttl = ttl.toMillis();
+  }
+
+  @Override
+  public String put(byte[] payload) throws IOException {
+    String reference = UUID.randomUUID().toString();
+    try {
+      bucket(reference).set(payload, ttl, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      throw new IOException("Could not store payload in Redis", e);
+    }
+    return reference;
+  }
+
+  @Override
+  public byte[] get(String reference) throws IOException {
+    byte[] payload;
+    try {
+      payload = bucket(reference).get();
+    } catch (RuntimeException e) {
+      throw new IOException("Could not load payload " + reference + " from Redis", e);
+    }
+    if (payload == null) {
+      throw new IOException("No payload for claim check " + reference);
+    }
+    return payload;
+  }
+
+  @Override
+  public void delete(String reference) throws IOException {
+    try {
+      bucket(reference).delete();
+    } catch (RuntimeException e) {
+      throw new IOException("Could not delete payload " + reference + " from Redis", e);
+    }
+  }
+
+  String key(String reference) {
+    return keyspace + "::claim-check::" + reference;
+  }
+
+  private RBucket<byte[]> bucket(String reference) {
+    return client.getBucket(key(reference), ByteArrayCodec.INSTANCE);
+  }
+}
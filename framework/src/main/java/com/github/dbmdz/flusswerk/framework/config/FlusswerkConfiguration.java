@@ -1,29 +1,50 @@
 package com.github.dbmdz.flusswerk.framework.config;
 
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheckStore;
+import com.github.dbmdz.flusswerk.framework.claimcheck.FileSystemClaimCheckStore;
+import com.github.dbmdz.flusswerk.framework.claimcheck.RedisClaimCheckStore;
 import com.github.dbmdz.flusswerk.framework.config.properties.AppProperties;
+import com.github.dbmdz.flusswerk.framework.config.properties.ClaimCheckProperties;
+import com.github.dbmdz.flusswerk.framework.config.properties.CompressionProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.MonitoringProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.ProcessingProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.RabbitMQProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.RedisProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.RoutingProperties;
+import com.github.dbmdz.flusswerk.framework.deduplication.Deduplicator;
+import com.github.dbmdz.flusswerk.framework.deduplication.InMemoryDeduplicationStore;
+import com.github.dbmdz.flusswerk.framework.deduplication.RedisDeduplicationStore;
+import com.github.dbmdz.flusswerk.framework.engine.DeferredTasks;
 import com.github.dbmdz.flusswerk.framework.engine.Engine;
 import com.github.dbmdz.flusswerk.framework.engine.FlusswerkConsumer;
 import com.github.dbmdz.flusswerk.framework.engine.Task;
 import com.github.dbmdz.flusswerk.framework.engine.Worker;
+import com.github.dbmdz.flusswerk.framework.engine.WorkerOptions;
 import com.github.dbmdz.flusswerk.framework.flow.Flow;
 import com.github.dbmdz.flusswerk.framework.flow.FlowSpec;
+import com.github.dbmdz.flusswerk.framework.flow.MessageFilter;
+import com.github.dbmdz.flusswerk.framework.flow.ReaderCache;
 import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.jackson.MessageCodec;
+import com.github.dbmdz.flusswerk.framework.jackson.WireFormat;
+import com.github.dbmdz.flusswerk.framework.locking.LocalLockManager;
 import com.github.dbmdz.flusswerk.framework.locking.LockManager;
-import com.github.dbmdz.flusswerk.framework.locking.NoOpLockManager;
+import com.github.dbmdz.flusswerk.framework.locking.NoOpPermitManager;
+import com.github.dbmdz.flusswerk.framework.locking.PermitManager;
 import com.github.dbmdz.flusswerk.framework.locking.RedisLockManager;
+import com.github.dbmdz.flusswerk.framework.locking.RedisPermitManager;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
 import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
 import com.github.dbmdz.flusswerk.framework.monitoring.DefaultFlowMetrics;
 import com.github.dbmdz.flusswerk.framework.monitoring.FlowMetrics;
 import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import com.github.dbmdz.flusswerk.framework.rabbitmq.Compression;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.MessageBroker;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.RabbitClient;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.RabbitConnection;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.RabbitMQ;
+import com.github.dbmdz.flusswerk.framework.rabbitmq.TransportOptions;
 import com.github.dbmdz.flusswerk.framework.reporting.DefaultProcessReport;
 import com.github.dbmdz.flusswerk.framework.reporting.ProcessReport;
 import com.github.dbmdz.flusswerk.framework.reporting.Tracing;
@@ -57,12 +78,20 @@ public class FlusswerkConfiguration {
   }
 
   @Bean
-  public Flow flow(Optional<FlowSpec> flowSpec, LockManager lockManager, Tracing tracing) {
+  public Flow flow(
+      Optional<FlowSpec> flowSpec,
+      LockManager lockManager,
+      PermitManager permitManager,
+      Tracing tracing,
+      MeterFactory meterFactory) {
     if (flowSpec.isEmpty()) {
       return null; // No FlowSpec → no Flow. We will have to handle this case when creating the
       // Engine bean as the sole consumer of the Flow bean.
     }
-    return new Flow(flowSpec.get(), lockManager, tracing);
+    if (flowSpec.get().getReader() instanceof ReaderCache) {
+      ((ReaderCache<?, ?, ?>) flowSpec.get().getReader()).registerMetrics(meterFactory);
+    }
+    return new Flow(flowSpec.get(), lockManager, permitManager, tracing);
   }
 
   @Bean
@@ -102,8 +131,67 @@ public class FlusswerkConfiguration {
 
   @Bean
   public FlusswerkObjectMapper flusswerkObjectMapper(
-      ObjectProvider<IncomingMessageType> incomingMessageType) {
-    return new FlusswerkObjectMapper(incomingMessageType.getIfAvailable(IncomingMessageType::new));
+      ObjectProvider<IncomingMessageType> incomingMessageType,
+      List<WireFormat> wireFormats,
+      List<MessageCodec<?>> codecs,
+      ProcessingProperties processingProperties,
+      RoutingProperties routingProperties) {
+    var mapper =
+        new FlusswerkObjectMapper(incomingMessageType.getIfAvailable(IncomingMessageType::new));
+    if (processingProperties.getBytecodeBinding()) {
+      mapper.enableBytecodeBinding();
+    }
+    wireFormats.forEach(mapper::registerWireFormat);
+    codecs.forEach(mapper::registerCodec);
+    // Fail on startup if a configured wire format is not available
+    routingProperties.getWireFormats().values().forEach(mapper::forWireFormat);
+    return mapper;
+  }
+
+  @Bean
+  public Compression compression(
+      CompressionProperties compressionProperties, MeterFactory meterFactory) {
+    return new Compression(
+        compressionProperties.getAlgorithm().orElse(null),
+        compressionProperties.getThreshold().toBytes(),
+        meterFactory);
+  }
+
+  @Bean
+  public ClaimCheck claimCheck(
+      ClaimCheckProperties claimCheckProperties,
+      Optional<RedissonClient> redissonClient,
+      RedisProperties redisProperties) {
+    if (claimCheckProperties.getStore().isEmpty()) {
+      return new ClaimCheck(); // claim checks are disabled
+    }
+    ClaimCheckStore store;
+    switch (claimCheckProperties.getStore().get()) {
+      case FILESYSTEM:
+        store =
+            new FileSystemClaimCheckStore(
+                claimCheckProperties
+                    .getDirectory()
+                    .orElseThrow(
+                        () ->
+                            new IllegalStateException(
+                                "flusswerk.claim-check.directory is required for store filesystem")));
+        break;
+      case REDIS:
+        store =
+            new RedisClaimCheckStore(
+                redissonClient.orElseThrow(
+                    () ->
+                        new IllegalStateException(
+                            "flusswerk.redis.address is required for claim check store redis")),
+                redisProperties.getKeyspace(),
+                claimCheckProperties.getTtl());
+        break;
+      default:
+        throw new IllegalStateException(
+            "Unsupported claim check store " + claimCheckProperties.getStore().get());
+    }
+    return new ClaimCheck(store, claimCheckProperties.getThreshold().toBytes());
   }
 
   @Bean
@@ -112,10 +200,21 @@ public class FlusswerkConfiguration {
     return new RabbitConnection(rabbitMQProperties, appProperties.getName());
   }
 
+  @Bean
+  public TransportOptions transportOptions(
+      ProcessingProperties processingProperties, Compression compression, ClaimCheck claimCheck) {
+    return TransportOptions.defaults()
+        .withBodyRetention(processingProperties.getBodyRetention())
+        .withCompression(compression)
+        .withClaimCheck(claimCheck);
+  }
+
   @Bean
   public RabbitClient rabbitClient(
-      FlusswerkObjectMapper flusswerkObjectMapper, RabbitConnection rabbitConnection) {
-    return new RabbitClient(flusswerkObjectMapper, rabbitConnection);
+      FlusswerkObjectMapper flusswerkObjectMapper,
+      RabbitConnection rabbitConnection,
+      TransportOptions transportOptions) {
+    return new RabbitClient(flusswerkObjectMapper, rabbitConnection, transportOptions);
   }
 
   @Bean
@@ -134,17 +233,51 @@ public class FlusswerkConfiguration {
   }
 
   @Bean
-  public LockManager lockManager(RedisProperties redisProperties) {
-    if (redisProperties.redisIsAvailable()) {
-      Config config = createRedisConfig(redisProperties);
-      RedissonClient client = Redisson.create(config);
+  public RedissonClient redissonClient(RedisProperties redisProperties) {
+    if (!redisProperties.redisIsAvailable()) {
+      return null; // No Redis, no client
+    }
+    return Redisson.create(createRedisConfig(redisProperties));
+  }
+
+  @Bean
+  public LockManager lockManager(
+      Optional<RedissonClient> redissonClient,
+      RedisProperties redisProperties,
+      MeterFactory meterFactory) {
+    if (redissonClient.isPresent()) {
       return new RedisLockManager(
-          client, redisProperties.getKeyspace(), redisProperties.getLockWaitTimeout());
+          redissonClient.get(),
+          redisProperties.getKeyspace(),
+          redisProperties.getLockWaitTimeout(),
+          redisProperties.getLockLeaseTime(),
+          meterFactory);
     } else {
-      return new NoOpLockManager();
+      // Without Redis, locks are only valid within this app
+      return new LocalLockManager(redisProperties.getLockWaitTimeout(), meterFactory);
     }
   }
 
+  @Bean
+  public PermitManager permitManager(
+      Optional<FlowSpec> flowSpec,
+      Optional<RedissonClient> redissonClient,
+      RedisProperties redisProperties) {
+    if (redissonClient.isPresent()) {
+      return new RedisPermitManager(
+          redissonClient.get(),
+          redisProperties.getKeyspace(),
+          redisProperties.getLockWaitTimeout(),
+          redisProperties.getPermitLeaseTime());
+    }
+    if (flowSpec.isPresent() && flowSpec.get().getPermits() != null) {
+      throw new IllegalStateException(
+          "The flow needs permits, but there is no Redis to share them, "
+              + "set flusswerk.redis.address");
+    }
+    return new NoOpPermitManager();
+  }
+
   @Bean
   public PriorityBlockingQueue<Task> taskQueue() {
     return new PriorityBlockingQueue<>();
@@ -164,10 +297,17 @@ public class FlusswerkConfiguration {
       ProcessingProperties processingProperties,
       Optional<ProcessReport> processReport,
       PriorityBlockingQueue<Task> taskQueue,
-      Tracing tracing) {
+      Tracing tracing,
+      Optional<DeferredTasks> deferredTasks,
+      Optional<Deduplicator> deduplicator)
+      throws IOException {
     if (flow.isEmpty()) {
       return Collections.emptyList(); // No Flow, nothing to do
     }
+    if (flow.get().isStreaming()) {
+      // Streamed messages are acknowledged only after RabbitMQ confirmed all outgoing messages
+      messageBroker.enablePublisherConfirms();
+    }
     return IntStream.range(0, processingProperties.getThreads())
         .mapToObj(
             n ->
@@ -178,18 +318,72 @@ public class FlusswerkConfiguration {
                     processReport.orElseGet(
                         () -> new DefaultProcessReport(appProperties.getName())),
                     taskQueue,
-                    tracing))
+                    tracing,
+                    WorkerOptions.defaults()
+                        .withDeferredTasks(deferredTasks.orElse(null))
+                        .withDeduplicator(deduplicator.orElse(null))))
         .collect(Collectors.toList());
   }
 
+  @Bean
+  public Deduplicator deduplicator(
+      Optional<FlowSpec> flowSpec,
+      Optional<RedissonClient> redissonClient,
+      ProcessingProperties processingProperties,
+      RedisProperties redisProperties,
+      MeterFactory meterFactory) {
+    if (flowSpec.isEmpty() || flowSpec.get().getDeduplication() == null) {
+      return null; // every message is processed
+    }
+    var deduplication = flowSpec.get().getDeduplication();
+    if (deduplication.isByContent()
+        && processingProperties.getBodyRetention() == BodyRetention.NONE) {
+      throw new IllegalStateException(
+          "Deduplication by content needs the message body, "
+              + "but flusswerk.processing.body-retention is none");
+    }
+    var local = new InMemoryDeduplicationStore(deduplication.getMaxSize(), deduplication.getTtl());
+    var shared =
+        redissonClient
+            .map(
+                client ->
+                    new RedisDeduplicationStore(
+                        client, redisProperties.getKeyspace(), deduplication.getTtl()))
+            .orElse(null);
+    return new Deduplicator(deduplication::keyFor, local, shared, meterFactory);
+  }
+
+  @Bean
+  public DeferredTasks deferredTasks(
+      RedisProperties redisProperties,
+      LockManager lockManager,
+      Semaphore availableWorkers,
+      PriorityBlockingQueue<Task> taskQueue) {
+    if (!redisProperties.getDeferLockedMessages() || !(lockManager instanceof RedisLockManager)) {
+      return null; // workers wait for locks
+    }
+    var deferredTasks =
+        new DeferredTasks(
+            availableWorkers,
+            taskQueue,
+            lockManager,
+            redisProperties.getLockWaitTimeout(),
+            DeferredTasks.DEFAULT_MAX_DEFERRALS);
+    ((RedisLockManager) lockManager).deferContendedLocks(deferredTasks::released);
+    return deferredTasks;
+  }
+
   @Bean
   public List<FlusswerkConsumer> flusswerkConsumers(
       Semaphore availableWorkers,
+      TransportOptions transportOptions,
       FlusswerkObjectMapper flusswerkObjectMapper,
+      Optional<FlowSpec> flowSpec,
       ProcessingProperties processingProperties,
       RabbitConnection rabbitConnection,
       RoutingProperties routingProperties,
       PriorityBlockingQueue<Task> taskQueue) {
+    MessageFilter filter = flowSpec.map(FlowSpec::getFilter).orElse(MessageFilter.acceptAll());
     int maxPriority = routingProperties.getIncoming().size();
     List<FlusswerkConsumer> flusswerkConsumers = new ArrayList<>();
     for (int i = 0; i < routingProperties.getIncoming().size(); i++) {
@@ -203,7 +397,9 @@ public class FlusswerkConfiguration {
                 flusswerkObjectMapper,
                 queueName,
                 priority,
-                taskQueue));
+                taskQueue,
+                transportOptions,
+                filter));
       }
     }
     return Collections.unmodifiableList(flusswerkConsumers);
@@ -1,6 +1,8 @@
 package com.github.dbmdz.flusswerk.framework.config;
 
 import com.github.dbmdz.flusswerk.framework.config.properties.AppProperties;
+import com.github.dbmdz.flusswerk.framework.config.properties.ClaimCheckProperties;
+import com.github.dbmdz.flusswerk.framework.config.properties.CompressionProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.FlusswerkProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.MonitoringProperties;
 import com.github.dbmdz.flusswerk.framework.config.properties.ProcessingProperties;
@@ -12,6 +14,8 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 /** Separate config class for reading configuration properties to enable automated testing. */
 @EnableConfigurationProperties({
   AppProperties.class,
+  ClaimCheckProperties.class,
+  CompressionProperties.class,
   FlusswerkProperties.class,
   MonitoringProperties.class,
   ProcessingProperties.class,
@@ -0,0 +1,71 @@
+package com.github.dbmdz.flusswerk.framework.config.properties;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
+
+/** Settings for sending large payloads as claim checks instead of via RabbitMQ. */
+@ConstructorBinding
+@ConfigurationProperties(prefix = "flusswerk.claim-check")
+public class ClaimCheckProperties {
+
+  /** The available stores for payloads. */
+  public enum Store {
+    /** A directory, usually on a volume shared by all applications. */
+    FILESYSTEM,
+    /** Redis as configured in <code>flusswerk.redis</code>. */
+    REDIS
+  }
+
+  private final Store store;
+  private final Path directory;
+  private final DataSize threshold;
+  private final Duration ttl;
+
+  /**
+   * @param store Where to keep large payloads (optional, claim checks are disabled if not set).
+   * @param directory The directory for payloads if the store is <code>filesystem</code>.
+   * @param threshold Only offload payloads larger than this (default: 4MB).
+   * @param ttl How long Redis keeps payloads at most (default: 7 days).
+   */
+  public ClaimCheckProperties(Store store, Path directory, DataSize threshold, Duration ttl) {
+    this.store = store; // might be null, then claim checks are disabled
+    this.directory = directory; // only needed for the filesystem store
+    this.threshold = requireNonNullElse(threshold, DataSize.ofMegabytes(4));
+    this.ttl = requireNonNullElse(ttl, Duration.ofDays(7));
+  }
+
+  /** @return Where to keep large payloads, if claim checks are enabled. */
+  public Optional<Store> getStore() {
+    return Optional.ofNullable(store);
+  }
+
+  /** @return The directory for payloads if the store is <code>filesystem</code>. */
+  public Optional<Path> getDirectory() {
+    return Optional.ofNullable(directory);
+  }
+
+  /** @return Only payloads larger than this are offloaded. */
+  public DataSize getThreshold() {
+    return threshold;
+  }
+
+  /** @return How long Redis keeps payloads at most. */
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  @Override
+  public String toString() {
+    return StringRepresentation.of(this);
+  }
+
+  public static ClaimCheckProperties defaults() {
+    return new ClaimCheckProperties(null, null, null, null); // constructor sets default values
+  }
+}
@@ -0,0 +1,47 @@
+package com.github.dbmdz.flusswerk.framework.config.properties;
+
+import static java.util.Objects.requireNonNullElse;
+
+import com.github.dbmdz.flusswerk.framework.rabbitmq.ContentEncoding;
+import java.util.Optional;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
+
+/** Settings for the compression of large outgoing messages. */
+@ConstructorBinding
+@ConfigurationProperties(prefix = "flusswerk.compression")
+public class CompressionProperties {
+
+  private final ContentEncoding algorithm;
+  private final DataSize threshold;
+
+  /**
+   * @param algorithm The compression algorithm for outgoing messages (optional, compression is
+   *     disabled if not set).
+   * @param threshold Only compress messages larger than this (default: 1MB).
+   */
+  public CompressionProperties(ContentEncoding algorithm, DataSize threshold) {
+    this.algorithm = algorithm; // might be null, then compression is disabled
+    this.threshold = requireNonNullElse(threshold, DataSize.ofMegabytes(1));
+  }
+
+  /** @return The compression algorithm for outgoing messages, if compression is enabled. */
+  public Optional<ContentEncoding> getAlgorithm() {
+    return Optional.ofNullable(algorithm);
+  }
+
+  /** @return Only messages larger than this are compressed. */
+  public DataSize getThreshold() {
+    return threshold;
+  }
+
+  @Override
+  public String toString() {
+    return StringRepresentation.of(this);
+  }
+
+  public static CompressionProperties defaults() {
+    return new CompressionProperties(null, null); // use null so constructor sets default values
+  }
+}
@@ -24,6 +24,10 @@ public class FlusswerkProperties {
 
   @NestedConfigurationProperty private final RedisProperties redis;
 
+  @NestedConfigurationProperty private final CompressionProperties compression;
+
+  @NestedConfigurationProperty private final ClaimCheckProperties claimCheck;
+
   private final Yaml yaml;
 
   @ConstructorBinding
@@ -32,12 +36,16 @@ public class FlusswerkProperties {
       RabbitMQProperties rabbitmq,
       RoutingProperties routing,
       MonitoringProperties monitoring,
-      RedisProperties redis) {
+      RedisProperties redis,
+      CompressionProperties compression,
+      ClaimCheckProperties claimCheck) {
     this.processing = requireNonNullElseGet(processing, ProcessingProperties::defaults);
     this.rabbitmq = requireNonNullElseGet(rabbitmq, RabbitMQProperties::defaults);
     this.routing = requireNonNullElseGet(routing, RoutingProperties::defaults);
     this.monitoring = requireNonNullElseGet(monitoring, MonitoringProperties::defaults);
     this.redis = redis; // might actually be null, then centralized locking will be disabled
+    this.compression = requireNonNullElseGet(compression, CompressionProperties::defaults);
+    this.claimCheck = requireNonNullElseGet(claimCheck, ClaimCheckProperties::defaults);
     DumperOptions options = new DumperOptions();
     options.setAllowReadOnlyProperties(true);
     yaml = new Yaml(options);
@@ -63,6 +71,14 @@ public class FlusswerkProperties {
     return Optional.ofNullable(redis);
   }
 
+  public CompressionProperties getCompression() {
+    return compression;
+  }
+
+  public ClaimCheckProperties getClaimCheck() {
+    return claimCheck;
+  }
+
   @Override
   public String toString() {
     return StringRepresentation.of(this);
@@ -2,6 +2,7 @@ package com.github.dbmdz.flusswerk.framework.config.properties;
 
 import static java.util.Objects.requireNonNullElse;
 
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
 import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
@@ -15,8 +16,22 @@ public class ProcessingProperties {
   @Min(1)
   private final Integer threads;
 
-  public ProcessingProperties(@Min(1) Integer threads) {
+  private final BodyRetention bodyRetention;
+
+  private final Boolean bytecodeBinding;
+
+  /**
+   * @param threads The number of concurrent processing threads (default: 5).
+   * @param bodyRetention How much of the original message body to keep (default: {@link
+   *     BodyRetention#RAW}).
+   * @param bytecodeBinding Use generated bytecode instead of reflection for reading and writing
+   *     messages, needs <code>jackson-module-blackbird</code> (default: false).
+   */
+  public ProcessingProperties(
+      @Min(1) Integer threads, BodyRetention bodyRetention, Boolean bytecodeBinding) {
     this.threads = requireNonNullElse(threads, 5);
+    this.bodyRetention = requireNonNullElse(bodyRetention, BodyRetention.RAW);
+    this.bytecodeBinding = requireNonNullElse(bytecodeBinding, false);
   }
 
   /** @return The number of concurrent processing threads in one job instance. */
@@ -24,6 +39,16 @@ public class ProcessingProperties {
     return threads;
   }
 
+  /** @return How much of the original message body is kept for error handling and logging. */
+  public BodyRetention getBodyRetention() {
+    return bodyRetention;
+  }
+
+  /** @return Whether messages are read and written with generated bytecode. */
+  public Boolean getBytecodeBinding() {
+    return bytecodeBinding;
+  }
+
   @Override
   public String toString() {
     Yaml yaml = new Yaml();
@@ -31,6 +56,7 @@ public class ProcessingProperties {
   }
 
   public static ProcessingProperties defaults() {
-    return new ProcessingProperties(null); // use null so constructor sets default values
+    return new ProcessingProperties(
+        null, null, null); // use null so constructor sets default values
   }
 }
@@ -17,10 +17,62 @@ public class RedisProperties {
   private final String password;
   private final Duration lockWaitTimeout;
   private final String keyspace;
+  private final Boolean deferLockedMessages;
+  private final Duration permitLeaseTime;
+  private final Duration lockLeaseTime;
 
   public RedisProperties(
       String address, String password, Duration lockWaitTimeout, String keyspace) {
+    this(address, password, lockWaitTimeout, keyspace, null);
+  }
+
+  public RedisProperties(
+      String address,
+      String password,
+      Duration lockWaitTimeout,
+      String keyspace,
+      Boolean deferLockedMessages) {
+    this(address, password, lockWaitTimeout, keyspace, deferLockedMessages, null);
+  }
+
+  public RedisProperties(
+      String address,
+      String password,
+      Duration lockWaitTimeout,
+      String keyspace,
+      Boolean deferLockedMessages,
+      Duration permitLeaseTime) {
+    this(address, password, lockWaitTimeout, keyspace, deferLockedMessages, permitLeaseTime, null);
+  }
+
+  /**
+   * @param address The address of the Redis server (optional, locks are only valid within this app
+   *     if not set).
+   * @param password The password for the Redis server (optional).
+   * @param lockWaitTimeout How long to wait for a lock (default: 5s).
+   * @param keyspace The prefix for all keys (default: flusswerk).
+   * @param deferLockedMessages Instead of waiting for locks held by someone else, process other
+   *     messages and try again when the lock has been released or <code>lockWaitTimeout</code> has
+   *     passed. Each message is deferred at most 10 times (default: false).
+   * @param permitLeaseTime How long a permit is valid in Redis unless it is renewed, so that
+   *     permits of crashed apps become available again. Held permits are renewed every third of
+   *     this time (default: 10m).
+   * @param lockLeaseTime How long a lock is valid in Redis unless it is renewed. Held locks are
+   *     renewed every third of this time (default: 30s).
+   */
+  @ConstructorBinding
+  public RedisProperties(
+      String address,
+      String password,
+      Duration lockWaitTimeout,
+      String keyspace,
+      Boolean deferLockedMessages,
+      Duration permitLeaseTime,
+      Duration lockLeaseTime) {
     this.lockWaitTimeout = requireNonNullElse(lockWaitTimeout, Duration.ofSeconds(5));
+    this.permitLeaseTime = requireNonNullElse(permitLeaseTime, Duration.ofMinutes(10));
+    this.lockLeaseTime = requireNonNullElse(lockLeaseTime, Duration.ofSeconds(30));
+    this.deferLockedMessages = requireNonNullElse(deferLockedMessages, false);
     if (StringUtils.hasText(keyspace)) {
       this.keyspace = keyspace.trim();
     } else {
@@ -70,6 +122,19 @@ public class RedisProperties {
     return keyspace;
   }
 
+  /** @return Whether messages are deferred instead of waiting for locks held by someone else. */
+  public Boolean getDeferLockedMessages() {
+    return deferLockedMessages;
+  }
+
+  public Duration getPermitLeaseTime() {
+    return permitLeaseTime;
+  }
+
+  public Duration getLockLeaseTime() {
+    return lockLeaseTime;
+  }
+
   @Override
   public String toString() {
     return StringRepresentation.of(this).replace(password, "*****");
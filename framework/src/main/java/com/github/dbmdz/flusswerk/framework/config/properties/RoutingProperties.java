@@ -4,6 +4,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.Objects.requireNonNullElseGet;
 
+import com.github.dbmdz.flusswerk.framework.jackson.WireFormat;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.FailurePolicy;
 import java.time.Duration;
@@ -25,6 +26,9 @@ public class RoutingProperties {
 
   public static final String DEFAULT_EXCHANGE = "flusswerk_default";
 
+  /** The outgoing route for messages returned by a flow without an explicit route. */
+  public static final String DEFAULT_ROUTE = "default";
+
   private final String defaultExchange;
   private final String deadLetterExchange;
   private final List<String> incoming;
@@ -32,11 +36,13 @@ public class RoutingProperties {
   private final Map<String, String> deadLetterExchanges;
   private final Map<String, String> outgoing;
   private final Map<String, FailurePolicy> failurePolicies;
+  private final Map<String, String> wireFormats;
 
   /**
    * @param exchange The exchange name to use (required).
    * @param incoming The queue to read from (optional).
    * @param outgoing The topic to send to per default (optional).
+   * @param wireFormats The wire format to send messages with per topic (optional, default: json).
    */
   public RoutingProperties(
       @NotBlank String exchange,
@@ -44,7 +50,8 @@ public class RoutingProperties {
       Map<String, String> outgoing,
       Map<String, String> exchanges,
       Map<String, String> deadLetterExchanges,
-      Map<String, FailurePolicyProperties> failurePolicies) {
+      Map<String, FailurePolicyProperties> failurePolicies,
+      Map<String, String> wireFormats) {
     this.defaultExchange = requireNonNullElse(exchange, "flusswerk_default");
     this.deadLetterExchange = defaultDeadLetterExchange(this.defaultExchange);
     this.incoming = requireNonNullElseGet(incoming, Collections::emptyList);
@@ -61,6 +68,7 @@ public class RoutingProperties {
     this.failurePolicies =
         createFailurePolicies(
             this.incoming, requireNonNullElseGet(failurePolicies, Collections::emptyMap));
+    this.wireFormats = requireNonNullElseGet(wireFormats, Collections::emptyMap);
   }
 
   /**
@@ -71,7 +79,7 @@ public class RoutingProperties {
    * @return routing properties that rely on defaults wherever possible
    */
   public static RoutingProperties minimal(List<String> incoming, Map<String, String> outgoing) {
-    return new RoutingProperties(null, incoming, outgoing, null, null, null);
+    return new RoutingProperties(null, incoming, outgoing, null, null, null, null);
   }
 
   private void setupExchangeConfigurations(
@@ -147,6 +155,19 @@ public class RoutingProperties {
     return deadLetterExchanges.get(queue);
   }
 
+  /**
+   * @param topic The topic (or queue) to send messages to.
+   * @return The name of the wire format for messages sent to this topic.
+   */
+  public String getWireFormat(String topic) {
+    return wireFormats.getOrDefault(topic, WireFormat.JSON.getName());
+  }
+
+  /** @return The wire formats that differ from the default per topic. */
+  public Map<String, String> getWireFormats() {
+    return wireFormats;
+  }
+
   @Override
   public String toString() {
     return StringRepresentation.of(this);
@@ -165,7 +186,7 @@ public class RoutingProperties {
   }
 
   public static RoutingProperties defaults() {
-    return new RoutingProperties(null, null, null, null, null, null);
+    return new RoutingProperties(null, null, null, null, null, null, null);
   }
 
   public static class FailurePolicyProperties {
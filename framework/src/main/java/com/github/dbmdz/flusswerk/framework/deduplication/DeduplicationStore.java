@@ -0,0 +1,25 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import java.io.IOException;
+
+/**
+ * Remembers the idempotency keys of processed messages for a {@link Deduplicator}. Implementations
+ * must be safe for concurrent use.
+ */
+public interface DeduplicationStore {
+
+  /**
+   * @param key the idempotency key of a message
+   * @return true if a message with this key has been processed
+   * @throws IOException if the store cannot be queried
+   */
+  boolean contains(String key) throws IOException;
+
+  /**
+   * Remembers that a message with this key has been processed.
+   *
+   * @param key the idempotency key of a message
+   * @throws IOException if the key cannot be stored
+   */
+  void add(String key) throws IOException;
+}
@@ -0,0 +1,109 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.Counter;
+import java.io.IOException;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recognizes messages that have already been processed, e.g. messages redelivered by RabbitMQ after
+ * a reconnect or sent twice upstream. Keys are looked up in memory first and then in the shared
+ * store, if there is one.
+ *
+ * <p>A key is only remembered after its message has been processed and acknowledged, so failed
+ * messages are retried as usual. Duplicates that arrive while the first message is still processed
+ * are not recognized, use locks to serialize them. If the shared store is not available, messages
+ * are processed as if they were new.
+ */
+public class Deduplicator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Deduplicator.class);
+
+  private final Function<Message, String> key;
+  private final DeduplicationStore local;
+  private final DeduplicationStore shared;
+
+  private final Counter duplicates;
+
+  /**
+   * @param key the idempotency key of a message, may return <code>null</code> if the message must
+   *     always be processed
+   * @param local the store to look up keys first
+   * @param shared the store shared with other application instances (<code>null</code> to only
+   *     recognize duplicates processed by this instance)
+   */
+  public Deduplicator(
+      Function<Message, String> key, DeduplicationStore local, DeduplicationStore shared) {
+    this(key, local, shared, MeterFactory.none());
+  }
+
+  /**
+   * @param key the idempotency key of a message, may return <code>null</code> if the message must
+   *     always be processed
+   * @param local the store to look up keys first
+   * @param shared the store shared with other application instances (<code>null</code> to only
+   *     recognize duplicates processed by this instance)
+   * @param meterFactory to count duplicates
+   */
+  public Deduplicator(
+      Function<Message, String> key,
+      DeduplicationStore local,
+      DeduplicationStore shared,
+      MeterFactory meterFactory) {
+    this.key = requireNonNull(key);
+    this.local = requireNonNull(local);
+    this.shared = shared;
+    this.duplicates = meterFactory.counter("messages.duplicates");
+  }
+
+  /**
+   * @param message the incoming message
+   * @return true if a message with the same key has already been processed
+   */
+  public boolean isDuplicate(Message message) {
+    String k = key.apply(message);
+    if (k == null) {
+      return false;
+    }
+    try {
+      boolean duplicate = local.contains(k);
+      if (!duplicate && shared != null && shared.contains(k)) {
+        local.add(k);
+        duplicate = true;
+      }
+      if (duplicate) {
+        duplicates.increment();
+      }
+      return duplicate;
+    } catch (IOException e) {
+      LOGGER.warn("Could not check whether message {} is a duplicate", k, e);
+      return false;
+    }
+  }
+
+  /**
+   * Remembers that the message has been processed, so that later messages with the same key are
+   * recognized as duplicates.
+   *
+   * @param message the processed message
+   */
+  public void processed(Message message) {
+    String k = key.apply(message);
+    if (k == null) {
+      return;
+    }
+    try {
+      local.add(k);
+      if (shared != null) {
+        shared.add(k);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not remember message {} as processed", k, e);
+    }
+  }
+}
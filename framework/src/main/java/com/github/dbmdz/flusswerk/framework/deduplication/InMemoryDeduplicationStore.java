@@ -0,0 +1,68 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the idempotency keys of processed messages in memory. The store holds at most <code>
+ * maxSize</code> keys and drops the least recently used ones first, so keys of messages that keep
+ * being redelivered stay. A lookup does not extend the time to live, though. Keys are lost on
+ * restart and are not shared with other application instances.
+ */
+public class InMemoryDeduplicationStore implements DeduplicationStore {
+
+  private final long ttl;
+  private final LongSupplier clock;
+  private final Map<String, Long> keys;
+
+  /**
+   * @param maxSize the maximum number of keys to remember
+   * @param ttl how long to remember a key (<code>null</code> to remember keys until they are
+   *     dropped because there are too many)
+   */
+  public InMemoryDeduplicationStore(int maxSize, Duration ttl) {
+    this(maxSize, ttl, System::nanoTime);
+  }
+
+  InMemoryDeduplicationStore(int maxSize, Duration ttl, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Deduplication size must be positive, but was " + maxSize);
+    }
+    this.ttl = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+    this.clock = requireNonNull(clock);
+    this.keys =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSize;
+          }
+        };
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    Long addedAt = keys.get(key);
+    if (addedAt == null) {
+      return false;
+    }
+    if (clock.getAsLong() - addedAt >= ttl) {
+      keys.remove(key);
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void add(String key) {
+    keys.put(key, clock.getAsLong());
+  }
+
+  /** @return the number of remembered keys */
+  public synchronized int size() {
+    return keys.size();
+  }
+}
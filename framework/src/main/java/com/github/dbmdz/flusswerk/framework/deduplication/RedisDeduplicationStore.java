@@ -0,0 +1,63 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * Remembers the idempotency keys of processed messages in Redis, so that duplicates are recognized
+ * by all application instances. Every key is stored with its own expiry, so that Redis does not
+ * fill up with keys of old messages.
+ */
+public class RedisDeduplicationStore implements DeduplicationStore {
+
+  private final RedissonClient client;
+  private final String keyspace;
+  private final Duration ttl;
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param ttl how long to remember a key (<code>null</code> to remember keys forever)
+   */
+  public RedisDeduplicationStore(RedissonClient client, String keyspace, Duration ttl) {
+    this.client = requireNonNull(client);
+    this.keyspace = requireNonNull(keyspace);
+    this.ttl = ttl;
+  }
+
+  @Override
+  public boolean contains(String key) throws IOException {
+    try {
+      return bucket(key).isExists();
+    } catch (RuntimeException e) {
+      throw new IOException("Could not look up idempotency key " + key + " in Redis", e);
+    }
+  }
+
+  @Override
+  public void add(String key) throws IOException {
+    try {
+      if (ttl == null) {
+        bucket(key).set("1");
+      } else {
+        bucket(key).set("1", ttl.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Could not store idempotency key " + key + " in Redis", e);
+    }
+  }
+
+  String key(String key) {
+    return keyspace + "::deduplication::" + key;
+  }
+
+  private RBucket<String> bucket(String key) {
+    return client.getBucket(key(key), StringCodec.INSTANCE);
+  }
+}
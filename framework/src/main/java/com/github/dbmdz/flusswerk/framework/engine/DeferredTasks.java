@@ -0,0 +1,191 @@
+package com.github.dbmdz.flusswerk.framework.engine;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.locking.LockManager;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parks tasks whose locks are held by someone else, so that workers can process other tasks in the
+ * meantime. A parked task goes back to the task queue as soon as one of its locks is released, but
+ * after <code>maxDelay</code> at the latest (e.g. if the lock holder does not send release
+ * notifications).
+ *
+ * <p>Parked tasks do not occupy a worker. Before a task goes back to the task queue, it waits for a
+ * free worker like any newly received task. A task is parked at most <code>maxDeferrals</code>
+ * times, afterwards it waits for its locks like without deferral.
+ */
+public class DeferredTasks {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeferredTasks.class);
+
+  /** How often a task is parked at most if nothing else is configured. */
+  public static final int DEFAULT_MAX_DEFERRALS = 10;
+
+  private static class Deferred implements Delayed {
+    private final Task task;
+    private final List<String> ids;
+    private final long due;
+
+    Deferred(Task task, List<String> ids, long due) {
+      this.task = task;
+      this.ids = ids;
+      this.due = due;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private final Semaphore availableWorkers;
+  private final PriorityBlockingQueue<Task> taskQueue;
+  private final LockManager lockManager;
+  private final long maxDelay;
+  private final int maxDeferrals;
+  private final DelayQueue<Deferred> parked;
+  private final Map<String, Set<Deferred>> byId;
+  private final Thread dispatcher;
+
+  /**
+   * @param availableWorkers the semaphore to wait for a free worker
+   * @param taskQueue the queue to put tasks back into
+   * @param lockManager to check whether a lock has been released while its task was parked
+   * @param maxDelay the maximum time to park a task
+   * @param maxDeferrals how often a task is parked at most
+   */
+  public DeferredTasks(
+      Semaphore availableWorkers,
+      PriorityBlockingQueue<Task> taskQueue,
+      LockManager lockManager,
+      Duration maxDelay,
+      int maxDeferrals) {
+    this.availableWorkers = requireNonNull(availableWorkers);
+    this.taskQueue = requireNonNull(taskQueue);
+    this.lockManager = requireNonNull(lockManager);
+    this.maxDelay = maxDelay.toNanos();
+    this.maxDeferrals = maxDeferrals;
+    this.parked = new DelayQueue<>();
+    this.byId = new HashMap<>();
+    this.dispatcher = new Thread(this::dispatch, "flusswerk-deferred-tasks");
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+  }
+
+  /**
+   * @param task the task to process
+   * @return true if the task may be parked (again) when its locks are held by someone else
+   */
+  public boolean canDefer(Task task) {
+    return task.getDeferrals() < maxDeferrals;
+  }
+
+  /**
+   * Runs the processing of a task that can be deferred, so that it does not wait for locks held by
+   * someone else (see {@link LockManager#withoutWaiting(Supplier)}).
+   *
+   * @param processing the processing of the task
+   * @param <T> the result of the processing
+   * @return the result of the processing
+   */
+  public <T> T withoutWaiting(Supplier<T> processing) {
+    return lockManager.withoutWaiting(processing);
+  }
+
+  /**
+   * Parks a task until one of its locks has been released.
+   *
+   * @param task the task to park
+   * @param ids the ids that are locked by someone else
+   */
+  public void defer(Task task, Collection<String> ids) {
+    task.deferred();
+    var deferred = new Deferred(task, List.copyOf(ids), System.nanoTime() + maxDelay);
+    synchronized (byId) {
+      for (String id : deferred.ids) {
+        byId.computeIfAbsent(id, k -> new HashSet<>()).add(deferred);
+      }
+      parked.put(deferred);
+    }
+    // The lock might have been released before the task was parked
+    for (Map.Entry<String, Boolean> locked : lockManager.isLocked(deferred.ids).entrySet()) {
+      if (!locked.getValue()) {
+        released(locked.getKey());
+        return;
+      }
+    }
+  }
+
+  /**
+   * Puts all tasks waiting for this id back into the task queue.
+   *
+   * @param id the id of a released lock
+   */
+  public void released(String id) {
+    synchronized (byId) {
+      Set<Deferred> ready = byId.remove(id);
+      if (ready == null) {
+        return;
+      }
+      for (Deferred deferred : ready) {
+        if (parked.remove(deferred)) {
+          parked.put(new Deferred(deferred.task, deferred.ids, System.nanoTime()));
+        }
+      }
+    }
+  }
+
+  /** @return the number of parked tasks */
+  public int size() {
+    return parked.size();
+  }
+
+  private void dispatch() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Deferred deferred = parked.take();
+        forget(deferred);
+        availableWorkers.acquire(); // a parked task does not occupy a worker
+        taskQueue.put(deferred.task);
+      } catch (InterruptedException e) {
+        LOGGER.debug("Interrupted while dispatching deferred tasks", e);
+        return;
+      }
+    }
+  }
+
+  private void forget(Deferred deferred) {
+    synchronized (byId) {
+      for (String id : deferred.ids) {
+        Set<Deferred> waiting = byId.get(id);
+        if (waiting == null) {
+          continue;
+        }
+        waiting.removeIf(d -> d.task == deferred.task);
+        if (waiting.isEmpty()) {
+          byId.remove(id);
+        }
+      }
+    }
+  }
+}
@@ -99,7 +99,7 @@ public class Engine {
 
     // NACK and requeue all messages that have not be processed yet
     for (var task : remainingTasks) {
-      long deliveryTag = task.getMessage().getEnvelope().getDeliveryTag();
+      long deliveryTag = task.getDeliveryTag();
       try {
         channel.basicNack(deliveryTag, false, true);
       } catch (IOException e) {
@@ -1,13 +1,19 @@
 package com.github.dbmdz.flusswerk.framework.engine;
 
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
+import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.flow.MessageFilter;
 import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.rabbitmq.Compression;
+import com.github.dbmdz.flusswerk.framework.rabbitmq.TransportOptions;
 import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
@@ -27,6 +33,10 @@ public class FlusswerkConsumer extends DefaultConsumer {
   private final PriorityBlockingQueue<Task> taskQueue;
   private final int priority;
   private final String inputQueue;
+  private final BodyRetention bodyRetention;
+  private final Compression compression;
+  private final ClaimCheck claimCheck;
+  private final MessageFilter filter;
 
   /**
    * Constructs a new instance and records its association to the passed-in channel.
@@ -42,6 +52,35 @@ public class FlusswerkConsumer extends DefaultConsumer {
       String inputQueue,
       int priority,
       PriorityBlockingQueue<Task> taskQueue) {
+    this(
+        availableWorkers,
+        channel,
+        flusswerkObjectMapper,
+        inputQueue,
+        priority,
+        taskQueue,
+        TransportOptions.defaults(),
+        MessageFilter.acceptAll());
+  }
+
+  /**
+   * Constructs a new instance and records its association to the passed-in channel.
+   *
+   * @param channel the channel to which this consumer is attached
+   * @param flusswerkObjectMapper the object mapper to deserialize messages
+   * @param inputQueue the rabbitMQ queue this consumer is bound to
+   * @param transportOptions body retention, decompression and claim checks for incoming messages
+   * @param filter to drop messages before they are deserialized
+   */
+  public FlusswerkConsumer(
+      Semaphore availableWorkers,
+      Channel channel,
+      FlusswerkObjectMapper flusswerkObjectMapper,
+      String inputQueue,
+      int priority,
+      PriorityBlockingQueue<Task> taskQueue,
+      TransportOptions transportOptions,
+      MessageFilter filter) {
     super(channel);
     this.availableWorkers = availableWorkers;
     this.channel = channel;
@@ -49,6 +88,10 @@ public class FlusswerkConsumer extends DefaultConsumer {
     this.inputQueue = inputQueue;
     this.priority = priority;
     this.taskQueue = taskQueue;
+    this.bodyRetention = transportOptions.getBodyRetention();
+    this.compression = transportOptions.getCompression();
+    this.claimCheck = transportOptions.getClaimCheck();
+    this.filter = filter;
   }
 
   @Override
@@ -66,16 +109,83 @@ public class FlusswerkConsumer extends DefaultConsumer {
       return;
     }
 
+    long deliveryTag = envelope.getDeliveryTag();
+    Optional<String> reference = ClaimCheck.referenceFrom(properties.getHeaders());
+    if (reference.isPresent()) {
+      // Fetch the payload only when a worker actually starts processing the message
+      taskQueue.put(
+          new Task(
+              deliveryTag,
+              () -> loadClaimCheck(reference.get(), properties, deliveryTag),
+              priority));
+      return;
+    }
+
     try {
-      String json = new String(body, StandardCharsets.UTF_8);
-      Message message = flusswerkObjectMapper.deserialize(json);
-      message.getEnvelope().setSource(inputQueue);
-      message.getEnvelope().setDeliveryTag(envelope.getDeliveryTag());
+      Message message = toMessage(body, properties, deliveryTag);
+      if (message == null) {
+        availableWorkers.release(); // filtered out, no worker needed
+        return;
+      }
       taskQueue.put(new Task(message, priority));
     } catch (Exception e) {
       LOGGER.error("Could not deserialize message", e);
-      channel.basicAck(envelope.getDeliveryTag(), false);
+      channel.basicAck(deliveryTag, false);
+    }
+  }
+
+  private Message loadClaimCheck(String reference, BasicProperties properties, long deliveryTag)
+      throws IOException, InvalidMessageException {
+    byte[] body;
+    try {
+      body = claimCheck.retrieve(reference);
+    } catch (IOException e) {
+      // The store might only be unavailable for a moment, so keep the message and its payload
+      channel.basicNack(deliveryTag, false, true);
+      throw e;
+    }
+    try {
+      Message message = toMessage(body, properties, deliveryTag);
+      if (message == null) {
+        claimCheck.release(reference);
+        return null;
+      }
+      message.getEnvelope().setClaimCheck(reference);
+      return message;
+    } catch (IOException e) {
+      // The worker sends the reference to the failed queue, so that the payload is not lost
+      var envelope = new com.github.dbmdz.flusswerk.framework.model.Envelope();
+      envelope.setSource(inputQueue);
+      envelope.setDeliveryTag(deliveryTag);
+      envelope.setContentType(properties.getContentType());
+      envelope.setContentEncoding(properties.getContentEncoding());
+      envelope.setClaimCheck(reference);
+      throw new InvalidMessageException(envelope, "Could not read payload " + reference, e);
+    }
+  }
+
+  /**
+   * @return the deserialized message or null if it has been acknowledged and dropped by the filter
+   */
+  private Message toMessage(byte[] body, BasicProperties properties, long deliveryTag)
+      throws IOException {
+    byte[] payload = compression.decompress(body, properties.getContentEncoding());
+    if (!filter.acceptsAll()
+        && !filter.accepts(
+            flusswerkObjectMapper.peek(payload, properties.getContentType(), filter.getFields()))) {
+      LOGGER.debug("Message {} rejected by filter", deliveryTag);
+      channel.basicAck(deliveryTag, false);
+      return null;
     }
+    Message message =
+        flusswerkObjectMapper.deserialize(
+            payload, properties.getContentType(), properties.getType());
+    message.getEnvelope().setRawBody(payload, bodyRetention);
+    message.getEnvelope().setContentType(properties.getContentType());
+    message.getEnvelope().setContentEncoding(properties.getContentEncoding());
+    message.getEnvelope().setSource(inputQueue);
+    message.getEnvelope().setDeliveryTag(deliveryTag);
+    return message;
   }
 
   public String getInputQueue() {
@@ -2,28 +2,92 @@ package com.github.dbmdz.flusswerk.framework.engine;
 
 import static java.util.Objects.requireNonNull;
 
+import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Objects;
 
 public class Task implements Comparable<Task> {
 
-  private final Message message;
+  /** Loads the message of a task on first access. */
+  @FunctionalInterface
+  public interface Loader {
+    /**
+     * @return the message or null if the loader discarded the message
+     * @throws IOException if the message cannot be loaded
+     * @throws InvalidMessageException if the message has been loaded, but cannot be read
+     */
+    Message load() throws IOException, InvalidMessageException;
+  }
+
+  private Message message;
+  private Loader loader;
+  private final long deliveryTag;
   private final int priority;
+  private int deferrals;
 
   public Task(Message message, int priority) {
     this.message = requireNonNull(message);
+    this.deliveryTag = message.getEnvelope().getDeliveryTag();
     this.priority = priority;
   }
 
-  public Message getMessage() {
+  /**
+   * Creates a task whose message is only loaded when it is accessed for the first time, e.g.
+   * because its payload has to be fetched from a claim check store.
+   *
+   * @param deliveryTag the delivery tag of the AMQP message
+   * @param loader loads the message
+   * @param priority the priority of the task
+   */
+  public Task(long deliveryTag, Loader loader, int priority) {
+    this.loader = requireNonNull(loader);
+    this.deliveryTag = deliveryTag;
+    this.priority = priority;
+  }
+
+  /**
+   * @return the message, which is loaded first if necessary, or null if it has been discarded while
+   *     loading
+   * @throws UncheckedIOException if the message cannot be loaded
+   * @throws InvalidMessageException if the message has been loaded, but cannot be read
+   */
+  public synchronized Message getMessage() throws InvalidMessageException {
+    if (loader != null) {
+      try {
+        message = loader.load();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not load message " + deliveryTag, e);
+      }
+      loader = null;
+    }
     return message;
   }
 
+  /** @return the delivery tag of the AMQP message, available without loading the message */
+  public long getDeliveryTag() {
+    if (message != null) {
+      return message.getEnvelope().getDeliveryTag();
+    }
+    return deliveryTag;
+  }
+
+  /** @return how often this task has been parked because its locks were held by someone else */
+  int getDeferrals() {
+    return deferrals;
+  }
+
+  void deferred() {
+    deferrals++;
+  }
+
   @Override
   public int compareTo(Task other) {
     return other.priority - this.priority;
   }
 
+  /** Tasks are equal if they belong to the same AMQP message, equality never loads the message. */
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -33,16 +97,17 @@ public class Task implements Comparable<Task> {
       return false;
     }
     Task task = (Task) o;
-    return priority == task.priority && Objects.equals(message, task.message);
+    return deliveryTag == task.deliveryTag && priority == task.priority;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(message, priority);
+    return Objects.hash(deliveryTag, priority);
   }
 
   @Override
-  public String toString() {
-    return "Task{" + "message=" + message + ", priority=" + priority + '}';
+  public synchronized String toString() {
+    String content = message == null ? "<not loaded>" : message.toString();
+    return "Task{" + "message=" + content + ", priority=" + priority + '}';
   }
 }
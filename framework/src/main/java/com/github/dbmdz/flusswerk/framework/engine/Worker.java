@@ -1,5 +1,11 @@
 package com.github.dbmdz.flusswerk.framework.engine;
 
+import static java.util.Objects.requireNonNullElse;
+
+import com.github.dbmdz.flusswerk.framework.config.properties.RoutingProperties;
+import com.github.dbmdz.flusswerk.framework.deduplication.Deduplicator;
+import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.exceptions.LockContendedException;
 import com.github.dbmdz.flusswerk.framework.exceptions.StopProcessingException;
 import com.github.dbmdz.flusswerk.framework.flow.Flow;
 import com.github.dbmdz.flusswerk.framework.model.Message;
@@ -7,7 +13,13 @@ import com.github.dbmdz.flusswerk.framework.rabbitmq.MessageBroker;
 import com.github.dbmdz.flusswerk.framework.reporting.ProcessReport;
 import com.github.dbmdz.flusswerk.framework.reporting.Tracing;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -18,6 +30,8 @@ public class Worker implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Worker.class);
 
+  private static final Duration CONFIRM_TIMEOUT = Duration.ofMinutes(1);
+
   private final Semaphore availableWorkers;
   private final Flow flow;
   private final MessageBroker messageBroker;
@@ -25,6 +39,9 @@ public class Worker implements Runnable {
   private final PriorityBlockingQueue<Task> queue;
   private boolean running;
   private final Tracing tracing;
+  private final DeferredTasks deferredTasks;
+  private final Deduplicator deduplicator;
+  private int publishedForCurrentMessage;
 
   public Worker(
       Semaphore availableWorkers,
@@ -33,12 +50,33 @@ public class Worker implements Runnable {
       ProcessReport processReport,
       PriorityBlockingQueue<Task> queue,
       Tracing tracing) {
+    this(
+        availableWorkers,
+        flow,
+        messageBroker,
+        processReport,
+        queue,
+        tracing,
+        WorkerOptions.defaults());
+  }
+
+  /** @param options optional parts like deferring tasks with contended locks or deduplication */
+  public Worker(
+      Semaphore availableWorkers,
+      Flow flow,
+      MessageBroker messageBroker,
+      ProcessReport processReport,
+      PriorityBlockingQueue<Task> queue,
+      Tracing tracing,
+      WorkerOptions options) {
     this.availableWorkers = availableWorkers;
     this.flow = flow;
     this.messageBroker = messageBroker;
     this.processReport = processReport;
     this.queue = queue;
     this.tracing = tracing;
+    this.deferredTasks = options.getDeferredTasks();
+    this.deduplicator = options.getDeduplicator();
     this.running = true;
   }
 
@@ -60,7 +98,24 @@ public class Worker implements Runnable {
       if (task == null) {
         return;
       }
-      executeProcessing(task.getMessage());
+      Message message;
+      try {
+        message = task.getMessage();
+      } catch (UncheckedIOException e) {
+        // The loader already took care of the AMQP message, there is nothing left to process
+        LOGGER.error("Could not load message", e);
+        availableWorkers.release();
+        return;
+      } catch (InvalidMessageException e) {
+        failInvalidMessage(e);
+        availableWorkers.release();
+        return;
+      }
+      if (message == null) {
+        availableWorkers.release(); // The loader has already acknowledged and dropped the message
+        return;
+      }
+      executeProcessing(task, message);
     } catch (InterruptedException e) {
       LOGGER.debug("Interrupt while waiting for message", e);
       return;
@@ -68,16 +123,46 @@ public class Worker implements Runnable {
   }
 
   void executeProcessing(Message message) {
+    executeProcessing(null, message);
+  }
+
+  private void executeProcessing(Task task, Message message) {
     tracing.register(message.getTracing());
-    process(message);
+    process(task, message);
     tracing.deregister();
     availableWorkers.release();
   }
 
   public void process(Message message) {
+    process(null, message);
+  }
+
+  private void process(Task task, Message message) {
+    if (deduplicator != null && deduplicator.isDuplicate(message)) {
+      skipDuplicate(message);
+      return;
+    }
+    if (flow.isStreaming()) {
+      processStreaming(message);
+      return;
+    }
+    // Only tasks from the task queue can be parked and put back again
+    boolean deferrable = deferredTasks != null && task != null && deferredTasks.canDefer(task);
     Collection<? extends Message> messagesToSend;
     try {
-      messagesToSend = flow.process(message);
+      if (deferrable) {
+        messagesToSend = deferredTasks.withoutWaiting(() -> flow.process(message));
+      } else {
+        messagesToSend = flow.process(message);
+      }
+    } catch (LockContendedException e) {
+      if (!deferrable) {
+        retryOrFail(message, e);
+        return;
+      }
+      LOGGER.debug("Deferring message, {} locked by someone else", e.getIds());
+      deferredTasks.defer(task, e.getIds()); // the worker is free to process other messages
+      return;
     } catch (StopProcessingException e) {
       fail(message, e);
       return; // processing was not successful → stop here
@@ -88,10 +173,50 @@ public class Worker implements Runnable {
 
     // Data processing was successful, now handle the messaging
     try {
-      if (!messagesToSend.isEmpty()) {
-        messageBroker.send(messagesToSend);
+      for (var route : groupByRoute(messagesToSend).entrySet()) {
+        messageBroker.sendToRoute(route.getKey(), route.getValue());
+      }
+      messageBroker.ack(message);
+      processed(message);
+      processReport.reportSuccess(message);
+    } catch (Exception e) {
+      var stopProcessingException =
+          new StopProcessingException("Could not finish message handling").causedBy(e);
+      fail(message, stopProcessingException);
+    }
+  }
+
+  /**
+   * Publishes every message as soon as the writer emits it and acknowledges the incoming message
+   * only after RabbitMQ confirmed all of them. If the flow fails after some messages have been
+   * published, the incoming message goes to the failed queue instead of being retried, since a
+   * retry would publish these messages again.
+   */
+  private void processStreaming(Message message) {
+    messageBroker.startConfirmBatch();
+    publishedForCurrentMessage = 0;
+    try {
+      flow.process(message, this::publish);
+    } catch (StopProcessingException e) {
+      fail(message, e);
+      return; // processing was not successful → stop here
+    } catch (RuntimeException e) {
+      if (publishedForCurrentMessage == 0) {
+        retryOrFail(message, e);
+      } else {
+        // A retry would publish the messages already sent a second time
+        LOGGER.warn(
+            "Failing message instead of retrying, {} messages have already been published",
+            publishedForCurrentMessage);
+        fail(message, new StopProcessingException("Could not finish streaming").causedBy(e));
       }
+      return; // processing was not successful → stop here
+    }
+
+    try {
+      messageBroker.waitForConfirms(CONFIRM_TIMEOUT);
       messageBroker.ack(message);
+      processed(message);
       processReport.reportSuccess(message);
     } catch (Exception e) {
       var stopProcessingException =
@@ -100,6 +225,56 @@ public class Worker implements Runnable {
     }
   }
 
+  private void failInvalidMessage(InvalidMessageException e) {
+    try {
+      messageBroker.failInvalidMessage(e);
+    } catch (IOException fatalException) {
+      LOGGER.error("Could not fail invalid message", fatalException);
+    }
+  }
+
+  private void skipDuplicate(Message message) {
+    LOGGER.debug("Skipping message that has already been processed");
+    try {
+      messageBroker.ack(message);
+    } catch (IOException e) {
+      LOGGER.error(
+          "Could not ack duplicate message {} with tracing id {}",
+          message.getEnvelope().getDeliveryTag(),
+          message.getTracingId(),
+          e);
+    }
+  }
+
+  private void processed(Message message) {
+    if (deduplicator != null) {
+      deduplicator.processed(message);
+    }
+  }
+
+  /** @return the messages grouped by their outgoing route, in the order of their first message */
+  private static Map<String, List<Message>> groupByRoute(Collection<? extends Message> messages) {
+    Map<String, List<Message>> routes = new LinkedHashMap<>();
+    for (Message message : messages) {
+      routes.computeIfAbsent(routeOf(message), route -> new ArrayList<>()).add(message);
+    }
+    return routes;
+  }
+
+  private static String routeOf(Message message) {
+    return requireNonNullElse(message.getEnvelope().getRoute(), RoutingProperties.DEFAULT_ROUTE);
+  }
+
+  private void publish(Message message) {
+    try {
+      messageBroker.sendToRoute(routeOf(message), List.of(message));
+      publishedForCurrentMessage++;
+    } catch (IOException | IllegalArgumentException e) {
+      // Some messages might already be sent, so retrying could duplicate them
+      throw new StopProcessingException("Could not publish message").causedBy(e);
+    }
+  }
+
   private void retryOrFail(Message receivedMessage, RuntimeException e) {
     try {
       boolean isRejected = messageBroker.reject(receivedMessage);
@@ -109,8 +284,11 @@ public class Worker implements Runnable {
         processReport.reportFailAfterMaxRetries(receivedMessage, e);
       }
     } catch (IOException fatalException) {
-      var body = receivedMessage.getEnvelope().getBody();
-      LOGGER.error("Could not reject message" + body, fatalException);
+      LOGGER.error(
+          "Could not reject message {} with tracing id {}",
+          receivedMessage.getEnvelope().getDeliveryTag(),
+          receivedMessage.getTracingId(),
+          fatalException);
     }
   }
 
@@ -119,8 +297,11 @@ public class Worker implements Runnable {
       processReport.reportFail(message, e);
       messageBroker.fail(message);
     } catch (IOException fatalException) {
-      var body = message.getEnvelope().getBody();
-      LOGGER.error("Could not fail message" + body, fatalException);
+      LOGGER.error(
+          "Could not fail message {} with tracing id {}",
+          message.getEnvelope().getDeliveryTag(),
+          message.getTracingId(),
+          fatalException);
     }
   }
 
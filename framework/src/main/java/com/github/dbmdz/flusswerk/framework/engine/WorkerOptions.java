@@ -0,0 +1,51 @@
+package com.github.dbmdz.flusswerk.framework.engine;
+
+import com.github.dbmdz.flusswerk.framework.deduplication.Deduplicator;
+
+/**
+ * Optional parts of a {@link Worker}. Instances are immutable, every <code>with…</code> method
+ * returns a copy.
+ */
+public class WorkerOptions {
+
+  private final DeferredTasks deferredTasks;
+  private final Deduplicator deduplicator;
+
+  private WorkerOptions(DeferredTasks deferredTasks, Deduplicator deduplicator) {
+    this.deferredTasks = deferredTasks;
+    this.deduplicator = deduplicator;
+  }
+
+  /** @return options that retry contended locks like any other failure and process every message */
+  public static WorkerOptions defaults() {
+    return new WorkerOptions(null, null);
+  }
+
+  /**
+   * @param deferredTasks parks tasks whose locks are held by someone else (<code>null</code> to
+   *     retry them like any other failure)
+   * @return a copy with the given deferred tasks
+   */
+  public WorkerOptions withDeferredTasks(DeferredTasks deferredTasks) {
+    return new WorkerOptions(deferredTasks, deduplicator);
+  }
+
+  /**
+   * @param deduplicator recognizes messages that have already been processed (<code>null</code> to
+   *     process every message)
+   * @return a copy with the given deduplicator
+   */
+  public WorkerOptions withDeduplicator(Deduplicator deduplicator) {
+    return new WorkerOptions(deferredTasks, deduplicator);
+  }
+
+  /** @return the deferred tasks or <code>null</code> */
+  public DeferredTasks getDeferredTasks() {
+    return deferredTasks;
+  }
+
+  /** @return the deduplicator or <code>null</code> */
+  public Deduplicator getDeduplicator() {
+    return deduplicator;
+  }
+}
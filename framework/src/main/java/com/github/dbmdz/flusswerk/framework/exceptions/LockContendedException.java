@@ -0,0 +1,23 @@
+package com.github.dbmdz.flusswerk.framework.exceptions;
+
+import java.util.List;
+
+/**
+ * Thrown instead of waiting if a lock is held by someone else and locked messages should be
+ * deferred (see <code>flusswerk.redis.defer-locked-messages</code>).
+ */
+public class LockContendedException extends LockingException {
+
+  private final List<String> ids;
+
+  /** @param ids the ids that should have been locked */
+  public LockContendedException(List<String> ids) {
+    super("Could not acquire lock: " + ids + " locked by someone else");
+    this.ids = List.copyOf(ids);
+  }
+
+  /** @return the ids that should have been locked */
+  public List<String> getIds() {
+    return ids;
+  }
+}
@@ -0,0 +1,101 @@
+package com.github.dbmdz.flusswerk.framework.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * How to recognize messages that have already been processed, see {@link
+ * com.github.dbmdz.flusswerk.framework.flow.builder.ConfigurationStep#deduplicate(Function, int,
+ * Duration)}.
+ */
+public class Deduplication {
+
+  private final Function<Message, String> key;
+  private final int maxSize;
+  private final Duration ttl;
+  private final boolean byContent;
+
+  /**
+   * @param key the idempotency key of a message, may return <code>null</code> if the message must
+   *     always be processed
+   * @param maxSize the maximum number of keys to remember in memory
+   * @param ttl how long to remember a key (<code>null</code> to remember keys until they are
+   *     dropped because there are too many)
+   */
+  public Deduplication(Function<Message, String> key, int maxSize, Duration ttl) {
+    this(key, maxSize, ttl, false);
+  }
+
+  private Deduplication(
+      Function<Message, String> key, int maxSize, Duration ttl, boolean byContent) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Deduplication size must be positive, but was " + maxSize);
+    }
+    this.key = requireNonNull(key);
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    this.byContent = byContent;
+  }
+
+  /**
+   * Recognizes messages by a hash of their body as received from RabbitMQ, see {@link
+   * #contentHash(Message)}.
+   *
+   * @param maxSize the maximum number of keys to remember in memory
+   * @param ttl how long to remember a key (<code>null</code> to remember keys until they are
+   *     dropped because there are too many)
+   * @return the deduplication by content
+   */
+  public static Deduplication byContent(int maxSize, Duration ttl) {
+    return new Deduplication(Deduplication::contentHash, maxSize, ttl, true);
+  }
+
+  /** @return the idempotency key of the message or <code>null</code> */
+  public String keyFor(Message message) {
+    return key.apply(message);
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return how long to remember a key or <code>null</code> to remember keys as long as possible
+   */
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  /** @return true if messages are recognized by their body, which must be retained for that */
+  public boolean isByContent() {
+    return byContent;
+  }
+
+  /**
+   * Hashes the bytes of the message as received from RabbitMQ, which include the envelope and the
+   * tracing ids. A redelivered message has the same hash, but a message sent twice by a producer
+   * usually has not (e.g. because of its timestamp), use an idempotency key for these.
+   *
+   * @param message the message to hash
+   * @return the SHA-256 hash of the message body as received or <code>null</code> if the message
+   *     was not received from RabbitMQ or its body has not been retained
+   */
+  public static String contentHash(Message message) {
+    byte[] body = message.getEnvelope().getRawBody();
+    if (body == null) {
+      return null;
+    }
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+      return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e); // required for every JVM
+    }
+  }
+}
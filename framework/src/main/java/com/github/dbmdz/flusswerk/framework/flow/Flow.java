@@ -4,16 +4,21 @@ import static java.util.Objects.requireNonNull;
 import static java.util.Objects.requireNonNullElse;
 
 import com.github.dbmdz.flusswerk.framework.locking.LockManager;
+import com.github.dbmdz.flusswerk.framework.locking.NoOpPermitManager;
+import com.github.dbmdz.flusswerk.framework.locking.PermitManager;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import com.github.dbmdz.flusswerk.framework.monitoring.FlowMetrics;
 import com.github.dbmdz.flusswerk.framework.reporting.Tracing;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Objects;
+import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.slf4j.MDC;
@@ -25,38 +30,98 @@ import org.slf4j.MDC;
  */
 public class Flow {
 
+  private static final ClassValue<MethodHandle> ID_ACCESSORS =
+      new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+          return findIdAccessor(type);
+        }
+      };
+
   private final Function<Message, Object> reader;
   private final Function<Object, Object> transformer;
-  private final Function<Object, Collection<Message>> writer;
+  private final BiConsumer<Object, Consumer<Message>> writer;
+  private final boolean streaming;
   private final Runnable cleanup;
   private final Set<Consumer<FlowInfo>> flowMetrics;
   private final LockManager lockManager;
+  private final Permits permits;
+  private final PermitManager permitManager;
   private final Tracing tracing;
 
   public Flow(FlowSpec flowSpec, LockManager lockManager, Tracing tracing) {
+    this(flowSpec, lockManager, new NoOpPermitManager(), tracing);
+  }
+
+  /**
+   * @param flowSpec the recipe for the data processing
+   * @param lockManager to release locks after each message
+   * @param permitManager to acquire permits if the flow spec asks for them
+   * @param tracing to add tracing information to new messages
+   */
+  public Flow(
+      FlowSpec flowSpec, LockManager lockManager, PermitManager permitManager, Tracing tracing) {
     this.reader = requireNonNull(flowSpec.getReader());
     this.transformer = requireNonNull(flowSpec.getTransformer());
-    this.writer = requireNonNull(flowSpec.getWriter());
+    this.streaming = flowSpec.isStreaming();
+    if (streaming) {
+      this.writer = requireNonNull(flowSpec.getStreamingWriter());
+    } else {
+      this.writer = collecting(requireNonNull(flowSpec.getWriter()));
+    }
     this.cleanup = requireNonNullElse(flowSpec.getCleanup(), () -> {});
     this.flowMetrics = new HashSet<>();
     if (flowSpec.getMonitor() != null) {
       this.flowMetrics.add(flowSpec.getMonitor());
     }
     this.lockManager = lockManager;
+    this.permits = flowSpec.getPermits();
+    this.permitManager = requireNonNull(permitManager);
     this.tracing = requireNonNull(tracing);
   }
 
+  private static BiConsumer<Object, Consumer<Message>> collecting(
+      Function<Object, Collection<Message>> writer) {
+    return (item, publisher) -> {
+      Collection<Message> result = writer.apply(item);
+      if (result != null) {
+        result.forEach(publisher);
+      }
+    };
+  }
+
   public void registerFlowMetrics(Set<FlowMetrics> flowMetrics) {
     this.flowMetrics.addAll(flowMetrics);
   }
 
+  /**
+   * @return true if the writer emits its messages one by one, see {@link #process(Message,
+   *     Consumer)}
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
   public Collection<Message> process(Message message) {
+    List<Message> result = new ArrayList<>();
+    process(message, result::add);
+    return result;
+  }
+
+  /**
+   * Processes a message and passes each new message to the publisher as soon as the writer emits
+   * it. Locks are held and cleanup runs only after the last message has been published.
+   *
+   * @param message the incoming message
+   * @param publisher receives the new messages, already tagged with tracing information
+   */
+  public void process(Message message, Consumer<Message> publisher) {
     FlowInfo info = new FlowInfo(message);
     setLoggingData(message);
 
-    Collection<Message> result;
     try {
-      result = innerProcess(message);
+      acquirePermit(message, info);
+      innerProcess(message, publisher);
     } catch (RuntimeException e) {
       info.setStatusFrom(e);
       throw e; // Throw exception again after inspecting for ensure control flow in engine
@@ -65,37 +130,54 @@ public class Flow {
       flowMetrics.forEach(
           metric -> metric.accept(info)); // record metrics only available from inside the framework
       lockManager.release(); // make sure any lock has been released
+      permitManager.release();
+    }
+  }
+
+  private void acquirePermit(Message message, FlowInfo info) {
+    if (permits == null) {
+      return;
+    }
+    String resource = permits.resourceFor(message);
+    if (resource == null) {
+      return;
+    }
+    long started = System.nanoTime();
+    try {
+      permitManager.acquire(resource, permits.getLimit());
+    } finally {
+      info.setWaitedForPermitsNs(System.nanoTime() - started);
     }
-    return result;
   }
 
   public Collection<Message> innerProcess(Message message) {
-    Collection<Message> result;
+    List<Message> result = new ArrayList<>();
+    innerProcess(message, result::add);
+    return result;
+  }
 
+  private void innerProcess(Message message, Consumer<Message> publisher) {
     try {
       var r = reader.apply(message);
       var t = transformer.apply(r);
-      result = writer.apply(t);
+      writer.accept(
+          t,
+          newMessage -> {
+            if (newMessage == null) {
+              return;
+            }
+            if (newMessage.getTracing() == null || newMessage.getTracing().isEmpty()) {
+              newMessage.setTracing(tracing.tracingPath());
+            }
+            if (newMessage.getTracingId() == null) {
+              // Do not update the tracing id if the user set one by hand
+              newMessage.setTracingId(message.getTracingId());
+            }
+            publisher.accept(newMessage);
+          });
     } finally {
       cleanup.run();
     }
-    if (result == null) {
-      return Collections.emptyList();
-    }
-
-    result.stream()
-        .filter(Objects::nonNull)
-        .filter(m -> m.getTracing() == null || m.getTracing().isEmpty())
-        .forEach(m -> m.setTracing(tracing.tracingPath()));
-
-    // separate loop because tracingId will be deprecated
-    for (Message newMessage : result) {
-      if (newMessage == null || newMessage.getTracingId() != null) {
-        continue; // Do not update the tracing id if the user set one by hand
-      }
-      newMessage.setTracingId(message.getTracingId());
-    }
-    return result;
   }
 
   void setLoggingData(Message message) {
@@ -103,19 +185,38 @@ public class Flow {
     if (message.getTracingId() != null) {
       MDC.put("tracingId", message.getTracingId());
     }
-    for (Method method : message.getClass().getMethods()) {
-      if (!("getId".equalsIgnoreCase(method.getName()) && method.canAccess(message))) {
+    MethodHandle getId = ID_ACCESSORS.get(message.getClass());
+    if (getId == null) {
+      return; // message class has no id
+    }
+    Object id;
+    try {
+      id = (Object) getId.invokeExact((Object) message);
+    } catch (Throwable e) {
+      throw new RuntimeException("Cannot get ID for logging but should be able to", e);
+    }
+    if (id != null) {
+      MDC.put("id", id.toString());
+    }
+  }
+
+  /**
+   * Finds the public <code>getId()</code> method of a message class (case insensitive), typed as
+   * <code>(Object) -&gt; Object</code>. Looked up once per class instead of for every message.
+   */
+  private static MethodHandle findIdAccessor(Class<?> type) {
+    for (Method method : type.getMethods()) {
+      if (!"getId".equalsIgnoreCase(method.getName()) || method.getParameterCount() != 0) {
         continue;
       }
       try {
-        Object id = method.invoke(message);
-        if (id != null) {
-          MDC.put("id", id.toString());
-        }
-      } catch (IllegalAccessException | InvocationTargetException e) {
-        throw new RuntimeException("Cannot get ID for logging but should be able to");
+        return MethodHandles.publicLookup()
+            .unreflect(method)
+            .asType(MethodType.methodType(Object.class, Object.class));
+      } catch (IllegalAccessException e) {
+        // not accessible (e.g. declared by a non-public class), try the next one
       }
-      break; // found the id, no need to search further
     }
+    return null;
   }
 }
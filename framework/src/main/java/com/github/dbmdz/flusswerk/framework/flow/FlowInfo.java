@@ -22,6 +22,7 @@ public class FlowInfo {
   private long endTime;
   private Status status;
   private final Message message;
+  private long waitedForPermitsNs;
 
   public FlowInfo(Message message) {
     this.startTime = System.currentTimeMillis();
@@ -52,4 +53,13 @@ public class FlowInfo {
   public long duration() {
     return this.endTime - this.startTime;
   }
+
+  /** @return the time waited for a permit before processing the message, in nanoseconds */
+  public long getWaitedForPermitsNs() {
+    return waitedForPermitsNs;
+  }
+
+  void setWaitedForPermitsNs(long waitedForPermitsNs) {
+    this.waitedForPermitsNs = waitedForPermitsNs;
+  }
 }
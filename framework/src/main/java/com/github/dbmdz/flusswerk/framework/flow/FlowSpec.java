@@ -5,6 +5,7 @@ import static java.util.Objects.requireNonNullElse;
 
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import java.util.Collection;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -13,22 +14,121 @@ public class FlowSpec {
   private final Function<Message, Object> reader;
   private final Function<Object, Object> transformer;
   private final Function<Object, Collection<Message>> writer;
+  private final BiConsumer<Object, Consumer<Message>> streamingWriter;
 
   private final Runnable cleanup;
 
   private final Consumer<FlowInfo> monitor;
 
+  private final MessageFilter filter;
+
+  private final Permits permits;
+
+  private final Deduplication deduplication;
+
   public FlowSpec(
       Function<Message, Object> reader,
       Function<Object, Object> transformer,
       Function<Object, Collection<Message>> writer,
       Runnable cleanup,
       Consumer<FlowInfo> monitor) {
+    this(reader, transformer, writer, cleanup, monitor, null);
+  }
+
+  public FlowSpec(
+      Function<Message, Object> reader,
+      Function<Object, Object> transformer,
+      Function<Object, Collection<Message>> writer,
+      Runnable cleanup,
+      Consumer<FlowInfo> monitor,
+      MessageFilter filter) {
+    this(reader, transformer, requireNonNull(writer), null, cleanup, monitor, filter, null, null);
+  }
+
+  /**
+   * Creates a flow whose writer emits its messages one by one instead of returning all at once.
+   * Each emitted message is sent right away, which keeps memory usage low for writers with many
+   * messages.
+   *
+   * @param reader the reader
+   * @param transformer the transformer
+   * @param streamingWriter the writer, which passes each new message to the given consumer
+   * @param cleanup the cleanup task (optional)
+   * @param monitor the process metrics monitor (optional)
+   * @param filter the filter for incoming messages (optional)
+   */
+  public FlowSpec(
+      Function<Message, Object> reader,
+      Function<Object, Object> transformer,
+      BiConsumer<Object, Consumer<Message>> streamingWriter,
+      Runnable cleanup,
+      Consumer<FlowInfo> monitor,
+      MessageFilter filter) {
+    this(
+        reader,
+        transformer,
+        null,
+        requireNonNull(streamingWriter),
+        cleanup,
+        monitor,
+        filter,
+        null,
+        null);
+  }
+
+  private FlowSpec(
+      Function<Message, Object> reader,
+      Function<Object, Object> transformer,
+      Function<Object, Collection<Message>> writer,
+      BiConsumer<Object, Consumer<Message>> streamingWriter,
+      Runnable cleanup,
+      Consumer<FlowInfo> monitor,
+      MessageFilter filter,
+      Permits permits,
+      Deduplication deduplication) {
     this.reader = requireNonNull(reader);
     this.transformer = requireNonNull(transformer);
-    this.writer = requireNonNull(writer);
+    this.writer = writer;
+    this.streamingWriter = streamingWriter;
     this.cleanup = requireNonNullElse(cleanup, () -> {});
     this.monitor = requireNonNullElse(monitor, metrics -> {});
+    this.filter = requireNonNullElse(filter, MessageFilter.acceptAll());
+    this.permits = permits;
+    this.deduplication = deduplication;
+  }
+
+  /**
+   * @param permits the permits every message needs before it is processed
+   * @return a copy of this flow that acquires a permit for each message
+   */
+  public FlowSpec withPermits(Permits permits) {
+    return new FlowSpec(
+        reader,
+        transformer,
+        writer,
+        streamingWriter,
+        cleanup,
+        monitor,
+        filter,
+        requireNonNull(permits),
+        deduplication);
+  }
+
+  /**
+   * @param deduplication how to recognize messages that have already been processed
+   * @return a copy of this flow that acknowledges duplicates without processing them
+   */
+  public FlowSpec withDeduplication(Deduplication deduplication) {
+    return new FlowSpec(
+        reader,
+        transformer,
+        writer,
+        streamingWriter,
+        cleanup,
+        monitor,
+        filter,
+        permits,
+        requireNonNull(deduplication));
   }
 
   public Function<Message, Object> getReader() {
@@ -39,10 +139,21 @@ public class FlowSpec {
     return transformer;
   }
 
+  /** @return the writer or null if this flow has a streaming writer */
   public Function<Object, Collection<Message>> getWriter() {
     return writer;
   }
 
+  /** @return the streaming writer or null if this flow has a regular writer */
+  public BiConsumer<Object, Consumer<Message>> getStreamingWriter() {
+    return streamingWriter;
+  }
+
+  /** @return true if the writer emits its messages one by one */
+  public boolean isStreaming() {
+    return streamingWriter != null;
+  }
+
   public Runnable getCleanup() {
     return cleanup;
   }
@@ -50,4 +161,18 @@ public class FlowSpec {
   public Consumer<FlowInfo> getMonitor() {
     return monitor;
   }
+
+  public MessageFilter getFilter() {
+    return filter;
+  }
+
+  /** @return the permits every message needs or null if messages are processed without permits */
+  public Permits getPermits() {
+    return permits;
+  }
+
+  /** @return how to recognize duplicates or null if every message is processed */
+  public Deduplication getDeduplication() {
+    return deduplication;
+  }
 }
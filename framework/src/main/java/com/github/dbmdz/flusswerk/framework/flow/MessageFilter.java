@@ -0,0 +1,52 @@
+package com.github.dbmdz.flusswerk.framework.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.MessagePeek;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides on a {@link MessagePeek} whether a message should be processed at all. Messages that are
+ * not accepted are acknowledged and dropped before the full message is deserialized.
+ */
+public class MessageFilter {
+
+  private static final MessageFilter ACCEPT_ALL = new MessageFilter(peek -> true, Set.of());
+
+  private final Predicate<MessagePeek> predicate;
+  private final Set<String> fields;
+
+  /**
+   * @param predicate returns true for messages that should be processed
+   * @param fields the top-level fields the predicate needs to see
+   */
+  public MessageFilter(Predicate<MessagePeek> predicate, Collection<String> fields) {
+    this.predicate = requireNonNull(predicate);
+    this.fields = Set.copyOf(fields);
+  }
+
+  /** @return a filter that accepts every message without looking at it */
+  public static MessageFilter acceptAll() {
+    return ACCEPT_ALL;
+  }
+
+  /** @return true if this filter accepts every message and peeking can be skipped */
+  public boolean acceptsAll() {
+    return this == ACCEPT_ALL;
+  }
+
+  /** @return the top-level fields to peek for this filter */
+  public Set<String> getFields() {
+    return fields;
+  }
+
+  /**
+   * @param peek the peeked fields of a message
+   * @return true if the message should be processed
+   */
+  public boolean accepts(MessagePeek peek) {
+    return predicate.test(peek);
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.dbmdz.flusswerk.framework.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.function.Function;
+
+/**
+ * The resource a message needs a permit for and how many permits there are per resource, see {@link
+ * com.github.dbmdz.flusswerk.framework.flow.builder.ConfigurationStep#permits(Function, int)}.
+ */
+public class Permits {
+
+  private final Function<Message, String> resource;
+  private final int limit;
+
+  /**
+   * @param resource the resource for a message, may return <code>null</code> if the message does
+   *     not need a permit
+   * @param limit the number of permits per resource
+   */
+  public Permits(Function<Message, String> resource, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Permit limit must be positive, but was " + limit);
+    }
+    this.resource = requireNonNull(resource);
+    this.limit = limit;
+  }
+
+  /** @return the resource the message needs a permit for or <code>null</code> */
+  public String resourceFor(Message message) {
+    return resource.apply(message);
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+}
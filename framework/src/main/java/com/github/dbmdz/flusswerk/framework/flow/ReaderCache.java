@@ -0,0 +1,170 @@
+package com.github.dbmdz.flusswerk.framework.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Wraps a reader and keeps its results for messages with the same key, so that e.g. a manifest
+ * needed by many consecutive messages is only loaded once. The cache holds at most <code>maxSize
+ * </code> results and drops the least recently used ones first. Results older than the time to live
+ * are loaded again.
+ *
+ * <p>Concurrent messages with the same key wait for a single load. Messages without a key, <code>
+ * null</code> results and failed loads are never cached. Cached results are shared between messages
+ * and threads, so they must not be modified.
+ *
+ * @param <M> The message class
+ * @param <K> The cache key
+ * @param <R> The reader output
+ */
+public class ReaderCache<M extends Message, K, R> implements Function<M, R> {
+
+  private static class Entry<R> {
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+    private final long createdAt;
+
+    Entry(long createdAt) {
+      this.createdAt = createdAt;
+    }
+  }
+
+  private final Function<M, R> reader;
+  private final Function<M, K> key;
+  private final long ttl;
+  private final LongSupplier clock;
+  private final Map<K, Entry<R>> entries;
+
+  // Counted here, since caches are created with the flow before any meter registry is available
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final AtomicLong evictions;
+
+  /**
+   * @param reader the reader to cache results for
+   * @param key the cache key for a message, may return <code>null</code> to bypass the cache
+   * @param maxSize the maximum number of cached results
+   * @param ttl the time to live for cached results (<code>null</code> to keep results until they
+   *     are evicted)
+   */
+  public ReaderCache(Function<M, R> reader, Function<M, K> key, int maxSize, Duration ttl) {
+    this(reader, key, maxSize, ttl, System::nanoTime);
+  }
+
+  ReaderCache(
+      Function<M, R> reader, Function<M, K> key, int maxSize, Duration ttl, LongSupplier clock) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Cache size must be positive, but was " + maxSize);
+    }
+    this.reader = requireNonNull(reader);
+    this.key = requireNonNull(key);
+    this.ttl = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+    this.clock = requireNonNull(clock);
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.evictions = new AtomicLong();
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<R>> eldest) {
+            if (size() > maxSize) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Reports cache hits, misses and evictions, including those before this call.
+   *
+   * @param meterFactory to create the counters
+   */
+  public void registerMetrics(MeterFactory meterFactory) {
+    meterFactory.functionCounter("reader.cache", hits, AtomicLong::get, "result", "hit");
+    meterFactory.functionCounter("reader.cache", misses, AtomicLong::get, "result", "miss");
+    meterFactory.functionCounter("reader.cache.evictions", evictions, AtomicLong::get);
+  }
+
+  @Override
+  public R apply(M message) {
+    K k = key.apply(message);
+    if (k == null) {
+      return reader.apply(message);
+    }
+
+    Entry<R> entry;
+    boolean load = false;
+    synchronized (entries) {
+      long now = clock.getAsLong();
+      entry = entries.get(k);
+      if (entry != null && now - entry.createdAt >= ttl) {
+        entries.remove(k);
+        evictions.incrementAndGet();
+        entry = null;
+      }
+      if (entry == null) {
+        entry = new Entry<>(now);
+        entries.put(k, entry);
+        load = true;
+      }
+    }
+
+    if (load) {
+      misses.incrementAndGet();
+      return load(message, k, entry);
+    }
+    hits.incrementAndGet();
+    return await(entry);
+  }
+
+  private R load(M message, K k, Entry<R> entry) {
+    R result;
+    try {
+      result = reader.apply(message);
+    } catch (RuntimeException | Error e) {
+      remove(k, entry);
+      entry.result.completeExceptionally(e);
+      throw e;
+    }
+    if (result == null) {
+      remove(k, entry);
+    }
+    entry.result.complete(result);
+    return result;
+  }
+
+  private void remove(K k, Entry<R> entry) {
+    synchronized (entries) {
+      entries.remove(k, entry);
+    }
+  }
+
+  private R await(Entry<R> entry) {
+    try {
+      return entry.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause(); // same behaviour as if this message loaded itself
+      }
+      throw e;
+    }
+  }
+
+  /** @return the number of currently cached results */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
@@ -1,11 +1,22 @@
 package com.github.dbmdz.flusswerk.framework.flow.builder;
 
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.flow.Deduplication;
 import com.github.dbmdz.flusswerk.framework.flow.FlowInfo;
 import com.github.dbmdz.flusswerk.framework.flow.FlowSpec;
+import com.github.dbmdz.flusswerk.framework.flow.MessageFilter;
+import com.github.dbmdz.flusswerk.framework.flow.Permits;
+import com.github.dbmdz.flusswerk.framework.flow.ReaderCache;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.model.MessagePeek;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Set configuration for the new flow and build it.
@@ -46,18 +57,156 @@ public class ConfigurationStep<M extends Message, R, W> {
     return this;
   }
 
+  /**
+   * Sets a filter that sees only the given top-level fields of each incoming message. Messages it
+   * rejects are acknowledged and dropped before the full message is deserialized, so neither the
+   * reader nor any other step is called for them.
+   *
+   * @param f returns true for messages that should be processed
+   * @param fields the top-level fields the filter needs, e.g. <code>tracingId</code> or <code>id
+   *     </code>
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> filter(Predicate<MessagePeek> f, String... fields) {
+    model.setFilter(new MessageFilter(f, Arrays.asList(fields)));
+    return this;
+  }
+
+  /**
+   * Caches the reader results for messages with the same key, e.g. to load a manifest needed by
+   * many consecutive messages only once. Cached results are shared between messages and threads, so
+   * they must not be modified. The reader is not called at all for cache hits, so it must not have
+   * side effects later steps rely on, e.g. acquiring locks with the {@link
+   * com.github.dbmdz.flusswerk.framework.locking.LockManager}; acquire them in the transformer or
+   * writer instead.
+   *
+   * @param key the cache key for a message, may return <code>null</code> to bypass the cache
+   * @param maxSize the maximum number of cached results, least recently used results are dropped
+   *     first
+   * @param ttl the time to live for cached results
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> cache(Function<M, ?> key, int maxSize, Duration ttl) {
+    model.setReader(new ReaderCache<>(model.getReader(), key, maxSize, requireNonNull(ttl)));
+    return this;
+  }
+
+  /**
+   * Caches the reader results for messages with the same key until they are dropped because the
+   * cache is full, see {@link #cache(Function, int, Duration)}.
+   *
+   * @param key the cache key for a message, may return <code>null</code> to bypass the cache
+   * @param maxSize the maximum number of cached results, least recently used results are dropped
+   *     first
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> cache(Function<M, ?> key, int maxSize) {
+    model.setReader(new ReaderCache<>(model.getReader(), key, maxSize, null));
+    return this;
+  }
+
+  /**
+   * Limits how many messages for the same resource are processed at the same time across all apps,
+   * e.g. to call an image server at most 8 times concurrently. Each message waits for a permit of
+   * its resource before the reader is called and releases it after the writer has finished. Needs
+   * Redis.
+   *
+   * @param resource the resource a message needs, may return <code>null</code> if the message needs
+   *     no permit
+   * @param limit the number of permits per resource
+   * @return the next step (setting configuration or build the flow)
+   */
+  @SuppressWarnings("unchecked")
+  public ConfigurationStep<M, R, W> permits(Function<M, String> resource, int limit) {
+    requireNonNull(resource);
+    model.setPermits(new Permits(message -> resource.apply((M) message), limit));
+    return this;
+  }
+
+  /**
+   * Limits how many messages are processed at the same time across all apps, see {@link
+   * #permits(Function, int)}.
+   *
+   * @param resource the resource all messages need
+   * @param limit the number of permits for the resource
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> permits(String resource, int limit) {
+    requireNonNull(resource);
+    return permits(message -> resource, limit);
+  }
+
+  /**
+   * Acknowledges messages that have already been processed without processing them again, e.g.
+   * messages redelivered by RabbitMQ after a reconnect. A message counts as processed once it has
+   * been acknowledged. With Redis, duplicates are recognized across all apps.
+   *
+   * @param key the idempotency key of a message, may return <code>null</code> if the message must
+   *     always be processed
+   * @param maxSize the maximum number of keys to remember in memory, least recently used keys are
+   *     dropped first
+   * @param ttl how long to remember a key
+   * @return the next step (setting configuration or build the flow)
+   */
+  @SuppressWarnings("unchecked")
+  public ConfigurationStep<M, R, W> deduplicate(
+      Function<M, String> key, int maxSize, Duration ttl) {
+    requireNonNull(key);
+    model.setDeduplication(
+        new Deduplication(message -> key.apply((M) message), maxSize, requireNonNull(ttl)));
+    return this;
+  }
+
+  /**
+   * Acknowledges messages whose body has already been processed without processing them again, see
+   * {@link #deduplicate(Function, int, Duration)}. The body includes the envelope and the tracing
+   * ids, so this recognizes messages redelivered by RabbitMQ, but not messages sent twice. Needs
+   * the message body, so <code>flusswerk.processing.body-retention</code> must not be <code>none
+   * </code>.
+   *
+   * @param maxSize the maximum number of keys to remember in memory, least recently used keys are
+   *     dropped first
+   * @param ttl how long to remember a key
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> deduplicate(int maxSize, Duration ttl) {
+    model.setDeduplication(Deduplication.byContent(maxSize, requireNonNull(ttl)));
+    return this;
+  }
+
   /**
    * Build the new flow.
    *
    * @return the new flow
    */
-  @SuppressWarnings("unchecked")
   public FlowSpec build() {
+    FlowSpec flowSpec = buildBasicFlow();
+    if (model.getPermits() != null) {
+      flowSpec = flowSpec.withPermits(model.getPermits());
+    }
+    if (model.getDeduplication() != null) {
+      flowSpec = flowSpec.withDeduplication(model.getDeduplication());
+    }
+    return flowSpec;
+  }
+
+  @SuppressWarnings("unchecked")
+  private FlowSpec buildBasicFlow() {
+    if (model.getStreamingWriter() != null) {
+      return new FlowSpec(
+          (Function<Message, Object>) model.getReader(),
+          (Function<Object, Object>) model.getTransformer(),
+          (BiConsumer<Object, Consumer<Message>>) model.getStreamingWriter(),
+          model.getCleanup(),
+          model.getMetrics(),
+          model.getFilter());
+    }
     return new FlowSpec(
         (Function<Message, Object>) model.getReader(),
         (Function<Object, Object>) model.getTransformer(),
         (Function<Object, Collection<Message>>) model.getWriter(),
         model.getCleanup(),
-        model.getMetrics());
+        model.getMetrics(),
+        model.getFilter());
   }
 }
@@ -1,8 +1,11 @@
 package com.github.dbmdz.flusswerk.framework.flow.builder;
 
 import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
 
+import com.github.dbmdz.flusswerk.framework.aggregation.Aggregator;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
@@ -49,6 +52,34 @@ public class MessageProcessorStep<M extends Message> {
     return new ConfigurationStep<>(model);
   }
 
+  /**
+   * Collects messages of type <code>M</code> that belong together and sends one combined message
+   * for every complete group, then moves you to the next builder step.
+   *
+   * @param aggregator collects the messages until their group is complete
+   * @param combiner creates the combined message from the parts of a group
+   * @return the next reader step
+   */
+  public ConfigurationStep<M, M, M> aggregate(
+      Aggregator<M> aggregator, Function<List<M>, Message> combiner) {
+    requireNonNull(aggregator);
+    requireNonNull(combiner);
+    model.setReader(m -> m);
+    model.setTransformer(m -> m);
+    model.setWriter(
+        m -> {
+          List<Message> result = new ArrayList<>();
+          for (List<M> parts : aggregator.add(m)) {
+            Message combined = combiner.apply(parts);
+            if (combined != null) {
+              result.add(combined);
+            }
+          }
+          return result;
+        });
+    return new ConfigurationStep<>(model);
+  }
+
   /**
    * Set a message processor that receives a message of type <code>M</code> and does not return any
    * {@link Message} for Flusswerk to send.
@@ -1,8 +1,12 @@
 package com.github.dbmdz.flusswerk.framework.flow.builder;
 
+import com.github.dbmdz.flusswerk.framework.flow.Deduplication;
 import com.github.dbmdz.flusswerk.framework.flow.FlowInfo;
+import com.github.dbmdz.flusswerk.framework.flow.MessageFilter;
+import com.github.dbmdz.flusswerk.framework.flow.Permits;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import java.util.Collection;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -10,8 +14,12 @@ class Model<M extends Message, R, W> {
   private Function<M, R> reader = null;
   private Function<R, W> transformer = null;
   private Function<W, Collection<Message>> writer = null;
+  private BiConsumer<W, Consumer<Message>> streamingWriter = null;
   private Consumer<FlowInfo> metrics = null;
   private Runnable cleanup = null;
+  private MessageFilter filter = null;
+  private Permits permits = null;
+  private Deduplication deduplication = null;
 
   public Function<M, R> getReader() {
     return reader;
@@ -37,6 +45,14 @@ class Model<M extends Message, R, W> {
     this.writer = writer;
   }
 
+  public BiConsumer<W, Consumer<Message>> getStreamingWriter() {
+    return streamingWriter;
+  }
+
+  public void setStreamingWriter(BiConsumer<W, Consumer<Message>> streamingWriter) {
+    this.streamingWriter = streamingWriter;
+  }
+
   public Consumer<FlowInfo> getMetrics() {
     return metrics;
   }
@@ -52,4 +68,28 @@ class Model<M extends Message, R, W> {
   public void setCleanup(Runnable cleanup) {
     this.cleanup = cleanup;
   }
+
+  public MessageFilter getFilter() {
+    return filter;
+  }
+
+  public void setFilter(MessageFilter filter) {
+    this.filter = filter;
+  }
+
+  public Permits getPermits() {
+    return permits;
+  }
+
+  public void setPermits(Permits permits) {
+    this.permits = permits;
+  }
+
+  public Deduplication getDeduplication() {
+    return deduplication;
+  }
+
+  public void setDeduplication(Deduplication deduplication) {
+    this.deduplication = deduplication;
+  }
 }
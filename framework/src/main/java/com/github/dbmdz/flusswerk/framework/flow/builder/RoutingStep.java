@@ -0,0 +1,107 @@
+package com.github.dbmdz.flusswerk.framework.flow.builder;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Set writers that branch on the writer input and send their messages to different outgoing routes
+ * (as configured in <code>flusswerk.routing.outgoing</code>). Every branch whose condition matches
+ * is applied, in the order the branches have been added. Outgoing messages are grouped per route
+ * for sending.
+ *
+ * @param <M> The message class
+ * @param <R> Generic type for the reader output/transformer input
+ * @param <W> Generic type for the transformer output/writer input
+ */
+public class RoutingStep<M extends Message, R, W> extends ConfigurationStep<M, R, W> {
+
+  private static class Branch<W> {
+    private final String route;
+    private final Predicate<W> condition;
+    private final Function<W, Collection<Message>> writer;
+
+    Branch(String route, Predicate<W> condition, Function<W, Collection<Message>> writer) {
+      this.route = requireNonNull(route);
+      this.condition = requireNonNull(condition);
+      this.writer = requireNonNull(writer);
+    }
+  }
+
+  private final List<Branch<W>> branches = new ArrayList<>();
+
+  RoutingStep(Model<M, R, W> model) {
+    super(model);
+    model.setWriter(this::write);
+  }
+
+  /**
+   * Sends one message for every writer input to the given route.
+   *
+   * @param route the name of the outgoing route
+   * @param w the writer for this branch
+   * @return this step to add more branches, set configuration or build the flow
+   */
+  public RoutingStep<M, R, W> route(String route, Function<W, Message> w) {
+    return route(route, item -> true, w);
+  }
+
+  /**
+   * Sends one message to the given route for every writer input that matches the condition.
+   *
+   * @param route the name of the outgoing route
+   * @param condition selects the writer inputs for this branch
+   * @param w the writer for this branch
+   * @return this step to add more branches, set configuration or build the flow
+   */
+  public RoutingStep<M, R, W> route(String route, Predicate<W> condition, Function<W, Message> w) {
+    requireNonNull(w);
+    return routeMessages(
+        route,
+        condition,
+        item -> {
+          Message message = w.apply(item);
+          return message == null ? List.of() : List.of(message);
+        });
+  }
+
+  /**
+   * Sends any number of messages to the given route for every writer input that matches the
+   * condition.
+   *
+   * @param route the name of the outgoing route
+   * @param condition selects the writer inputs for this branch
+   * @param w the writer for this branch
+   * @return this step to add more branches, set configuration or build the flow
+   */
+  public RoutingStep<M, R, W> routeMessages(
+      String route, Predicate<W> condition, Function<W, Collection<Message>> w) {
+    branches.add(new Branch<>(route, condition, w));
+    return this;
+  }
+
+  private Collection<Message> write(W item) {
+    List<Message> result = new ArrayList<>();
+    for (Branch<W> branch : branches) {
+      if (!branch.condition.test(item)) {
+        continue;
+      }
+      Collection<Message> messages = branch.writer.apply(item);
+      if (messages == null) {
+        continue;
+      }
+      for (Message message : messages) {
+        if (message != null) {
+          message.getEnvelope().setRoute(branch.route);
+          result.add(message);
+        }
+      }
+    }
+    return result;
+  }
+}
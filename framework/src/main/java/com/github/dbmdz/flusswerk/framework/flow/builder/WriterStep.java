@@ -4,8 +4,10 @@ import com.github.dbmdz.flusswerk.framework.model.Message;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Set a new writer while building the new flow (typesafe).
@@ -69,4 +71,51 @@ public class WriterStep<M extends Message, R, W> {
     model.setWriter(w);
     return new ConfigurationStep<>(model);
   }
+
+  /**
+   * Moves you to a builder step to set writers that send their messages to different outgoing
+   * routes depending on the data they receive.
+   *
+   * @return the routing step (adding branches, setting configuration or build the flow)
+   */
+  public RoutingStep<M, R, W> writerRouting() {
+    return new RoutingStep<>(model);
+  }
+
+  /**
+   * Sets a writer that receives data of type and returns a {@link Stream} of new messages, then
+   * moves you to the next builder step. Messages are sent while the stream is consumed, so they
+   * never have to be in memory all at once. The incoming message is acknowledged after RabbitMQ
+   * confirmed the last of them. If the writer fails after the first message has been sent, the
+   * incoming message is not retried but goes to the failed queue, so that no message is sent twice.
+   *
+   * @param w the writer to set
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> writerStreamingMessages(
+      Function<W, Stream<? extends Message>> w) {
+    model.setStreamingWriter(
+        (item, publisher) -> {
+          try (Stream<? extends Message> messages = w.apply(item)) {
+            if (messages != null) {
+              messages.forEachOrdered(publisher);
+            }
+          }
+        });
+    return new ConfigurationStep<>(model);
+  }
+
+  /**
+   * Sets a writer that receives data of type and passes new messages to a consumer one by one, then
+   * moves you to the next builder step. Each message is sent right away, the incoming message is
+   * acknowledged after RabbitMQ confirmed the last of them. If the writer fails after the first
+   * message has been sent, the incoming message is not retried but goes to the failed queue.
+   *
+   * @param w the writer to set
+   * @return the next step (setting configuration or build the flow)
+   */
+  public ConfigurationStep<M, R, W> writerEmittingMessages(BiConsumer<W, Consumer<Message>> w) {
+    model.setStreamingWriter(w);
+    return new ConfigurationStep<>(model);
+  }
 }
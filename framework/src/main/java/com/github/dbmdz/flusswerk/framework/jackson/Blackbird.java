@@ -0,0 +1,17 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Keeps all references to the optional Blackbird module out of {@link FlusswerkObjectMapper}, so
+ * that the mapper can be loaded without Blackbird on the classpath.
+ */
+final class Blackbird {
+
+  private Blackbird() {}
+
+  static Module module() {
+    return new BlackbirdModule();
+  }
+}
@@ -7,6 +7,24 @@ public interface EnvelopeMixin {
   @JsonIgnore
   String getBody();
 
+  @JsonIgnore
+  byte[] getRawBody();
+
   @JsonIgnore
   long getDeliveryTag();
+
+  @JsonIgnore
+  String getContentType();
+
+  @JsonIgnore
+  String getContentEncoding();
+
+  @JsonIgnore
+  String getClaimCheck();
+
+  @JsonIgnore
+  long getTimestampMillis();
+
+  @JsonIgnore
+  String getRoute();
 }
@@ -1,18 +1,86 @@
 package com.github.dbmdz.flusswerk.framework.jackson;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.dbmdz.flusswerk.framework.model.Envelope;
 import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.model.MessagePeek;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Object mapper for Flusswerk messages. The default instance reads and writes JSON and also serves
+ * as registry for other {@link WireFormat}s, which get their own identically configured mapper.
+ *
+ * <p>Message classes with a {@link MessageCodec} are read and written by their codec, all others by
+ * plain Jackson. Codecs are found via {@link ServiceLoader} and can be registered with {@link
+ * #registerCodec(MessageCodec)}.
+ *
+ * <p>Readers and writers for message classes are built once and reused. Registering modules or
+ * mixins resets them, any other configuration has to happen before the mapper is used. Output
+ * buffers for serialization are pooled as well.
+ */
 public class FlusswerkObjectMapper extends ObjectMapper {
 
+  private final IncomingMessageType incomingMessageType;
   private final Class<? extends Message> messageClass;
+  private final WireFormat wireFormat;
+  private final Map<String, FlusswerkObjectMapper> wireFormats;
+  private final AtomicBoolean bytecodeBinding;
+  private final List<MessageCodec<?>> codecs;
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+  private final Map<String, ObjectReader> typedReaders = new ConcurrentHashMap<>();
+  private final Map<Class<?>, String> typeNames = new ConcurrentHashMap<>();
+  private final OutputBuffers outputBuffers = new OutputBuffers();
+  private volatile ObjectReader reader;
 
   public FlusswerkObjectMapper(IncomingMessageType incomingMessageType) {
-    messageClass = incomingMessageType.getMessageClass();
+    this(
+        incomingMessageType,
+        WireFormat.JSON,
+        new ConcurrentHashMap<>(),
+        new AtomicBoolean(),
+        new CopyOnWriteArrayList<>());
+    wireFormats.put(WireFormat.JSON.getName(), this);
+    wireFormats.put(WireFormat.JSON.getContentType(), this);
+    ClassLoader classLoader = incomingMessageType.getMessageClass().getClassLoader();
+    for (MessageCodec<?> codec : ServiceLoader.load(MessageCodec.class, classLoader)) {
+      registerCodec(codec);
+    }
+  }
+
+  private FlusswerkObjectMapper(
+      IncomingMessageType incomingMessageType,
+      WireFormat wireFormat,
+      Map<String, FlusswerkObjectMapper> wireFormats,
+      AtomicBoolean bytecodeBinding,
+      List<MessageCodec<?>> codecs) {
+    super(wireFormat.createJsonFactory());
+    this.incomingMessageType = incomingMessageType;
+    this.messageClass = incomingMessageType.getMessageClass();
+    this.wireFormat = wireFormat;
+    this.wireFormats = wireFormats;
+    this.bytecodeBinding = bytecodeBinding;
+    this.codecs = codecs;
     if (incomingMessageType.hasMixin()) {
       addMixIn(incomingMessageType.getMessageClass(), incomingMessageType.getMixin());
     } else {
@@ -20,9 +88,273 @@ public class FlusswerkObjectMapper extends ObjectMapper {
     }
     addMixIn(Envelope.class, EnvelopeMixin.class);
     registerModule(new JavaTimeModule());
+    if (bytecodeBinding.get()) {
+      registerModule(Blackbird.module());
+    }
+    codecs.forEach(codec -> registerModule(new MessageCodecModule<>(codec)));
   }
 
   public Message deserialize(String json) throws JsonProcessingException {
-    return readValue(json, messageClass);
+    return messageReader().readValue(json);
+  }
+
+  public Message deserialize(byte[] json) throws IOException {
+    return messageReader().readValue(json);
+  }
+
+  /**
+   * @param message the message to serialize
+   * @return the message in the wire format of this mapper
+   * @throws JsonProcessingException if the message cannot be serialized
+   */
+  public byte[] serialize(Message message) throws JsonProcessingException {
+    ObjectWriter writer = writers.computeIfAbsent(message.getClass(), this::writerFor);
+    OutputBuffers.Buffer buffer = outputBuffers.acquire();
+    try {
+      try (JsonGenerator generator = getFactory().createGenerator(buffer)) {
+        writer.writeValue(generator, message);
+      }
+      return buffer.toByteArray();
+    } catch (JsonProcessingException e) {
+      throw e;
+    } catch (IOException e) {
+      throw JsonMappingException.fromUnexpectedIOE(e);
+    } finally {
+      outputBuffers.release(buffer);
+    }
+  }
+
+  private ObjectReader messageReader() {
+    ObjectReader current = reader;
+    if (current == null) {
+      current = readerFor(messageClass);
+      reader = current;
+    }
+    return current;
+  }
+
+  @Override
+  public ObjectMapper registerModule(Module module) {
+    super.registerModule(module);
+    resetReadersAndWriters();
+    return this;
+  }
+
+  @Override
+  public ObjectMapper addMixIn(Class<?> target, Class<?> mixinSource) {
+    super.addMixIn(target, mixinSource);
+    resetReadersAndWriters();
+    return this;
+  }
+
+  private ObjectReader messageReader(String type) {
+    if (type == null || incomingMessageType.getTypes().isEmpty()) {
+      return messageReader();
+    }
+    Class<? extends Message> cls = incomingMessageType.getTypes().get(type);
+    if (cls == null) {
+      return messageReader();
+    }
+    return typedReaders.computeIfAbsent(type, t -> readerFor(cls));
+  }
+
+  private void resetReadersAndWriters() {
+    reader = null;
+    writers.clear();
+    typedReaders.clear();
+  }
+
+  /**
+   * @param message a message to send
+   * @return the value for the AMQP <code>type</code> property, see {@link
+   *     IncomingMessageType#typeNameFor(Class)}
+   */
+  public String typeOf(Message message) {
+    return typeNames.computeIfAbsent(
+        message.getClass(), cls -> incomingMessageType.typeNameFor(cls.asSubclass(Message.class)));
+  }
+
+  /**
+   * Reads and writes the message class of the codec with the codec in this mapper and all mappers
+   * for other wire formats. Mixins for this message class are not used anymore.
+   *
+   * @param codec the codec to use
+   */
+  public void registerCodec(MessageCodec<?> codec) {
+    codecs.add(codec);
+    for (FlusswerkObjectMapper mapper : new HashSet<>(wireFormats.values())) {
+      mapper.registerModule(new MessageCodecModule<>(codec));
+    }
+  }
+
+  /**
+   * Replaces reflection with generated bytecode for data binding in this mapper and all mappers for
+   * other wire formats. Needs <code>com.fasterxml.jackson.module:jackson-module-blackbird</code>.
+   *
+   * @throws IllegalStateException if Blackbird is not on the classpath
+   */
+  public void enableBytecodeBinding() {
+    if (bytecodeBinding.get()) {
+      return;
+    }
+    try {
+      for (FlusswerkObjectMapper mapper : new HashSet<>(wireFormats.values())) {
+        mapper.registerModule(Blackbird.module());
+      }
+    } catch (LinkageError e) {
+      throw new IllegalStateException(
+          "Bytecode binding needs com.fasterxml.jackson.module:jackson-module-blackbird", e);
+    }
+    bytecodeBinding.set(true);
+  }
+
+  /**
+   * Deserializes a message with the decoder matching its AMQP <code>content-type</code>. Messages
+   * without content type or with an unknown content type are treated as JSON to stay compatible
+   * with all producers.
+   *
+   * @param body the message as received from RabbitMQ
+   * @param contentType the AMQP content type (might be null)
+   * @return the deserialized message
+   * @throws IOException if the message cannot be deserialized
+   */
+  public Message deserialize(byte[] body, String contentType) throws IOException {
+    return forContentType(contentType).deserialize(body);
+  }
+
+  /**
+   * Deserializes a message with the decoder matching its AMQP <code>content-type</code> into the
+   * message class registered for its AMQP <code>type</code>. Messages without or with an unknown
+   * type are read as the default message class.
+   *
+   * @param body the message as received from RabbitMQ
+   * @param contentType the AMQP content type (might be null)
+   * @param type the AMQP type (might be null)
+   * @return the deserialized message
+   * @throws IOException if the message cannot be deserialized
+   */
+  public Message deserialize(byte[] body, String contentType, String type) throws IOException {
+    return forContentType(contentType).messageReader(type).readValue(body);
+  }
+
+  /**
+   * Reads only the given top-level fields of a message with the streaming parser of the decoder
+   * matching its AMQP <code>content-type</code>. No message object is created and the rest of the
+   * body is skipped, parsing stops as soon as all fields have been found.
+   *
+   * @param body the message as received from RabbitMQ
+   * @param contentType the AMQP content type (might be null)
+   * @param fields the top-level fields to read
+   * @return a view of the fields found in the message
+   * @throws IOException if the message cannot be parsed
+   */
+  public MessagePeek peek(byte[] body, String contentType, Set<String> fields) throws IOException {
+    return forContentType(contentType).peek(body, fields);
+  }
+
+  /**
+   * Reads only the given top-level fields of a message in the wire format of this mapper.
+   *
+   * @param body the serialized message
+   * @param fields the top-level fields to read
+   * @return a view of the fields found in the message
+   * @throws IOException if the message cannot be parsed
+   */
+  public MessagePeek peek(byte[] body, Set<String> fields) throws IOException {
+    Map<String, Object> values = new HashMap<>();
+    try (JsonParser parser = getFactory().createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected message to be an object");
+      }
+      while (values.size() < fields.size() && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (fields.contains(name)) {
+          values.put(name, peekValue(parser, token));
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return new MessagePeek(values);
+  }
+
+  private static Object peekValue(JsonParser parser, JsonToken token) throws IOException {
+    if (token == JsonToken.START_ARRAY) {
+      List<String> values = new ArrayList<>();
+      for (token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+        if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+          values.add(parser.getText());
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return values;
+    }
+    if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+      return parser.getText();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  /**
+   * Makes an additional {@link WireFormat} available for sending and receiving messages.
+   *
+   * @param wireFormat the format to register
+   */
+  public void registerWireFormat(WireFormat wireFormat) {
+    var mapper =
+        new FlusswerkObjectMapper(
+            incomingMessageType, wireFormat, wireFormats, bytecodeBinding, codecs);
+    wireFormats.put(wireFormat.getName(), mapper);
+    wireFormats.put(wireFormat.getContentType(), mapper);
+  }
+
+  /**
+   * @param name the name of a registered or built-in {@link WireFormat}
+   * @return the mapper for this format
+   * @throws IllegalArgumentException if there is no such format
+   */
+  public FlusswerkObjectMapper forWireFormat(String name) {
+    var mapper = lookup(name);
+    if (mapper == null) {
+      throw new IllegalArgumentException("Unknown or unavailable wire format: " + name);
+    }
+    return mapper;
+  }
+
+  /**
+   * @param contentType the AMQP content type of a message (might be null)
+   * @return the mapper for this content type or the JSON mapper if the content type is unknown
+   */
+  public FlusswerkObjectMapper forContentType(String contentType) {
+    var mapper = lookup(contentType);
+    if (mapper == null) {
+      return wireFormats.get(WireFormat.JSON.getName());
+    }
+    return mapper;
+  }
+
+  private FlusswerkObjectMapper lookup(String nameOrContentType) {
+    if (nameOrContentType == null) {
+      return null;
+    }
+    String key = WireFormat.normalize(nameOrContentType);
+    var mapper = wireFormats.get(key);
+    if (mapper == null) {
+      var builtIn = WireFormat.builtIn(key);
+      if (builtIn.isEmpty()) {
+        return null;
+      }
+      registerWireFormat(builtIn.get());
+      mapper = wireFormats.get(key);
+    }
+    return mapper;
+  }
+
+  /** @return the format this mapper reads and writes */
+  public WireFormat getWireFormat() {
+    return wireFormat;
   }
 }
@@ -0,0 +1,19 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link com.github.dbmdz.flusswerk.framework.model.Message} implementation for which the
+ * <code>codec-processor</code> generates a {@link MessageCodec} at compile time. The class needs a
+ * constructor annotated with <code>@JsonCreator</code> and a getter for every creator parameter.
+ * The generated codec is registered via {@link java.util.ServiceLoader} and used by {@link
+ * FlusswerkObjectMapper} automatically.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {}
@@ -0,0 +1,38 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+
+/**
+ * Reads and writes one {@link Message} implementation with the Jackson streaming API instead of
+ * reflection based data binding. Codecs are picked up by {@link FlusswerkObjectMapper} from {@link
+ * java.util.ServiceLoader} and from Spring beans, all other message classes are handled by plain
+ * Jackson. Codecs work with every {@link WireFormat}.
+ *
+ * @param <M> the message implementation
+ */
+public interface MessageCodec<M extends Message> {
+
+  /** @return the message implementation this codec reads and writes */
+  Class<M> getMessageClass();
+
+  /**
+   * @param message the message to write
+   * @param generator the generator to write to
+   * @param provider to write values this codec cannot handle itself
+   * @throws IOException if the message cannot be written
+   */
+  void write(M message, JsonGenerator generator, SerializerProvider provider) throws IOException;
+
+  /**
+   * @param parser the parser, positioned at the start of the message object
+   * @param context to read values this codec cannot handle itself
+   * @return the message
+   * @throws IOException if the message cannot be read
+   */
+  M read(JsonParser parser, DeserializationContext context) throws IOException;
+}
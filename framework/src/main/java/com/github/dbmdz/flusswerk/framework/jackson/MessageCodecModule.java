@@ -0,0 +1,102 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+
+/**
+ * Plugs a {@link MessageCodec} into Jackson. The codec is only used for its exact message class,
+ * subclasses are still handled by plain Jackson.
+ */
+class MessageCodecModule<M extends Message> extends Module {
+
+  private final MessageCodec<M> codec;
+
+  MessageCodecModule(MessageCodec<M> codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public String getModuleName() {
+    return "MessageCodec";
+  }
+
+  @Override
+  public Object getTypeId() {
+    return "MessageCodec:" + codec.getMessageClass().getName();
+  }
+
+  @Override
+  public Version version() {
+    return Version.unknownVersion();
+  }
+
+  @Override
+  public void setupModule(SetupContext context) {
+    Class<M> messageClass = codec.getMessageClass();
+    JsonSerializer<M> serializer = new CodecSerializer<>(codec);
+    JsonDeserializer<M> deserializer = new CodecDeserializer<>(codec);
+    context.addSerializers(
+        new Serializers.Base() {
+          @Override
+          public JsonSerializer<?> findSerializer(
+              SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+            return type.getRawClass() == messageClass ? serializer : null;
+          }
+        });
+    context.addDeserializers(
+        new Deserializers.Base() {
+          @Override
+          public JsonDeserializer<?> findBeanDeserializer(
+              JavaType type, DeserializationConfig config, BeanDescription beanDesc) {
+            return type.getRawClass() == messageClass ? deserializer : null;
+          }
+        });
+  }
+
+  private static class CodecSerializer<M extends Message> extends StdSerializer<M> {
+
+    private final MessageCodec<M> codec;
+
+    CodecSerializer(MessageCodec<M> codec) {
+      super(codec.getMessageClass());
+      this.codec = codec;
+    }
+
+    @Override
+    public void serialize(M message, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      codec.write(message, generator, provider);
+    }
+  }
+
+  private static class CodecDeserializer<M extends Message> extends StdDeserializer<M> {
+
+    private final MessageCodec<M> codec;
+
+    CodecDeserializer(MessageCodec<M> codec) {
+      super(codec.getMessageClass());
+      this.codec = codec;
+    }
+
+    @Override
+    public M deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      return codec.read(parser, context);
+    }
+  }
+}
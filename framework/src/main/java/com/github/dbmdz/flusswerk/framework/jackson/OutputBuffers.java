@@ -0,0 +1,95 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of output buffers for serialization, so that a buffer grown for one message is reused for
+ * the next instead of growing a new one. Buffers are shared between threads instead of being bound
+ * to one, which keeps the number of buffers small even with many short-lived or virtual threads.
+ */
+class OutputBuffers {
+
+  /** Buffers that grew larger than this are dropped after use instead of kept in the pool. */
+  static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+  private static final int INITIAL_SIZE = 4096;
+
+  /** Growable, unsynchronized buffer that keeps its capacity when reset. */
+  static class Buffer extends OutputStream {
+
+    private byte[] data = new byte[INITIAL_SIZE];
+    private int size;
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(size + 1);
+      data[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(size + len);
+      System.arraycopy(b, off, data, size, len);
+      size += len;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > data.length) {
+        data = Arrays.copyOf(data, Math.max(capacity, 2 * data.length));
+      }
+    }
+
+    /** @return a copy of the written bytes */
+    byte[] toByteArray() {
+      return Arrays.copyOf(data, size);
+    }
+
+    int capacity() {
+      return data.length;
+    }
+
+    void reset() {
+      size = 0;
+    }
+  }
+
+  private final BlockingQueue<Buffer> buffers;
+
+  OutputBuffers() {
+    this(2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  OutputBuffers(int capacity) {
+    this.buffers = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /** @return an empty buffer from the pool or a new one if the pool is empty */
+  Buffer acquire() {
+    Buffer buffer = buffers.poll();
+    if (buffer == null) {
+      return new Buffer();
+    }
+    return buffer;
+  }
+
+  /**
+   * Resets the buffer and returns it to the pool, unless the pool is full or the buffer is too
+   * large to keep.
+   *
+   * @param buffer a buffer obtained by {@link #acquire()}
+   */
+  void release(Buffer buffer) {
+    buffer.reset();
+    if (buffer.capacity() <= MAX_RETAINED_SIZE) {
+      buffers.offer(buffer);
+    }
+  }
+
+  /** @return the number of buffers currently available for reuse */
+  int available() {
+    return buffers.size();
+  }
+}
@@ -0,0 +1,299 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.dbmdz.flusswerk.framework.model.Envelope;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Base class for {@link MessageCodec}s, used by generated codecs and also meant for hand-written
+ * ones. It reads and writes the fields every {@link Message} has (<code>tracingId</code>, <code>
+ * tracing</code> and the <code>envelope</code>) in the same layout as plain Jackson and provides
+ * helpers for common field types.
+ *
+ * @param <M> the message implementation
+ */
+public abstract class StreamingMessageCodec<M extends Message> implements MessageCodec<M> {
+
+  private final Class<M> messageClass;
+
+  protected StreamingMessageCodec(Class<M> messageClass) {
+    this.messageClass = requireNonNull(messageClass);
+  }
+
+  @Override
+  public Class<M> getMessageClass() {
+    return messageClass;
+  }
+
+  /** Holds the common message fields while the message itself has not been created yet. */
+  protected static final class CommonFields {
+    private String tracingId;
+    private List<String> tracing;
+    private Integer retries;
+    private LocalDateTime timestamp;
+    private String source;
+
+    public CommonFields() {}
+
+    /**
+     * Copies all fields that have been read to the message.
+     *
+     * @param message the newly created message
+     * @param <T> the message implementation
+     * @return the message
+     */
+    public <T extends Message> T applyTo(T message) {
+      if (tracingId != null) {
+        message.setTracingId(tracingId);
+      }
+      if (tracing != null) {
+        message.setTracing(tracing);
+      }
+      Envelope envelope = message.getEnvelope();
+      if (retries != null) {
+        envelope.setRetries(retries);
+      }
+      if (timestamp != null) {
+        envelope.setTimestamp(timestamp);
+      }
+      if (source != null) {
+        envelope.setSource(source);
+      }
+      return message;
+    }
+  }
+
+  /**
+   * Writes <code>tracingId</code>, <code>tracing</code> and the <code>envelope</code>.
+   *
+   * @param message the message to write
+   * @param generator the generator, inside the message object
+   * @param provider to write the timestamp like plain Jackson
+   * @throws IOException if writing fails
+   */
+  protected static void writeCommonFields(
+      Message message, JsonGenerator generator, SerializerProvider provider) throws IOException {
+    writeString(generator, "tracingId", message.getTracingId());
+    writeStrings(generator, "tracing", message.getTracing());
+    Envelope envelope = message.getEnvelope();
+    generator.writeFieldName("envelope");
+    generator.writeStartObject();
+    generator.writeNumberField("retries", envelope.getRetries());
+    if (envelope.getTimestamp() != null) {
+      provider.defaultSerializeField("timestamp", envelope.getTimestamp(), generator);
+    }
+    writeString(generator, "source", envelope.getSource());
+    generator.writeEndObject();
+  }
+
+  /**
+   * Reads the current field if it is one of the common message fields.
+   *
+   * @param field the name of the current field, the parser is positioned at its value
+   * @param parser the parser
+   * @param context to read the timestamp like plain Jackson
+   * @param common where to keep the values
+   * @return true if the field has been read, false if it is not a common field
+   * @throws IOException if reading fails
+   */
+  protected static boolean readCommonField(
+      String field, JsonParser parser, DeserializationContext context, CommonFields common)
+      throws IOException {
+    switch (field) {
+      case "tracingId":
+        common.tracingId = readString(parser, context);
+        return true;
+      case "tracing":
+        common.tracing = readStrings(parser, context);
+        return true;
+      case "envelope":
+        readEnvelope(parser, context, common);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static void readEnvelope(
+      JsonParser parser, DeserializationContext context, CommonFields common) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "retries":
+          common.retries = readInt(parser, context);
+          break;
+        case "timestamp":
+          common.timestamp = context.readValue(parser, LocalDateTime.class);
+          break;
+        case "source":
+          common.source = readString(parser, context);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+  }
+
+  protected static void writeString(JsonGenerator generator, String field, String value)
+      throws IOException {
+    if (value != null) {
+      generator.writeStringField(field, value);
+    }
+  }
+
+  protected static void writeStrings(
+      JsonGenerator generator, String field, Collection<String> values) throws IOException {
+    if (values == null || values.isEmpty()) {
+      return; // like the default mixin, which does not write empty values
+    }
+    generator.writeFieldName(field);
+    generator.writeStartArray();
+    for (String value : values) {
+      generator.writeString(value);
+    }
+    generator.writeEndArray();
+  }
+
+  protected static void writeEnum(JsonGenerator generator, String field, Enum<?> value)
+      throws IOException {
+    if (value != null) {
+      generator.writeStringField(field, value.name());
+    }
+  }
+
+  /**
+   * Writes any value with the serializers of the mapper.
+   *
+   * @param generator the generator
+   * @param field the field name
+   * @param value the value (null values are not written)
+   * @param provider the provider of the mapper
+   * @throws IOException if writing fails
+   */
+  protected static void writeObject(
+      JsonGenerator generator, String field, Object value, SerializerProvider provider)
+      throws IOException {
+    if (value != null) {
+      provider.defaultSerializeField(field, value, generator);
+    }
+  }
+
+  protected static String readString(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, String.class);
+  }
+
+  protected static Integer readInt(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getIntValue();
+    }
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, Integer.class);
+  }
+
+  protected static Long readLong(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getLongValue();
+    }
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, Long.class);
+  }
+
+  protected static Double readDouble(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getDoubleValue();
+    }
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, Double.class);
+  }
+
+  protected static Boolean readBoolean(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+      return parser.getBooleanValue();
+    }
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, Boolean.class);
+  }
+
+  protected static List<String> readStrings(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      return List.of(readString(parser, context));
+    }
+    List<String> values = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      values.add(readString(parser, context));
+    }
+    return values;
+  }
+
+  protected static <E extends Enum<E>> E readEnum(
+      JsonParser parser, DeserializationContext context, Class<E> type) throws IOException {
+    String name = readString(parser, context);
+    if (name == null) {
+      return null;
+    }
+    return Enum.valueOf(type, name);
+  }
+
+  /**
+   * Reads any value with the deserializers of the mapper.
+   *
+   * @param parser the parser, positioned at the value
+   * @param context the context of the mapper
+   * @param type the type of the value
+   * @param <T> the type of the value
+   * @return the value
+   * @throws IOException if reading fails
+   */
+  protected static <T> T readObject(
+      JsonParser parser, DeserializationContext context, JavaType type) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return context.readValue(parser, type);
+  }
+}
@@ -0,0 +1,149 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+/**
+ * A serialization format for messages on the wire, identified by a short name (used in the routing
+ * configuration) and the AMQP <code>content-type</code> (used to pick the decoder for incoming
+ * messages). Any format that Jackson can read and write via a {@link JsonFactory} can be used.
+ *
+ * <p>Register custom formats as Spring beans. The binary formats Smile, CBOR and MessagePack are
+ * available out of the box if the respective Jackson dataformat module is on the classpath.
+ */
+public class WireFormat {
+
+  /** Plain JSON, the default for all messages. */
+  public static final WireFormat JSON =
+      new WireFormat("json", "application/json", JsonFactory::new);
+
+  private final String name;
+  private final String contentType;
+  private final Supplier<? extends JsonFactory> jsonFactory;
+
+  /**
+   * @param name the name to refer to this format in the routing configuration
+   * @param contentType the AMQP content type
+   * @param jsonFactory creates the Jackson factory for this format
+   */
+  public WireFormat(String name, String contentType, Supplier<? extends JsonFactory> jsonFactory) {
+    this.name = normalize(requireNonNull(name));
+    this.contentType = normalize(requireNonNull(contentType));
+    this.jsonFactory = requireNonNull(jsonFactory);
+  }
+
+  /**
+   * Binary JSON as specified by Jackson (needs <code>jackson-dataformat-smile</code>).
+   *
+   * @return the wire format for Smile
+   */
+  public static WireFormat smile() {
+    return new WireFormat("smile", "application/x-jackson-smile", SmileFactory::new);
+  }
+
+  /**
+   * Concise Binary Object Representation (needs <code>jackson-dataformat-cbor</code>).
+   *
+   * @return the wire format for CBOR
+   */
+  public static WireFormat cbor() {
+    return new WireFormat("cbor", "application/cbor", CBORFactory::new);
+  }
+
+  /**
+   * MessagePack (needs <code>org.msgpack:jackson-dataformat-msgpack</code>).
+   *
+   * @return the wire format for MessagePack
+   */
+  public static WireFormat messagePack() {
+    return new WireFormat("msgpack", "application/x-msgpack", MessagePackFactory::new);
+  }
+
+  /**
+   * Looks up one of the formats Flusswerk supports out of the box.
+   *
+   * @param nameOrContentType the name or the content type of the format
+   * @return the format or nothing, if the format is unknown or the needed Jackson module is missing
+   */
+  public static Optional<WireFormat> builtIn(String nameOrContentType) {
+    if (nameOrContentType == null) {
+      return Optional.empty();
+    }
+    try {
+      switch (normalize(nameOrContentType)) {
+        case "json":
+        case "application/json":
+          return Optional.of(JSON);
+        case "smile":
+        case "application/x-jackson-smile":
+          return Optional.of(smile());
+        case "cbor":
+        case "application/cbor":
+          return Optional.of(cbor());
+        case "msgpack":
+        case "application/x-msgpack":
+          return Optional.of(messagePack());
+        default:
+          return Optional.empty();
+      }
+    } catch (LinkageError e) {
+      return Optional.empty(); // Jackson dataformat module is not on the classpath
+    }
+  }
+
+  /**
+   * Removes parameters like <code>charset</code> and normalizes case, so <code>
+   * Application/JSON; charset=utf-8</code> matches <code>application/json</code>.
+   */
+  static String normalize(String nameOrContentType) {
+    int parameters = nameOrContentType.indexOf(';');
+    if (parameters >= 0) {
+      nameOrContentType = nameOrContentType.substring(0, parameters);
+    }
+    return nameOrContentType.trim().toLowerCase(Locale.ROOT);
+  }
+
+  JsonFactory createJsonFactory() {
+    return jsonFactory.get();
+  }
+
+  /** @return the name to refer to this format in the routing configuration */
+  public String getName() {
+    return name;
+  }
+
+  /** @return the AMQP content type */
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o instanceof WireFormat) {
+      WireFormat other = (WireFormat) o;
+      return name.equals(other.name) && contentType.equals(other.contentType);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, contentType);
+  }
+
+  @Override
+  public String toString() {
+    return "WireFormat{name='" + name + "', contentType='" + contentType + "'}";
+  }
+}
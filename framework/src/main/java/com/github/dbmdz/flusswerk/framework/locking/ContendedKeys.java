@@ -0,0 +1,63 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the keys with the longest waiting times in bounded memory. When all slots are taken, a new
+ * key replaces the key with the shortest waiting time and inherits that time (the space-saving
+ * algorithm), so the waiting times of the top keys are upper bounds, but no frequently contended
+ * key is missed.
+ */
+class ContendedKeys {
+
+  private final int size;
+  private final int capacity;
+  private final Map<String, Long> waited;
+
+  /** @param size the number of keys to report */
+  ContendedKeys(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Size must be positive, but was " + size);
+    }
+    this.size = size;
+    this.capacity = 4 * size; // more candidates than reported keys make the top keys more accurate
+    this.waited = new HashMap<>();
+  }
+
+  synchronized void record(String key, long waitedNs) {
+    Long current = waited.get(key);
+    if (current != null) {
+      waited.put(key, current + waitedNs);
+      return;
+    }
+    if (waited.size() < capacity) {
+      waited.put(key, waitedNs);
+      return;
+    }
+    String leastContended = null;
+    long least = Long.MAX_VALUE;
+    for (Map.Entry<String, Long> entry : waited.entrySet()) {
+      if (entry.getValue() < least) {
+        leastContended = entry.getKey();
+        least = entry.getValue();
+      }
+    }
+    waited.remove(leastContended);
+    waited.put(key, least + waitedNs);
+  }
+
+  /** @return the most contended keys and their waiting times in ns, longest first */
+  synchronized Map<String, Long> top() {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(waited.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(size, entries.size()))) {
+      result.put(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+}
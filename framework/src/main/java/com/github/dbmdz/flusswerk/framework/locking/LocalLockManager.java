@@ -0,0 +1,215 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Locks within this JVM for apps that run as a single instance and do not need Redis. Timeouts,
+ * lock modes and metrics behave like in {@link RedisLockManager}. Exclusive locks and write locks
+ * for the same id exclude each other here, but not in Redis, so still use only one kind per id.
+ *
+ * <p>Fencing tokens start at the current time in milliseconds shifted by 20 bits, so that tokens
+ * keep increasing across restarts as long as the system clock does not go backwards and the app
+ * requests fewer than a million tokens per millisecond of uptime.
+ */
+public class LocalLockManager implements LockManager {
+
+  private static class Held {
+    private final List<String> ids;
+    private final LockMode mode;
+    private final long acquired;
+    // Only read and written by the thread holding the locks, 0 until requested
+    private long fencingToken;
+
+    Held(List<String> ids, LockMode mode, long acquired) {
+      this.ids = ids;
+      this.mode = mode;
+      this.acquired = acquired;
+    }
+  }
+
+  private final ConcurrentMap<Long, Held> locks;
+  private final LocalLocks localLocks;
+  private final long timeout;
+  private final LockMetrics metrics;
+  private final AtomicLong fencingTokens;
+  private final Watch watch;
+
+  public LocalLockManager(Duration timeout) {
+    this(timeout, new SystemWatch());
+  }
+
+  /**
+   * @param timeout how long to wait for a lock
+   * @param meterFactory to record waiting and holding times like {@link RedisLockManager}
+   */
+  public LocalLockManager(Duration timeout, MeterFactory meterFactory) {
+    this(timeout, new SystemWatch(), meterFactory);
+  }
+
+  public LocalLockManager(Duration timeout, Watch watch) {
+    this(timeout, watch, MeterFactory.none());
+  }
+
+  public LocalLockManager(Duration timeout, Watch watch, MeterFactory meterFactory) {
+    this.timeout = timeout.toMillis();
+    this.locks = new ConcurrentHashMap<>();
+    this.localLocks = new LocalLocks();
+    this.metrics = new LockMetrics(watch, meterFactory);
+    this.fencingTokens = new AtomicLong(System.currentTimeMillis() << 20);
+    this.watch = requireNonNull(watch);
+  }
+
+  @Override
+  public void acquire(String id) throws LockingException {
+    acquire(List.of(id), LockMode.EXCLUSIVE);
+  }
+
+  @Override
+  public void acquireAll(Collection<String> ids) throws LockingException {
+    acquire(ids, LockMode.EXCLUSIVE);
+  }
+
+  @Override
+  public void acquireRead(String id) throws LockingException {
+    acquire(List.of(id), LockMode.READ);
+  }
+
+  @Override
+  public void acquireWrite(String id) throws LockingException {
+    acquire(List.of(id), LockMode.WRITE);
+  }
+
+  private void acquire(Collection<String> ids, LockMode mode) throws LockingException {
+    long threadId = Thread.currentThread().getId();
+    if (locks.containsKey(threadId)) {
+      throw new RuntimeException(
+          "Cannot acquire more locks while the thread holds locks, acquire all ids at once");
+    }
+    if (ids.isEmpty()) {
+      throw new IllegalArgumentException("Cannot acquire locks without ids");
+    }
+    // Sorted ids give every thread the same order, so nobody can deadlock
+    List<String> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+    long started = watch.now();
+    List<String> acquired = new ArrayList<>();
+    try {
+      for (String id : sortedIds) {
+        long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(watch.now() - started);
+        if (!localLocks.tryLock(
+            id, mode == LockMode.READ, Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+          throw new LockingException(
+              "Could not acquire lock: Timeout of " + timeout + "ms reached");
+        }
+        acquired.add(id);
+      }
+    } catch (InterruptedException e) {
+      unlock(acquired, mode);
+      metrics.timedOut(sortedIds, mode, watch.now() - started);
+      throw new LockingException("Could not acquire lock", e);
+    } catch (LockingException e) {
+      unlock(acquired, mode);
+      metrics.timedOut(sortedIds, mode, watch.now() - started);
+      throw e;
+    }
+    long now = watch.now();
+    metrics.acquired(sortedIds, mode, now - started);
+    locks.put(threadId, new Held(sortedIds, mode, now));
+  }
+
+  private void unlock(List<String> ids, LockMode mode) {
+    for (int i = ids.size() - 1; i >= 0; i--) {
+      localLocks.unlock(ids.get(i), mode == LockMode.READ);
+    }
+  }
+
+  @Override
+  public void release() {
+    Held held = locks.remove(Thread.currentThread().getId());
+    if (held == null) {
+      return;
+    }
+    unlock(held.ids, held.mode);
+    metrics.released(held.mode, watch.now() - held.acquired);
+  }
+
+  @Override
+  public long getFencingToken(String id) {
+    Held held = locks.get(Thread.currentThread().getId());
+    if (held == null || !held.ids.contains(id)) {
+      throw new IllegalStateException("Cannot create fencing token, thread does not hold " + id);
+    }
+    if (held.fencingToken == 0) {
+      held.fencingToken = fencingTokens.incrementAndGet();
+    }
+    return held.fencingToken;
+  }
+
+  @Override
+  public long getLocksAcquired() {
+    return metrics.getLocksAcquired();
+  }
+
+  @Override
+  public long getWaitedForLocksNs() {
+    return metrics.getWaitedForLocksNs();
+  }
+
+  /**
+   * @param mode the kind of locks
+   * @return the part of {@link #getWaitedForLocksNs()} spent waiting for locks of this kind
+   */
+  public long getWaitedForLocksNs(LockMode mode) {
+    return metrics.getWaitedForLocksNs(mode);
+  }
+
+  @Override
+  public long getLocksHeldNs() {
+    return metrics.getLocksHeldNs();
+  }
+
+  /**
+   * @param mode the kind of locks
+   * @return the part of {@link #getLocksHeldNs()} spent holding locks of this kind
+   */
+  public long getLocksHeldNs(LockMode mode) {
+    return metrics.getLocksHeldNs(mode);
+  }
+
+  /** @return the keys with the longest waiting times and their waiting times in ns */
+  public Map<String, Long> getMostContendedKeys() {
+    return metrics.getMostContendedKeys();
+  }
+
+  @Override
+  public boolean threadHasLock() {
+    return locks.containsKey(Thread.currentThread().getId());
+  }
+
+  @Override
+  public Optional<String> getLockedIdForThread() {
+    Held held = locks.get(Thread.currentThread().getId());
+    if (held == null) {
+      return Optional.empty();
+    }
+    return Optional.of(held.ids.get(0));
+  }
+
+  @Override
+  public boolean isLocked(String id) {
+    return localLocks.isLocked(id);
+  }
+}
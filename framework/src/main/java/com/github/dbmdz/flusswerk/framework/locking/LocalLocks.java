@@ -0,0 +1,100 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keyed locks within this JVM. Threads that want the same key queue here, so that only one of them
+ * at a time contends for the distributed lock (or all readers at once for shared locks). Locks are
+ * removed as soon as no thread holds or waits for them anymore.
+ */
+class LocalLocks {
+
+  private static class Entry {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private int users;
+
+    Lock get(boolean shared) {
+      return shared ? lock.readLock() : lock.writeLock();
+    }
+  }
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param key the key to lock exclusively
+   * @param timeout the maximum time to wait for the lock
+   * @param unit the time unit of the timeout
+   * @return true if the lock has been acquired, false if the timeout elapsed
+   * @throws InterruptedException if the thread has been interrupted while waiting
+   */
+  boolean tryLock(String key, long timeout, TimeUnit unit) throws InterruptedException {
+    return tryLock(key, false, timeout, unit);
+  }
+
+  /**
+   * @param key the key to lock
+   * @param shared whether other threads can hold the shared lock for this key at the same time
+   * @param timeout the maximum time to wait for the lock
+   * @param unit the time unit of the timeout
+   * @return true if the lock has been acquired, false if the timeout elapsed
+   * @throws InterruptedException if the thread has been interrupted while waiting
+   */
+  boolean tryLock(String key, boolean shared, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    Entry entry =
+        entries.compute(
+            key,
+            (k, e) -> {
+              Entry result = e == null ? new Entry() : e;
+              result.users++;
+              return result;
+            });
+    boolean locked = false;
+    try {
+      locked = entry.get(shared).tryLock(timeout, unit);
+      return locked;
+    } finally {
+      if (!locked) {
+        leave(key);
+      }
+    }
+  }
+
+  void unlock(String key) {
+    unlock(key, false);
+  }
+
+  void unlock(String key, boolean shared) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return;
+    }
+    entry.get(shared).unlock();
+    leave(key);
+  }
+
+  private void leave(String key) {
+    entries.computeIfPresent(key, (k, e) -> --e.users == 0 ? null : e);
+  }
+
+  /** @return true if any thread holds the lock, shared or exclusively */
+  boolean isLocked(String key) {
+    Entry entry = entries.get(key);
+    return entry != null && (entry.lock.isWriteLocked() || entry.lock.getReadLockCount() > 0);
+  }
+
+  /** @return the number of threads waiting for the lock */
+  int waiting(String key) {
+    Entry entry = entries.get(key);
+    return entry == null ? 0 : entry.lock.getQueueLength();
+  }
+
+  /** @return the number of keys currently held or waited for */
+  int size() {
+    return entries.size();
+  }
+}
@@ -3,16 +3,25 @@ package com.github.dbmdz.flusswerk.framework.locking;
 import static java.util.Objects.requireNonNull;
 
 import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import org.redisson.api.RLock;
 
 class LockContext {
 
   private final Lock lock;
-  private final String id;
+  private final List<String> ids;
+  private final LockMode mode;
+  private long owner;
+  private volatile boolean leaseLost;
   private long acquired;
   private long acquisitionStarted;
   private long released;
+  private final Map<String, Long> fencingTokens;
   private final Watch watch;
 
   public LockContext(Lock lock, String id) {
@@ -20,24 +29,102 @@ class LockContext {
   }
 
   public LockContext(Lock lock, String id, Watch watch) {
+    this(lock, List.of(id), watch);
+  }
+
+  /**
+   * @param lock the lock for all ids, e.g. {@link OrderedLocks}
+   * @param ids the locked ids in the order they are acquired
+   * @param watch to measure waiting and holding times
+   */
+  public LockContext(Lock lock, List<String> ids, Watch watch) {
+    this(lock, ids, LockMode.EXCLUSIVE, watch);
+  }
+
+  /**
+   * @param lock the lock for all ids, e.g. {@link OrderedLocks}
+   * @param ids the locked ids in the order they are acquired
+   * @param mode the kind of lock
+   * @param watch to measure waiting and holding times
+   */
+  public LockContext(Lock lock, List<String> ids, LockMode mode, Watch watch) {
     this.lock = requireNonNull(lock);
-    this.id = id;
+    this.ids = List.copyOf(ids);
+    this.mode = requireNonNull(mode);
     this.acquired = -1;
     this.acquisitionStarted = -1;
     this.released = -1;
+    this.fencingTokens = new HashMap<>();
     this.watch = watch;
   }
 
   public void acquire(long timeout, TimeUnit unit) throws LockingException {
+    if (!tryAcquire(timeout, unit)) {
+      throw new LockingException("Could not acquire lock: Timeout of " + timeout + "ms reached");
+    }
+  }
+
+  /**
+   * @param timeout the maximum time to wait for the lock
+   * @param unit the time unit of the timeout
+   * @return true if the lock has been acquired, false if the timeout elapsed
+   * @throws LockingException if the thread has been interrupted while waiting
+   */
+  public boolean tryAcquire(long timeout, TimeUnit unit) throws LockingException {
+    return tryAcquire(timeout, -1, unit);
+  }
+
+  /**
+   * @param timeout the maximum time to wait for the lock
+   * @param leaseTime the time after which Redis releases the lock unless it is renewed, or -1 to
+   *     let Redisson renew the lock
+   * @param unit the time unit of the timeout and the lease time
+   * @return true if the lock has been acquired, false if the timeout elapsed
+   * @throws LockingException if the thread has been interrupted while waiting
+   */
+  public boolean tryAcquire(long timeout, long leaseTime, TimeUnit unit) throws LockingException {
     acquisitionStarted = watch.now();
     try {
-      if (!lock.tryLock(timeout, unit)) {
-        throw new LockingException("Could not acquire lock: Timeout of " + timeout + "ms reached");
+      boolean locked;
+      if (leaseTime > 0 && lock instanceof RLock) {
+        locked = ((RLock) lock).tryLock(timeout, leaseTime, unit);
+      } else if (leaseTime > 0 && lock instanceof OrderedLocks) {
+        locked = ((OrderedLocks) lock).tryLock(timeout, leaseTime, unit);
+      } else {
+        locked = lock.tryLock(timeout, unit);
+      }
+      if (!locked) {
+        return false;
       }
     } catch (InterruptedException e) {
       throw new LockingException("Could not acquire lock", e);
     }
     acquired = watch.now();
+    owner = Thread.currentThread().getId();
+    return true;
+  }
+
+  /** @return true if the lock has been acquired and not released yet */
+  public boolean isHeld() {
+    return acquired != -1 && released == -1;
+  }
+
+  /** @return the id of the thread that acquired the lock */
+  public long getOwner() {
+    return owner;
+  }
+
+  /** @return true if this call marked the lease as lost, false if it already had been */
+  public boolean markLeaseLost() {
+    if (leaseLost) {
+      return false;
+    }
+    leaseLost = true;
+    return true;
+  }
+
+  public boolean isLeaseLost() {
+    return leaseLost;
   }
 
   public void release() {
@@ -59,7 +146,28 @@ class LockContext {
     return released - acquired;
   }
 
+  /** @return the first of the locked ids */
   public String getId() {
-    return id;
+    return ids.get(0);
+  }
+
+  public LockMode getMode() {
+    return mode;
+  }
+
+  /** @return all locked ids in the order they have been acquired */
+  public List<String> getIds() {
+    return ids;
+  }
+
+  /**
+   * Only the thread holding the lock may call this.
+   *
+   * @param id one of the locked ids
+   * @param create creates the token on the first call for this id
+   * @return the fencing token of this acquisition for the id
+   */
+  public long fencingToken(String id, Function<String, Long> create) {
+    return fencingTokens.computeIfAbsent(id, create);
   }
 }
@@ -1,12 +1,62 @@
 package com.github.dbmdz.flusswerk.framework.locking;
 
 import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public interface LockManager {
 
+  /**
+   * Acquires the lock for an id.
+   *
+   * @param id the id to lock
+   * @throws LockingException if the lock could not be acquired in time
+   */
   void acquire(String id) throws LockingException;
 
+  /**
+   * Acquires the locks for several ids at once. The locks are acquired in a canonical order, so
+   * threads locking overlapping sets of ids cannot deadlock. Either all locks are acquired or none.
+   * {@link #release()} releases all of them.
+   *
+   * @param ids the ids to lock
+   * @throws LockingException if the locks could not be acquired in time
+   */
+  void acquireAll(Collection<String> ids) throws LockingException;
+
+  /**
+   * Acquires a lock that other threads can hold at the same time for reading, but not while someone
+   * holds the write lock for the same id. Read/write locks are independent of the locks acquired by
+   * {@link #acquire(String)}, so use either of them for the same object.
+   *
+   * @param id the id to lock
+   * @throws LockingException if the lock could not be acquired in time
+   */
+  void acquireRead(String id) throws LockingException;
+
+  /**
+   * Acquires a lock that excludes readers and other writers of the same id, see {@link
+   * #acquireRead(String)}.
+   *
+   * @param id the id to lock
+   * @throws LockingException if the lock could not be acquired in time
+   */
+  void acquireWrite(String id) throws LockingException;
+
+  /**
+   * Returns a fencing token for an id the current thread holds a lock for. The token is created on
+   * the first call and stays the same until the lock is released. Pass it to storage that can
+   * reject writes with older tokens, e.g. from a lock holder whose lease ran out during a GC pause.
+   *
+   * @param id a locked id
+   * @return a token that is greater than the tokens of all earlier holders of this id
+   * @throws IllegalStateException if the current thread does not hold a lock for the id
+   */
+  long getFencingToken(String id);
+
   void release();
 
   /** @return the total number of successfully acquired locks */
@@ -29,4 +79,32 @@ public interface LockManager {
   Optional<String> getLockedIdForThread();
 
   boolean isLocked(String id);
+
+  /**
+   * Checks several ids at once, e.g. to skip messages whose objects are locked anyway.
+   *
+   * @param ids the ids to check
+   * @return for every id whether it is locked, in the order of the ids
+   */
+  default Map<String, Boolean> isLocked(Collection<String> ids) {
+    Map<String, Boolean> result = new LinkedHashMap<>();
+    for (String id : ids) {
+      result.put(id, isLocked(id));
+    }
+    return result;
+  }
+
+  /**
+   * Runs the action so that the current thread does not wait for locks held by someone else, but
+   * gets a {@link com.github.dbmdz.flusswerk.framework.exceptions.LockContendedException} right
+   * away. All other threads and all later acquisitions of this thread wait as usual. Lock managers
+   * that cannot tell contended locks apart run the action as usual.
+   *
+   * @param action the action that acquires locks
+   * @param <T> the result of the action
+   * @return the result of the action
+   */
+  default <T> T withoutWaiting(Supplier<T> action) {
+    return action.get();
+  }
 }
@@ -0,0 +1,150 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.MultiGauge.Row;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/** Waiting and holding times of a lock manager, both as totals and as Micrometer meters. */
+class LockMetrics {
+
+  private static final int CONTENDED_KEYS = 10;
+  private static final long CONTENDED_KEYS_REFRESH_NS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Watch watch;
+  private final AtomicLong locksAcquired;
+  private final AtomicLong waitedForLocksNs;
+  private final AtomicLong locksHeldNs;
+  private final Map<LockMode, AtomicLong> waitedForLocksNsByMode;
+  private final Map<LockMode, AtomicLong> locksHeldNsByMode;
+  private final ContendedKeys contendedKeys;
+  private final AtomicLong nextContendedKeysRefresh;
+  private final AtomicLong leaseRenewals;
+  private final AtomicLong leasesLost;
+  private final Map<LockMode, Timer> waitTimers;
+  private final Map<LockMode, Timer> heldTimers;
+  private final Map<LockMode, Counter> timeouts;
+  private final MultiGauge contendedKeysGauge;
+  private final Counter leaseRenewalsCounter;
+  private final Counter leasesLostCounter;
+
+  LockMetrics(Watch watch, MeterFactory meterFactory) {
+    this.watch = requireNonNull(watch);
+    this.locksAcquired = new AtomicLong();
+    this.waitedForLocksNs = new AtomicLong();
+    this.locksHeldNs = new AtomicLong();
+    this.waitedForLocksNsByMode = new EnumMap<>(LockMode.class);
+    this.locksHeldNsByMode = new EnumMap<>(LockMode.class);
+    for (LockMode mode : LockMode.values()) {
+      waitedForLocksNsByMode.put(mode, new AtomicLong());
+      locksHeldNsByMode.put(mode, new AtomicLong());
+    }
+    this.contendedKeys = new ContendedKeys(CONTENDED_KEYS);
+    this.nextContendedKeysRefresh = new AtomicLong(watch.now());
+    this.leaseRenewals = new AtomicLong();
+    this.leasesLost = new AtomicLong();
+    this.waitTimers = new EnumMap<>(LockMode.class);
+    this.heldTimers = new EnumMap<>(LockMode.class);
+    this.timeouts = new EnumMap<>(LockMode.class);
+    for (LockMode mode : LockMode.values()) {
+      String tag = mode.toString().toLowerCase();
+      waitTimers.put(mode, meterFactory.timer("locks.wait.time", "mode", tag));
+      heldTimers.put(mode, meterFactory.timer("locks.held.time", "mode", tag));
+      timeouts.put(mode, meterFactory.counter("locks.timeouts", "mode", tag));
+    }
+    this.contendedKeysGauge = meterFactory.multiGauge("locks.contended.wait.time");
+    this.leaseRenewalsCounter = meterFactory.counter("locks.lease.renewals");
+    this.leasesLostCounter = meterFactory.counter("locks.lease.lost");
+  }
+
+  void acquired(List<String> ids, LockMode mode, long waitedNs) {
+    locksAcquired.addAndGet(ids.size());
+    waitedForLocksNs.addAndGet(waitedNs);
+    waitedForLocksNsByMode.get(mode).addAndGet(waitedNs);
+    recordWaiting(ids, mode, waitedNs);
+  }
+
+  void timedOut(List<String> ids, LockMode mode, long waitedNs) {
+    timeouts.get(mode).increment();
+    recordWaiting(ids, mode, waitedNs);
+  }
+
+  void released(LockMode mode, long heldNs) {
+    locksHeldNs.addAndGet(heldNs);
+    locksHeldNsByMode.get(mode).addAndGet(heldNs);
+    heldTimers.get(mode).record(heldNs, TimeUnit.NANOSECONDS);
+  }
+
+  void leaseRenewed() {
+    leaseRenewals.incrementAndGet();
+    leaseRenewalsCounter.increment();
+  }
+
+  void leaseLost() {
+    leasesLost.incrementAndGet();
+    leasesLostCounter.increment();
+  }
+
+  private void recordWaiting(List<String> ids, LockMode mode, long waitedNs) {
+    waitTimers.get(mode).record(waitedNs, TimeUnit.NANOSECONDS);
+    if (waitedNs > 0) {
+      ids.forEach(id -> contendedKeys.record(id, waitedNs));
+    }
+    long now = watch.now();
+    long due = nextContendedKeysRefresh.get();
+    if (now - due >= 0
+        && nextContendedKeysRefresh.compareAndSet(due, now + CONTENDED_KEYS_REFRESH_NS)) {
+      refreshContendedKeys();
+    }
+  }
+
+  private void refreshContendedKeys() {
+    contendedKeysGauge.register(
+        contendedKeys.top().entrySet().stream()
+            .map(e -> Row.of(Tags.of("id", e.getKey()), e.getValue() / 1e6)) // ms
+            .collect(Collectors.toList()),
+        true);
+  }
+
+  long getLocksAcquired() {
+    return locksAcquired.get();
+  }
+
+  long getWaitedForLocksNs() {
+    return waitedForLocksNs.get();
+  }
+
+  long getWaitedForLocksNs(LockMode mode) {
+    return waitedForLocksNsByMode.get(mode).get();
+  }
+
+  long getLocksHeldNs() {
+    return locksHeldNs.get();
+  }
+
+  long getLocksHeldNs(LockMode mode) {
+    return locksHeldNsByMode.get(mode).get();
+  }
+
+  long getLeaseRenewals() {
+    return leaseRenewals.get();
+  }
+
+  long getLeasesLost() {
+    return leasesLost.get();
+  }
+
+  Map<String, Long> getMostContendedKeys() {
+    return contendedKeys.top();
+  }
+}
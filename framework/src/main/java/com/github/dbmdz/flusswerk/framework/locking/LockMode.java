@@ -0,0 +1,13 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+/** The kinds of locks a {@link LockManager} can acquire. */
+public enum LockMode {
+  /** A lock only one thread can hold at a time, see {@link LockManager#acquire(String)}. */
+  EXCLUSIVE,
+  /** A lock many threads can hold at a time, see {@link LockManager#acquireRead(String)}. */
+  READ,
+  /**
+   * A lock that excludes readers and other writers, see {@link LockManager#acquireWrite(String)}.
+   */
+  WRITE
+}
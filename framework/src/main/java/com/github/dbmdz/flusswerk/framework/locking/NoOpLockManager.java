@@ -1,6 +1,7 @@
 package com.github.dbmdz.flusswerk.framework.locking;
 
 import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import java.util.Collection;
 import java.util.Optional;
 
 public class NoOpLockManager implements LockManager {
@@ -10,6 +11,26 @@ public class NoOpLockManager implements LockManager {
     throw new RuntimeException("Cannot acquire locks. This is the noop version.");
   }
 
+  @Override
+  public void acquireAll(Collection<String> ids) throws LockingException {
+    throw new RuntimeException("Cannot acquire locks. This is the noop version.");
+  }
+
+  @Override
+  public void acquireRead(String id) throws LockingException {
+    throw new RuntimeException("Cannot acquire locks. This is the noop version.");
+  }
+
+  @Override
+  public void acquireWrite(String id) throws LockingException {
+    throw new RuntimeException("Cannot acquire locks. This is the noop version.");
+  }
+
+  @Override
+  public long getFencingToken(String id) {
+    throw new IllegalStateException("Cannot create fencing tokens. This is the noop version.");
+  }
+
   @Override
   public void release() {}
 
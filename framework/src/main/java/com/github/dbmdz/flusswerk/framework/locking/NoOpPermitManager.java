@@ -0,0 +1,24 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+
+public class NoOpPermitManager implements PermitManager {
+
+  @Override
+  public void acquire(String resource, int limit) throws LockingException {
+    throw new RuntimeException("Cannot acquire permits. This is the noop version.");
+  }
+
+  @Override
+  public void release() {}
+
+  @Override
+  public boolean threadHasPermit() {
+    return false;
+  }
+
+  @Override
+  public long getWaitedForPermitsNs() {
+    return 0;
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import org.redisson.api.RLock;
+
+/**
+ * Acquires several Redis locks one after another in the given order, sharing one waiting time, and
+ * releases the ones already held if a later one cannot be acquired. Unlike Redisson's multi-lock,
+ * every lock keeps the lease time it has been asked for, even when not waiting at all.
+ */
+class OrderedLocks implements Lock {
+
+  private final List<RLock> locks;
+  private final Watch watch;
+
+  /**
+   * @param locks the locks in the order to acquire them
+   * @param watch to share the waiting time between the locks
+   */
+  OrderedLocks(List<RLock> locks, Watch watch) {
+    this.locks = List.copyOf(locks);
+    this.watch = requireNonNull(watch);
+  }
+
+  @Override
+  public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+    return tryLock(time, -1, unit);
+  }
+
+  /**
+   * @param time the maximum time to wait for all locks
+   * @param leaseTime the lease time of every lock, or -1 to let Redisson renew the locks
+   * @param unit the time unit of the waiting time and the lease time
+   * @return true if all locks have been acquired, false if none is held
+   * @throws InterruptedException if the thread has been interrupted while waiting
+   */
+  boolean tryLock(long time, long leaseTime, TimeUnit unit) throws InterruptedException {
+    long started = watch.now();
+    List<RLock> acquired = new ArrayList<>();
+    try {
+      for (RLock lock : locks) {
+        long remaining =
+            Math.max(0, time - unit.convert(watch.now() - started, TimeUnit.NANOSECONDS));
+        boolean locked =
+            leaseTime > 0
+                ? lock.tryLock(remaining, leaseTime, unit)
+                : lock.tryLock(remaining, unit);
+        if (!locked) {
+          unlock(acquired);
+          return false;
+        }
+        acquired.add(lock);
+      }
+    } catch (InterruptedException | RuntimeException e) {
+      unlock(acquired);
+      throw e;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean tryLock() {
+    try {
+      return tryLock(0, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Releases all locks, even if some of them have expired in the meantime.
+   *
+   * @throws IllegalMonitorStateException if at least one lock was not held anymore
+   */
+  @Override
+  public void unlock() {
+    unlock(locks);
+  }
+
+  private static void unlock(List<RLock> held) {
+    IllegalMonitorStateException expired = null;
+    for (int i = held.size() - 1; i >= 0; i--) {
+      try {
+        held.get(i).unlock();
+      } catch (IllegalMonitorStateException e) {
+        expired = e;
+      }
+    }
+    if (expired != null) {
+      throw expired;
+    }
+  }
+
+  @Override
+  public void lock() {
+    throw new UnsupportedOperationException("Use tryLock with a waiting time");
+  }
+
+  @Override
+  public void lockInterruptibly() {
+    throw new UnsupportedOperationException("Use tryLock with a waiting time");
+  }
+
+  @Override
+  public Condition newCondition() {
+    throw new UnsupportedOperationException("Conditions are not supported");
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+
+/**
+ * Limits how many threads across all apps use a resource at the same time, e.g. at most 8
+ * concurrent calls to an image server. Like locks, permits are bound to the current thread.
+ */
+public interface PermitManager {
+
+  /**
+   * Acquires one of the permits for a resource, waiting until another thread releases one.
+   *
+   * @param resource the name of the resource
+   * @param limit the number of permits for this resource. The first app to use a resource sets the
+   *     limit, later changes have no effect while the resource is in use.
+   * @throws LockingException if no permit could be acquired in time
+   */
+  void acquire(String resource, int limit) throws LockingException;
+
+  /** Releases the permit held by the current thread, if any. */
+  void release();
+
+  /** @return true if the current thread holds a permit */
+  boolean threadHasPermit();
+
+  /** @return the total time waited for permits in nanoseconds */
+  long getWaitedForPermitsNs();
+}
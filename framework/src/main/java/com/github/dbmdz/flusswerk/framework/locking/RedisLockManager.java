@@ -2,40 +2,246 @@ package com.github.dbmdz.flusswerk.framework.locking;
 
 import static java.util.Objects.requireNonNull;
 
+import com.github.dbmdz.flusswerk.framework.exceptions.LockContendedException;
 import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript.Mode;
+import org.redisson.api.RScript.ReturnType;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class RedisLockManager implements LockManager {
+/**
+ * Distributed locks in Redis. Threads of the same JVM that want the same lock queue locally first,
+ * so that only one of them at a time contends for the lock in Redis.
+ *
+ * <p>Read/write locks are backed by Redisson's read/write locks in a separate key namespace, since
+ * exclusive locks and read/write locks on the same key would not exclude each other.
+ *
+ * <p>With a lease time, exclusive locks expire in Redis unless a background thread renews them
+ * every third of the lease time. A lock whose lease could not be renewed in time (e.g. during a
+ * long GC pause) might have been acquired by someone else in the meantime, so pass the fencing
+ * tokens from {@link #getFencingToken(String)} to storage that can reject outdated writes. Tokens
+ * come from a single counter per keyspace in Redis that is only touched when a token is requested,
+ * so that no counters pile up for ids that are never locked again.
+ *
+ * <p>{@link #close()} stops renewing leases.
+ *
+ * <p>With a {@link MeterFactory}, it records the waiting and holding time of every acquisition per
+ * lock mode (with percentiles), timeouts, the waiting times of the most contended keys, lease
+ * renewals and lost leases.
+ */
+public class RedisLockManager implements LockManager, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisLockManager.class);
+
+  private static final int LOCK_HANDLES = 1024;
+
+  private static final String RENEW =
+      "if redis.call('hexists', KEYS[1], ARGV[2]) == 0 then return 0; end; "
+          + "redis.call('pexpire', KEYS[1], ARGV[1]); "
+          + "return 1;";
 
   private final RedissonClient client;
   private final ConcurrentMap<Long, LockContext> locks;
+  private final LocalLocks localLocks;
   private final String keyspace;
   private final long timeout;
-  private final AtomicLong locksAcquired;
-  private final AtomicLong waitedForLocksNs;
-  private final AtomicLong locksHeldNs;
+  private final long leaseTime;
+  private final AtomicLong waitedForLocalLocksNs;
+  private final AtomicLong waitedForRemoteLocksNs;
+  private final LockMetrics metrics;
   private final Watch watch;
+  private final List<Consumer<String>> releaseListeners;
+  private final Map<LockMode, Map<String, RLock>> lockHandles;
+  private final ThreadLocal<Boolean> withoutWaiting;
+  // Renews the leases of exclusive locks, null without lease time
+  private final ScheduledExecutorService renewals;
+  private volatile RTopic releases;
 
   public RedisLockManager(RedissonClient client, String keyspace, Duration timeout) {
     this(client, keyspace, timeout, new SystemWatch());
   }
 
   public RedisLockManager(RedissonClient client, String keyspace, Duration timeout, Watch watch) {
+    this(client, keyspace, timeout, null, watch);
+  }
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param timeout how long to wait for a lock
+   * @param leaseTime how long an exclusive lock is valid without renewal (<code>null</code> to let
+   *     Redisson renew locks)
+   */
+  public RedisLockManager(
+      RedissonClient client, String keyspace, Duration timeout, Duration leaseTime) {
+    this(client, keyspace, timeout, leaseTime, new SystemWatch());
+  }
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param timeout how long to wait for a lock
+   * @param leaseTime how long an exclusive lock is valid without renewal (<code>null</code> to let
+   *     Redisson renew locks)
+   * @param meterFactory to record waiting and holding times
+   */
+  public RedisLockManager(
+      RedissonClient client,
+      String keyspace,
+      Duration timeout,
+      Duration leaseTime,
+      MeterFactory meterFactory) {
+    this(client, keyspace, timeout, leaseTime, new SystemWatch(), meterFactory);
+  }
+
+  public RedisLockManager(
+      RedissonClient client, String keyspace, Duration timeout, Duration leaseTime, Watch watch) {
+    this(client, keyspace, timeout, leaseTime, watch, MeterFactory.none());
+  }
+
+  public RedisLockManager(
+      RedissonClient client,
+      String keyspace,
+      Duration timeout,
+      Duration leaseTime,
+      Watch watch,
+      MeterFactory meterFactory) {
     this.client = requireNonNull(client);
     this.keyspace = requireNonNull(keyspace);
     this.timeout = timeout.toMillis();
+    this.leaseTime = leaseTime == null ? -1 : leaseTime.toMillis();
     this.locks = new ConcurrentHashMap<>();
-    locksAcquired = new AtomicLong();
-    waitedForLocksNs = new AtomicLong();
-    locksHeldNs = new AtomicLong();
+    this.localLocks = new LocalLocks();
+    waitedForLocalLocksNs = new AtomicLong();
+    waitedForRemoteLocksNs = new AtomicLong();
+    this.metrics = new LockMetrics(watch, meterFactory);
     this.watch = watch;
+    this.releaseListeners = new CopyOnWriteArrayList<>();
+    this.withoutWaiting = ThreadLocal.withInitial(() -> false);
+    this.lockHandles = new EnumMap<>(LockMode.class);
+    for (LockMode mode : LockMode.values()) {
+      lockHandles.put(mode, lockHandleCache());
+    }
+    if (this.leaseTime > 0) {
+      this.renewals =
+          Executors.newSingleThreadScheduledExecutor(
+              task -> {
+                Thread thread = new Thread(task, "flusswerk-lock-renewal");
+                thread.setDaemon(true);
+                return thread;
+              });
+      long interval = Math.max(1, this.leaseTime / 3);
+      renewals.scheduleAtFixedRate(this::renewLeases, interval, interval, TimeUnit.MILLISECONDS);
+    } else {
+      this.renewals = null;
+    }
+  }
+
+  /** Stops renewing leases, so held exclusive locks expire after their lease time. */
+  @Override
+  public void close() {
+    if (renewals != null) {
+      renewals.shutdownNow();
+    }
+  }
+
+  /** Extends the lease of every held exclusive lock, or marks it as lost if it already expired. */
+  void renewLeases() {
+    for (Map.Entry<Long, LockContext> entry : locks.entrySet()) {
+      LockContext context = entry.getValue();
+      if (context.getMode() != LockMode.EXCLUSIVE || !context.isHeld() || context.isLeaseLost()) {
+        continue;
+      }
+      String holder = client.getId() + ":" + context.getOwner(); // Redisson's hash field
+      for (String id : context.getIds()) {
+        Long renewed;
+        try {
+          renewed =
+              client
+                  .getScript(StringCodec.INSTANCE)
+                  .eval(
+                      Mode.READ_WRITE,
+                      RENEW,
+                      ReturnType.INTEGER,
+                      List.of(key(id)),
+                      String.valueOf(leaseTime),
+                      holder);
+        } catch (RuntimeException e) {
+          LOGGER.warn("Could not renew lease for lock {}, trying again later", id, e);
+          continue;
+        }
+        if (renewed != null && renewed == 1) {
+          metrics.leaseRenewed();
+        } else if (locks.get(entry.getKey()) == context && context.markLeaseLost()) {
+          metrics.leaseLost();
+          LOGGER.warn("Lease for lock {} expired before it could be renewed", id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Notifies the listener whenever a lock is released by any application using the same keyspace,
+   * so that work that failed with a {@link LockContendedException} (see {@link
+   * #withoutWaiting(Supplier)}) can be tried again.
+   *
+   * @param releaseListener receives the ids of released locks
+   */
+  public synchronized void deferContendedLocks(Consumer<String> releaseListener) {
+    releaseListeners.add(requireNonNull(releaseListener));
+    if (releases == null) {
+      RTopic topic = client.getTopic(keyspace + "::released", StringCodec.INSTANCE);
+      topic.addListener(String.class, (channel, id) -> notifyReleased(id));
+      releases = topic;
+    }
+  }
+
+  @Override
+  public <T> T withoutWaiting(Supplier<T> action) {
+    boolean previous = withoutWaiting.get();
+    withoutWaiting.set(true);
+    try {
+      return action.get();
+    } finally {
+      withoutWaiting.set(previous);
+    }
+  }
+
+  private boolean defersContendedLocks() {
+    return withoutWaiting.get();
+  }
+
+  private void notifyReleased(String id) {
+    releaseListeners.forEach(listener -> listener.accept(id));
   }
 
   @Override
@@ -44,27 +250,190 @@ public class RedisLockManager implements LockManager {
   }
 
   void acquire(String id, long threadId) throws LockingException {
+    acquireAll(List.of(id), threadId);
+  }
+
+  @Override
+  public void acquireAll(Collection<String> ids) throws LockingException {
+    acquireAll(ids, Thread.currentThread().getId());
+  }
+
+  void acquireAll(Collection<String> ids, long threadId) throws LockingException {
+    acquire(ids, LockMode.EXCLUSIVE, threadId);
+  }
+
+  @Override
+  public void acquireRead(String id) throws LockingException {
+    acquireRead(id, Thread.currentThread().getId());
+  }
+
+  void acquireRead(String id, long threadId) throws LockingException {
+    acquire(List.of(id), LockMode.READ, threadId);
+  }
+
+  @Override
+  public void acquireWrite(String id) throws LockingException {
+    acquireWrite(id, Thread.currentThread().getId());
+  }
+
+  void acquireWrite(String id, long threadId) throws LockingException {
+    acquire(List.of(id), LockMode.WRITE, threadId);
+  }
+
+  private void acquire(Collection<String> ids, LockMode mode, long threadId)
+      throws LockingException {
     if (locks.containsKey(threadId)) {
-      throw new RuntimeException("Cannot acquire more than one lock per thread at the same time");
+      throw new RuntimeException(
+          "Cannot acquire more locks while the thread holds locks, acquire all ids at once");
+    }
+    if (ids.isEmpty()) {
+      throw new IllegalArgumentException("Cannot acquire locks without ids");
     }
-    Lock lock = client.getLock(key(id));
-    LockContext context = new LockContext(lock, id, watch);
+    // Sorted ids give every thread and every app the same order, so nobody can deadlock
+    List<String> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+    long started = watch.now();
+    long waitedLocally;
+    try {
+      waitedLocally = acquireLocally(sortedIds, mode);
+    } catch (LockingException e) {
+      metrics.timedOut(sortedIds, mode, watch.now() - started);
+      throw e;
+    }
+
+    LockContext context = new LockContext(lockFor(sortedIds, mode), sortedIds, mode, watch);
     locks.put(threadId, context);
 
     try {
-      context.acquire(timeout, TimeUnit.MILLISECONDS);
-      locksAcquired.incrementAndGet();
-      waitedForLocksNs.addAndGet(context.waitedForAcquisitionNs());
+      // Local and remote waiting share the timeout
+      long remaining = Math.max(0, waitTime() - TimeUnit.NANOSECONDS.toMillis(waitedLocally));
+      // Redisson renews read/write locks itself
+      long lease = mode == LockMode.EXCLUSIVE ? leaseTime : -1;
+      if (!context.tryAcquire(remaining, lease, TimeUnit.MILLISECONDS)) {
+        throw contended(sortedIds);
+      }
+      metrics.acquired(sortedIds, mode, waitedLocally + context.waitedForAcquisitionNs());
+      waitedForLocalLocksNs.addAndGet(waitedLocally);
+      waitedForRemoteLocksNs.addAndGet(context.waitedForAcquisitionNs());
     } catch (LockingException e) {
       locks.remove(threadId);
+      releaseLocally(sortedIds, mode);
+      metrics.timedOut(sortedIds, mode, watch.now() - started);
       throw e;
     }
   }
 
+  @Override
+  public long getFencingToken(String id) {
+    LockContext context = locks.get(Thread.currentThread().getId());
+    if (context == null || !context.getIds().contains(id)) {
+      throw new IllegalStateException("Cannot create fencing token, thread does not hold " + id);
+    }
+    return context.fencingToken(
+        id, key -> client.getAtomicLong(keyspace + "::fencing").incrementAndGet());
+  }
+
+  /** @return the keys with the longest waiting times and their waiting times in ns */
+  public Map<String, Long> getMostContendedKeys() {
+    return metrics.getMostContendedKeys();
+  }
+
+  /** @return a single lock for one id or a lock that acquires all ids in order or none */
+  private Lock lockFor(List<String> ids, LockMode mode) {
+    if (ids.size() == 1) {
+      return remoteLock(ids.get(0), mode);
+    }
+    List<RLock> locks = new ArrayList<>();
+    for (String id : ids) {
+      locks.add(remoteLock(id, mode));
+    }
+    return new OrderedLocks(locks, watch);
+  }
+
+  private RLock remoteLock(String id, LockMode mode) {
+    Map<String, RLock> handles = lockHandles.get(mode);
+    switch (mode) {
+      case READ:
+        return handles.computeIfAbsent(
+            readWriteKey(id), key -> client.getReadWriteLock(key).readLock());
+      case WRITE:
+        return handles.computeIfAbsent(
+            readWriteKey(id), key -> client.getReadWriteLock(key).writeLock());
+      default:
+        return handles.computeIfAbsent(key(id), client::getLock);
+    }
+  }
+
+  /** @return a thread-safe map that drops the least recently used handles */
+  private static Map<String, RLock> lockHandleCache() {
+    return Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, RLock> eldest) {
+            return size() > LOCK_HANDLES;
+          }
+        });
+  }
+
+  /** @return the time waited for other threads of this JVM holding the same locks */
+  private long acquireLocally(List<String> ids, LockMode mode) throws LockingException {
+    long started = watch.now();
+    List<String> acquired = new ArrayList<>();
+    try {
+      for (String id : ids) {
+        long remaining = waitTime() - TimeUnit.NANOSECONDS.toMillis(watch.now() - started);
+        if (!localLocks.tryLock(
+            localKey(id, mode),
+            mode == LockMode.READ,
+            Math.max(0, remaining),
+            TimeUnit.MILLISECONDS)) {
+          throw contended(ids);
+        }
+        acquired.add(id);
+      }
+    } catch (InterruptedException e) {
+      releaseLocally(acquired, mode);
+      throw new LockingException("Could not acquire lock", e);
+    } catch (LockingException e) {
+      releaseLocally(acquired, mode);
+      throw e;
+    }
+    return watch.now() - started;
+  }
+
+  /** @return how long to wait for a lock, not at all if the current thread does not wait */
+  private long waitTime() {
+    return defersContendedLocks() ? 0 : timeout;
+  }
+
+  private LockingException contended(List<String> ids) {
+    if (defersContendedLocks()) {
+      return new LockContendedException(ids);
+    }
+    return new LockingException("Could not acquire lock: Timeout of " + timeout + "ms reached");
+  }
+
+  private void releaseLocally(List<String> ids, LockMode mode) {
+    for (int i = ids.size() - 1; i >= 0; i--) {
+      localLocks.unlock(localKey(ids.get(i), mode), mode == LockMode.READ);
+    }
+  }
+
   String key(String id) {
     return keyspace + "::" + id;
   }
 
+  String readWriteKey(String id) {
+    return keyspace + "::rw::" + id;
+  }
+
+  private String localKey(String id, LockMode mode) {
+    return mode == LockMode.EXCLUSIVE ? key(id) : readWriteKey(id);
+  }
+
+  int localWaiting(String id) {
+    return localLocks.waiting(key(id));
+  }
+
   @Override
   public void release() {
     release(Thread.currentThread().getId());
@@ -75,23 +444,76 @@ public class RedisLockManager implements LockManager {
     if (context == null) {
       return;
     }
-    context.release();
-    locksHeldNs.addAndGet(context.lockHeldNs());
+    try {
+      context.release();
+    } catch (IllegalMonitorStateException e) {
+      // Redis already released the lock, so someone else might have held it in the meantime
+      if (context.markLeaseLost()) {
+        metrics.leaseLost();
+      }
+      LOGGER.warn("Locks for {} expired before they were released", context.getIds());
+    } finally {
+      releaseLocally(context.getIds(), context.getMode());
+    }
+    metrics.released(context.getMode(), context.lockHeldNs());
+    RTopic topic = releases;
+    if (topic != null) {
+      for (String id : context.getIds()) {
+        notifyReleased(id); // no need to wait for the round trip through Redis
+        topic.publishAsync(id);
+      }
+    }
+  }
+
+  /** @return the number of times the lease of a lock has been extended */
+  public long getLeaseRenewals() {
+    return metrics.getLeaseRenewals();
+  }
+
+  /** @return the number of locks that expired in Redis while they were still in use */
+  public long getLeasesLost() {
+    return metrics.getLeasesLost();
   }
 
   @Override
   public long getLocksAcquired() {
-    return locksAcquired.get();
+    return metrics.getLocksAcquired();
   }
 
   @Override
   public long getWaitedForLocksNs() {
-    return waitedForLocksNs.get();
+    return metrics.getWaitedForLocksNs();
+  }
+
+  /** @return the part of {@link #getWaitedForLocksNs()} spent waiting for threads of this JVM */
+  public long getWaitedForLocalLocksNs() {
+    return waitedForLocalLocksNs.get();
+  }
+
+  /** @return the part of {@link #getWaitedForLocksNs()} spent waiting for the lock in Redis */
+  public long getWaitedForRemoteLocksNs() {
+    return waitedForRemoteLocksNs.get();
+  }
+
+  /**
+   * @param mode the kind of locks
+   * @return the part of {@link #getWaitedForLocksNs()} spent waiting for locks of this kind
+   */
+  public long getWaitedForLocksNs(LockMode mode) {
+    return metrics.getWaitedForLocksNs(mode);
   }
 
   @Override
   public long getLocksHeldNs() {
-    return locksHeldNs.get();
+    return metrics.getLocksHeldNs();
+  }
+
+  /**
+   * @param mode the kind of locks
+   * @return the part of {@link #getLocksHeldNs()} spent holding locks of this kind
+   */
+  public long getLocksHeldNs(LockMode mode) {
+    return metrics.getLocksHeldNs(mode);
   }
 
   @Override
@@ -112,6 +534,46 @@ public class RedisLockManager implements LockManager {
 
   @Override
   public boolean isLocked(String id) {
-    return client.getLock(key(id)).isLocked();
+    // Checks whether the keys exist, since the write lock does not report readers
+    return isLocked(List.of(id)).get(id);
+  }
+
+  /**
+   * Checks all ids held by other apps in one round trip to Redis.
+   *
+   * @param ids the ids to check
+   * @return for every id whether it is locked, in the order of the ids
+   */
+  @Override
+  public Map<String, Boolean> isLocked(Collection<String> ids) {
+    RBatch batch = null;
+    Map<String, List<RFuture<Boolean>>> pending = new HashMap<>();
+    for (String id : ids) {
+      if (heldLocally(id) || pending.containsKey(id)) {
+        continue;
+      }
+      if (batch == null) {
+        batch = client.createBatch(BatchOptions.defaults());
+      }
+      pending.put(
+          id,
+          List.of(
+              batch.getBucket(key(id)).isExistsAsync(),
+              batch.getBucket(readWriteKey(id)).isExistsAsync()));
+    }
+    if (batch != null) {
+      batch.execute();
+    }
+    Map<String, Boolean> result = new LinkedHashMap<>();
+    for (String id : ids) {
+      List<RFuture<Boolean>> exists = pending.get(id);
+      result.put(id, exists == null || exists.stream().anyMatch(RFuture::getNow));
+    }
+    return result;
+  }
+
+  /** @return true if a thread of this JVM holds the lock or is about to acquire it in Redis */
+  private boolean heldLocally(String id) {
+    return localLocks.isLocked(key(id)) || localLocks.isLocked(readWriteKey(id));
   }
 }
@@ -0,0 +1,178 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redisson.api.RPermitExpirableSemaphore;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Permits backed by Redisson semaphores. Every permit expires after the lease time, so that permits
+ * of crashed apps become available again. While a permit is held, a background thread renews its
+ * lease every third of the lease time, so that slow work keeps its permit. {@link #close()} stops
+ * renewing leases.
+ */
+public class RedisPermitManager implements PermitManager, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RedisPermitManager.class);
+
+  private static class Permit {
+    private final RPermitExpirableSemaphore semaphore;
+    private final String resource;
+    private final String id;
+    private volatile boolean leaseLost;
+
+    Permit(RPermitExpirableSemaphore semaphore, String resource, String id) {
+      this.semaphore = semaphore;
+      this.resource = resource;
+      this.id = id;
+    }
+  }
+
+  private final RedissonClient client;
+  private final String keyspace;
+  private final long timeout;
+  private final long leaseTime;
+  private final ConcurrentMap<Long, Permit> permits;
+  private final Set<String> initialized;
+  private final AtomicLong waitedForPermitsNs;
+  private final AtomicLong leasesLost;
+  private final Watch watch;
+  private final ScheduledExecutorService renewals;
+
+  /**
+   * @param client the Redis client
+   * @param keyspace the prefix for all keys
+   * @param timeout how long to wait for a permit
+   * @param leaseTime how long a permit is held without renewal, e.g. after a crash
+   */
+  public RedisPermitManager(
+      RedissonClient client, String keyspace, Duration timeout, Duration leaseTime) {
+    this(client, keyspace, timeout, leaseTime, new SystemWatch());
+  }
+
+  public RedisPermitManager(
+      RedissonClient client, String keyspace, Duration timeout, Duration leaseTime, Watch watch) {
+    this.client = requireNonNull(client);
+    this.keyspace = requireNonNull(keyspace);
+    this.timeout = timeout.toMillis();
+    this.leaseTime = leaseTime.toMillis();
+    this.permits = new ConcurrentHashMap<>();
+    this.initialized = ConcurrentHashMap.newKeySet();
+    this.waitedForPermitsNs = new AtomicLong();
+    this.leasesLost = new AtomicLong();
+    this.watch = requireNonNull(watch);
+    this.renewals =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "flusswerk-permit-renewal");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long interval = Math.max(1, this.leaseTime / 3);
+    renewals.scheduleAtFixedRate(this::renewLeases, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops renewing leases, so held permits expire after their lease time. */
+  @Override
+  public void close() {
+    renewals.shutdownNow();
+  }
+
+  /** Extends the lease of every held permit, or counts it as lost if it already expired. */
+  void renewLeases() {
+    for (Map.Entry<Long, Permit> entry : permits.entrySet()) {
+      Permit permit = entry.getValue();
+      if (permit.leaseLost) {
+        continue;
+      }
+      boolean renewed;
+      try {
+        renewed = permit.semaphore.updateLeaseTime(permit.id, leaseTime, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Could not renew permit for {}, trying again later", permit.resource, e);
+        continue;
+      }
+      if (!renewed && permits.get(entry.getKey()) == permit) {
+        permit.leaseLost = true;
+        leasesLost.incrementAndGet();
+        LOGGER.warn("Permit for {} expired before it could be renewed", permit.resource);
+      }
+    }
+  }
+
+  @Override
+  public void acquire(String resource, int limit) throws LockingException {
+    acquire(resource, limit, Thread.currentThread().getId());
+  }
+
+  void acquire(String resource, int limit, long threadId) throws LockingException {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Permit limit must be positive, but was " + limit);
+    }
+    if (permits.containsKey(threadId)) {
+      throw new RuntimeException("Cannot acquire more than one permit per thread");
+    }
+    RPermitExpirableSemaphore semaphore = client.getPermitExpirableSemaphore(key(resource));
+    if (initialized.add(resource)) {
+      semaphore.trySetPermits(limit); // only the first app sets the limit
+    }
+    long started = watch.now();
+    String id;
+    try {
+      id = semaphore.tryAcquire(timeout, leaseTime, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new LockingException("Could not acquire permit for " + resource, e);
+    } finally {
+      waitedForPermitsNs.addAndGet(watch.now() - started);
+    }
+    if (id == null) {
+      throw new LockingException(
+          "Could not acquire permit for " + resource + ": Timeout of " + timeout + "ms reached");
+    }
+    permits.put(threadId, new Permit(semaphore, resource, id));
+  }
+
+  String key(String resource) {
+    return keyspace + "::permits::" + resource;
+  }
+
+  @Override
+  public void release() {
+    release(Thread.currentThread().getId());
+  }
+
+  public void release(long threadId) {
+    Permit permit = permits.remove(threadId);
+    if (permit != null) {
+      permit.semaphore.tryRelease(permit.id); // false if the lease already expired
+    }
+  }
+
+  @Override
+  public boolean threadHasPermit() {
+    return permits.containsKey(Thread.currentThread().getId());
+  }
+
+  @Override
+  public long getWaitedForPermitsNs() {
+    return waitedForPermitsNs.get();
+  }
+
+  /** @return how many permits expired while they were held */
+  public long getLeasesLost() {
+    return leasesLost.get();
+  }
+}
@@ -0,0 +1,24 @@
+package com.github.dbmdz.flusswerk.framework.model;
+
+/**
+ * Defines how much of the original delivery an {@link Envelope} keeps after the {@link Message} has
+ * been deserialized. The body is only needed to forward invalid messages or for error logs, so
+ * keeping it as a second copy next to the deserialized message is usually wasted memory.
+ */
+public enum BodyRetention {
+
+  /** Do not keep the original body at all. {@link Envelope#getBody()} returns null. */
+  NONE,
+
+  /**
+   * Keep the original delivery bytes. {@link Envelope#getBody()} decodes them on every call without
+   * keeping the result.
+   */
+  RAW,
+
+  /**
+   * Keep the original delivery bytes and decode them on first access to {@link Envelope#getBody()}.
+   * The decoded string is kept for subsequent calls.
+   */
+  STRING
+}
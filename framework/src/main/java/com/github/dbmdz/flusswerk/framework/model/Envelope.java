@@ -1,23 +1,46 @@
 package com.github.dbmdz.flusswerk.framework.model;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /** Technical metadata all implementations of {@link Message} must have. */
 public class Envelope {
 
   private String body;
 
+  private byte[] rawBody;
+
+  private boolean cacheDecodedBody;
+
   private long deliveryTag;
 
   private int retries;
 
+  private static final long EXPLICIT_TIMESTAMP = Long.MIN_VALUE;
+
+  /** Creation time in epoch millis, until the timestamp is set explicitly. */
+  private long createdAt;
+
   private LocalDateTime timestamp;
 
   private String source;
 
-  /** Default constructor setting the Envelope.timestamp to now. */
+  private String contentType;
+
+  private String contentEncoding;
+
+  private String claimCheck;
+
+  private String route;
+
+  /**
+   * Default constructor setting the Envelope.timestamp to now. Only the epoch millis are recorded,
+   * the {@link LocalDateTime} is created when it is needed, usually when the message is sent.
+   */
   public Envelope() {
-    timestamp = LocalDateTime.now();
+    createdAt = System.currentTimeMillis();
   }
 
   /**
@@ -25,8 +48,16 @@ public class Envelope {
    * field will not be serialized when the message is sent.
    *
    * @return The original String representation of the {@link Message} as received from RabbitMQ.
+   *     Might be null if the body has not been retained (see {@link BodyRetention}).
    */
   public String getBody() {
+    if (body == null && rawBody != null) {
+      String decoded = new String(rawBody, StandardCharsets.UTF_8);
+      if (cacheDecodedBody) {
+        body = decoded;
+      }
+      return decoded;
+    }
     return body;
   }
 
@@ -38,6 +69,34 @@ public class Envelope {
    */
   public void setBody(String body) {
     this.body = body;
+    this.rawBody = null;
+  }
+
+  /**
+   * The original bytes as received from RabbitMQ. This field will not be serialized when the
+   * message is sent.
+   *
+   * @return The original bytes of the {@link Message} as received from RabbitMQ or null if the body
+   *     has not been retained.
+   */
+  public byte[] getRawBody() {
+    if (rawBody == null && body != null) {
+      return body.getBytes(StandardCharsets.UTF_8);
+    }
+    return rawBody;
+  }
+
+  /**
+   * Keeps the original bytes as received from RabbitMQ according to the given {@link
+   * BodyRetention}. The bytes are not copied, so callers must not modify them afterwards.
+   *
+   * @param rawBody The bytes as received from RabbitMQ.
+   * @param retention How much of the body to keep.
+   */
+  public void setRawBody(byte[] rawBody, BodyRetention retention) {
+    this.body = null;
+    this.rawBody = (retention == BodyRetention.NONE) ? null : rawBody;
+    this.cacheDecodedBody = (retention == BodyRetention.STRING);
   }
 
   /**
@@ -83,6 +142,9 @@ public class Envelope {
    */
   @Deprecated
   public LocalDateTime getTimestamp() {
+    if (timestamp == null && createdAt != EXPLICIT_TIMESTAMP) {
+      timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneId.systemDefault());
+    }
     return timestamp;
   }
 
@@ -93,6 +155,23 @@ public class Envelope {
    */
   public void setTimestamp(LocalDateTime timestamp) {
     this.timestamp = timestamp;
+    this.createdAt = EXPLICIT_TIMESTAMP;
+  }
+
+  /**
+   * Gets the timestamp when the {@link Message} was created in milliseconds since the epoch,
+   * without creating a {@link LocalDateTime}.
+   *
+   * @return The timestamp in epoch millis or {@link Long#MIN_VALUE} if there is no timestamp.
+   */
+  public long getTimestampMillis() {
+    if (createdAt != EXPLICIT_TIMESTAMP) {
+      return createdAt;
+    }
+    if (timestamp == null) {
+      return Long.MIN_VALUE;
+    }
+    return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
   }
 
   /**
@@ -113,6 +192,88 @@ public class Envelope {
     this.source = source;
   }
 
+  /**
+   * The AMQP content type as set by the sender. This field will not be serialized when the message
+   * is sent.
+   *
+   * @return the content type as set by the sender (might be null)
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * The AMQP content type as set by the sender. This field will not be serialized when the message
+   * is sent.
+   *
+   * @param contentType the content type as set by the sender
+   */
+  public void setContentType(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * The AMQP content encoding as set by the sender, e.g. <code>gzip</code>. This field will not be
+   * serialized when the message is sent.
+   *
+   * @return the content encoding as set by the sender (might be null)
+   */
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+
+  /**
+   * The AMQP content encoding as set by the sender, e.g. <code>gzip</code>. This field will not be
+   * serialized when the message is sent.
+   *
+   * @param contentEncoding the content encoding as set by the sender
+   */
+  public void setContentEncoding(String contentEncoding) {
+    this.contentEncoding = contentEncoding;
+  }
+
+  /**
+   * The reference to the payload if the message has been sent as a claim check. This field will not
+   * be serialized when the message is sent.
+   *
+   * @return the reference to the payload (might be null)
+   */
+  public String getClaimCheck() {
+    return claimCheck;
+  }
+
+  /**
+   * The reference to the payload if the message has been sent as a claim check. This field will not
+   * be serialized when the message is sent.
+   *
+   * @param claimCheck the reference to the payload
+   */
+  public void setClaimCheck(String claimCheck) {
+    this.claimCheck = claimCheck;
+  }
+
+  /**
+   * The name of the outgoing route (as configured in <code>flusswerk.routing.outgoing</code>) this
+   * message should be sent to when it is returned by a flow. This field will not be serialized when
+   * the message is sent.
+   *
+   * @return the name of the route or null for the default route
+   */
+  public String getRoute() {
+    return route;
+  }
+
+  /**
+   * The name of the outgoing route (as configured in <code>flusswerk.routing.outgoing</code>) this
+   * message should be sent to when it is returned by a flow. This field will not be serialized when
+   * the message is sent.
+   *
+   * @param route the name of the route or null for the default route
+   */
+  public void setRoute(String route) {
+    this.route = route;
+  }
+
   @Override
   public String toString() {
     return "Envelope{deliveryTag=" + deliveryTag + ", retries=" + retries + "}";
@@ -2,13 +2,27 @@ package com.github.dbmdz.flusswerk.framework.model;
 
 import static java.util.Objects.requireNonNull;
 
-/** Register a custom message implementation via Spring. */
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Register a custom message implementation via Spring.
+ *
+ * <p>Queues with different kinds of messages can register additional message classes with {@link
+ * #withType(Class)}. These are selected by the AMQP <code>type</code> property, which Flusswerk
+ * sets for every message it sends. Messages without or with an unknown type are read as the default
+ * message class.
+ */
 public class IncomingMessageType {
 
   private final Class<? extends Message> messageClass;
 
   private Class<?> mixin;
 
+  private final Map<String, Class<? extends Message>> types = new LinkedHashMap<>();
+
   /** Use Message for incoming messages. */
   public IncomingMessageType() {
     this(Message.class);
@@ -50,4 +64,63 @@ public class IncomingMessageType {
   public boolean hasMixin() {
     return this.mixin != null;
   }
+
+  /**
+   * Reads messages whose AMQP <code>type</code> is the type name of the given class (see {@link
+   * #typeNameOf(Class)}) as instances of that class.
+   *
+   * @param cls an additional {@link Message} implementation
+   * @return this instance for further configuration
+   */
+  public IncomingMessageType withType(Class<? extends Message> cls) {
+    return withType(typeNameOf(cls), cls);
+  }
+
+  /**
+   * Reads messages with the given AMQP <code>type</code> as instances of the given class. Flusswerk
+   * only sends this name for apps that register it as well, so register it on the sending side too
+   * or use {@link JsonTypeName} and {@link #withType(Class)} instead.
+   *
+   * @param type the value of the AMQP <code>type</code> property
+   * @param cls an additional {@link Message} implementation
+   * @return this instance for further configuration
+   */
+  public IncomingMessageType withType(String type, Class<? extends Message> cls) {
+    types.put(requireNonNull(type), requireNonNull(cls));
+    return this;
+  }
+
+  /** @return the additional message classes by their AMQP <code>type</code> */
+  public Map<String, Class<? extends Message>> getTypes() {
+    return Collections.unmodifiableMap(types);
+  }
+
+  /**
+   * The type name of a message class, as written to the AMQP <code>type</code> property. This is
+   * the name registered with {@link #withType(String, Class)}, the value of {@link JsonTypeName} or
+   * the fully qualified class name, in that order.
+   *
+   * @param cls the message class
+   * @return the type name
+   */
+  public String typeNameFor(Class<? extends Message> cls) {
+    for (Map.Entry<String, Class<? extends Message>> entry : types.entrySet()) {
+      if (entry.getValue().equals(cls)) {
+        return entry.getKey();
+      }
+    }
+    return typeNameOf(cls);
+  }
+
+  /**
+   * @param cls the message class
+   * @return the value of {@link JsonTypeName} or the fully qualified class name
+   */
+  public static String typeNameOf(Class<? extends Message> cls) {
+    JsonTypeName typeName = cls.getAnnotation(JsonTypeName.class);
+    if (typeName != null && !typeName.value().isEmpty()) {
+      return typeName.value();
+    }
+    return cls.getName();
+  }
 }
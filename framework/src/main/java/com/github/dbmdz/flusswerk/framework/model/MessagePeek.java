@@ -0,0 +1,63 @@
+package com.github.dbmdz.flusswerk.framework.model;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lightweight view of selected top-level fields of a message, read from the raw message body
+ * without binding the whole {@link Message}. Scalar fields are available as text, arrays of scalars
+ * as lists of text. Nested objects are not part of the view.
+ */
+public class MessagePeek {
+
+  private final Map<String, Object> fields;
+
+  public MessagePeek(Map<String, Object> fields) {
+    this.fields = requireNonNull(fields);
+  }
+
+  /**
+   * @param field the name of a top-level field
+   * @return the field value as text or empty if the field is missing, null or not a scalar value
+   */
+  public Optional<String> get(String field) {
+    Object value = fields.get(field);
+    if (value instanceof String) {
+      return Optional.of((String) value);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @param field the name of a top-level field
+   * @return the values of an array field as text or an empty list if the field is missing, null or
+   *     not an array
+   */
+  @SuppressWarnings("unchecked")
+  public List<String> getList(String field) {
+    Object value = fields.get(field);
+    if (value instanceof List) {
+      return (List<String>) value;
+    }
+    return Collections.emptyList();
+  }
+
+  /** @return the tracing id if it has been peeked */
+  public Optional<String> getTracingId() {
+    return get("tracingId");
+  }
+
+  /** @return the tracing path if it has been peeked */
+  public List<String> getTracing() {
+    return getList("tracing");
+  }
+
+  @Override
+  public String toString() {
+    return "MessagePeek{" + fields + '}';
+  }
+}
@@ -14,6 +14,7 @@ public class DefaultFlowMetrics implements FlowMetrics {
 
   private final Map<Status, Counter> executionTime;
   private final Map<Status, Counter> processedItems;
+  private final Counter permitWaitTime;
 
   public DefaultFlowMetrics(MeterFactory meterFactory) {
     this.executionTime = new EnumMap<>(Status.class);
@@ -23,11 +24,13 @@ public class DefaultFlowMetrics implements FlowMetrics {
       processedItems.put(status, meterFactory.counter("processed.items", status));
       executionTime.put(status, meterFactory.counter("execution.time", status));
     }
+    this.permitWaitTime = meterFactory.counter("permits.wait.time");
   }
 
   public void accept(FlowInfo flowInfo) {
     var status = flowInfo.getStatus();
     processedItems.get(status).increment();
     executionTime.get(status).increment(flowInfo.duration());
+    permitWaitTime.increment(flowInfo.getWaitedForPermitsNs() / 1e6); // ms like execution.time
   }
 }
@@ -2,13 +2,23 @@ package com.github.dbmdz.flusswerk.framework.monitoring;
 
 import com.github.dbmdz.flusswerk.framework.flow.FlowInfo.Status;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
 
-/** Convenience factory to simplify the creation of {@link Counter} meters. */
+/** Convenience factory to simplify the creation of {@link Counter} and other meters. */
 public class MeterFactory {
+  // Without any registry added, a composite registry only creates meters that record nothing
+  private static final MeterFactory NONE =
+      new MeterFactory("flusswerk", "", new CompositeMeterRegistry());
+
   private final String basename;
   private final String app;
   private final MeterRegistry registry;
@@ -24,12 +34,61 @@ public class MeterFactory {
     this.registry = registry;
   }
 
+  /** @return a factory for components without metrics, whose meters record nothing */
+  public static MeterFactory none() {
+    return NONE;
+  }
+
   public Counter counter(String metric, String... tags) {
-    var completeName = basename + "." + metric;
+    return registry.counter(name(metric), withJob(tags));
+  }
+
+  /**
+   * @param metric the name of the metric
+   * @param obj the object holding the count, only weakly referenced by the meter
+   * @param count reads the current count of the object
+   * @param tags the tags of the metric
+   * @param <T> the type of the object holding the count
+   * @return a counter that reads a count kept elsewhere, e.g. by an object created before the
+   *     registry was available
+   */
+  public <T> FunctionCounter functionCounter(
+      String metric, T obj, ToDoubleFunction<T> count, String... tags) {
+    return FunctionCounter.builder(name(metric), obj, count).tags(withJob(tags)).register(registry);
+  }
+
+  public Timer timer(String metric, String... tags) {
+    return Timer.builder(name(metric))
+        .tags(withJob(tags))
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+  }
+
+  public DistributionSummary distributionSummary(String metric, String... tags) {
+    return DistributionSummary.builder(name(metric))
+        .tags(withJob(tags))
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+  }
+
+  /**
+   * @param metric the name of the metric
+   * @param tags tags shared by all rows
+   * @return a gauge with one row per tag combination, e.g. for the currently busiest keys
+   */
+  public MultiGauge multiGauge(String metric, String... tags) {
+    return MultiGauge.builder(name(metric)).tags(withJob(tags)).register(registry);
+  }
+
+  private String name(String metric) {
+    return basename + "." + metric;
+  }
+
+  private String[] withJob(String... tags) {
     List<String> allTags = new ArrayList<>();
     allTags.addAll(List.of("job", app));
     allTags.addAll(Arrays.asList(tags));
-    return registry.counter(completeName, allTags.toArray(new String[] {}));
+    return allTags.toArray(new String[] {});
   }
 
   public Counter counter(String metric, Status status, String... tags) {
@@ -0,0 +1,101 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses outgoing payloads above a size threshold and decompresses incoming payloads according
+ * to their AMQP content-encoding. Decompression always works, regardless of the algorithm
+ * configured for sending.
+ */
+public class Compression {
+
+  private final ContentEncoding contentEncoding;
+  private final long threshold;
+  private final Timer compressionTime;
+  private final Timer decompressionTime;
+  private final DistributionSummary compressionRatio;
+
+  /** Only decompress incoming payloads, never compress outgoing payloads and record no metrics. */
+  public Compression() {
+    this(null, Long.MAX_VALUE, MeterFactory.none());
+  }
+
+  /**
+   * @param contentEncoding the algorithm for outgoing payloads (null to disable compression)
+   * @param threshold compress outgoing payloads larger than this number of bytes
+   * @param meterFactory to record compression ratio and time
+   */
+  public Compression(ContentEncoding contentEncoding, long threshold, MeterFactory meterFactory) {
+    this.contentEncoding = contentEncoding;
+    this.threshold = threshold;
+    this.compressionTime = meterFactory.timer("compression.time", "operation", "compress");
+    this.decompressionTime = meterFactory.timer("compression.time", "operation", "decompress");
+    this.compressionRatio = meterFactory.distributionSummary("compression.ratio");
+  }
+
+  /**
+   * Compresses the payload if it is larger than the threshold and compression actually saves space.
+   *
+   * @param data the payload to send
+   * @return the compressed payload or the original payload if it should not be compressed
+   * @throws IOException if compression fails
+   */
+  public Compressed compress(byte[] data) throws IOException {
+    if (contentEncoding == null || data.length <= threshold) {
+      return new Compressed(data, null);
+    }
+    long started = System.nanoTime();
+    byte[] compressed = contentEncoding.encode(data);
+    compressionTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    compressionRatio.record((double) compressed.length / data.length);
+    if (compressed.length >= data.length) {
+      return new Compressed(data, null);
+    }
+    return new Compressed(compressed, contentEncoding.getValue());
+  }
+
+  /**
+   * @param data the payload as received
+   * @param contentEncoding the AMQP content-encoding of the payload (might be null)
+   * @return the decompressed payload
+   * @throws IOException if the content-encoding is not supported or decompression fails
+   */
+  public byte[] decompress(byte[] data, String contentEncoding) throws IOException {
+    if (contentEncoding == null || contentEncoding.isBlank()) {
+      return data;
+    }
+    ContentEncoding encoding =
+        ContentEncoding.of(contentEncoding)
+            .orElseThrow(() -> new IOException("Unsupported content encoding: " + contentEncoding));
+    long started = System.nanoTime();
+    byte[] decompressed = encoding.decode(data);
+    decompressionTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    return decompressed;
+  }
+
+  /** A payload together with the AMQP content-encoding to announce. */
+  public static class Compressed {
+
+    private final byte[] data;
+    private final String contentEncoding;
+
+    Compressed(byte[] data, String contentEncoding) {
+      this.data = data;
+      this.contentEncoding = contentEncoding;
+    }
+
+    /** @return the payload to send */
+    public byte[] getData() {
+      return data;
+    }
+
+    /** @return the AMQP content-encoding or null if the payload has not been compressed */
+    public String getContentEncoding() {
+      return contentEncoding;
+    }
+  }
+}
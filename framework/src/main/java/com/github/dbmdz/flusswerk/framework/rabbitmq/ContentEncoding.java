@@ -0,0 +1,77 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Compression algorithms for message payloads, announced via the AMQP content-encoding. */
+public enum ContentEncoding {
+
+  /** Good compression ratio, always available. */
+  GZIP("gzip") {
+    @Override
+    byte[] encode(byte[] data) throws IOException {
+      var out = new ByteArrayOutputStream(data.length / 4 + 64);
+      try (var gzip = new GZIPOutputStream(out)) {
+        gzip.write(data);
+      }
+      return out.toByteArray();
+    }
+
+    @Override
+    byte[] decode(byte[] data) throws IOException {
+      try (var gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+        return gzip.readAllBytes();
+      }
+    }
+  },
+
+  /** Much faster than gzip with a lower compression ratio, needs <code>org.lz4:lz4-java</code>. */
+  LZ4("lz4") {
+    @Override
+    byte[] encode(byte[] data) throws IOException {
+      return Lz4.encode(data);
+    }
+
+    @Override
+    byte[] decode(byte[] data) throws IOException {
+      return Lz4.decode(data);
+    }
+  };
+
+  private final String value;
+
+  ContentEncoding(String value) {
+    this.value = value;
+  }
+
+  abstract byte[] encode(byte[] data) throws IOException;
+
+  abstract byte[] decode(byte[] data) throws IOException;
+
+  /** @return the value for the AMQP content-encoding property */
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * @param value the value of the AMQP content-encoding property
+   * @return the matching content encoding, if there is one
+   */
+  public static Optional<ContentEncoding> of(String value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    String normalized = value.trim().toLowerCase(Locale.ROOT);
+    for (ContentEncoding contentEncoding : values()) {
+      if (contentEncoding.value.equals(normalized)) {
+        return Optional.of(contentEncoding);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,27 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/** Keeps all references to the optional lz4-java library in one place. */
+class Lz4 {
+
+  private Lz4() {}
+
+  static byte[] encode(byte[] data) throws IOException {
+    var out = new ByteArrayOutputStream(data.length / 2 + 64);
+    try (var lz4 = new LZ4FrameOutputStream(out)) {
+      lz4.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  static byte[] decode(byte[] data) throws IOException {
+    try (var lz4 = new LZ4FrameInputStream(new ByteArrayInputStream(data))) {
+      return lz4.readAllBytes();
+    }
+  }
+}
@@ -1,10 +1,14 @@
 package com.github.dbmdz.flusswerk.framework.rabbitmq;
 
+import static java.util.Objects.requireNonNullElse;
+
 import com.github.dbmdz.flusswerk.framework.config.properties.RoutingProperties;
 import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.jackson.WireFormat;
 import com.github.dbmdz.flusswerk.framework.model.Envelope;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -68,7 +72,8 @@ public class MessageBroker {
   }
 
   /**
-   * Sends a message to a certain queue as JSON document.
+   * Sends a message to a certain queue, serialized with the wire format configured for this queue
+   * (JSON by default).
    *
    * @param routingKey the routing key for the queue to send the message to (usually the queue
    *     name).
@@ -76,7 +81,11 @@ public class MessageBroker {
    * @throws IOException if sending the message fails.
    */
   void send(String routingKey, Message message) throws IOException {
-    rabbitClient.send(routingConfig.getExchange(routingKey), routingKey, message);
+    rabbitClient.send(
+        routingConfig.getExchange(routingKey),
+        routingKey,
+        message,
+        routingConfig.getWireFormat(routingKey));
   }
 
   /**
@@ -89,11 +98,31 @@ public class MessageBroker {
    * @throws IOException if sending a message fails.
    */
   void send(String routingKey, Collection<? extends Message> messages) throws IOException {
+    String exchange = routingConfig.getExchange(routingKey);
+    String wireFormat = routingConfig.getWireFormat(routingKey);
     for (Message message : messages) {
-      send(routingKey, message);
+      rabbitClient.send(exchange, routingKey, message, wireFormat);
     }
   }
 
+  /**
+   * Sends multiple messages to the topic of an outgoing route. The messages are sent in the same
+   * order as returned by the iterator over <code>messages</code>.
+   *
+   * @param route the name of the route as configured in <code>flusswerk.routing.outgoing</code>
+   * @param messages the messages to send.
+   * @throws IOException if sending a message fails.
+   * @throws IllegalArgumentException if there is no such route
+   */
+  public void sendToRoute(String route, Collection<? extends Message> messages) throws IOException {
+    var topic = routingConfig.getOutgoing().get(route);
+    if (topic == null) {
+      throw new IllegalArgumentException(
+          "Cannot send messages, no route '" + route + "' specified");
+    }
+    send(topic, messages);
+  }
+
   /**
    * Gets one message from the queue but does not acknowledge it. To do so, use {@link
    * MessageBroker#ack(Message)}.
@@ -131,17 +160,32 @@ public class MessageBroker {
     return message;
   }
 
-  private void failInvalidMessage(InvalidMessageException e) throws IOException {
+  /**
+   * Acknowledges a message that cannot be read and sends its raw body, or the reference to its
+   * payload for claim checks, to the failed queue.
+   *
+   * @param e the exception describing the invalid message
+   * @throws IOException if communication with RabbitMQ failed.
+   */
+  public void failInvalidMessage(InvalidMessageException e) throws IOException {
     Envelope envelope = e.getEnvelope();
     LOGGER.warn("Invalid message detected. Will be shifted into 'failed' queue: " + e.getMessage());
-    rabbitClient.ack(envelope);
     FailurePolicy failurePolicy = routingConfig.getFailurePolicy(envelope.getSource());
     String failedRoutingKey = failurePolicy.getFailedRoutingKey();
+    if (failedRoutingKey != null && envelope.getClaimCheck() != null) {
+      // The payload might not even be loadable, so only the reference goes to the failed queue
+      rabbitClient.ackKeepingClaimCheck(envelope);
+      rabbitClient.sendClaimCheck(
+          routingConfig.getExchange(failedRoutingKey), failedRoutingKey, envelope);
+      return;
+    }
+    rabbitClient.ack(envelope);
     if (failedRoutingKey != null) {
       rabbitClient.sendRaw(
           routingConfig.getExchange(failedRoutingKey),
           failedRoutingKey,
-          envelope.getBody().getBytes());
+          envelope.getRawBody(),
+          requireNonNullElse(envelope.getContentType(), WireFormat.JSON.getContentType()));
     }
   }
 
@@ -193,6 +237,35 @@ public class MessageBroker {
     rabbitClient.ack(message.getEnvelope());
   }
 
+  /**
+   * Lets RabbitMQ confirm every published message, so that {@link #waitForConfirms(Duration)} can
+   * be used.
+   *
+   * @throws IOException if communication with RabbitMQ failed.
+   */
+  public void enablePublisherConfirms() throws IOException {
+    rabbitClient.enablePublisherConfirms();
+  }
+
+  /**
+   * Forgets the messages the current thread published so far, so that the next call to {@link
+   * #waitForConfirms(Duration)} only waits for messages published afterwards.
+   */
+  public void startConfirmBatch() {
+    rabbitClient.startConfirmBatch();
+  }
+
+  /**
+   * Waits until RabbitMQ confirmed all messages the current thread published since the last call to
+   * this method or to {@link #startConfirmBatch()}.
+   *
+   * @param timeout how long to wait at most
+   * @throws IOException if a message was not confirmed in time or has been rejected by RabbitMQ
+   */
+  public void waitForConfirms(Duration timeout) throws IOException {
+    rabbitClient.waitForConfirms(timeout);
+  }
+
   /**
    * Rejects a messaging and takes care of proper dead lettering, retries and, if the message failed
    * too often, routing to the failed queue.
@@ -238,7 +311,7 @@ public class MessageBroker {
     if (retryRoutingKey != null) {
       String queue = message.getEnvelope().getSource();
       String exchange = routingConfig.getDeadLetterExchange(queue);
-      rabbitClient.send(exchange, queue, message);
+      rabbitClient.send(exchange, queue, message, routingConfig.getWireFormat(queue));
     }
   }
 
@@ -0,0 +1,125 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import com.rabbitmq.client.ConfirmListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tracks publisher confirms per thread. All threads publish on the same channel, but every thread
+ * only waits for the messages it published itself, and a rejected message only fails the thread
+ * that published it.
+ */
+class PublisherConfirms implements ConfirmListener {
+
+  /** The messages a thread published since it started waiting for a new batch of confirms. */
+  private static class Batch {
+    private int pending;
+    private boolean rejected;
+
+    synchronized void published() {
+      pending++;
+    }
+
+    synchronized void confirmed(boolean ack) {
+      pending--;
+      rejected |= !ack;
+      notifyAll();
+    }
+
+    /** @return true if all messages have been confirmed, false if at least one was rejected */
+    synchronized boolean await(long timeoutMs) throws InterruptedException, TimeoutException {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      while (pending > 0) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new TimeoutException(pending + " messages have not been confirmed");
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+      return !rejected;
+    }
+  }
+
+  private final ConcurrentSkipListMap<Long, Batch> outstanding = new ConcurrentSkipListMap<>();
+  private final ThreadLocal<Batch> batches = ThreadLocal.withInitial(Batch::new);
+
+  /** Forgets the messages the current thread published so far. */
+  void startBatch() {
+    batches.set(new Batch());
+  }
+
+  /**
+   * Call before publishing, while no other thread can publish on the channel.
+   *
+   * @param seqNo the sequence number of the message about to be published
+   */
+  void published(long seqNo) {
+    Batch batch = batches.get();
+    batch.published();
+    outstanding.put(seqNo, batch);
+  }
+
+  /** @param seqNo the sequence number of a message that could not be published after all */
+  void notPublished(long seqNo) {
+    Batch batch = outstanding.remove(seqNo);
+    if (batch != null) {
+      batch.confirmed(true); // nothing to wait for
+    }
+  }
+
+  /** Rejects all outstanding messages, since the confirms of a closed channel never arrive. */
+  void channelLost() {
+    for (Map.Entry<Long, Batch> entry = outstanding.pollFirstEntry();
+        entry != null;
+        entry = outstanding.pollFirstEntry()) {
+      entry.getValue().confirmed(false);
+    }
+  }
+
+  /**
+   * Waits for the confirms of all messages the current thread published since the last batch
+   * started, then starts a new batch.
+   *
+   * @param timeoutMs how long to wait at most
+   * @return true if all messages have been confirmed, false if at least one was rejected
+   * @throws InterruptedException if the thread has been interrupted while waiting
+   * @throws TimeoutException if not all messages have been confirmed in time
+   */
+  boolean await(long timeoutMs) throws InterruptedException, TimeoutException {
+    try {
+      return batches.get().await(timeoutMs);
+    } finally {
+      startBatch();
+    }
+  }
+
+  @Override
+  public void handleAck(long deliveryTag, boolean multiple) {
+    confirm(deliveryTag, multiple, true);
+  }
+
+  @Override
+  public void handleNack(long deliveryTag, boolean multiple) {
+    confirm(deliveryTag, multiple, false);
+  }
+
+  private void confirm(long deliveryTag, boolean multiple, boolean ack) {
+    if (!multiple) {
+      Batch batch = outstanding.remove(deliveryTag);
+      if (batch != null) {
+        batch.confirmed(ack);
+      }
+      return;
+    }
+    // Sequence numbers only grow, so all messages up to the delivery tag are confirmed
+    for (Map.Entry<Long, Batch> entry = outstanding.firstEntry();
+        entry != null && entry.getKey() <= deliveryTag;
+        entry = outstanding.firstEntry()) {
+      if (outstanding.remove(entry.getKey(), entry.getValue())) {
+        entry.getValue().confirmed(ack);
+      }
+    }
+  }
+}
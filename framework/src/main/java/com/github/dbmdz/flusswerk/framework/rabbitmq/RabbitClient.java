@@ -1,7 +1,10 @@
 package com.github.dbmdz.flusswerk.framework.rabbitmq;
 
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
 import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
 import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.jackson.WireFormat;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
 import com.github.dbmdz.flusswerk.framework.model.Envelope;
 import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
 import com.github.dbmdz.flusswerk.framework.model.Message;
@@ -10,8 +13,9 @@ import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.GetResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 public class RabbitClient {
 
@@ -33,14 +37,39 @@ public class RabbitClient {
 
   private final RabbitConnection connection;
 
+  private final BodyRetention bodyRetention;
+
+  private final Compression compression;
+
+  private final ClaimCheck claimCheck;
+
+  private volatile boolean publisherConfirms;
+
+  private final PublisherConfirms confirms = new PublisherConfirms();
+
   public RabbitClient(RabbitConnection rabbitConnection) {
     this(new IncomingMessageType(), rabbitConnection);
   }
 
   public RabbitClient(FlusswerkObjectMapper flusswerkObjectMapper, RabbitConnection connection) {
+    this(flusswerkObjectMapper, connection, TransportOptions.defaults());
+  }
+
+  /**
+   * @param flusswerkObjectMapper to serialize and deserialize messages
+   * @param connection the connection to RabbitMQ
+   * @param transportOptions body retention, compression and claim checks
+   */
+  public RabbitClient(
+      FlusswerkObjectMapper flusswerkObjectMapper,
+      RabbitConnection connection,
+      TransportOptions transportOptions) {
     this.connection = connection;
     channel = connection.getChannel();
     objectMapper = flusswerkObjectMapper;
+    this.bodyRetention = transportOptions.getBodyRetention();
+    this.compression = transportOptions.getCompression();
+    this.claimCheck = transportOptions.getClaimCheck();
   }
 
   public RabbitClient(IncomingMessageType incomingMessageType, RabbitConnection connection) {
@@ -49,21 +78,119 @@ public class RabbitClient {
 
   void send(String exchange, String routingKey, Message message) throws IOException {
     byte[] data = serialize(message);
-    sendRaw(exchange, routingKey, data);
+    sendRaw(
+        exchange, routingKey, data, WireFormat.JSON.getContentType(), objectMapper.typeOf(message));
+  }
+
+  /**
+   * Serializes a message with the given {@link WireFormat} and sends it.
+   *
+   * @param exchange the exchange to send to
+   * @param routingKey the routing key (usually the queue name)
+   * @param message the message to send
+   * @param wireFormat the name of the wire format to use
+   * @throws IOException if the message cannot be serialized or sent
+   */
+  void send(String exchange, String routingKey, Message message, String wireFormat)
+      throws IOException {
+    FlusswerkObjectMapper mapper = objectMapper.forWireFormat(wireFormat);
+    byte[] data = mapper.serialize(message);
+    sendRaw(
+        exchange,
+        routingKey,
+        data,
+        mapper.getWireFormat().getContentType(),
+        mapper.typeOf(message));
   }
 
   void sendRaw(String exchange, String routingKey, byte[] data) throws IOException {
+    sendRaw(exchange, routingKey, data, WireFormat.JSON.getContentType());
+  }
+
+  void sendRaw(String exchange, String routingKey, byte[] data, String contentType)
+      throws IOException {
+    sendRaw(exchange, routingKey, data, contentType, null);
+  }
+
+  /**
+   * Sends an already serialized message.
+   *
+   * @param exchange the exchange to send to
+   * @param routingKey the routing key (usually the queue name)
+   * @param data the serialized message
+   * @param contentType the AMQP content type of the serialized message
+   * @param type the AMQP type to select the message class on receiving (might be null)
+   * @throws IOException if the message cannot be sent
+   */
+  void sendRaw(String exchange, String routingKey, byte[] data, String contentType, String type)
+      throws IOException {
+    Compression.Compressed compressed = compression.compress(data);
+    byte[] payload = compressed.getData();
+    Map<String, Object> headers = null;
+    if (claimCheck.shouldOffload(payload)) {
+      // Only the reference goes through RabbitMQ, content type and encoding describe the payload
+      headers = Map.of(ClaimCheck.HEADER, claimCheck.offload(payload));
+      payload = new byte[0];
+    }
     AMQP.BasicProperties properties =
         new AMQP.BasicProperties.Builder()
-            .contentType("application/json")
+            .contentType(contentType)
+            .type(type)
+            .contentEncoding(compressed.getContentEncoding())
+            .headers(headers)
             .deliveryMode(PERSISTENT)
             .build();
+    publish(exchange, routingKey, properties, payload);
+  }
+
+  /**
+   * Sends the claim check of a received message again, without loading or copying its payload.
+   *
+   * @param exchange the exchange to send to
+   * @param routingKey the routing key (usually the queue name)
+   * @param envelope the envelope of the received message with the reference to the payload
+   * @throws IOException if the message cannot be sent
+   */
+  void sendClaimCheck(String exchange, String routingKey, Envelope envelope) throws IOException {
+    AMQP.BasicProperties properties =
+        new AMQP.BasicProperties.Builder()
+            .contentType(envelope.getContentType())
+            .contentEncoding(envelope.getContentEncoding())
+            .headers(Map.of(ClaimCheck.HEADER, envelope.getClaimCheck()))
+            .deliveryMode(PERSISTENT)
+            .build();
+    publish(exchange, routingKey, properties, new byte[0]);
+  }
+
+  private void publish(
+      String exchange, String routingKey, AMQP.BasicProperties properties, byte[] data)
+      throws IOException {
 
     try {
-      channel.basicPublish(exchange, routingKey, properties, data);
+      basicPublish(exchange, routingKey, properties, data);
     } catch (Exception e) {
       tryToReconnect("Could not publish message to " + routingKey);
+      basicPublish(exchange, routingKey, properties, data);
+    }
+  }
+
+  private void basicPublish(
+      String exchange, String routingKey, AMQP.BasicProperties properties, byte[] data)
+      throws IOException {
+    if (!publisherConfirms) {
       channel.basicPublish(exchange, routingKey, properties, data);
+      return;
+    }
+    // The sequence number is only valid until the next message is published on the channel
+    synchronized (confirms) {
+      long seqNo = channel.getNextPublishSeqNo();
+      confirms.published(seqNo);
+      try {
+        channel.basicPublish(exchange, routingKey, properties, data);
+      } catch (IOException | RuntimeException e) {
+        confirms.notPublished(seqNo);
+        throw e;
+      }
     }
   }
 
@@ -71,11 +198,29 @@ public class RabbitClient {
     return objectMapper.deserialize(body);
   }
 
+  Message deserialize(byte[] body) throws IOException {
+    return objectMapper.deserialize(body);
+  }
+
   byte[] serialize(Message message) throws IOException {
-    return objectMapper.writeValueAsBytes(message);
+    return objectMapper.serialize(message);
   }
 
   public void ack(Envelope envelope) throws IOException {
+    ackKeepingClaimCheck(envelope);
+    if (envelope.getClaimCheck() != null) {
+      claimCheck.release(envelope.getClaimCheck());
+    }
+  }
+
+  /**
+   * Acknowledges a message, but keeps the payload of a claim check, e.g. because the claim check is
+   * sent on to another queue.
+   *
+   * @param envelope the envelope of the received message
+   * @throws IOException if communication with RabbitMQ failed
+   */
+  public void ackKeepingClaimCheck(Envelope envelope) throws IOException {
     try {
       channel.basicAck(envelope.getDeliveryTag(), SINGLE_MESSAGE);
     } catch (Exception e) {
@@ -88,11 +233,62 @@ public class RabbitClient {
     try {
       connection.waitForConnection();
       channel = connection.getChannel();
+      if (publisherConfirms) {
+        confirms.channelLost();
+        channel.confirmSelect();
+        channel.addConfirmListener(confirms);
+      }
     } catch (IOException e) {
       throw new IOException(errorMessage, e);
     }
   }
 
+  /**
+   * Puts the channel into confirm mode, also after reconnecting. Every thread then waits only for
+   * the confirms of its own messages, see {@link #waitForConfirms(Duration)}.
+   *
+   * @throws IOException if communication with RabbitMQ failed
+   */
+  public synchronized void enablePublisherConfirms() throws IOException {
+    if (publisherConfirms) {
+      return;
+    }
+    channel.confirmSelect();
+    channel.addConfirmListener(confirms);
+    publisherConfirms = true;
+  }
+
+  /**
+   * Forgets the messages the current thread published so far, so that the next call to {@link
+   * #waitForConfirms(Duration)} only waits for messages published afterwards.
+   */
+  public void startConfirmBatch() {
+    confirms.startBatch();
+  }
+
+  /**
+   * Waits until RabbitMQ confirmed all messages the current thread published since the last call to
+   * this method or to {@link #startConfirmBatch()}. Messages of other threads sharing the channel
+   * are neither waited for nor can their rejection fail this call.
+   *
+   * @param timeout how long to wait at most
+   * @throws IOException if a message was not confirmed in time or has been rejected by RabbitMQ
+   */
+  public void waitForConfirms(Duration timeout) throws IOException {
+    boolean confirmed;
+    try {
+      confirmed = confirms.await(timeout.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for publisher confirms", e);
+    } catch (TimeoutException e) {
+      throw new IOException("Published messages have not been confirmed within " + timeout, e);
+    }
+    if (!confirmed) {
+      throw new IOException("Published messages have been rejected by RabbitMQ");
+    }
+  }
+
   public Message receive(String queueName) throws IOException, InvalidMessageException {
     GetResponse response;
     try {
@@ -102,17 +298,36 @@ public class RabbitClient {
       response = channel.basicGet(queueName, NO_AUTO_ACK);
     }
     if (response != null) {
-      String body = new String(response.getBody(), StandardCharsets.UTF_8);
+      byte[] body = response.getBody();
+      AMQP.BasicProperties properties = response.getProps();
+      String contentType = properties == null ? null : properties.getContentType();
+      String contentEncoding = properties == null ? null : properties.getContentEncoding();
+      String type = properties == null ? null : properties.getType();
+      String reference =
+          ClaimCheck.referenceFrom(properties == null ? null : properties.getHeaders())
+              .orElse(null);
 
       try {
-        Message message = deserialize(body);
-        message.getEnvelope().setBody(body);
+        if (reference != null) {
+          body = claimCheck.retrieve(reference);
+        }
+        body = compression.decompress(body, contentEncoding);
+        Message message = objectMapper.deserialize(body, contentType, type);
+        message.getEnvelope().setRawBody(body, bodyRetention);
+        message.getEnvelope().setContentType(contentType);
+        message.getEnvelope().setContentEncoding(contentEncoding);
+        message.getEnvelope().setClaimCheck(reference);
         message.getEnvelope().setDeliveryTag(response.getEnvelope().getDeliveryTag());
         message.getEnvelope().setSource(queueName);
         return message;
       } catch (Exception e) {
         Envelope envelope = new Envelope();
-        envelope.setBody(body);
+        // Invalid messages always keep their body so they can be moved to the failed queue. Claim
+        // checks keep their reference instead, the payload stays in the store.
+        envelope.setRawBody(reference == null ? body : response.getBody(), BodyRetention.RAW);
+        envelope.setContentType(contentType);
+        envelope.setContentEncoding(contentEncoding);
+        envelope.setClaimCheck(reference);
         envelope.setDeliveryTag(response.getEnvelope().getDeliveryTag());
         envelope.setSource(queueName);
         throw new InvalidMessageException(envelope, e.getMessage(), e);
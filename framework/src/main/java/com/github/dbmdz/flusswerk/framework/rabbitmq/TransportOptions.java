@@ -0,0 +1,71 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
+
+/**
+ * How messages travel over RabbitMQ: how much of the received body to keep, whether to compress
+ * payloads and whether to offload large payloads as claim checks. Shared by {@link RabbitClient}
+ * and {@link com.github.dbmdz.flusswerk.framework.engine.FlusswerkConsumer}, so that both sides of
+ * an app read and write messages the same way. Instances are immutable, every <code>with…</code>
+ * method returns a copy.
+ */
+public class TransportOptions {
+
+  private final BodyRetention bodyRetention;
+  private final Compression compression;
+  private final ClaimCheck claimCheck;
+
+  private TransportOptions(
+      BodyRetention bodyRetention, Compression compression, ClaimCheck claimCheck) {
+    this.bodyRetention = requireNonNull(bodyRetention);
+    this.compression = requireNonNull(compression);
+    this.claimCheck = requireNonNull(claimCheck);
+  }
+
+  /**
+   * @return options that keep the raw body, only decompress incoming payloads and never offload
+   *     payloads
+   */
+  public static TransportOptions defaults() {
+    return new TransportOptions(BodyRetention.RAW, new Compression(), new ClaimCheck());
+  }
+
+  /**
+   * @param bodyRetention how much of the original message body to keep in the envelope
+   * @return a copy with the given body retention
+   */
+  public TransportOptions withBodyRetention(BodyRetention bodyRetention) {
+    return new TransportOptions(bodyRetention, compression, claimCheck);
+  }
+
+  /**
+   * @param compression to compress outgoing and decompress incoming payloads
+   * @return a copy with the given compression
+   */
+  public TransportOptions withCompression(Compression compression) {
+    return new TransportOptions(bodyRetention, compression, claimCheck);
+  }
+
+  /**
+   * @param claimCheck to offload large outgoing payloads and load incoming ones
+   * @return a copy with the given claim check
+   */
+  public TransportOptions withClaimCheck(ClaimCheck claimCheck) {
+    return new TransportOptions(bodyRetention, compression, claimCheck);
+  }
+
+  public BodyRetention getBodyRetention() {
+    return bodyRetention;
+  }
+
+  public Compression getCompression() {
+    return compression;
+  }
+
+  public ClaimCheck getClaimCheck() {
+    return claimCheck;
+  }
+}
@@ -1,7 +1,6 @@
 package com.github.dbmdz.flusswerk.framework.reporting;
 
 import de.huxhorn.sulky.ulid.ULID;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,18 +36,11 @@ public class Tracing {
   /**
    * Saves the tracing path and adds a new tracing ID for the current workflow job.
    *
-   * @param ids The ids from the incoming message
+   * @param ids The ids from the incoming message, copied unless they are immutable already
    */
   public void register(List<String> ids) {
-    List<String> tracingPath;
-    if (ids == null || ids.isEmpty()) {
-      tracingPath = List.of(ulid.nextULID());
-    } else {
-      List<String> path = new ArrayList<>(ids);
-      path.add(ulid.nextULID());
-      tracingPath = List.copyOf(path); // make immutable
-    }
-    tracingPathForThread.put(currentThread.id(), tracingPath);
+    List<String> parent = ids == null ? Collections.emptyList() : List.copyOf(ids);
+    tracingPathForThread.put(currentThread.id(), new TracingPath(parent, ulid.nextValue()));
   }
 
   /** Delete tracing information for current Thread. */
@@ -69,6 +61,6 @@ public class Tracing {
    * @return a new tracing path
    */
   public List<String> newPath() {
-    return List.of(ulid.nextULID());
+    return new TracingPath(Collections.emptyList(), ulid.nextValue());
   }
 }
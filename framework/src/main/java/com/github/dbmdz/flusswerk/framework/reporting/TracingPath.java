@@ -0,0 +1,50 @@
+package com.github.dbmdz.flusswerk.framework.reporting;
+
+import static java.util.Objects.requireNonNull;
+
+import de.huxhorn.sulky.ulid.ULID;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable tracing path that extends the path of the incoming message by one tracing id. The
+ * incoming path is shared and the new id is kept in its binary form until it is rendered as string
+ * for the first time, which usually happens when a message is serialized.
+ */
+final class TracingPath extends AbstractList<String> implements RandomAccess {
+
+  private final List<String> parent;
+  private final ULID.Value id;
+  private String renderedId;
+
+  /**
+   * @param parent the tracing path of the incoming message, which must be immutable
+   * @param id the tracing id for the current workflow job
+   */
+  TracingPath(List<String> parent, ULID.Value id) {
+    this.parent = requireNonNull(parent);
+    this.id = requireNonNull(id);
+  }
+
+  @Override
+  public String get(int index) {
+    if (index == parent.size()) {
+      String rendered = renderedId;
+      if (rendered == null) {
+        rendered = id.toString();
+        renderedId = rendered; // racy but idempotent, like String.hashCode
+      }
+      return rendered;
+    }
+    if (index < 0 || index > parent.size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+    }
+    return parent.get(index);
+  }
+
+  @Override
+  public int size() {
+    return parent.size() + 1;
+  }
+}
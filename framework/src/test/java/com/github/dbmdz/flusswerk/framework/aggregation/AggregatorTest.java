@@ -0,0 +1,120 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.exceptions.RetryProcessingException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The Aggregator")
+class AggregatorTest {
+
+  /** Messages for page <code>values[0]</code> of <code>values[1]</code> pages of a document. */
+  private static TestMessage page(String document, int page, int pages) {
+    return new TestMessage(document, Integer.toString(page), Integer.toString(pages));
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now = Instant.parse("2021-06-01T12:00:00Z");
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+  }
+
+  private MutableClock clock;
+  private Aggregator<TestMessage> aggregator;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    aggregator = aggregator(new InMemoryAggregationStore<>());
+  }
+
+  private Aggregator<TestMessage> aggregator(AggregationStore<TestMessage> store) {
+    return new Aggregator<>(
+        TestMessage::getId,
+        message -> message.getValues().get(0),
+        message -> Integer.parseInt(message.getValues().get(1)),
+        Duration.ofMinutes(5),
+        store,
+        clock);
+  }
+
+  @DisplayName("should complete a group when all parts arrived")
+  @Test
+  void shouldCompleteGroupWithAllParts() {
+    assertThat(aggregator.add(page("doc", 1, 2))).isEmpty();
+    assertThat(aggregator.add(page("other", 1, 2))).isEmpty();
+    assertThat(aggregator.add(page("doc", 2, 2)))
+        .containsExactly(List.of(page("doc", 1, 2), page("doc", 2, 2)));
+  }
+
+  @DisplayName("should count redelivered parts only once")
+  @Test
+  void shouldCountRedeliveredPartsOnce() {
+    aggregator.add(page("doc", 1, 2));
+    assertThat(aggregator.add(page("doc", 1, 2))).isEmpty();
+    assertThat(aggregator.add(page("doc", 2, 2))).hasSize(1);
+  }
+
+  @DisplayName("should complete timed out groups with the next message")
+  @Test
+  void shouldCompleteTimedOutGroups() {
+    aggregator.add(page("doc", 1, 3));
+    clock.advance(Duration.ofMinutes(6));
+
+    var completed = aggregator.add(page("other", 1, 2));
+
+    assertThat(completed).containsExactly(List.of(page("doc", 1, 3)));
+  }
+
+  @DisplayName("should not complete groups before the timeout")
+  @Test
+  void shouldNotCompleteGroupsBeforeTimeout() {
+    aggregator.add(page("doc", 1, 3));
+    clock.advance(Duration.ofMinutes(4));
+
+    assertThat(aggregator.add(page("other", 1, 2))).isEmpty();
+  }
+
+  @DisplayName("should retry messages if the store fails")
+  @Test
+  void shouldRetryIfStoreFails() throws IOException {
+    @SuppressWarnings("unchecked")
+    AggregationStore<TestMessage> store = mock(AggregationStore.class);
+    when(store.add(any(), any(), any(), any())).thenThrow(IOException.class);
+
+    assertThatThrownBy(() -> aggregator(store).add(page("doc", 1, 2)))
+        .isInstanceOf(RetryProcessingException.class)
+        .hasMessageContaining("doc");
+  }
+}
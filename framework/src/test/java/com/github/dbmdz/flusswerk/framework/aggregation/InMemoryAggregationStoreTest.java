@@ -0,0 +1,49 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The InMemoryAggregationStore")
+class InMemoryAggregationStoreTest {
+
+  private static final Instant START = Instant.parse("2021-06-01T12:00:00Z");
+
+  private InMemoryAggregationStore<TestMessage> store;
+
+  @BeforeEach
+  void setUp() {
+    store = new InMemoryAggregationStore<>();
+  }
+
+  @DisplayName("should count distinct parts")
+  @Test
+  void shouldCountDistinctParts() {
+    assertThat(store.add("doc", "1", new TestMessage("1"), START)).isEqualTo(1);
+    assertThat(store.add("doc", "2", new TestMessage("2"), START)).isEqualTo(2);
+    assertThat(store.add("doc", "2", new TestMessage("2"), START)).isEqualTo(2);
+  }
+
+  @DisplayName("should claim a group only once")
+  @Test
+  void shouldClaimGroupOnce() {
+    store.add("doc", "1", new TestMessage("1"), START);
+    assertThat(store.claim("doc")).contains(List.of(new TestMessage("1")));
+    assertThat(store.claim("doc")).isEmpty();
+  }
+
+  @DisplayName("should find groups by start time")
+  @Test
+  void shouldFindGroupsByStartTime() {
+    store.add("early", "1", new TestMessage("1"), START);
+    store.add("late", "1", new TestMessage("1"), START.plusSeconds(60));
+    store.add("early", "2", new TestMessage("2"), START.plusSeconds(120));
+
+    assertThat(store.startedBefore(START.plusSeconds(30))).containsExactly("early");
+  }
+}
@@ -0,0 +1,77 @@
+package com.github.dbmdz.flusswerk.framework.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+/** Runs against the Redis server in <code>FLUSSWERK_TEST_REDIS</code>, e.g. redis://localhost. */
+@DisplayName("The RedisAggregationStore with a real Redis")
+@EnabledIfEnvironmentVariable(named = "FLUSSWERK_TEST_REDIS", matches = ".+")
+class RedisAggregationStoreRedisTest {
+
+  private RedissonClient client;
+  private RedisAggregationStore<TestMessage> store;
+
+  @BeforeEach
+  void setUp() {
+    Config config = new Config();
+    config.useSingleServer().setAddress(System.getenv("FLUSSWERK_TEST_REDIS"));
+    client = Redisson.create(config);
+    store =
+        new RedisAggregationStore<>(
+            client,
+            "flusswerk-test",
+            new FlusswerkObjectMapper(new IncomingMessageType(TestMessage.class)),
+            Duration.ofMillis(100));
+  }
+
+  @AfterEach
+  void tearDown() {
+    client.getKeys().deleteByPattern("flusswerk-test::aggregation::*");
+    client.shutdown();
+  }
+
+  @DisplayName("should claim a group exactly once")
+  @Test
+  void shouldClaimGroupOnce() throws Exception {
+    store.add("doc", "1", new TestMessage("doc", "1"), Instant.now());
+
+    assertThat(store.claim("doc")).contains(List.of(new TestMessage("doc", "1")));
+    assertThat(store.claim("doc")).isEmpty();
+  }
+
+  @DisplayName("should not claim a group whose parts expired")
+  @Test
+  void shouldNotClaimExpiredGroup() throws Exception {
+    Instant started = Instant.now();
+    store.add("doc", "1", new TestMessage("doc", "1"), started);
+    Thread.sleep(200);
+
+    assertThat(store.startedBefore(started.plusSeconds(1))).containsExactly("doc");
+    assertThat(store.claim("doc")).isEmpty();
+    assertThat(store.startedBefore(started.plusSeconds(1))).isEmpty();
+  }
+
+  @DisplayName("should trim start times of expired groups when adding parts")
+  @Test
+  void shouldTrimExpiredStartTimes() throws Exception {
+    Instant started = Instant.now();
+    store.add("old", "1", new TestMessage("old", "1"), started);
+    store.add("new", "1", new TestMessage("new", "1"), started.plusSeconds(1));
+
+    assertThat(store.startedBefore(started.plusSeconds(2))).containsExactly("new");
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The ClaimCheck")
+class ClaimCheckTest {
+
+  @DisplayName("should only offload payloads above the threshold")
+  @Test
+  void shouldOnlyOffloadPayloadsAboveThreshold() {
+    var claimCheck = new ClaimCheck(mock(ClaimCheckStore.class), 3);
+    assertThat(claimCheck.shouldOffload(new byte[3])).isFalse();
+    assertThat(claimCheck.shouldOffload(new byte[4])).isTrue();
+  }
+
+  @DisplayName("should never offload without store")
+  @Test
+  void shouldNeverOffloadWithoutStore() {
+    var claimCheck = new ClaimCheck();
+    assertThat(claimCheck.shouldOffload(new byte[10_000])).isFalse();
+    assertThatThrownBy(() -> claimCheck.retrieve("abc")).isInstanceOf(IOException.class);
+  }
+
+  @DisplayName("should ignore errors when releasing payloads")
+  @Test
+  void shouldIgnoreErrorsWhenReleasing() throws IOException {
+    var store = mock(ClaimCheckStore.class);
+    doThrow(new IOException("intentional")).when(store).delete("abc");
+    new ClaimCheck(store, 0).release("abc");
+    verify(store).delete("abc");
+  }
+
+  @DisplayName("should read reference from headers")
+  @Test
+  void shouldReadReferenceFromHeaders() {
+    assertThat(ClaimCheck.referenceFrom(Map.of(ClaimCheck.HEADER, "abc"))).contains("abc");
+    assertThat(ClaimCheck.referenceFrom(Map.of("other", "abc"))).isEmpty();
+    assertThat(ClaimCheck.referenceFrom(null)).isEmpty();
+  }
+}
@@ -0,0 +1,56 @@
+package com.github.dbmdz.flusswerk.framework.claimcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("The FileSystemClaimCheckStore")
+class FileSystemClaimCheckStoreTest {
+
+  @TempDir Path directory;
+
+  private FileSystemClaimCheckStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = new FileSystemClaimCheckStore(directory.resolve("payloads"));
+  }
+
+  @DisplayName("should return stored payloads")
+  @Test
+  void shouldReturnStoredPayloads() throws IOException {
+    byte[] payload = "large payload".getBytes(StandardCharsets.UTF_8);
+    String reference = store.put(payload);
+    assertThat(store.get(reference)).isEqualTo(payload);
+  }
+
+  @DisplayName("should accept relative and not normalized directories")
+  @Test
+  void shouldAcceptRelativeAndNotNormalizedDirectories() throws IOException {
+    Path relative = Path.of("").toAbsolutePath().relativize(directory);
+    store = new FileSystemClaimCheckStore(relative.resolve("payloads/../payloads"));
+    byte[] payload = {1, 2, 3};
+    assertThat(store.get(store.put(payload))).isEqualTo(payload);
+  }
+
+  @DisplayName("should delete payloads")
+  @Test
+  void shouldDeletePayloads() throws IOException {
+    String reference = store.put(new byte[] {1, 2, 3});
+    store.delete(reference);
+    assertThatThrownBy(() -> store.get(reference)).isInstanceOf(IOException.class);
+  }
+
+  @DisplayName("should reject references outside of its directory")
+  @Test
+  void shouldRejectReferencesOutsideOfDirectory() {
+    assertThatThrownBy(() -> store.get("../secret")).isInstanceOf(IOException.class);
+  }
+}
@@ -1,9 +1,23 @@
 package com.github.dbmdz.flusswerk.framework.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import com.github.dbmdz.flusswerk.framework.config.properties.ProcessingProperties;
+import com.github.dbmdz.flusswerk.framework.config.properties.RedisProperties;
+import com.github.dbmdz.flusswerk.framework.flow.Deduplication;
+import com.github.dbmdz.flusswerk.framework.flow.FlowSpec;
+import com.github.dbmdz.flusswerk.framework.flow.Permits;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -26,4 +40,40 @@ public class FlusswerkConfigurationTest {
   void isSetShouldDetectIfValueIsSet(String label, Object value, boolean expected) {
     assertThat(FlusswerkConfiguration.isSet(value)).isEqualTo(expected);
   }
+
+  @DisplayName("refuse deduplication by content without message bodies")
+  @Test
+  void refuseDeduplicationByContentWithoutBodies() {
+    FlowSpec flowSpec =
+        new FlowSpec(message -> message, data -> data, data -> List.<Message>of(), null, null)
+            .withDeduplication(Deduplication.byContent(100, Duration.ofMinutes(1)));
+
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(
+            () ->
+                new FlusswerkConfiguration()
+                    .deduplicator(
+                        Optional.of(flowSpec),
+                        Optional.empty(),
+                        new ProcessingProperties(1, BodyRetention.NONE, false),
+                        new RedisProperties(null, null, null, null),
+                        new MeterFactory("flusswerk", "", new CompositeMeterRegistry())));
+  }
+
+  @DisplayName("refuse permits without Redis")
+  @Test
+  void refusePermitsWithoutRedis() {
+    FlowSpec flowSpec =
+        new FlowSpec(message -> message, data -> data, data -> List.<Message>of(), null, null)
+            .withPermits(new Permits(message -> "images", 8));
+
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(
+            () ->
+                new FlusswerkConfiguration()
+                    .permitManager(
+                        Optional.of(flowSpec),
+                        Optional.empty(),
+                        new RedisProperties(null, null, null, null)));
+  }
 }
@@ -28,7 +28,8 @@ class RoutingPropertiesTest {
             Collections.emptyMap(),
             Map.of("queue.with.specific.exchange", "specific.exchange"),
             Map.of("queue.with.specific.dlx", "specific.dlx"),
-            Collections.emptyMap());
+            Collections.emptyMap(),
+            Map.of("queue.with.default.exchange", "smile"));
   }
 
   @DisplayName("should return default exchange if there no specific configuration")
@@ -59,6 +60,18 @@ class RoutingPropertiesTest {
         .isEqualTo("specific.dlx");
   }
 
+  @DisplayName("should return specific wire format if defined")
+  @Test
+  void shouldReturnSpecificWireFormat() {
+    assertThat(routingProperties.getWireFormat("queue.with.default.exchange")).isEqualTo("smile");
+  }
+
+  @DisplayName("should return json as default wire format")
+  @Test
+  void shouldReturnDefaultWireFormat() {
+    assertThat(routingProperties.getWireFormat("queue.with.specific.exchange")).isEqualTo("json");
+  }
+
   @DisplayName("should provide a valid minimal config")
   @Test
   void shouldProvideValidMinimalConfig() {
@@ -17,7 +17,7 @@ class StringRepresentationTest {
   @DisplayName("should contain the class name")
   @Test
   void shouldContainClassName() {
-    ProcessingProperties properties = new ProcessingProperties(123);
+    ProcessingProperties properties = new ProcessingProperties(123, null, null);
     String actual = StringRepresentation.of(properties);
     assertThat(actual).contains("ProcessingProperties");
   }
@@ -25,7 +25,7 @@ class StringRepresentationTest {
   @DisplayName("should contain property")
   @Test
   void shouldContainProperty() {
-    ProcessingProperties properties = new ProcessingProperties(123);
+    ProcessingProperties properties = new ProcessingProperties(123, null, null);
     String actual = StringRepresentation.of(properties);
     assertThat(actual).contains("threads: 123");
   }
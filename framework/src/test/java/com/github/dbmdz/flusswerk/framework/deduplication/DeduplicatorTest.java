@@ -0,0 +1,92 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The Deduplicator")
+class DeduplicatorTest {
+
+  private InMemoryDeduplicationStore local;
+  private DeduplicationStore shared;
+  private Deduplicator deduplicator;
+
+  @BeforeEach
+  void setUp() {
+    local = new InMemoryDeduplicationStore(10, null);
+    shared = mock(DeduplicationStore.class);
+    deduplicator = new Deduplicator(DeduplicatorTest::id, local, shared);
+  }
+
+  private static String id(Message message) {
+    return ((TestMessage) message).getId();
+  }
+
+  @DisplayName("should recognize processed messages")
+  @Test
+  void shouldRecognizeProcessedMessages() throws IOException {
+    assertThat(deduplicator.isDuplicate(new TestMessage("1"))).isFalse();
+    deduplicator.processed(new TestMessage("1"));
+
+    assertThat(deduplicator.isDuplicate(new TestMessage("1"))).isTrue();
+    verify(shared).add("1");
+  }
+
+  @DisplayName("should recognize messages processed by other apps")
+  @Test
+  void shouldRecognizeMessagesProcessedByOtherApps() throws IOException {
+    when(shared.contains("1")).thenReturn(true);
+
+    assertThat(deduplicator.isDuplicate(new TestMessage("1"))).isTrue();
+    assertThat(local.contains("1")).isTrue();
+  }
+
+  @DisplayName("should process messages if the shared store is not available")
+  @Test
+  void shouldProcessMessagesIfSharedStoreIsNotAvailable() throws IOException {
+    when(shared.contains(anyString())).thenThrow(new IOException("Intentional"));
+    doThrow(new IOException("Intentional")).when(shared).add(anyString());
+
+    assertThat(deduplicator.isDuplicate(new TestMessage("1"))).isFalse();
+    deduplicator.processed(new TestMessage("1"));
+    assertThat(local.contains("1")).isTrue();
+  }
+
+  @DisplayName("should always process messages without key")
+  @Test
+  void shouldAlwaysProcessMessagesWithoutKey() {
+    deduplicator = new Deduplicator(message -> null, local, shared);
+    var message = new TestMessage("1");
+    deduplicator.processed(message);
+
+    assertThat(deduplicator.isDuplicate(message)).isFalse();
+    verifyNoInteractions(shared);
+  }
+
+  @DisplayName("should count duplicates")
+  @Test
+  void shouldCountDuplicates() {
+    var registry = new SimpleMeterRegistry();
+    deduplicator =
+        new Deduplicator(
+            DeduplicatorTest::id, local, shared, new MeterFactory("flusswerk", "test", registry));
+    deduplicator.processed(new TestMessage("1"));
+
+    deduplicator.isDuplicate(new TestMessage("1"));
+
+    assertThat(registry.get("flusswerk.messages.duplicates").counter().count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,64 @@
+package com.github.dbmdz.flusswerk.framework.deduplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The InMemoryDeduplicationStore")
+class InMemoryDeduplicationStoreTest {
+
+  private AtomicLong clock;
+  private InMemoryDeduplicationStore store;
+
+  @BeforeEach
+  void setUp() {
+    clock = new AtomicLong();
+    store = new InMemoryDeduplicationStore(2, Duration.ofNanos(100), clock::get);
+  }
+
+  @DisplayName("should remember added keys")
+  @Test
+  void shouldRememberAddedKeys() {
+    store.add("a");
+    assertThat(store.contains("a")).isTrue();
+    assertThat(store.contains("b")).isFalse();
+  }
+
+  @DisplayName("should drop the least recently used keys first")
+  @Test
+  void shouldDropLeastRecentlyUsedKeysFirst() {
+    store.add("a");
+    store.add("b");
+    store.add("a");
+    store.add("c");
+
+    assertThat(store.contains("b")).isFalse();
+    assertThat(store.contains("a")).isTrue();
+    assertThat(store.size()).isEqualTo(2);
+  }
+
+  @DisplayName("should keep keys that have been looked up recently")
+  @Test
+  void shouldKeepRecentlyLookedUpKeys() {
+    store.add("a");
+    store.add("b");
+    assertThat(store.contains("a")).isTrue();
+    store.add("c");
+
+    assertThat(store.contains("a")).isTrue();
+    assertThat(store.contains("b")).isFalse();
+  }
+
+  @DisplayName("should forget expired keys")
+  @Test
+  void shouldForgetExpiredKeys() {
+    store.add("a");
+    clock.set(100);
+    assertThat(store.contains("a")).isFalse();
+    assertThat(store.size()).isZero();
+  }
+}
@@ -0,0 +1,91 @@
+package com.github.dbmdz.flusswerk.framework.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.dbmdz.flusswerk.framework.locking.LockManager;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The DeferredTasks")
+class DeferredTasksTest {
+
+  private Semaphore availableWorkers;
+  private PriorityBlockingQueue<Task> taskQueue;
+  private LockManager lockManager;
+  private Task task;
+
+  @BeforeEach
+  void setUp() {
+    availableWorkers = new Semaphore(1);
+    taskQueue = new PriorityBlockingQueue<>();
+    lockManager = mock(LockManager.class);
+    when(lockManager.isLocked(anyString())).thenReturn(true);
+    when(lockManager.isLocked(anyCollection())).thenCallRealMethod();
+    task = new Task(new Message("123"), 1);
+  }
+
+  private DeferredTasks deferredTasks(Duration maxDelay) {
+    return new DeferredTasks(availableWorkers, taskQueue, lockManager, maxDelay, 2);
+  }
+
+  @DisplayName("should park a task only a limited number of times")
+  @Test
+  void shouldParkTaskLimitedNumberOfTimes() {
+    var deferredTasks = deferredTasks(Duration.ofMinutes(1));
+    assertThat(deferredTasks.canDefer(task)).isTrue();
+    deferredTasks.defer(task, List.of("a"));
+    deferredTasks.defer(task, List.of("a"));
+    assertThat(deferredTasks.canDefer(task)).isFalse();
+  }
+
+  @DisplayName("should park tasks until their lock has been released")
+  @Test
+  void shouldParkTasksUntilLockHasBeenReleased() throws InterruptedException {
+    var deferredTasks = deferredTasks(Duration.ofMinutes(1));
+    deferredTasks.defer(task, List.of("a", "b"));
+
+    assertThat(taskQueue.poll(50, TimeUnit.MILLISECONDS)).isNull();
+    assertThat(deferredTasks.size()).isEqualTo(1);
+
+    deferredTasks.released("b");
+
+    assertThat(taskQueue.poll(5, TimeUnit.SECONDS)).isSameAs(task);
+    assertThat(deferredTasks.size()).isZero();
+    assertThat(availableWorkers.availablePermits()).isZero(); // task occupies a worker again
+  }
+
+  @DisplayName("should put tasks back after the maximum delay")
+  @Test
+  void shouldPutTasksBackAfterMaxDelay() throws InterruptedException {
+    deferredTasks(Duration.ofMillis(10)).defer(task, List.of("a"));
+    assertThat(taskQueue.poll(5, TimeUnit.SECONDS)).isSameAs(task);
+  }
+
+  @DisplayName("should put tasks back if the lock has been released before parking")
+  @Test
+  void shouldPutTasksBackIfLockHasAlreadyBeenReleased() throws InterruptedException {
+    when(lockManager.isLocked("a")).thenReturn(false);
+    deferredTasks(Duration.ofMinutes(1)).defer(task, List.of("a"));
+    assertThat(taskQueue.poll(5, TimeUnit.SECONDS)).isSameAs(task);
+  }
+
+  @DisplayName("should ignore releases of locks nobody waits for")
+  @Test
+  void shouldIgnoreUnknownReleases() throws InterruptedException {
+    var deferredTasks = deferredTasks(Duration.ofMinutes(1));
+    deferredTasks.defer(task, List.of("a"));
+    deferredTasks.released("other");
+    assertThat(taskQueue.poll(50, TimeUnit.MILLISECONDS)).isNull();
+  }
+}
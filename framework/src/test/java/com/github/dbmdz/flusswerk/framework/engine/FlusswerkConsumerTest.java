@@ -1,21 +1,39 @@
 package com.github.dbmdz.flusswerk.framework.engine;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.assertj.core.api.Assertions.from;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheckStore;
+import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.flow.MessageFilter;
 import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
 import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.rabbitmq.TransportOptions;
 import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Envelope;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -46,13 +64,15 @@ class FlusswerkConsumerTest {
 
   @DisplayName("should handle delivery")
   @Test
-  void handleDelivery() throws IOException {
+  void handleDelivery() throws Exception {
     TestMessage message = new TestMessage("bsb12345678");
-    Task expected = new Task(message, 42);
+    when(envelope.getDeliveryTag()).thenReturn(7L);
 
     consumer.handleDelivery("consumerTag", envelope, basicProperties, json(message));
     assertThat(taskQueue).hasSize(1);
-    assertThat(taskQueue.poll()).isEqualTo(expected);
+    Task task = taskQueue.poll();
+    assertThat(task.getDeliveryTag()).isEqualTo(7L);
+    assertThat(task.getMessage()).isEqualTo(message);
   }
 
   @DisplayName("should return input queue")
@@ -63,7 +83,7 @@ class FlusswerkConsumerTest {
 
   @DisplayName("should set the input queue for each message")
   @Test
-  void shouldSetTheInputQueueForMessage() throws IOException {
+  void shouldSetTheInputQueueForMessage() throws Exception {
     TestMessage message = new TestMessage("bsb12345678");
 
     consumer.handleDelivery("consumerTag", envelope, basicProperties, json(message));
@@ -75,7 +95,7 @@ class FlusswerkConsumerTest {
 
   @DisplayName("should set the delivery tag for each message")
   @Test
-  void shouldSetDeliveryTag() throws IOException {
+  void shouldSetDeliveryTag() throws Exception {
     TestMessage message = new TestMessage("bsb12345678");
 
     when(envelope.getDeliveryTag()).thenReturn(42L);
@@ -87,6 +107,148 @@ class FlusswerkConsumerTest {
         .isEqualTo(envelope.getDeliveryTag());
   }
 
+  @DisplayName("should keep the raw body for each message")
+  @Test
+  void shouldKeepRawBody() throws Exception {
+    TestMessage message = new TestMessage("bsb12345678");
+    byte[] body = json(message);
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, body);
+
+    Task actual = taskQueue.poll();
+    assertThat(actual).isNotNull();
+    assertThat(actual.getMessage().getEnvelope().getRawBody()).isSameAs(body);
+  }
+
+  @DisplayName("should decompress compressed messages")
+  @Test
+  void shouldDecompressMessages() throws Exception {
+    TestMessage message = new TestMessage("bsb12345678");
+    var bytes = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(json(message));
+    }
+    when(basicProperties.getContentEncoding()).thenReturn("gzip");
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, bytes.toByteArray());
+
+    assertThat(taskQueue.poll().getMessage()).isEqualTo(message);
+  }
+
+  @DisplayName("should load claim checks only when the message is accessed")
+  @Test
+  void shouldLoadClaimChecksLazily() throws Exception {
+    TestMessage message = new TestMessage("bsb12345678");
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    when(store.get("abc")).thenReturn(json(message));
+    when(basicProperties.getHeaders()).thenReturn(Map.of(ClaimCheck.HEADER, "abc"));
+    consumer =
+        new FlusswerkConsumer(
+            availableWorkers,
+            mock(Channel.class),
+            flusswerkObjectMapper,
+            "input.queue",
+            42,
+            taskQueue,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)),
+            MessageFilter.acceptAll());
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, new byte[0]);
+    verify(store, never()).get(any());
+
+    Task task = taskQueue.poll();
+    assertThat(task.getMessage()).isEqualTo(message);
+    assertThat(task.getMessage().getEnvelope().getClaimCheck()).isEqualTo("abc");
+  }
+
+  @DisplayName("should requeue claim checks if the store is not available")
+  @Test
+  void shouldRequeueClaimChecksIfStoreIsNotAvailable() throws Exception {
+    Channel channel = mock(Channel.class);
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    when(store.get("abc")).thenThrow(new IOException("Intentional"));
+    when(basicProperties.getHeaders()).thenReturn(Map.of(ClaimCheck.HEADER, "abc"));
+    when(envelope.getDeliveryTag()).thenReturn(7L);
+    consumer =
+        new FlusswerkConsumer(
+            availableWorkers,
+            channel,
+            flusswerkObjectMapper,
+            "input.queue",
+            42,
+            taskQueue,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)),
+            MessageFilter.acceptAll());
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, new byte[0]);
+    Task task = taskQueue.poll();
+
+    assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(task::getMessage);
+    verify(channel).basicNack(7L, false, true);
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    verify(store, never()).delete(any());
+  }
+
+  @DisplayName("should keep claim checks whose payload cannot be read for the failed queue")
+  @Test
+  void shouldKeepUnreadableClaimChecksForFailedQueue() throws Exception {
+    Channel channel = mock(Channel.class);
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    when(store.get("abc")).thenReturn("no json".getBytes());
+    when(basicProperties.getHeaders()).thenReturn(Map.of(ClaimCheck.HEADER, "abc"));
+    when(envelope.getDeliveryTag()).thenReturn(7L);
+    consumer =
+        new FlusswerkConsumer(
+            availableWorkers,
+            channel,
+            flusswerkObjectMapper,
+            "input.queue",
+            42,
+            taskQueue,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)),
+            MessageFilter.acceptAll());
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, new byte[0]);
+    Task task = taskQueue.poll();
+
+    var exception = catchThrowableOfType(task::getMessage, InvalidMessageException.class);
+    assertThat(exception.getEnvelope())
+        .returns("abc", from(com.github.dbmdz.flusswerk.framework.model.Envelope::getClaimCheck))
+        .returns(
+            "input.queue", from(com.github.dbmdz.flusswerk.framework.model.Envelope::getSource))
+        .returns(7L, from(com.github.dbmdz.flusswerk.framework.model.Envelope::getDeliveryTag));
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    verify(store, never()).delete(any());
+  }
+
+  @DisplayName("should acknowledge messages rejected by the filter without deserializing them")
+  @Test
+  void shouldDropFilteredMessages() throws Exception {
+    Channel channel = mock(Channel.class);
+    when(envelope.getDeliveryTag()).thenReturn(7L);
+    consumer =
+        new FlusswerkConsumer(
+            availableWorkers,
+            channel,
+            flusswerkObjectMapper,
+            "input.queue",
+            42,
+            taskQueue,
+            TransportOptions.defaults(),
+            new MessageFilter(peek -> peek.get("id").orElse("").startsWith("bsb"), Set.of("id")));
+
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, json(new TestMessage("x")));
+    consumer.handleDelivery("consumerTag", envelope, basicProperties, "{]".getBytes());
+
+    assertThat(taskQueue).isEmpty();
+    verify(channel, times(2)).basicAck(7L, false);
+    verify(availableWorkers).release();
+
+    consumer.handleDelivery(
+        "consumerTag", envelope, basicProperties, json(new TestMessage("bsb1")));
+    assertThat(taskQueue.poll().getMessage()).isEqualTo(new TestMessage("bsb1"));
+  }
+
   @DisplayName("should acquire semaphore")
   @Test
   void shouldAcquireSemaphore() throws InterruptedException, IOException {
@@ -1,12 +1,16 @@
 package com.github.dbmdz.flusswerk.framework.engine;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,9 +23,16 @@ class TaskTest {
 
   private static Stream<Arguments> tasks() {
     return Stream.of(
-        arguments(new Task(new Message("tracing"), 0), new Task(new Message("tracing"), 0), true),
-        arguments(new Task(new Message("X_X_X_X"), 0), new Task(new Message("tracing"), 0), false),
-        arguments(new Task(new Message("tracing"), 9), new Task(new Message("tracing"), 0), false));
+        arguments(new Task(delivered(1), 0), new Task(delivered(1), 0), true),
+        arguments(new Task(delivered(2), 0), new Task(delivered(1), 0), false),
+        arguments(new Task(delivered(1), 9), new Task(delivered(1), 0), false),
+        arguments(new Task(1, () -> null, 0), new Task(delivered(1), 0), true));
+  }
+
+  private static Message delivered(long deliveryTag) {
+    Message message = new Message("tracing");
+    message.getEnvelope().setDeliveryTag(deliveryTag);
+    return message;
   }
 
   @DisplayName("should be ordered by priority descending (higher priority → lower position)")
@@ -49,6 +60,55 @@ class TaskTest {
     assertThat(actual).containsExactly(highPriority, midPriority, lowPriority);
   }
 
+  @DisplayName("should load message only once on first access")
+  @Test
+  void shouldLoadMessageOnFirstAccess() throws Exception {
+    AtomicInteger loaded = new AtomicInteger();
+    Task task =
+        new Task(
+            23,
+            () -> {
+              loaded.incrementAndGet();
+              return new Message("lazy");
+            },
+            1);
+    assertThat(task.getDeliveryTag()).isEqualTo(23);
+    assertThat(loaded).hasValue(0);
+    assertThat(task.getMessage()).isEqualTo(new Message("lazy"));
+    assertThat(task.getMessage()).isEqualTo(new Message("lazy"));
+    assertThat(loaded).hasValue(1);
+  }
+
+  @DisplayName("should not load a discarded message again")
+  @Test
+  void shouldNotLoadDiscardedMessageAgain() throws Exception {
+    AtomicInteger loaded = new AtomicInteger();
+    Task task =
+        new Task(
+            23,
+            () -> {
+              loaded.incrementAndGet();
+              return null;
+            },
+            1);
+    assertThat(task.getMessage()).isNull();
+    assertThat(task.getMessage()).isNull();
+    assertThat(loaded).hasValue(1);
+  }
+
+  @DisplayName("should throw UncheckedIOException if message cannot be loaded")
+  @Test
+  void shouldThrowIfMessageCannotBeLoaded() {
+    Task task =
+        new Task(
+            23,
+            () -> {
+              throw new IOException("intentional");
+            },
+            1);
+    assertThatThrownBy(task::getMessage).isInstanceOf(UncheckedIOException.class);
+  }
+
   @DisplayName("should be equal to equal tasks")
   @ParameterizedTest
   @MethodSource("tasks")
@@ -56,6 +116,21 @@ class TaskTest {
     assertThat(a.equals(b)).isEqualTo(equal);
   }
 
+  @DisplayName("should not load the message to compare tasks")
+  @Test
+  void shouldNotLoadMessageToCompareTasks() {
+    AtomicInteger loaded = new AtomicInteger();
+    Task.Loader loader =
+        () -> {
+          loaded.incrementAndGet();
+          throw new IOException("Intentional");
+        };
+    Task task = new Task(1, loader, 0);
+
+    assertThat(task).isEqualTo(new Task(1, loader, 0)).hasSameHashCodeAs(new Task(1, loader, 0));
+    assertThat(loaded).hasValue(0);
+  }
+
   @DisplayName("should have same hashCode as equal tasks")
   @ParameterizedTest
   @MethodSource("tasks")
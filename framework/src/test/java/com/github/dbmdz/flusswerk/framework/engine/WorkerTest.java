@@ -3,14 +3,22 @@ package com.github.dbmdz.flusswerk.framework.engine;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.github.dbmdz.flusswerk.framework.deduplication.Deduplicator;
+import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.exceptions.LockContendedException;
 import com.github.dbmdz.flusswerk.framework.exceptions.RetryProcessingException;
 import com.github.dbmdz.flusswerk.framework.exceptions.StopProcessingException;
 import com.github.dbmdz.flusswerk.framework.flow.Flow;
+import com.github.dbmdz.flusswerk.framework.model.Envelope;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import com.github.dbmdz.flusswerk.framework.rabbitmq.MessageBroker;
 import com.github.dbmdz.flusswerk.framework.reporting.ProcessReport;
@@ -19,6 +27,8 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -26,6 +36,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.InOrder;
 
 @DisplayName("The Worker")
 class WorkerTest {
@@ -104,6 +115,38 @@ class WorkerTest {
     verify(flow).process(message);
   }
 
+  @DisplayName("should release worker if message cannot be loaded")
+  @Test
+  void shouldReleaseWorkerIfMessageCannotBeLoaded() {
+    taskQueue.add(
+        new Task(
+            1,
+            () -> {
+              throw new IOException("intentional");
+            },
+            0));
+    worker.step();
+    verify(availableWorkers).release();
+    verify(flow, never()).process(any());
+  }
+
+  @DisplayName("should send messages that cannot be read after loading to the failed queue")
+  @Test
+  void shouldFailMessagesThatCannotBeReadAfterLoading() throws IOException {
+    var exception = new InvalidMessageException(new Envelope(), "intentional");
+    taskQueue.add(
+        new Task(
+            1,
+            () -> {
+              throw exception;
+            },
+            0));
+    worker.step();
+    verify(messageBroker).failInvalidMessage(exception);
+    verify(availableWorkers).release();
+    verify(flow, never()).process(any());
+  }
+
   @DisplayName("should log failure on StopProcessingException")
   @Test
   void shouldLogFailure() {
@@ -138,18 +181,259 @@ class WorkerTest {
   void shouldSendMessages() throws IOException {
     when(flow.process(message)).thenReturn(List.of(message));
     worker.process(message);
-    verify(messageBroker).send(List.of(message));
+    verify(messageBroker).sendToRoute("default", List.of(message));
+  }
+
+  @DisplayName("should group messages by route")
+  @Test
+  void shouldGroupMessagesByRoute() throws IOException {
+    Message first = new Message("1");
+    Message second = new Message("2");
+    second.getEnvelope().setRoute("other");
+    Message third = new Message("3");
+    when(flow.process(message)).thenReturn(List.of(first, second, third));
+
+    worker.process(message);
+
+    InOrder inOrder = inOrder(messageBroker);
+    inOrder.verify(messageBroker).sendToRoute("default", List.of(first, third));
+    inOrder.verify(messageBroker).sendToRoute("other", List.of(second));
+    inOrder.verify(messageBroker).ack(message);
+  }
+
+  @DisplayName("should fail processing when a route does not exist")
+  @Test
+  void shouldFailProcessingWhenRouteDoesNotExist() throws IOException {
+    when(flow.process(message)).thenReturn(List.of(message));
+    doThrow(IllegalArgumentException.class).when(messageBroker).sendToRoute(any(), any());
+    worker.process(message);
+    verify(processReport).reportFail(any(), any());
+    verify(messageBroker, never()).ack(message);
   }
 
   @DisplayName("should fail processing when sending messages fails")
   @Test
   void shouldFailProcessingWhenSendingMessagesFails() throws IOException {
     when(flow.process(message)).thenReturn(List.of(message));
-    doThrow(IOException.class).when(messageBroker).send(any());
+    doThrow(IOException.class).when(messageBroker).sendToRoute(any(), any());
     worker.process(message);
     verify(processReport).reportFail(any(), any());
   }
 
+  @DisplayName("should publish streamed messages and ack after confirms")
+  @Test
+  void shouldPublishStreamedMessagesAndAckAfterConfirms() throws IOException {
+    Message first = new Message("1");
+    Message second = new Message("2");
+    when(flow.isStreaming()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              Consumer<Message> publisher = invocation.getArgument(1);
+              publisher.accept(first);
+              publisher.accept(second);
+              return null;
+            })
+        .when(flow)
+        .process(eq(message), any());
+
+    worker.process(message);
+
+    InOrder inOrder = inOrder(messageBroker);
+    inOrder.verify(messageBroker).startConfirmBatch();
+    inOrder.verify(messageBroker).sendToRoute("default", List.of(first));
+    inOrder.verify(messageBroker).sendToRoute("default", List.of(second));
+    inOrder.verify(messageBroker).waitForConfirms(any());
+    inOrder.verify(messageBroker).ack(message);
+    verify(processReport).reportSuccess(message);
+  }
+
+  @DisplayName("should fail streamed processing when publishing fails")
+  @Test
+  void shouldFailStreamedProcessingWhenPublishingFails() throws IOException {
+    when(flow.isStreaming()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              Consumer<Message> publisher = invocation.getArgument(1);
+              publisher.accept(new Message("1"));
+              return null;
+            })
+        .when(flow)
+        .process(eq(message), any());
+    doThrow(IOException.class).when(messageBroker).sendToRoute(any(), any());
+
+    worker.process(message);
+
+    verify(messageBroker).fail(message);
+    verify(messageBroker, never()).ack(message);
+  }
+
+  @DisplayName("should fail instead of retry when streaming fails after publishing messages")
+  @Test
+  void shouldFailStreamingAfterPublishedMessages() throws IOException {
+    when(flow.isStreaming()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              Consumer<Message> publisher = invocation.getArgument(1);
+              publisher.accept(new Message("1"));
+              throw new RuntimeException("Writer failed");
+            })
+        .when(flow)
+        .process(eq(message), any());
+
+    worker.process(message);
+
+    verify(messageBroker).fail(message);
+    verify(messageBroker, never()).reject(message);
+  }
+
+  @DisplayName("should retry when streaming fails before publishing messages")
+  @Test
+  void shouldRetryStreamingWithoutPublishedMessages() throws IOException {
+    when(flow.isStreaming()).thenReturn(true);
+    doThrow(RuntimeException.class).when(flow).process(eq(message), any());
+
+    worker.process(message);
+
+    verify(messageBroker).reject(message);
+    verify(messageBroker, never()).fail(message);
+  }
+
+  @DisplayName("should fail streamed processing when messages are not confirmed")
+  @Test
+  void shouldFailStreamedProcessingWithoutConfirms() throws IOException {
+    when(flow.isStreaming()).thenReturn(true);
+    doThrow(IOException.class).when(messageBroker).waitForConfirms(any());
+
+    worker.process(message);
+
+    verify(processReport).reportFail(eq(message), any());
+    verify(messageBroker, never()).ack(message);
+  }
+
+  @DisplayName("should defer messages whose locks are held by someone else")
+  @Test
+  void shouldDeferMessagesWithContendedLocks() {
+    var deferredTasks = mock(DeferredTasks.class);
+    worker =
+        new Worker(
+            availableWorkers,
+            flow,
+            messageBroker,
+            processReport,
+            taskQueue,
+            tracing,
+            WorkerOptions.defaults().withDeferredTasks(deferredTasks));
+    when(deferredTasks.canDefer(any())).thenReturn(true);
+    when(deferredTasks.withoutWaiting(any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    when(flow.process(message)).thenThrow(new LockContendedException(List.of("123")));
+    var task = new Task(message, 1);
+    taskQueue.add(task);
+
+    worker.step();
+
+    verify(deferredTasks).withoutWaiting(any());
+    verify(deferredTasks).defer(task, List.of("123"));
+    verify(availableWorkers).release();
+    verifyNoInteractions(messageBroker);
+  }
+
+  @DisplayName("should wait for locks of messages that cannot be deferred anymore")
+  @Test
+  void shouldWaitForLocksOfMessagesThatCannotBeDeferredAnymore() {
+    var deferredTasks = mock(DeferredTasks.class);
+    worker =
+        new Worker(
+            availableWorkers,
+            flow,
+            messageBroker,
+            processReport,
+            taskQueue,
+            tracing,
+            WorkerOptions.defaults().withDeferredTasks(deferredTasks));
+    when(deferredTasks.canDefer(any())).thenReturn(false);
+    taskQueue.add(new Task(message, 1));
+
+    worker.step();
+
+    verify(deferredTasks, never()).withoutWaiting(any());
+    verify(flow).process(message);
+  }
+
+  @DisplayName("should retry messages whose locks are held by someone else without deferral")
+  @Test
+  void shouldRetryMessagesWithContendedLocksWithoutDeferral() throws IOException {
+    when(flow.process(message)).thenThrow(new LockContendedException(List.of("123")));
+    taskQueue.add(new Task(message, 1));
+
+    worker.step();
+
+    verify(messageBroker).reject(message);
+  }
+
+  @DisplayName("should acknowledge duplicates without processing them")
+  @Test
+  void shouldAcknowledgeDuplicatesWithoutProcessingThem() throws IOException {
+    var deduplicator = mock(Deduplicator.class);
+    when(deduplicator.isDuplicate(message)).thenReturn(true);
+    worker =
+        new Worker(
+            availableWorkers,
+            flow,
+            messageBroker,
+            processReport,
+            taskQueue,
+            tracing,
+            WorkerOptions.defaults().withDeduplicator(deduplicator));
+
+    worker.process(message);
+
+    verify(messageBroker).ack(message);
+    verify(flow, never()).process(message);
+    verify(deduplicator, never()).processed(message);
+  }
+
+  @DisplayName("should remember processed messages only after acknowledging them")
+  @Test
+  void shouldRememberProcessedMessagesAfterAck() throws IOException {
+    var deduplicator = mock(Deduplicator.class);
+    worker =
+        new Worker(
+            availableWorkers,
+            flow,
+            messageBroker,
+            processReport,
+            taskQueue,
+            tracing,
+            WorkerOptions.defaults().withDeduplicator(deduplicator));
+
+    worker.process(message);
+
+    InOrder inOrder = inOrder(messageBroker, deduplicator);
+    inOrder.verify(messageBroker).ack(message);
+    inOrder.verify(deduplicator).processed(message);
+  }
+
+  @DisplayName("should not remember failed messages")
+  @Test
+  void shouldNotRememberFailedMessages() {
+    var deduplicator = mock(Deduplicator.class);
+    worker =
+        new Worker(
+            availableWorkers,
+            flow,
+            messageBroker,
+            processReport,
+            taskQueue,
+            tracing,
+            WorkerOptions.defaults().withDeduplicator(deduplicator));
+    when(flow.process(message)).thenThrow(new RetryProcessingException("Intentional"));
+
+    worker.process(message);
+
+    verify(deduplicator, never()).processed(message);
+  }
+
   @DisplayName("should release semaphore")
   @Test
   void shouldReleaseSemaphore() throws IOException {
@@ -2,19 +2,26 @@ package com.github.dbmdz.flusswerk.framework.flow;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.github.dbmdz.flusswerk.framework.TestMessage;
 import com.github.dbmdz.flusswerk.framework.fixtures.Flows;
 import com.github.dbmdz.flusswerk.framework.flow.builder.FlowBuilder;
 import com.github.dbmdz.flusswerk.framework.locking.NoOpLockManager;
+import com.github.dbmdz.flusswerk.framework.locking.PermitManager;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import com.github.dbmdz.flusswerk.framework.monitoring.FlowMetrics;
 import com.github.dbmdz.flusswerk.framework.reporting.Tracing;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -45,6 +52,42 @@ class FlowTest {
     assertThat(actual).isEmpty();
   }
 
+  @DisplayName("should publish streamed messages one by one before cleanup")
+  @Test
+  void shouldPublishStreamedMessages() {
+    List<String> events = new ArrayList<>();
+    FlowSpec flowSpec =
+        FlowBuilder.flow(Message.class, String.class, String.class)
+            .reader(Message::getTracingId)
+            .transformer(s -> s)
+            .writerStreamingMessages(
+                s ->
+                    IntStream.range(0, 3)
+                        .peek(i -> events.add("emit " + i))
+                        .mapToObj(i -> new TestMessage(s + i)))
+            .cleanup(() -> events.add("cleanup"))
+            .build();
+    Flow flow = new Flow(flowSpec, new NoOpLockManager(), new Tracing());
+    assertThat(flow.isStreaming()).isTrue();
+
+    flow.process(
+        new Message("123"),
+        message -> {
+          assertThat(message.getTracingId()).isEqualTo("123");
+          events.add("publish " + ((TestMessage) message).getId());
+        });
+
+    assertThat(events)
+        .containsExactly(
+            "emit 0",
+            "publish 1230",
+            "emit 1",
+            "publish 1231",
+            "emit 2",
+            "publish 1232",
+            "cleanup");
+  }
+
   @DisplayName("should never return null for writer")
   @Test
   void shouldNeverReturnNullForWriter() {
@@ -80,6 +123,43 @@ class FlowTest {
     verify(metrics).accept(any());
   }
 
+  @DisplayName("should hold a permit while processing and record the waiting time")
+  @Test
+  void shouldHoldPermitWhileProcessing() {
+    PermitManager permitManager = mock(PermitManager.class);
+    FlowMetrics metrics = mock(FlowMetrics.class);
+    FlowSpec flowSpec =
+        FlowBuilder.messageProcessor(Message.class)
+            .process(
+                m -> {
+                  verify(permitManager).acquire("image-server", 8);
+                  verify(permitManager, never()).release();
+                  return m;
+                })
+            .permits("image-server", 8)
+            .metrics(metrics)
+            .build();
+    Flow flow = new Flow(flowSpec, new NoOpLockManager(), permitManager, new Tracing());
+
+    flow.process(new Message("123"));
+
+    verify(permitManager).release();
+    verify(metrics).accept(argThat(info -> info.getWaitedForPermitsNs() > 0));
+  }
+
+  @DisplayName("should not acquire permits for messages without resource")
+  @Test
+  void shouldNotAcquirePermitsWithoutResource() {
+    PermitManager permitManager = mock(PermitManager.class);
+    FlowSpec flowSpec =
+        FlowBuilder.messageProcessor(Message.class).process(m -> m).permits(m -> null, 8).build();
+    Flow flow = new Flow(flowSpec, new NoOpLockManager(), permitManager, new Tracing());
+
+    flow.process(new Message("123"));
+
+    verify(permitManager, never()).acquire(any(), anyInt());
+  }
+
   @DisplayName("should set id for logging if present")
   @Test
   void shouldSetIdForLoggingIfPresent() {
@@ -89,6 +169,30 @@ class FlowTest {
     assertThat(MDC.get("id")).isEqualTo("123");
   }
 
+  public static class NumberedMessage extends Message {
+    private final long id;
+
+    NumberedMessage(long id) {
+      this.id = id;
+    }
+
+    public long getID() {
+      return id;
+    }
+  }
+
+  @DisplayName("should set id for logging for each message of a class")
+  @Test
+  void shouldSetIdForLoggingForEachMessage() {
+    Flow flow = Flows.messageProcessor(m -> m);
+    flow.setLoggingData(new NumberedMessage(1));
+    assertThat(MDC.get("id")).isEqualTo("1");
+    flow.setLoggingData(new NumberedMessage(2));
+    assertThat(MDC.get("id")).isEqualTo("2");
+    flow.setLoggingData(new Message("123"));
+    assertThat(MDC.get("id")).isNull();
+  }
+
   @DisplayName("should set tracing id for logging if present")
   @Test
   void shouldSetTracingIdForLoggingIfPresent() {
@@ -0,0 +1,156 @@
+package com.github.dbmdz.flusswerk.framework.flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.exceptions.RetryProcessingException;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The ReaderCache")
+class ReaderCacheTest {
+
+  private AtomicInteger reads;
+  private AtomicLong clock;
+  private Function<TestMessage, String> reader;
+
+  @BeforeEach
+  void setUp() {
+    reads = new AtomicInteger();
+    clock = new AtomicLong();
+    reader = message -> message.getId() + reads.incrementAndGet();
+  }
+
+  private ReaderCache<TestMessage, String, String> cache(int maxSize, Duration ttl) {
+    return new ReaderCache<>(reader, TestMessage::getId, maxSize, ttl, clock::get);
+  }
+
+  @DisplayName("should load results only once per key")
+  @Test
+  void shouldLoadOncePerKey() {
+    var cache = cache(10, null);
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("a1");
+    assertThat(cache.apply(new TestMessage("b"))).isEqualTo("b2");
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("a1");
+    assertThat(reads).hasValue(2);
+  }
+
+  @DisplayName("should drop the least recently used results")
+  @Test
+  void shouldDropLeastRecentlyUsed() {
+    var cache = cache(2, null);
+    cache.apply(new TestMessage("a"));
+    cache.apply(new TestMessage("b"));
+    cache.apply(new TestMessage("a"));
+    cache.apply(new TestMessage("c")); // drops b
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("a1");
+    assertThat(cache.apply(new TestMessage("b"))).isEqualTo("b4");
+  }
+
+  @DisplayName("should load expired results again")
+  @Test
+  void shouldLoadExpiredResultsAgain() {
+    var cache = cache(10, Duration.ofSeconds(10));
+    cache.apply(new TestMessage("a"));
+    clock.addAndGet(Duration.ofSeconds(9).toNanos());
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("a1");
+    clock.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("a2");
+  }
+
+  @DisplayName("should bypass the cache for messages without key")
+  @Test
+  void shouldBypassCacheWithoutKey() {
+    var cache = new ReaderCache<TestMessage, String, String>(reader, m -> null, 10, null);
+    cache.apply(new TestMessage("a"));
+    cache.apply(new TestMessage("a"));
+    assertThat(reads).hasValue(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @DisplayName("should not cache failed loads")
+  @Test
+  void shouldNotCacheFailures() {
+    reader =
+        message -> {
+          if (reads.incrementAndGet() == 1) {
+            throw new RetryProcessingException("intentional");
+          }
+          return "loaded";
+        };
+    var cache = cache(10, null);
+    assertThatThrownBy(() -> cache.apply(new TestMessage("a")))
+        .isInstanceOf(RetryProcessingException.class);
+    assertThat(cache.apply(new TestMessage("a"))).isEqualTo("loaded");
+  }
+
+  @DisplayName("should load once for concurrent messages with the same key")
+  @Test
+  void shouldLoadOnceForConcurrentMessages() throws Exception {
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    reader =
+        message -> {
+          reads.incrementAndGet();
+          loading.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return "loaded";
+        };
+    var cache = cache(10, null);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(executor.submit(() -> cache.apply(new TestMessage("a"))));
+      loading.await();
+      for (int i = 0; i < 3; i++) {
+        results.add(executor.submit(() -> cache.apply(new TestMessage("a"))));
+      }
+      release.countDown();
+      for (Future<String> result : results) {
+        assertThat(result.get()).isEqualTo("loaded");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(reads).hasValue(1);
+  }
+
+  @DisplayName("should count hits, misses and evictions, also before metrics are registered")
+  @Test
+  void shouldRecordMetrics() {
+    var registry = new SimpleMeterRegistry();
+    var cache = cache(1, null);
+    cache.apply(new TestMessage("a"));
+    cache.registerMetrics(new MeterFactory("flusswerk", "test", registry));
+
+    cache.apply(new TestMessage("a"));
+    cache.apply(new TestMessage("b"));
+
+    var hits = registry.get("flusswerk.reader.cache").tag("result", "hit").functionCounter();
+    assertThat(hits.count()).isEqualTo(1);
+    var misses = registry.get("flusswerk.reader.cache").tag("result", "miss").functionCounter();
+    assertThat(misses.count()).isEqualTo(2);
+    assertThat(registry.get("flusswerk.reader.cache.evictions").functionCounter().count())
+        .isEqualTo(1);
+  }
+}
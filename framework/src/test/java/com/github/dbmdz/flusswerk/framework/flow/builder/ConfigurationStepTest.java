@@ -5,6 +5,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.dbmdz.flusswerk.framework.TestMessage;
 import com.github.dbmdz.flusswerk.framework.flow.FlowInfo;
+import com.github.dbmdz.flusswerk.framework.model.BodyRetention;
+import com.github.dbmdz.flusswerk.framework.model.MessagePeek;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -38,4 +43,72 @@ public class ConfigurationStepTest {
     model.getMetrics().accept(null);
     assertThat(metricsTask).has(beenInvoked());
   }
+
+  @DisplayName("should cache reader results")
+  @Test
+  void shouldCacheReaderResults() {
+    var reads = new AtomicInteger();
+    model.setReader(message -> message.getId() + reads.incrementAndGet());
+    step.cache(TestMessage::getId, 10, Duration.ofMinutes(1));
+
+    assertThat(model.getReader().apply(new TestMessage("a"))).isEqualTo("a1");
+    assertThat(model.getReader().apply(new TestMessage("a"))).isEqualTo("a1");
+    assertThat(reads).hasValue(1);
+  }
+
+  @DisplayName("should set the filter")
+  @Test
+  void shouldSetFilter() {
+    step.filter(peek -> peek.get("id").isPresent(), "id");
+    assertThat(model.getFilter().getFields()).containsExactly("id");
+    assertThat(model.getFilter().accepts(new MessagePeek(Map.of("id", "abc")))).isTrue();
+    assertThat(model.getFilter().accepts(new MessagePeek(Map.of()))).isFalse();
+  }
+
+  @DisplayName("should set the permits")
+  @Test
+  void shouldSetPermits() {
+    step.permits(TestMessage::getId, 8);
+    assertThat(model.getPermits().getLimit()).isEqualTo(8);
+    assertThat(model.getPermits().resourceFor(new TestMessage("image-server")))
+        .isEqualTo("image-server");
+  }
+
+  @DisplayName("should set the deduplication")
+  @Test
+  void shouldSetDeduplication() {
+    step.deduplicate(TestMessage::getId, 1000, Duration.ofHours(1));
+    assertThat(model.getDeduplication().getMaxSize()).isEqualTo(1000);
+    assertThat(model.getDeduplication().keyFor(new TestMessage("123"))).isEqualTo("123");
+  }
+
+  @DisplayName("should deduplicate by content")
+  @Test
+  void shouldDeduplicateByContent() {
+    step.deduplicate(1000, Duration.ofHours(1));
+    var message = new TestMessage("123");
+    var sameContent = new TestMessage("123");
+    message.getEnvelope().setBody("{\"id\": \"123\"}");
+    sameContent.getEnvelope().setBody("{\"id\": \"123\"}");
+
+    assertThat(model.getDeduplication().keyFor(message))
+        .isNotNull()
+        .isEqualTo(model.getDeduplication().keyFor(sameContent));
+    assertThat(model.getDeduplication().keyFor(new TestMessage("123"))).isNull();
+    assertThat(model.getDeduplication().isByContent()).isTrue();
+  }
+
+  @DisplayName("should hash binary bodies as received")
+  @Test
+  void shouldHashBinaryBodiesAsReceived() {
+    step.deduplicate(1000, Duration.ofHours(1));
+    var message = new TestMessage("123");
+    var other = new TestMessage("123");
+    // Both bodies decode to the same replacement character as UTF-8
+    message.getEnvelope().setRawBody(new byte[] {(byte) 0xfe}, BodyRetention.RAW);
+    other.getEnvelope().setRawBody(new byte[] {(byte) 0xff}, BodyRetention.RAW);
+
+    assertThat(model.getDeduplication().keyFor(message))
+        .isNotEqualTo(model.getDeduplication().keyFor(other));
+  }
 }
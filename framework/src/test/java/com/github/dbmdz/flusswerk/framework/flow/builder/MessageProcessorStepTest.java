@@ -3,7 +3,10 @@ package com.github.dbmdz.flusswerk.framework.flow.builder;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.aggregation.Aggregator;
+import com.github.dbmdz.flusswerk.framework.aggregation.InMemoryAggregationStore;
 import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -62,6 +65,23 @@ class MessageProcessorStepTest {
     assertThat(probe.hasBeenInvoked()).isTrue();
   }
 
+  @Test
+  @DisplayName("should send one message for every complete group")
+  void shouldAggregateMessages() {
+    var aggregator =
+        new Aggregator<TestMessage>(
+            TestMessage::getId,
+            message -> message.getValues().get(0),
+            message -> message.getValues().size(),
+            Duration.ofMinutes(1),
+            new InMemoryAggregationStore<>());
+    step.aggregate(aggregator, parts -> new TestMessage("done", parts.get(0).getId()));
+
+    assertThat(evaluateFlow(new TestMessage("doc", "a", "b"))).isEmpty();
+    assertThat(evaluateFlow(new TestMessage("doc", "b", "a")))
+        .containsExactly(new TestMessage("done", "doc"));
+  }
+
   String[] allIdsOf(TestMessage... messages) {
     return Stream.of(messages).map(TestMessage::getId).toArray(String[]::new);
   }
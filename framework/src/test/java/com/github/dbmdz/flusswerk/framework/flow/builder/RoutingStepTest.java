@@ -0,0 +1,73 @@
+package com.github.dbmdz.flusswerk.framework.flow.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The RoutingStep")
+class RoutingStepTest {
+
+  private Model<TestMessage, String, String> model;
+  private RoutingStep<TestMessage, String, String> step;
+
+  @BeforeEach
+  void setUp() {
+    model = new Model<>();
+    step = new WriterStep<>(model).writerRouting();
+  }
+
+  private static List<String> routesOf(Collection<Message> messages) {
+    List<String> routes = new ArrayList<>();
+    messages.forEach(message -> routes.add(message.getEnvelope().getRoute()));
+    return routes;
+  }
+
+  @DisplayName("should set the route of outgoing messages")
+  @Test
+  void shouldSetRoute() {
+    step.route("images", TestMessage::new);
+
+    var actual = model.getWriter().apply("test");
+    assertThat(actual).containsExactly(new TestMessage("test"));
+    assertThat(routesOf(actual)).containsExactly("images");
+  }
+
+  @DisplayName("should only apply branches with matching conditions")
+  @Test
+  void shouldOnlyApplyMatchingBranches() {
+    step.route("images", s -> s.endsWith(".jpg"), TestMessage::new)
+        .route("texts", s -> s.endsWith(".txt"), TestMessage::new);
+
+    var actual = model.getWriter().apply("page.txt");
+    assertThat(actual).containsExactly(new TestMessage("page.txt"));
+    assertThat(routesOf(actual)).containsExactly("texts");
+  }
+
+  @DisplayName("should apply all matching branches in order")
+  @Test
+  void shouldFanOutToAllMatchingBranches() {
+    step.route("images", TestMessage::new)
+        .routeMessages(
+            "thumbnails", s -> true, s -> List.of(new TestMessage("1"), new TestMessage("2")));
+
+    var actual = model.getWriter().apply("test");
+    assertThat(actual)
+        .containsExactly(new TestMessage("test"), new TestMessage("1"), new TestMessage("2"));
+    assertThat(routesOf(actual)).containsExactly("images", "thumbnails", "thumbnails");
+  }
+
+  @DisplayName("should skip branches returning no message")
+  @Test
+  void shouldSkipMissingMessages() {
+    step.route("images", s -> null);
+
+    assertThat(model.getWriter().apply("test")).isEmpty();
+  }
+}
@@ -4,7 +4,10 @@ import static com.github.dbmdz.flusswerk.framework.flow.builder.InvocationProbe.
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,4 +50,23 @@ class WriterStepTest {
     var actual = model.getWriter().apply("123");
     Assertions.assertThat(actual).containsExactly(expected);
   }
+
+  @Test
+  void writerStreamingMessages() {
+    TestMessage[] expected = {new TestMessage("1"), new TestMessage("2")};
+    step.writerStreamingMessages(anything -> Stream.of(expected));
+
+    List<Message> actual = new ArrayList<>();
+    model.getStreamingWriter().accept("123", actual::add);
+    Assertions.assertThat(actual).containsExactly(expected);
+  }
+
+  @Test
+  void writerEmittingMessages() {
+    step.writerEmittingMessages((s, publisher) -> publisher.accept(new TestMessage(s)));
+
+    List<Message> actual = new ArrayList<>();
+    model.getStreamingWriter().accept("123", actual::add);
+    Assertions.assertThat(actual).containsExactly(new TestMessage("123"));
+  }
 }
@@ -0,0 +1,120 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import com.github.dbmdz.flusswerk.framework.model.MessagePeek;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The FlusswerkObjectMapper")
+class FlusswerkObjectMapperTest {
+
+  private FlusswerkObjectMapper objectMapper;
+
+  @BeforeEach
+  void setUp() {
+    objectMapper = new FlusswerkObjectMapper(new IncomingMessageType(TestMessage.class));
+  }
+
+  @DisplayName("should read what it writes")
+  @Test
+  void shouldReadWhatItWrites() throws IOException {
+    TestMessage message = new TestMessage("abc123", "a", "b");
+    message.getEnvelope().setRetries(2);
+
+    Message restored = objectMapper.deserialize(objectMapper.serialize(message));
+    Message restoredAgain = objectMapper.deserialize(objectMapper.serialize(message));
+
+    assertThat(restored).isEqualTo(message).isEqualTo(restoredAgain);
+    assertThat(restored.getEnvelope().getRetries()).isEqualTo(2);
+  }
+
+  @DisplayName("should apply mixins added after first use")
+  @Test
+  void shouldApplyMixinsAddedAfterFirstUse() throws IOException {
+    TestMessage message = new TestMessage("abc123");
+    objectMapper.serialize(message);
+
+    objectMapper.addMixIn(TestMessage.class, WithoutValues.class);
+
+    String json = new String(objectMapper.serialize(message), StandardCharsets.UTF_8);
+    assertThat(json).doesNotContain("values");
+  }
+
+  @DisplayName("should read and write with bytecode binding in all wire formats")
+  @Test
+  void shouldUseBytecodeBinding() throws IOException {
+    // Blackbird cannot call varargs creators like the one of TestMessage
+    var plainMapper = new FlusswerkObjectMapper(new IncomingMessageType());
+    plainMapper.forWireFormat("smile");
+    plainMapper.enableBytecodeBinding();
+    Message message = new Message("tracing-id");
+    message.getEnvelope().setRetries(1);
+
+    for (String format : new String[] {"json", "smile", "cbor"}) {
+      var mapper = plainMapper.forWireFormat(format);
+      assertThat(mapper.getRegisteredModuleIds())
+          .contains("com.fasterxml.jackson.module.blackbird.BlackbirdModule");
+      assertThat(mapper.deserialize(mapper.serialize(message))).isEqualTo(message);
+    }
+  }
+
+  @DisplayName("should read messages as the class registered for their type")
+  @Test
+  void shouldReadRegisteredTypes() throws IOException {
+    var mapper =
+        new FlusswerkObjectMapper(new IncomingMessageType().withType("test", TestMessage.class));
+    TestMessage message = new TestMessage("abc123", "a");
+    byte[] json = mapper.serialize(message);
+
+    assertThat(mapper.typeOf(message)).isEqualTo("test");
+    assertThat(mapper.deserialize(json, null, "test")).isEqualTo(message);
+    assertThat(mapper.deserialize(json, null, "unknown")).isExactlyInstanceOf(Message.class);
+    assertThat(mapper.deserialize(json, null, null)).isExactlyInstanceOf(Message.class);
+  }
+
+  @DisplayName("should peek top-level fields without reading the whole message")
+  @Test
+  void shouldPeekFields() throws IOException {
+    TestMessage message = new TestMessage("abc123", "a", "b");
+    message.setTracingId("tracing-id");
+    message.setTracing(List.of("t1", "t2"));
+    byte[] json = objectMapper.serialize(message);
+
+    MessagePeek peek = objectMapper.peek(json, Set.of("id", "values", "tracing", "envelope"));
+
+    assertThat(peek.get("id")).contains("abc123");
+    assertThat(peek.getList("values")).containsExactly("a", "b");
+    assertThat(peek.getTracing()).containsExactly("t1", "t2");
+    assertThat(peek.getTracingId()).isEmpty(); // not requested
+    assertThat(peek.get("envelope")).isEmpty(); // objects are not part of the view
+  }
+
+  @DisplayName("should peek fields in binary wire formats")
+  @Test
+  void shouldPeekFieldsInBinaryWireFormats() throws IOException {
+    TestMessage message = new TestMessage("abc123");
+    message.setTracingId("tracing-id");
+    var cbor = objectMapper.forWireFormat("cbor");
+
+    MessagePeek peek =
+        objectMapper.peek(
+            cbor.serialize(message), cbor.getWireFormat().getContentType(), Set.of("tracingId"));
+
+    assertThat(peek.getTracingId()).contains("tracing-id");
+  }
+
+  private interface WithoutValues {
+    @JsonIgnore
+    String[] getValues();
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The OutputBuffers")
+class OutputBuffersTest {
+
+  private OutputBuffers outputBuffers;
+
+  @BeforeEach
+  void setUp() {
+    outputBuffers = new OutputBuffers(1);
+  }
+
+  @DisplayName("should reuse released buffers with their capacity")
+  @Test
+  void shouldReuseReleasedBuffers() {
+    OutputBuffers.Buffer buffer = outputBuffers.acquire();
+    buffer.write(new byte[10_000], 0, 10_000);
+    outputBuffers.release(buffer);
+
+    OutputBuffers.Buffer reused = outputBuffers.acquire();
+    assertThat(reused).isSameAs(buffer);
+    assertThat(reused.toByteArray()).isEmpty();
+    assertThat(reused.capacity()).isGreaterThanOrEqualTo(10_000);
+  }
+
+  @DisplayName("should return exactly the written bytes")
+  @Test
+  void shouldReturnWrittenBytes() {
+    OutputBuffers.Buffer buffer = outputBuffers.acquire();
+    buffer.write(1);
+    buffer.write(new byte[] {2, 3, 4}, 1, 2);
+    assertThat(buffer.toByteArray()).containsExactly(1, 3, 4);
+  }
+
+  @DisplayName("should drop buffers if the pool is full")
+  @Test
+  void shouldDropBuffersIfFull() {
+    OutputBuffers.Buffer first = outputBuffers.acquire();
+    OutputBuffers.Buffer second = outputBuffers.acquire();
+    outputBuffers.release(first);
+    outputBuffers.release(second);
+
+    assertThat(outputBuffers.available()).isEqualTo(1);
+    assertThat(outputBuffers.acquire()).isSameAs(first);
+  }
+
+  @DisplayName("should drop buffers that grew too large")
+  @Test
+  void shouldDropLargeBuffers() {
+    OutputBuffers.Buffer buffer = outputBuffers.acquire();
+    int size = 2 * OutputBuffers.MAX_RETAINED_SIZE;
+    buffer.write(new byte[size], 0, size);
+    outputBuffers.release(buffer);
+
+    assertThat(outputBuffers.available()).isZero();
+  }
+}
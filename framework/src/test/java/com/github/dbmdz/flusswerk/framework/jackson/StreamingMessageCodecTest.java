@@ -0,0 +1,127 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("A StreamingMessageCodec")
+class StreamingMessageCodecTest {
+
+  private FlusswerkObjectMapper plainMapper;
+  private FlusswerkObjectMapper codecMapper;
+  private TestMessageCodec codec;
+  private TestMessage message;
+
+  @BeforeEach
+  void setUp() {
+    plainMapper = new FlusswerkObjectMapper(new IncomingMessageType(TestMessage.class));
+    codecMapper = new FlusswerkObjectMapper(new IncomingMessageType(TestMessage.class));
+    codec = new TestMessageCodec();
+    codecMapper.registerCodec(codec);
+    message = new TestMessage("abc123", "a", "b");
+    message.setTracingId("tracing-id");
+    message.setTracing(List.of("first", "second"));
+    message.getEnvelope().setRetries(3);
+    message.getEnvelope().setTimestamp(LocalDateTime.of(2021, 7, 1, 12, 30));
+  }
+
+  @DisplayName("should read and write messages in all wire formats")
+  @ParameterizedTest
+  @ValueSource(strings = {"json", "smile", "cbor", "msgpack"})
+  void shouldReadAndWriteMessages(String format) throws IOException {
+    var mapper = codecMapper.forWireFormat(format);
+
+    Message restored = mapper.deserialize(mapper.serialize(message));
+
+    assertThat(restored).isEqualTo(message);
+    assertThat(restored.getEnvelope().getRetries()).isEqualTo(3);
+    assertThat(restored.getEnvelope().getTimestamp())
+        .isEqualTo(message.getEnvelope().getTimestamp());
+    assertThat(codec.reads).hasValue(1);
+    assertThat(codec.writes).hasValue(1);
+  }
+
+  @DisplayName("should be compatible with plain Jackson")
+  @Test
+  void shouldBeCompatibleWithPlainJackson() throws IOException {
+    Message fromPlain = codecMapper.deserialize(plainMapper.serialize(message));
+    Message fromCodec = plainMapper.deserialize(codecMapper.serialize(message));
+
+    assertThat(fromPlain).isEqualTo(message);
+    assertThat(fromCodec).isEqualTo(message);
+    assertThat(fromCodec.getEnvelope().getRetries()).isEqualTo(3);
+  }
+
+  @DisplayName("should not be used for other message classes")
+  @Test
+  void shouldNotBeUsedForOtherClasses() throws IOException {
+    codecMapper.serialize(new Message("tracing-id"));
+    assertThat(codec.writes).hasValue(0);
+  }
+
+  static class TestMessageCodec extends StreamingMessageCodec<TestMessage> {
+
+    final AtomicInteger reads = new AtomicInteger();
+    final AtomicInteger writes = new AtomicInteger();
+
+    TestMessageCodec() {
+      super(TestMessage.class);
+    }
+
+    @Override
+    public void write(TestMessage message, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      writes.incrementAndGet();
+      generator.writeStartObject();
+      writeString(generator, "id", message.getId());
+      writeStrings(generator, "values", message.getValues());
+      writeCommonFields(message, generator, provider);
+      generator.writeEndObject();
+    }
+
+    @Override
+    public TestMessage read(JsonParser parser, DeserializationContext context) throws IOException {
+      reads.incrementAndGet();
+      String id = null;
+      List<String> values = List.of();
+      CommonFields common = new CommonFields();
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.START_OBJECT) {
+        token = parser.nextToken();
+      }
+      for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        switch (field) {
+          case "id":
+            id = readString(parser, context);
+            break;
+          case "values":
+            values = readStrings(parser, context);
+            break;
+          default:
+            if (!readCommonField(field, parser, context, common)) {
+              parser.skipChildren();
+            }
+        }
+      }
+      return common.applyTo(new TestMessage(id, values.toArray(new String[0])));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.github.dbmdz.flusswerk.framework.jackson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
+import com.github.dbmdz.flusswerk.framework.model.Message;
+import java.io.IOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("The WireFormat support")
+class WireFormatTest {
+
+  private FlusswerkObjectMapper objectMapper;
+
+  @BeforeEach
+  void setUp() {
+    objectMapper = new FlusswerkObjectMapper(new IncomingMessageType(TestMessage.class));
+  }
+
+  @DisplayName("should read and write built-in formats")
+  @ParameterizedTest
+  @ValueSource(strings = {"json", "smile", "cbor", "msgpack"})
+  void shouldReadAndWriteBuiltInFormats(String name) throws IOException {
+    TestMessage message = new TestMessage("abc123");
+    message.getEnvelope().setRetries(3);
+    var mapper = objectMapper.forWireFormat(name);
+
+    byte[] data = mapper.writeValueAsBytes(message);
+    Message restored = objectMapper.deserialize(data, mapper.getWireFormat().getContentType());
+
+    assertThat(restored).isEqualTo(message);
+    assertThat(restored.getEnvelope().getRetries()).isEqualTo(3);
+  }
+
+  @DisplayName("should fall back to JSON for missing or unknown content types")
+  @ParameterizedTest
+  @NullSource
+  @ValueSource(strings = {"text/plain", "application/json; charset=utf-8", "Application/JSON"})
+  void shouldFallBackToJson(String contentType) {
+    assertThat(objectMapper.forContentType(contentType).getWireFormat()).isEqualTo(WireFormat.JSON);
+  }
+
+  @DisplayName("should use registered custom formats")
+  @Test
+  void shouldUseCustomFormats() {
+    var custom =
+        new WireFormat("custom", "application/x-custom", WireFormat.JSON::createJsonFactory);
+    objectMapper.registerWireFormat(custom);
+    assertThat(objectMapper.forContentType("application/x-custom").getWireFormat())
+        .isEqualTo(custom);
+    assertThat(objectMapper.forWireFormat("custom").getWireFormat()).isEqualTo(custom);
+  }
+
+  @DisplayName("should reject unknown formats for sending")
+  @Test
+  void shouldRejectUnknownFormats() {
+    assertThatIllegalArgumentException().isThrownBy(() -> objectMapper.forWireFormat("yaml"));
+  }
+}
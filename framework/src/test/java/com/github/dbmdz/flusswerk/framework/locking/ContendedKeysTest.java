@@ -0,0 +1,36 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The ContendedKeys")
+class ContendedKeysTest {
+
+  @DisplayName("should report the keys with the longest waiting times first")
+  @Test
+  void shouldReportLongestWaitingTimesFirst() {
+    var contendedKeys = new ContendedKeys(2);
+    contendedKeys.record("a", 10);
+    contendedKeys.record("b", 30);
+    contendedKeys.record("c", 5);
+    contendedKeys.record("a", 30);
+
+    assertThat(contendedKeys.top()).containsExactly(entry("a", 40L), entry("b", 30L));
+  }
+
+  @DisplayName("should keep a frequently contended key even if all slots are taken")
+  @Test
+  void shouldKeepFrequentKeysWhenFull() {
+    var contendedKeys = new ContendedKeys(1); // tracks four candidates
+    for (int i = 0; i < 100; i++) {
+      contendedKeys.record("rare" + i, 1);
+      contendedKeys.record("hot", 10);
+    }
+
+    assertThat(contendedKeys.top()).containsOnlyKeys("hot");
+    assertThat(contendedKeys.top().get("hot")).isEqualTo(1000L);
+  }
+}
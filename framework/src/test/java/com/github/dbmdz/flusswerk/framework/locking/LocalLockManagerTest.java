@@ -0,0 +1,157 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The LocalLockManager")
+class LocalLockManagerTest {
+
+  private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+  private TestingWatch testingWatch;
+  private LocalLockManager lockManager;
+  private ExecutorService otherThread;
+
+  @BeforeEach
+  void setUp() {
+    testingWatch = new TestingWatch();
+    lockManager = new LocalLockManager(TIMEOUT, testingWatch);
+    otherThread = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    otherThread.shutdownNow();
+  }
+
+  private Future<?> inOtherThread(Runnable task) {
+    return otherThread.submit(
+        () -> {
+          try {
+            task.run();
+          } finally {
+            lockManager.release();
+          }
+        });
+  }
+
+  @DisplayName("should time out while another thread holds the lock")
+  @Test
+  void shouldTimeOutWhileAnotherThreadHoldsTheLock() {
+    lockManager.acquire("123");
+
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> inOtherThread(() -> lockManager.acquire("123")).get())
+        .withCauseInstanceOf(LockingException.class);
+    assertThat(lockManager.isLocked("123")).isTrue();
+  }
+
+  @DisplayName("should acquire the lock after it has been released")
+  @Test
+  void shouldAcquireLockAfterRelease() throws Exception {
+    lockManager.acquire("123");
+    lockManager.release();
+
+    inOtherThread(() -> lockManager.acquire("123")).get(5, TimeUnit.SECONDS);
+    assertThat(lockManager.isLocked("123")).isFalse();
+  }
+
+  @DisplayName("should acquire several ids at once and release all of them")
+  @Test
+  void shouldAcquireSeveralIds() throws Exception {
+    lockManager.acquireAll(List.of("work", "page"));
+    assertThat(lockManager.getLockedIdForThread()).contains("page");
+    assertThat(lockManager.getLocksAcquired()).isEqualTo(2);
+
+    lockManager.release();
+    assertThat(lockManager.threadHasLock()).isFalse();
+    inOtherThread(() -> lockManager.acquire("work")).get(5, TimeUnit.SECONDS);
+  }
+
+  @DisplayName("should return increasing fencing tokens")
+  @Test
+  void shouldReturnIncreasingFencingTokens() {
+    lockManager.acquire("123");
+    long first = lockManager.getFencingToken("123");
+    assertThat(lockManager.getFencingToken("123")).isEqualTo(first);
+    lockManager.release();
+    lockManager.acquire("123");
+    assertThat(lockManager.getFencingToken("123")).isGreaterThan(first);
+  }
+
+  @DisplayName("should return greater fencing tokens than before a restart")
+  @Test
+  void shouldReturnGreaterFencingTokensAfterRestart() throws InterruptedException {
+    lockManager.acquire("123");
+    long beforeRestart = lockManager.getFencingToken("123");
+    lockManager.release();
+    Thread.sleep(2);
+    var restarted = new LocalLockManager(Duration.ofMillis(50));
+    restarted.acquire("123");
+    assertThat(restarted.getFencingToken("123")).isGreaterThan(beforeRestart);
+    restarted.release();
+  }
+
+  @DisplayName("should not return fencing tokens for ids the thread does not hold")
+  @Test
+  void shouldNotReturnFencingTokensForOtherIds() {
+    lockManager.acquire("123");
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> lockManager.getFencingToken("456"));
+  }
+
+  @DisplayName("should share read locks, but not with writers")
+  @Test
+  void shouldShareReadLocks() throws Exception {
+    lockManager.acquireRead("123");
+
+    inOtherThread(() -> lockManager.acquireRead("123")).get(5, TimeUnit.SECONDS);
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> inOtherThread(() -> lockManager.acquireWrite("123")).get())
+        .withCauseInstanceOf(LockingException.class);
+  }
+
+  @DisplayName("should throw exception if the same thread tries to acquire more than one lock")
+  @Test
+  void shouldThrowIfThreadAcquiresMoreThanOneLock() {
+    lockManager.acquire("123");
+    assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> lockManager.acquire("456"));
+  }
+
+  @DisplayName("should record holding times and timeouts")
+  @Test
+  void shouldRecordMetrics() throws Exception {
+    var registry = new SimpleMeterRegistry();
+    lockManager =
+        new LocalLockManager(
+            TIMEOUT, testingWatch, new MeterFactory("flusswerk", "test", registry));
+
+    lockManager.acquireWrite("123");
+    testingWatch.sleepNano(5000);
+    assertThatExceptionOfType(ExecutionException.class)
+        .isThrownBy(() -> inOtherThread(() -> lockManager.acquireWrite("123")).get());
+    lockManager.release();
+
+    assertThat(lockManager.getLocksHeldNs(LockMode.WRITE)).isEqualTo(5000);
+    assertThat(lockManager.getLocksHeldNs()).isEqualTo(5000);
+    assertThat(registry.get("flusswerk.locks.timeouts").tag("mode", "write").counter().count())
+        .isEqualTo(1);
+    assertThat(registry.get("flusswerk.locks.held.time").tag("mode", "write").timer().count())
+        .isEqualTo(1);
+  }
+}
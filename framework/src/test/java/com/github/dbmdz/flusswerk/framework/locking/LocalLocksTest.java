@@ -0,0 +1,76 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The LocalLocks")
+class LocalLocksTest {
+
+  private LocalLocks localLocks;
+
+  @BeforeEach
+  void setUp() {
+    localLocks = new LocalLocks();
+  }
+
+  @DisplayName("should lock keys for other threads")
+  @Test
+  void shouldLockKeysForOtherThreads() throws Exception {
+    assertThat(localLocks.tryLock("a", 0, TimeUnit.MILLISECONDS)).isTrue();
+
+    var otherThread = CompletableFuture.supplyAsync(() -> tryLock("a"));
+    var otherKey = CompletableFuture.supplyAsync(() -> tryLock("b"));
+
+    assertThat(otherThread.get()).isFalse();
+    assertThat(otherKey.get()).isTrue();
+  }
+
+  @DisplayName("should share locks between readers, but not with writers")
+  @Test
+  void shouldShareLocksBetweenReaders() throws Exception {
+    assertThat(localLocks.tryLock("a", true, 0, TimeUnit.MILLISECONDS)).isTrue();
+
+    var otherReader = CompletableFuture.supplyAsync(() -> tryLock("a", true));
+    var writer = CompletableFuture.supplyAsync(() -> tryLock("a", false));
+
+    assertThat(otherReader.get()).isTrue();
+    assertThat(writer.get()).isFalse();
+  }
+
+  @DisplayName("should forget keys nobody holds or waits for")
+  @Test
+  void shouldForgetUnusedKeys() throws InterruptedException {
+    localLocks.tryLock("a", 0, TimeUnit.MILLISECONDS);
+    localLocks.tryLock("a", 0, TimeUnit.MILLISECONDS); // reentrant
+    localLocks.unlock("a");
+    assertThat(localLocks.size()).isEqualTo(1);
+    localLocks.unlock("a");
+    assertThat(localLocks.size()).isZero();
+  }
+
+  @DisplayName("should forget keys after a timeout")
+  @Test
+  void shouldForgetKeysAfterTimeout() throws Exception {
+    localLocks.tryLock("a", 0, TimeUnit.MILLISECONDS);
+    CompletableFuture.supplyAsync(() -> tryLock("a")).get();
+    localLocks.unlock("a");
+    assertThat(localLocks.size()).isZero();
+  }
+
+  private boolean tryLock(String key) {
+    return tryLock(key, false);
+  }
+
+  private boolean tryLock(String key, boolean shared) {
+    try {
+      return localLocks.tryLock(key, shared, 10, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -10,6 +10,7 @@ import java.util.concurrent.locks.Lock;
 import org.mockito.stubbing.OngoingStubbing;
 import org.mockito.verification.VerificationMode;
 import org.redisson.api.RLock;
+import org.redisson.api.RReadWriteLock;
 import org.redisson.api.RedissonClient;
 
 class LockingFixture {
@@ -36,6 +37,24 @@ class LockingFixture {
     return lock;
   }
 
+  /** @return the read lock and the write lock for the id */
+  RLock[] mockReadWriteLockForId(String id) {
+    var readWriteLock = mock(RReadWriteLock.class);
+    var readLock = mock(RLock.class);
+    var writeLock = mock(RLock.class);
+    try {
+      when(readLock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)).thenReturn(true);
+      when(writeLock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)).thenReturn(true);
+    } catch (InterruptedException e) {
+      throw new RuntimeException("Could not instrument mock", e);
+    }
+    when(readWriteLock.readLock()).thenReturn(readLock);
+    when(readWriteLock.writeLock()).thenReturn(writeLock);
+    when(redissonClient.getReadWriteLock(redisLockManager.readWriteKey(id)))
+        .thenReturn(readWriteLock);
+    return new RLock[] {readLock, writeLock};
+  }
+
   Lock mockLockForAnyId() {
     var lock = mock(RLock.class);
     try {
@@ -3,6 +3,7 @@ package com.github.dbmdz.flusswerk.framework.locking;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,6 +25,22 @@ class NoOpLockManagerTest {
         .isThrownBy(() -> noOpLockManager.acquire("123"));
   }
 
+  @DisplayName("should throw Exception if several locks should be acquired")
+  @Test
+  void acquireAll() {
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> noOpLockManager.acquireAll(List.of("123", "456")));
+  }
+
+  @DisplayName("should throw Exception if read or write locks should be acquired")
+  @Test
+  void acquireReadWrite() {
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> noOpLockManager.acquireRead("123"));
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> noOpLockManager.acquireWrite("123"));
+  }
+
   @DisplayName("should release silently the non-existent locks")
   @Test
   void release() {
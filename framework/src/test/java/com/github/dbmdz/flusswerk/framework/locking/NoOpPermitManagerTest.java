@@ -0,0 +1,28 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The NoOpPermitManager")
+class NoOpPermitManagerTest {
+
+  private final NoOpPermitManager noOpPermitManager = new NoOpPermitManager();
+
+  @DisplayName("should throw Exception if a permit should be acquired")
+  @Test
+  void acquire() {
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> noOpPermitManager.acquire("images", 8));
+  }
+
+  @DisplayName("should release silently the non-existent permits")
+  @Test
+  void release() {
+    noOpPermitManager.release();
+    assertThat(noOpPermitManager.threadHasPermit()).isFalse();
+    assertThat(noOpPermitManager.getWaitedForPermitsNs()).isZero();
+  }
+}
@@ -0,0 +1,65 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+/** Runs against the Redis server in <code>FLUSSWERK_TEST_REDIS</code>, e.g. redis://localhost. */
+@DisplayName("The RedisLockManager with a real Redis")
+@EnabledIfEnvironmentVariable(named = "FLUSSWERK_TEST_REDIS", matches = ".+")
+class RedisLockManagerRedisTest {
+
+  private RedissonClient client;
+  private RedisLockManager redisLockManager;
+
+  @BeforeEach
+  void setUp() {
+    Config config = new Config();
+    config.useSingleServer().setAddress(System.getenv("FLUSSWERK_TEST_REDIS"));
+    client = Redisson.create(config);
+    redisLockManager =
+        new RedisLockManager(
+            client, "flusswerk-test", Duration.ZERO, Duration.ofSeconds(30), new SystemWatch());
+  }
+
+  @AfterEach
+  void tearDown() {
+    redisLockManager.release();
+    redisLockManager.close();
+    client.shutdown();
+  }
+
+  @DisplayName("should hold all ids in Redis when acquiring several ids without waiting")
+  @Test
+  void shouldHoldAllIdsWithoutWaiting() throws InterruptedException {
+    redisLockManager.acquireAll(List.of("a", "b"));
+    Thread.sleep(50);
+
+    assertThat(client.getKeys().countExists(redisLockManager.key("a"), redisLockManager.key("b")))
+        .isEqualTo(2);
+  }
+
+  @DisplayName("should report ids held only by readers of other apps as locked")
+  @Test
+  void shouldReportReaderOnlyLocksAsLocked() throws Exception {
+    var otherApp =
+        new RedisLockManager(
+            client, "flusswerk-test", Duration.ZERO, Duration.ofSeconds(30), new SystemWatch());
+    otherApp.acquireRead("c");
+    try {
+      assertThat(redisLockManager.isLocked("c")).isTrue();
+    } finally {
+      otherApp.release();
+      otherApp.close();
+    }
+  }
+}
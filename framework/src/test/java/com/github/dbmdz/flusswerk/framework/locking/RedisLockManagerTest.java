@@ -2,18 +2,43 @@ package com.github.dbmdz.flusswerk.framework.locking;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.github.dbmdz.flusswerk.framework.exceptions.LockContendedException;
 import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.stubbing.Answer;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RScript.Mode;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 
 @DisplayName("The RedisLockManager")
@@ -42,14 +67,499 @@ class RedisLockManagerTest {
 
   @DisplayName("should block if lock for id already has been acquired")
   @Test
-  void shouldBlockIfLockForIdHasAlreadyBeenAcquired() {
+  void shouldBlockIfLockForIdHasAlreadyBeenAcquired() throws InterruptedException {
     var id = "123";
-    lockingFixture.mockLockForId(id);
+    var lock = lockingFixture.mockLockForId(id);
 
     redisLockManager.acquire(id, 1); // simulate different threads
     redisLockManager.acquire(id, 2); // using fake thread ids
 
-    verify(redissonClient, times(2)).getLock(redisLockManager.key(id));
+    lockingFixture.verifyLockHasBeenAcquired(lock, times(2));
+    verify(redissonClient, times(1)).getLock(redisLockManager.key(id)); // handle is reused
+  }
+
+  @DisplayName("should wait locally while another thread of this JVM holds the lock")
+  @Test
+  void shouldWaitLocallyWhileAnotherThreadHoldsTheLock() throws Exception {
+    var id = "123";
+    var lock = lockingFixture.mockLockForId(id);
+    redisLockManager.acquire(id);
+
+    var otherThread = Executors.newSingleThreadExecutor();
+    try {
+      var result = otherThread.submit(() -> redisLockManager.acquire(id));
+      assertThatExceptionOfType(ExecutionException.class)
+          .isThrownBy(result::get)
+          .withCauseInstanceOf(LockingException.class);
+    } finally {
+      otherThread.shutdownNow();
+    }
+    lockingFixture.verifyLockHasBeenAcquired(lock, times(1)); // only one thread went to Redis
+  }
+
+  @DisplayName("should contend in Redis after the local lock has been released")
+  @Test
+  void shouldContendInRedisAfterLocalLockHasBeenReleased() throws Exception {
+    var timeout = Duration.ofSeconds(10);
+    redisLockManager = new RedisLockManager(redissonClient, "flusswerk", timeout, testingWatch);
+    lockingFixture = new LockingFixture(redissonClient, redisLockManager, timeout.toMillis());
+    var id = "123";
+    var lock = lockingFixture.mockLockForId(id);
+    redisLockManager.acquire(id);
+
+    var otherThread = Executors.newSingleThreadExecutor();
+    try {
+      var result = otherThread.submit(() -> redisLockManager.acquire(id));
+      while (redisLockManager.localWaiting(id) == 0) {
+        Thread.onSpinWait();
+      }
+      lockingFixture.verifyLockHasBeenAcquired(lock, times(1));
+      redisLockManager.release();
+      result.get(5, TimeUnit.SECONDS);
+    } finally {
+      otherThread.shutdownNow();
+    }
+    lockingFixture.verifyLockHasBeenAcquired(lock, times(2));
+  }
+
+  @DisplayName("should separate local from remote waiting time")
+  @Test
+  void shouldSeparateLocalFromRemoteWaitingTime() throws InterruptedException {
+    var lock = lockingFixture.mockLockForAnyId();
+    lockingFixture
+        .whenTryAcquire(lock)
+        .then(
+            (Answer<Boolean>)
+                invocation -> {
+                  testingWatch.sleepNano(1000);
+                  return true;
+                });
+
+    redisLockManager.acquire("123");
+
+    assertThat(redisLockManager.getWaitedForRemoteLocksNs()).isEqualTo(1000);
+    assertThat(redisLockManager.getWaitedForLocalLocksNs()).isZero();
+    assertThat(redisLockManager.getWaitedForLocksNs()).isEqualTo(1000);
+  }
+
+  @DisplayName("should acquire several ids one after another in canonical order")
+  @Test
+  void shouldAcquireSeveralIdsInCanonicalOrder() throws InterruptedException {
+    var document = lockingFixture.mockLockForId("document");
+    var page = lockingFixture.mockLockForId("page");
+    var work = lockingFixture.mockLockForId("work");
+
+    redisLockManager.acquireAll(List.of("page", "work", "document", "page"));
+
+    var order = inOrder(document, page, work);
+    order.verify(document).tryLock(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    order.verify(page).tryLock(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    order.verify(work).tryLock(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    assertThat(redisLockManager.getLocksAcquired()).isEqualTo(3);
+
+    redisLockManager.release();
+    order.verify(work).unlock();
+    order.verify(page).unlock();
+    order.verify(document).unlock();
+    assertThat(redisLockManager.threadHasLock()).isFalse();
+    verify(redissonClient, never()).getMultiLock(any());
+  }
+
+  @DisplayName("should keep the lease of every id when acquiring several ids without waiting")
+  @Test
+  void shouldKeepLeaseOfEveryIdWithoutWaiting() throws InterruptedException {
+    var lease = Duration.ofMinutes(1);
+    redisLockManager =
+        new RedisLockManager(redissonClient, "flusswerk", TIMEOUT, lease, testingWatch);
+    when(redissonClient.getTopic(any(), any())).thenReturn(mock(RTopic.class));
+    redisLockManager.deferContendedLocks(id -> {});
+    var a = (RLock) lockingFixture.mockLockForId("a");
+    var b = (RLock) lockingFixture.mockLockForId("b");
+    when(a.tryLock(0, lease.toMillis(), TimeUnit.MILLISECONDS)).thenReturn(true);
+    when(b.tryLock(0, lease.toMillis(), TimeUnit.MILLISECONDS)).thenReturn(true);
+
+    redisLockManager.withoutWaiting(
+        () -> {
+          redisLockManager.acquireAll(List.of("b", "a"));
+          return null;
+        });
+
+    verify(a).tryLock(0, lease.toMillis(), TimeUnit.MILLISECONDS);
+    verify(b).tryLock(0, lease.toMillis(), TimeUnit.MILLISECONDS);
+    assertThat(redisLockManager.threadHasLock()).isTrue();
+  }
+
+  @DisplayName("should release ids already held in Redis if a later id cannot be acquired")
+  @Test
+  void shouldReleaseHeldIdsIfLaterIdFails() throws InterruptedException {
+    var a = lockingFixture.mockLockForId("a");
+    var b = lockingFixture.mockLockForId("b");
+    lockingFixture.whenTryAcquire(b).thenReturn(false);
+
+    assertThatExceptionOfType(LockingException.class)
+        .isThrownBy(() -> redisLockManager.acquireAll(List.of("a", "b")));
+
+    verify(a).unlock();
+    verify(b, never()).unlock();
+  }
+
+  @DisplayName("should acquire a single id without multi-lock")
+  @Test
+  void shouldAcquireSingleIdWithoutMultiLock() throws InterruptedException {
+    var lock = lockingFixture.mockLockForId("123");
+    redisLockManager.acquireAll(List.of("123"));
+    lockingFixture.verifyLockHasBeenAcquired(lock);
+    verify(redissonClient, never()).getMultiLock(any());
+  }
+
+  @DisplayName("should release all local locks if acquiring several ids fails")
+  @Test
+  void shouldReleaseLocalLocksIfAcquiringSeveralIdsFails() throws Exception {
+    lockingFixture.mockLockForId("a");
+    var b = lockingFixture.mockLockForId("b");
+    lockingFixture.whenTryAcquire(b).thenReturn(false, true);
+
+    assertThatExceptionOfType(LockingException.class)
+        .isThrownBy(() -> redisLockManager.acquireAll(List.of("a", "b")));
+
+    var otherThread = Executors.newSingleThreadExecutor();
+    try {
+      otherThread.submit(() -> redisLockManager.acquire("b")).get(); // not blocked locally
+    } finally {
+      otherThread.shutdownNow();
+    }
+  }
+
+  @DisplayName("should acquire read and write locks in their own key space")
+  @Test
+  void shouldAcquireReadAndWriteLocks() throws InterruptedException {
+    var locks = lockingFixture.mockReadWriteLockForId("123");
+
+    redisLockManager.acquireRead("123");
+    lockingFixture.verifyLockHasBeenAcquired(locks[0]);
+    redisLockManager.release();
+    verify(locks[0]).unlock();
+
+    redisLockManager.acquireWrite("123");
+    lockingFixture.verifyLockHasBeenAcquired(locks[1]);
+    redisLockManager.release();
+    verify(locks[1]).unlock();
+
+    assertThat(redisLockManager.readWriteKey("123")).isEqualTo("flusswerk::rw::123");
+    verify(redissonClient, never()).getLock(any());
+  }
+
+  @DisplayName("should not block readers of this JVM, but writers")
+  @Test
+  void shouldNotBlockReadersButWriters() throws Exception {
+    lockingFixture.mockReadWriteLockForId("123");
+    redisLockManager.acquireRead("123", 1);
+
+    redisLockManager.acquireRead("123", 2);
+    assertThatExceptionOfType(LockingException.class)
+        .isThrownBy(() -> redisLockManager.acquireWrite("123", 3));
+
+    redisLockManager.release(1);
+    redisLockManager.release(2);
+    redisLockManager.acquireWrite("123", 3);
+  }
+
+  @DisplayName("should count waiting and holding times for each kind of lock")
+  @Test
+  void shouldCountTimesForEachMode() throws InterruptedException {
+    var locks = lockingFixture.mockReadWriteLockForId("123");
+    lockingFixture
+        .whenTryAcquire(locks[0])
+        .then(
+            (Answer<Boolean>)
+                invocation -> {
+                  testingWatch.sleepNano(1000);
+                  return true;
+                });
+    lockingFixture.mockLockForId("123");
+
+    redisLockManager.acquireRead("123");
+    testingWatch.sleepNano(500);
+    redisLockManager.release();
+    redisLockManager.acquireWrite("123");
+    testingWatch.sleepNano(200);
+    redisLockManager.release();
+    redisLockManager.acquire("123");
+    testingWatch.sleepNano(300);
+    redisLockManager.release();
+
+    assertThat(redisLockManager.getWaitedForLocksNs(LockMode.READ)).isEqualTo(1000);
+    assertThat(redisLockManager.getWaitedForLocksNs(LockMode.WRITE)).isZero();
+    assertThat(redisLockManager.getLocksHeldNs(LockMode.READ)).isEqualTo(500);
+    assertThat(redisLockManager.getLocksHeldNs(LockMode.WRITE)).isEqualTo(200);
+    assertThat(redisLockManager.getLocksHeldNs(LockMode.EXCLUSIVE)).isEqualTo(300);
+    assertThat(redisLockManager.getLocksHeldNs()).isEqualTo(1000);
+  }
+
+  @DisplayName("should record waiting and holding times per lock mode")
+  @Test
+  void shouldRecordTimers() throws InterruptedException {
+    var registry = new SimpleMeterRegistry();
+    var meterFactory = new MeterFactory("flusswerk", "test", registry);
+    redisLockManager =
+        new RedisLockManager(
+            redissonClient, "flusswerk", TIMEOUT, null, testingWatch, meterFactory);
+    lockingFixture = new LockingFixture(redissonClient, redisLockManager, TIMEOUT.toMillis());
+    var lock = lockingFixture.mockLockForId("123");
+    lockingFixture
+        .whenTryAcquire(lock)
+        .then(
+            (Answer<Boolean>)
+                invocation -> {
+                  testingWatch.sleepNano(1000);
+                  return true;
+                });
+
+    redisLockManager.acquire("123");
+    testingWatch.sleepNano(5000);
+    redisLockManager.release();
+
+    var waited = registry.get("flusswerk.locks.wait.time").tag("mode", "exclusive").timer();
+    assertThat(waited.count()).isEqualTo(1);
+    assertThat(waited.totalTime(TimeUnit.NANOSECONDS)).isEqualTo(1000);
+    var held = registry.get("flusswerk.locks.held.time").tag("mode", "exclusive").timer();
+    assertThat(held.totalTime(TimeUnit.NANOSECONDS)).isEqualTo(5000);
+  }
+
+  @DisplayName("should count timeouts and report the most contended keys")
+  @Test
+  void shouldCountTimeoutsAndContendedKeys() throws InterruptedException {
+    var registry = new SimpleMeterRegistry();
+    var meterFactory = new MeterFactory("flusswerk", "test", registry);
+    redisLockManager =
+        new RedisLockManager(
+            redissonClient, "flusswerk", TIMEOUT, null, testingWatch, meterFactory);
+    lockingFixture = new LockingFixture(redissonClient, redisLockManager, TIMEOUT.toMillis());
+    var lock = lockingFixture.mockLockForId("123");
+    lockingFixture
+        .whenTryAcquire(lock)
+        .then(
+            (Answer<Boolean>)
+                invocation -> {
+                  testingWatch.sleepNano(TIMEOUT.toNanos());
+                  return false;
+                });
+
+    assertThatExceptionOfType(LockingException.class)
+        .isThrownBy(() -> redisLockManager.acquire("123"));
+
+    assertThat(registry.get("flusswerk.locks.timeouts").tag("mode", "exclusive").counter().count())
+        .isEqualTo(1);
+    assertThat(redisLockManager.getMostContendedKeys()).containsEntry("123", TIMEOUT.toNanos());
+    assertThat(registry.get("flusswerk.locks.contended.wait.time").tag("id", "123").gauge().value())
+        .isEqualTo(TIMEOUT.toMillis());
+  }
+
+  @DisplayName("should return fencing tokens from a single counter in Redis")
+  @Test
+  void shouldReturnFencingTokens() {
+    lockingFixture.mockLockForAnyId();
+    RAtomicLong fencingTokens = mock(RAtomicLong.class);
+    when(redissonClient.getAtomicLong("flusswerk::fencing")).thenReturn(fencingTokens);
+    when(fencingTokens.incrementAndGet()).thenReturn(41L, 42L);
+
+    redisLockManager.acquire("123");
+    assertThat(redisLockManager.getFencingToken("123")).isEqualTo(41);
+    assertThat(redisLockManager.getFencingToken("123")).isEqualTo(41);
+    redisLockManager.release();
+    redisLockManager.acquire("123");
+    assertThat(redisLockManager.getFencingToken("123")).isEqualTo(42);
+  }
+
+  @DisplayName("should only ask Redis for fencing tokens on request")
+  @Test
+  void shouldCreateFencingTokensLazily() {
+    lockingFixture.mockLockForAnyId();
+
+    redisLockManager.acquire("123");
+
+    verify(redissonClient, never()).getAtomicLong(anyString());
+  }
+
+  @DisplayName("should not return fencing tokens without holding the lock")
+  @Test
+  void shouldNotReturnFencingTokensWithoutLock() {
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> redisLockManager.getFencingToken("123"));
+  }
+
+  @DisplayName("should acquire exclusive locks with the lease time")
+  @Test
+  void shouldAcquireWithLeaseTime() throws InterruptedException {
+    var lease = Duration.ofMinutes(1);
+    redisLockManager =
+        new RedisLockManager(redissonClient, "flusswerk", TIMEOUT, lease, testingWatch);
+    var lock = (RLock) lockingFixture.mockLockForAnyId();
+    when(lock.tryLock(TIMEOUT.toMillis(), lease.toMillis(), TimeUnit.MILLISECONDS))
+        .thenReturn(true);
+
+    redisLockManager.acquire("123");
+
+    verify(lock).tryLock(TIMEOUT.toMillis(), lease.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @DisplayName("should renew leases of held locks and count lost leases")
+  @Test
+  void shouldRenewLeases() throws InterruptedException {
+    var lease = Duration.ofMinutes(1);
+    redisLockManager =
+        new RedisLockManager(redissonClient, "flusswerk", TIMEOUT, lease, testingWatch);
+    var lock = (RLock) lockingFixture.mockLockForAnyId();
+    when(lock.tryLock(TIMEOUT.toMillis(), lease.toMillis(), TimeUnit.MILLISECONDS))
+        .thenReturn(true);
+    var script = mock(RScript.class);
+    when(redissonClient.getScript(any())).thenReturn(script);
+    when(redissonClient.getId()).thenReturn("client");
+    when(script.eval(any(Mode.class), any(), any(), anyList(), any(), any())).thenReturn(1L, 0L);
+    redisLockManager.acquire("123");
+
+    redisLockManager.renewLeases();
+    assertThat(redisLockManager.getLeaseRenewals()).isEqualTo(1);
+
+    redisLockManager.renewLeases(); // lease expired in the meantime
+    redisLockManager.renewLeases(); // counted only once
+    assertThat(redisLockManager.getLeasesLost()).isEqualTo(1);
+    verify(script, times(2))
+        .eval(
+            any(Mode.class),
+            any(),
+            any(),
+            any(),
+            eq(String.valueOf(lease.toMillis())),
+            eq("client:" + Thread.currentThread().getId()));
+  }
+
+  @DisplayName("should stop renewing leases when closed")
+  @Test
+  void shouldStopRenewingLeasesWhenClosed() throws InterruptedException {
+    var lease = Duration.ofMillis(30);
+    redisLockManager =
+        new RedisLockManager(redissonClient, "flusswerk", TIMEOUT, lease, testingWatch);
+    var lock = (RLock) lockingFixture.mockLockForAnyId();
+    when(lock.tryLock(TIMEOUT.toMillis(), lease.toMillis(), TimeUnit.MILLISECONDS))
+        .thenReturn(true);
+
+    redisLockManager.close();
+    redisLockManager.acquire("123");
+    Thread.sleep(lease.toMillis() * 2);
+
+    verify(redissonClient, never()).getScript(any());
+  }
+
+  @DisplayName("should count a lost lease if the lock expired before release")
+  @Test
+  void shouldCountLostLeaseOnRelease() {
+    var lock = lockingFixture.mockLockForAnyId();
+    doThrow(new IllegalMonitorStateException()).when(lock).unlock();
+    redisLockManager.acquire("123");
+
+    redisLockManager.release();
+
+    assertThat(redisLockManager.getLeasesLost()).isEqualTo(1);
+    assertThat(redisLockManager.threadHasLock()).isFalse();
+  }
+
+  @DisplayName("should check several ids in one batch")
+  @Test
+  void shouldCheckSeveralIdsInOneBatch() {
+    var batch = mock(RBatch.class);
+    when(redissonClient.createBatch(any())).thenReturn(batch);
+    mockExists(batch, redisLockManager.key("a"), true);
+    mockExists(batch, redisLockManager.readWriteKey("a"), false);
+    mockExists(batch, redisLockManager.key("b"), false);
+    mockExists(batch, redisLockManager.readWriteKey("b"), false);
+
+    assertThat(redisLockManager.isLocked(List.of("b", "a")))
+        .containsExactly(entry("b", false), entry("a", true));
+    verify(batch, times(1)).execute();
+  }
+
+  @DisplayName("should report ids held only by readers of other apps as locked")
+  @Test
+  void shouldReportReaderOnlyLocksAsLocked() {
+    var locks = lockingFixture.mockReadWriteLockForId("123");
+    when(locks[1].isLocked()).thenReturn(false); // the write lock ignores readers
+    var batch = mock(RBatch.class);
+    when(redissonClient.createBatch(any())).thenReturn(batch);
+    mockExists(batch, redisLockManager.key("123"), false);
+    mockExists(batch, redisLockManager.readWriteKey("123"), true);
+
+    assertThat(redisLockManager.isLocked("123")).isTrue();
+  }
+
+  @DisplayName("should not ask Redis for ids locked by this app")
+  @Test
+  void shouldNotAskRedisForLocallyHeldIds() {
+    lockingFixture.mockLockForId("123");
+    redisLockManager.acquire("123");
+
+    assertThat(redisLockManager.isLocked("123")).isTrue();
+    assertThat(redisLockManager.isLocked(List.of("123"))).containsEntry("123", true);
+    verify(redissonClient, never()).createBatch(any());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockExists(RBatch batch, String key, boolean exists) {
+    RBucketAsync<Object> bucket = mock(RBucketAsync.class);
+    RFuture<Boolean> future = mock(RFuture.class);
+    when(future.getNow()).thenReturn(exists);
+    when(bucket.isExistsAsync()).thenReturn(future);
+    when(batch.getBucket(key)).thenReturn(bucket);
+  }
+
+  @DisplayName("should not wait for contended locks when asked not to")
+  @Test
+  void shouldNotWaitForContendedLocksWhenAskedNotTo() throws InterruptedException {
+    when(redissonClient.getTopic(any(), any())).thenReturn(mock(RTopic.class));
+    redisLockManager.deferContendedLocks(id -> {});
+    var lock = lockingFixture.mockLockForId("123");
+    when(lock.tryLock(0, TimeUnit.MILLISECONDS)).thenReturn(false);
+
+    assertThatExceptionOfType(LockContendedException.class)
+        .isThrownBy(
+            () ->
+                redisLockManager.withoutWaiting(
+                    () -> {
+                      redisLockManager.acquire("123");
+                      return null;
+                    }))
+        .satisfies(e -> assertThat(e.getIds()).containsExactly("123"));
+    assertThat(redisLockManager.threadHasLock()).isFalse();
+  }
+
+  @DisplayName("should still wait for contended locks outside of withoutWaiting")
+  @Test
+  void shouldStillWaitForContendedLocksOutsideOfWithoutWaiting() throws InterruptedException {
+    when(redissonClient.getTopic(any(), any())).thenReturn(mock(RTopic.class));
+    redisLockManager.deferContendedLocks(id -> {});
+    var lock = lockingFixture.mockLockForId("123");
+
+    redisLockManager.acquire("123");
+
+    lockingFixture.verifyLockHasBeenAcquired(lock);
+    verify(lock, never()).tryLock(0, TimeUnit.MILLISECONDS);
+  }
+
+  @DisplayName("should notify about released locks if contended locks are deferred")
+  @Test
+  void shouldNotifyAboutReleasedLocks() throws InterruptedException {
+    var topic = mock(RTopic.class);
+    when(redissonClient.getTopic(any(), any())).thenReturn(topic);
+    List<String> released = new ArrayList<>();
+    redisLockManager.deferContendedLocks(released::add);
+    var lock = lockingFixture.mockLockForId("123");
+    when(lock.tryLock(0, TimeUnit.MILLISECONDS)).thenReturn(true);
+
+    redisLockManager.acquire("123");
+    redisLockManager.release();
+
+    assertThat(released).containsExactly("123");
+    verify(topic).publishAsync("123");
   }
 
   @DisplayName("should throw exception if the same thread tries to acquire more than one lock")
@@ -0,0 +1,162 @@
+package com.github.dbmdz.flusswerk.framework.locking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.dbmdz.flusswerk.framework.exceptions.LockingException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.redisson.api.RPermitExpirableSemaphore;
+import org.redisson.api.RedissonClient;
+
+@DisplayName("The RedisPermitManager")
+class RedisPermitManagerTest {
+
+  private static final Duration TIMEOUT = Duration.ofMillis(50);
+  private static final Duration LEASE_TIME = Duration.ofMinutes(1);
+
+  private RedissonClient redissonClient;
+  private RPermitExpirableSemaphore semaphore;
+  private TestingWatch testingWatch;
+  private RedisPermitManager permitManager;
+
+  @BeforeEach
+  void setUp() {
+    redissonClient = mock(RedissonClient.class);
+    semaphore = mock(RPermitExpirableSemaphore.class);
+    testingWatch = new TestingWatch();
+    permitManager =
+        new RedisPermitManager(redissonClient, "flusswerk", TIMEOUT, LEASE_TIME, testingWatch);
+    when(redissonClient.getPermitExpirableSemaphore(permitManager.key("images")))
+        .thenReturn(semaphore);
+  }
+
+  private void whenAcquired(String permitId) throws InterruptedException {
+    when(semaphore.tryAcquire(TIMEOUT.toMillis(), LEASE_TIME.toMillis(), TimeUnit.MILLISECONDS))
+        .thenReturn(permitId);
+  }
+
+  @DisplayName("should use key space for keys")
+  @Test
+  void shouldUseKeySpaceForKeys() {
+    assertThat(permitManager.key("images")).isEqualTo("flusswerk::permits::images");
+  }
+
+  @DisplayName("should acquire and release a permit with lease time")
+  @Test
+  void shouldAcquireAndReleasePermit() throws InterruptedException {
+    whenAcquired("permit-1");
+
+    permitManager.acquire("images", 8);
+    assertThat(permitManager.threadHasPermit()).isTrue();
+    permitManager.release();
+
+    verify(semaphore).tryRelease("permit-1");
+    assertThat(permitManager.threadHasPermit()).isFalse();
+  }
+
+  @DisplayName("should set the limit only once per resource")
+  @Test
+  void shouldSetLimitOnce() throws InterruptedException {
+    whenAcquired("permit-1");
+
+    permitManager.acquire("images", 8);
+    permitManager.release();
+    permitManager.acquire("images", 8);
+
+    verify(semaphore, times(1)).trySetPermits(8);
+  }
+
+  @DisplayName("should throw exception if no permit is available in time")
+  @Test
+  void shouldThrowOnTimeout() throws InterruptedException {
+    whenAcquired(null);
+
+    assertThatExceptionOfType(LockingException.class)
+        .isThrownBy(() -> permitManager.acquire("images", 8));
+    assertThat(permitManager.threadHasPermit()).isFalse();
+  }
+
+  @DisplayName("should keep the interrupt flag if interrupted while waiting")
+  @Test
+  void shouldKeepInterruptFlag() throws InterruptedException {
+    when(semaphore.tryAcquire(TIMEOUT.toMillis(), LEASE_TIME.toMillis(), TimeUnit.MILLISECONDS))
+        .thenThrow(new InterruptedException());
+
+    try {
+      assertThatExceptionOfType(LockingException.class)
+          .isThrownBy(() -> permitManager.acquire("images", 8));
+      assertThat(Thread.currentThread().isInterrupted()).isTrue();
+    } finally {
+      Thread.interrupted(); // do not interrupt other tests
+    }
+  }
+
+  @DisplayName("should only allow one permit per thread")
+  @Test
+  void shouldOnlyAllowOnePermitPerThread() throws InterruptedException {
+    whenAcquired("permit-1");
+    permitManager.acquire("images", 8);
+
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(() -> permitManager.acquire("images", 8));
+  }
+
+  @DisplayName("should sum up the time waited for permits")
+  @Test
+  void shouldSumUpWaitingTime() throws InterruptedException {
+    when(semaphore.tryAcquire(TIMEOUT.toMillis(), LEASE_TIME.toMillis(), TimeUnit.MILLISECONDS))
+        .then(
+            (Answer<String>)
+                invocation -> {
+                  testingWatch.sleepNano(1000);
+                  return "permit";
+                });
+
+    permitManager.acquire("images", 8, 1);
+    permitManager.acquire("images", 8, 2);
+
+    assertThat(permitManager.getWaitedForPermitsNs()).isEqualTo(2000);
+  }
+
+  @DisplayName("should renew leases of held permits and count lost leases")
+  @Test
+  void shouldRenewLeases() throws InterruptedException {
+    whenAcquired("permit-1");
+    when(semaphore.updateLeaseTime("permit-1", LEASE_TIME.toMillis(), TimeUnit.MILLISECONDS))
+        .thenReturn(true, false);
+    permitManager.acquire("images", 8);
+
+    permitManager.renewLeases();
+    assertThat(permitManager.getLeasesLost()).isZero();
+
+    permitManager.renewLeases(); // lease expired in the meantime
+    permitManager.renewLeases(); // counted only once
+    assertThat(permitManager.getLeasesLost()).isEqualTo(1);
+    verify(semaphore, times(2))
+        .updateLeaseTime("permit-1", LEASE_TIME.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @DisplayName("should not renew released permits")
+  @Test
+  void shouldNotRenewReleasedPermits() throws InterruptedException {
+    whenAcquired("permit-1");
+    permitManager.acquire("images", 8);
+    permitManager.release();
+
+    permitManager.renewLeases();
+
+    verify(semaphore, never()).updateLeaseTime(any(), anyLong(), any());
+  }
+}
@@ -0,0 +1,81 @@
+package com.github.dbmdz.flusswerk.framework.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The Envelope")
+class EnvelopeTest {
+
+  private static final byte[] BODY = "{\"tracingId\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+
+  @DisplayName("should not keep the body if retention is NONE")
+  @Test
+  void shouldNotKeepBodyForNone() {
+    Envelope envelope = new Envelope();
+    envelope.setRawBody(BODY, BodyRetention.NONE);
+    assertThat(envelope.getBody()).isNull();
+    assertThat(envelope.getRawBody()).isNull();
+  }
+
+  @DisplayName("should keep the delivery bytes if retention is RAW")
+  @Test
+  void shouldKeepBytesForRaw() {
+    Envelope envelope = new Envelope();
+    envelope.setRawBody(BODY, BodyRetention.RAW);
+    assertThat(envelope.getRawBody()).isSameAs(BODY);
+    assertThat(envelope.getBody()).isEqualTo("{\"tracingId\":\"123\"}");
+    assertThat(envelope.getBody()).isNotSameAs(envelope.getBody());
+  }
+
+  @DisplayName("should decode the body only once if retention is STRING")
+  @Test
+  void shouldCacheDecodedBodyForString() {
+    Envelope envelope = new Envelope();
+    envelope.setRawBody(BODY, BodyRetention.STRING);
+    assertThat(envelope.getBody()).isEqualTo("{\"tracingId\":\"123\"}");
+    assertThat(envelope.getBody()).isSameAs(envelope.getBody());
+  }
+
+  @DisplayName("should provide bytes for a body set as string")
+  @Test
+  void shouldProvideBytesForStringBody() {
+    Envelope envelope = new Envelope();
+    envelope.setBody("{\"tracingId\":\"123\"}");
+    assertThat(envelope.getRawBody()).isEqualTo(BODY);
+  }
+
+  @DisplayName("should create the timestamp from the creation time")
+  @Test
+  void shouldCreateTimestampFromCreationTime() {
+    long before = System.currentTimeMillis();
+    Envelope envelope = new Envelope();
+    long after = System.currentTimeMillis();
+
+    assertThat(envelope.getTimestampMillis()).isBetween(before, after);
+    assertThat(envelope.getTimestamp())
+        .isEqualTo(
+            LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(envelope.getTimestampMillis()), ZoneId.systemDefault()));
+  }
+
+  @DisplayName("should keep a timestamp set explicitly")
+  @Test
+  void shouldKeepExplicitTimestamp() {
+    LocalDateTime timestamp = LocalDateTime.of(2021, 7, 1, 12, 30, 15, 123_456_789);
+    Envelope envelope = new Envelope();
+    envelope.setTimestamp(timestamp);
+
+    assertThat(envelope.getTimestamp()).isEqualTo(timestamp);
+    assertThat(envelope.getTimestampMillis())
+        .isEqualTo(timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+    envelope.setTimestamp(null);
+    assertThat(envelope.getTimestamp()).isNull();
+  }
+}
@@ -0,0 +1,30 @@
+package com.github.dbmdz.flusswerk.framework.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.github.dbmdz.flusswerk.framework.TestMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("The IncomingMessageType")
+class IncomingMessageTypeTest {
+
+  @JsonTypeName("named")
+  static class NamedMessage extends Message {}
+
+  @DisplayName("should name types by registration, JsonTypeName or class name")
+  @Test
+  void shouldNameTypes() {
+    var incomingMessageType =
+        new IncomingMessageType().withType("test", TestMessage.class).withType(NamedMessage.class);
+
+    assertThat(incomingMessageType.typeNameFor(TestMessage.class)).isEqualTo("test");
+    assertThat(incomingMessageType.typeNameFor(NamedMessage.class)).isEqualTo("named");
+    assertThat(incomingMessageType.typeNameFor(Message.class))
+        .isEqualTo("com.github.dbmdz.flusswerk.framework.model.Message");
+    assertThat(incomingMessageType.getTypes())
+        .containsEntry("test", TestMessage.class)
+        .containsEntry("named", NamedMessage.class);
+  }
+}
@@ -35,18 +35,28 @@ class DefaultFlowMetricsTest {
     verify(meterFactory).counter(metric, status);
   }
 
+  @DisplayName("Should initialize counter for permit waiting time")
+  @Test
+  void shouldInitializePermitCounter() {
+    MeterFactory meterFactory = mock(MeterFactory.class);
+    new DefaultFlowMetrics(meterFactory);
+    verify(meterFactory).counter("permits.wait.time");
+  }
+
   @DisplayName("should use all fields of FlowInfo")
   @Test
   void shouldUseAllFieldsOfFlowInfo() {
     MeterFactory meterFactory = mock(MeterFactory.class);
     Counter counter = mock(Counter.class);
     when(meterFactory.counter(any(), eq(Status.SUCCESS))).thenReturn(counter);
+    when(meterFactory.counter("permits.wait.time")).thenReturn(counter);
     DefaultFlowMetrics defaultFlowMetrics = new DefaultFlowMetrics(meterFactory);
 
     FlowInfo flowInfo = mock(FlowInfo.class);
     when(flowInfo.getStatus()).thenReturn(Status.SUCCESS);
     defaultFlowMetrics.accept(flowInfo);
     verify(flowInfo).duration();
+    verify(flowInfo).getWaitedForPermitsNs();
     verify(flowInfo).getStatus();
   }
 }
@@ -3,8 +3,11 @@ package com.github.dbmdz.flusswerk.framework.monitoring;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MultiGauge.Row;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.search.Search;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class MeterFactoryTest {
@@ -21,4 +24,19 @@ class MeterFactoryTest {
     Search search = meterRegistry.find(monitoringPrefix + "." + monitoringMetric);
     assertThat(search.counter()).isEqualTo(counter);
   }
+
+  @Test
+  void shouldCreateMultiGaugeWithRowsPerTag() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    MeterFactory meterFactory = new MeterFactory("flusswerk", "test_app", meterRegistry);
+
+    meterFactory
+        .multiGauge("test.gauge")
+        .register(List.of(Row.of(Tags.of("id", "a"), 1), Row.of(Tags.of("id", "b"), 2)));
+
+    assertThat(meterRegistry.find("flusswerk.test.gauge").tag("job", "test_app").gauges())
+        .hasSize(2);
+    assertThat(meterRegistry.get("flusswerk.test.gauge").tag("id", "b").gauge().value())
+        .isEqualTo(2);
+  }
 }
@@ -0,0 +1,84 @@
+package com.github.dbmdz.flusswerk.framework.rabbitmq;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import com.github.dbmdz.flusswerk.framework.monitoring.MeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@DisplayName("The Compression")
+class CompressionTest {
+
+  private static final byte[] LARGE =
+      "{\"fulltext\":\"Lorem ipsum dolor sit amet\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+  private SimpleMeterRegistry registry;
+  private MeterFactory meterFactory;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    meterFactory = new MeterFactory("flusswerk", "test", registry);
+  }
+
+  @DisplayName("should compress and decompress large payloads")
+  @ParameterizedTest
+  @EnumSource(ContentEncoding.class)
+  void shouldCompressAndDecompress(ContentEncoding contentEncoding) throws IOException {
+    var compression = new Compression(contentEncoding, 1024, meterFactory);
+
+    var compressed = compression.compress(LARGE);
+
+    assertThat(compressed.getContentEncoding()).isEqualTo(contentEncoding.getValue());
+    assertThat(compressed.getData().length).isLessThan(LARGE.length);
+    assertThat(new Compression().decompress(compressed.getData(), contentEncoding.getValue()))
+        .isEqualTo(LARGE);
+  }
+
+  @DisplayName("should not compress payloads below the threshold")
+  @Test
+  void shouldNotCompressSmallPayloads() throws IOException {
+    var compression = new Compression(ContentEncoding.GZIP, LARGE.length, meterFactory);
+    var compressed = compression.compress(LARGE);
+    assertThat(compressed.getContentEncoding()).isNull();
+    assertThat(compressed.getData()).isSameAs(LARGE);
+  }
+
+  @DisplayName("should not compress if compression does not save space")
+  @Test
+  void shouldNotCompressIncompressiblePayloads() throws IOException {
+    byte[] random = new byte[4096];
+    new Random(42).nextBytes(random);
+    var compression = new Compression(ContentEncoding.GZIP, 1024, meterFactory);
+    assertThat(compression.compress(random).getContentEncoding()).isNull();
+  }
+
+  @DisplayName("should record compression ratio and time")
+  @Test
+  void shouldRecordMetrics() throws IOException {
+    var compression = new Compression(ContentEncoding.GZIP, 1024, meterFactory);
+    compression.compress(LARGE);
+    assertThat(registry.find("flusswerk.compression.ratio").summary().count()).isEqualTo(1);
+    assertThat(
+            registry
+                .find("flusswerk.compression.time")
+                .tag("operation", "compress")
+                .timer()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @DisplayName("should reject unknown content encodings")
+  @Test
+  void shouldRejectUnknownContentEncodings() {
+    assertThatIOException().isThrownBy(() -> new Compression().decompress(LARGE, "br"));
+  }
+}
@@ -1,10 +1,12 @@
 package com.github.dbmdz.flusswerk.framework.rabbitmq;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,7 +54,39 @@ class MessageBrokerTest {
   @DisplayName("Send should use the specified routing key")
   void sendShouldUseSpecifiedRoutingKey() throws IOException {
     messageBroker.send("there", message);
-    verify(rabbitClient).send(anyString(), eq("there"), eq(message));
+    verify(rabbitClient).send(anyString(), eq("there"), eq(message), eq("json"));
+  }
+
+  @Test
+  @DisplayName("Send should use the wire format configured for the routing key")
+  void sendShouldUseConfiguredWireFormat() throws IOException {
+    routing =
+        new RoutingProperties(
+            null,
+            List.of("some.input.queue"),
+            Map.of("default", "some.output.queue"),
+            null,
+            null,
+            null,
+            Map.of("some.output.queue", "smile"));
+    messageBroker = new MessageBroker(routing, rabbitClient);
+    messageBroker.send("some.output.queue", message);
+    verify(rabbitClient).send(anyString(), eq("some.output.queue"), eq(message), eq("smile"));
+  }
+
+  @Test
+  @DisplayName("Should send messages to the queue of the specified route")
+  void sendToRouteShouldUseOutgoingQueueOfRoute() throws IOException {
+    messageBroker.sendToRoute("default", List.of(message, new Message("second")));
+    verify(rabbitClient, times(2)).send(any(), eq("some.output.queue"), any(), eq("json"));
+  }
+
+  @Test
+  @DisplayName("Should refuse to send messages to an unknown route")
+  void sendToRouteShouldRefuseUnknownRoute() {
+    assertThatThrownBy(() -> messageBroker.sendToRoute("unknown", List.of(message)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("unknown");
   }
 
   @Test
@@ -80,14 +114,15 @@ class MessageBrokerTest {
       messageBroker.reject(message);
     }
     FailurePolicy failurePolicy = routing.getFailurePolicy(message);
-    verify(rabbitClient).send(anyString(), eq(failurePolicy.getFailedRoutingKey()), eq(message));
+    verify(rabbitClient)
+        .send(anyString(), eq(failurePolicy.getFailedRoutingKey()), eq(message), any());
   }
 
   @Test
   @DisplayName("Should send a message to the output queue")
   void sendShouldRouteMessageToOutputQueue() throws IOException {
     messageBroker.send(new Message("test"));
-    verify(rabbitClient).send(any(), eq(routing.getOutgoing().get("default")), any());
+    verify(rabbitClient).send(any(), eq(routing.getOutgoing().get("default")), any(), any());
   }
 
   @Test
@@ -97,7 +132,7 @@ class MessageBrokerTest {
     List<Message> messages =
         Arrays.asList(new Message("test"), new Message("test"), new Message("test"));
     messageBroker.send(queue, messages);
-    verify(rabbitClient, times(messages.size())).send(any(), eq(queue), any());
+    verify(rabbitClient, times(messages.size())).send(any(), eq(queue), any(), any());
   }
 
   @Test
@@ -148,6 +183,27 @@ class MessageBrokerTest {
 
     verify(rabbitClient, times(1)).ack(envelope);
     verify(rabbitClient, times(1))
-        .sendRaw(anyString(), eq("some.input.queue.failed"), eq(invalidMessageBody.getBytes()));
+        .sendRaw(
+            anyString(),
+            eq("some.input.queue.failed"),
+            eq(invalidMessageBody.getBytes()),
+            eq("application/json"));
+  }
+
+  @Test
+  @DisplayName("should move claim checks of invalid messages to the failed queue")
+  void handleInvalidClaimCheck() throws IOException, InvalidMessageException {
+    Envelope envelope = new Envelope();
+    envelope.setDeliveryTag(1);
+    envelope.setClaimCheck("abc");
+    envelope.setSource("some.input.queue");
+    when(rabbitClient.receive(eq("some.input.queue")))
+        .thenThrow(new InvalidMessageException(envelope, "Invalid message"));
+
+    Assertions.assertThat(messageBroker.receive()).isNull();
+
+    verify(rabbitClient).ackKeepingClaimCheck(envelope);
+    verify(rabbitClient, never()).ack(any(Envelope.class));
+    verify(rabbitClient).sendClaimCheck(anyString(), eq("some.input.queue.failed"), eq(envelope));
   }
 }
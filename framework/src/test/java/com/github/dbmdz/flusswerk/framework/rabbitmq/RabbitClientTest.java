@@ -5,27 +5,38 @@ import static org.assertj.core.api.Assertions.from;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.dbmdz.flusswerk.framework.TestMessage;
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheck;
+import com.github.dbmdz.flusswerk.framework.claimcheck.ClaimCheckStore;
 import com.github.dbmdz.flusswerk.framework.exceptions.InvalidMessageException;
+import com.github.dbmdz.flusswerk.framework.jackson.FlusswerkObjectMapper;
 import com.github.dbmdz.flusswerk.framework.model.Envelope;
 import com.github.dbmdz.flusswerk.framework.model.IncomingMessageType;
 import com.github.dbmdz.flusswerk.framework.model.Message;
 import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
 import com.rabbitmq.client.GetResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 class RabbitClientTest {
 
@@ -58,6 +69,176 @@ class RabbitClientTest {
     verify(channel).basicPublish(anyString(), eq("there"), any(), any(byte[].class));
   }
 
+  @Test
+  @DisplayName("send should set the content type of the wire format")
+  void sendShouldSetContentType() throws IOException {
+    RabbitClient rabbitClient = new RabbitClient(connection);
+    rabbitClient.send("workflow", "there", message, "smile");
+    verify(channel)
+        .basicPublish(
+            anyString(),
+            eq("there"),
+            argThat(
+                properties -> "application/x-jackson-smile".equals(properties.getContentType())),
+            any(byte[].class));
+  }
+
+  @Test
+  @DisplayName("send should offload large payloads as claim check")
+  void sendShouldOffloadLargePayloads() throws IOException {
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    when(store.put(any())).thenReturn("abc");
+    RabbitClient rabbitClient =
+        new RabbitClient(
+            new FlusswerkObjectMapper(new IncomingMessageType()),
+            connection,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)));
+    rabbitClient.send("workflow", "there", message);
+    verify(store).put(rabbitClient.serialize(message));
+    verify(channel)
+        .basicPublish(
+            anyString(),
+            eq("there"),
+            argThat(properties -> "abc".equals(properties.getHeaders().get(ClaimCheck.HEADER))),
+            eq(new byte[0]));
+  }
+
+  @Test
+  @DisplayName("ack should release the payload of claim checks")
+  void ackShouldReleaseClaimCheck() throws IOException {
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    RabbitClient rabbitClient =
+        new RabbitClient(
+            new FlusswerkObjectMapper(new IncomingMessageType()),
+            connection,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)));
+    message.getEnvelope().setClaimCheck("abc");
+    rabbitClient.ack(message.getEnvelope());
+    verify(store).delete("abc");
+  }
+
+  @Test
+  @DisplayName("receive should use the decoder matching the content type")
+  void receiveShouldUseDecoderForContentType() throws IOException, InvalidMessageException {
+    RabbitClient rabbitClient = new RabbitClient(connection);
+    var smile = new FlusswerkObjectMapper(new IncomingMessageType()).forWireFormat("smile");
+    com.rabbitmq.client.Envelope envelope =
+        new com.rabbitmq.client.Envelope(1, true, "workflow", "some.input.queue");
+    BasicProperties basicProperties =
+        new BasicProperties.Builder().contentType("application/x-jackson-smile").build();
+    GetResponse response =
+        new GetResponse(envelope, basicProperties, smile.writeValueAsBytes(message), 1);
+    when(channel.basicGet("some.input.queue", false)).thenReturn(response);
+
+    Message received = rabbitClient.receive("some.input.queue");
+
+    assertThat(received).isEqualTo(message);
+    assertThat(received.getEnvelope().getContentType()).isEqualTo("application/x-jackson-smile");
+  }
+
+  @Test
+  @DisplayName("should write the message type and read messages as the registered class")
+  void shouldResolveMessageClassByType() throws IOException, InvalidMessageException {
+    RabbitClient rabbitClient =
+        new RabbitClient(new IncomingMessageType().withType(TestMessage.class), connection);
+    TestMessage testMessage = new TestMessage("abc123", "a");
+    rabbitClient.send("workflow", "there", testMessage);
+    rabbitClient.send("workflow", "there", message);
+
+    ArgumentCaptor<BasicProperties> properties = ArgumentCaptor.forClass(BasicProperties.class);
+    ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+    verify(channel, times(2))
+        .basicPublish(anyString(), eq("there"), properties.capture(), bodies.capture());
+    assertThat(properties.getAllValues())
+        .extracting(BasicProperties::getType)
+        .containsExactly(TestMessage.class.getName(), Message.class.getName());
+
+    for (int i = 0; i < 2; i++) {
+      com.rabbitmq.client.Envelope envelope =
+          new com.rabbitmq.client.Envelope(i, true, "workflow", "some.input.queue");
+      when(channel.basicGet("some.input.queue", false))
+          .thenReturn(
+              new GetResponse(
+                  envelope, properties.getAllValues().get(i), bodies.getAllValues().get(i), 1));
+      assertThat(rabbitClient.receive("some.input.queue"))
+          .isExactlyInstanceOf(i == 0 ? TestMessage.class : Message.class);
+    }
+  }
+
+  @Test
+  @DisplayName("should fail if published messages are rejected")
+  void waitForConfirmsShouldFailIfRejected() throws Exception {
+    RabbitClient rabbitClient = new RabbitClient(connection);
+    rabbitClient.enablePublisherConfirms();
+    rabbitClient.enablePublisherConfirms();
+    verify(channel).confirmSelect();
+    ConfirmListener confirmListener = confirmListener();
+
+    when(channel.getNextPublishSeqNo()).thenReturn(1L, 2L);
+    rabbitClient.send("workflow", "there", message);
+    confirmListener.handleAck(1, false);
+    rabbitClient.waitForConfirms(Duration.ofSeconds(1));
+
+    rabbitClient.send("workflow", "there", message);
+    confirmListener.handleNack(2, false);
+    assertThrows(IOException.class, () -> rabbitClient.waitForConfirms(Duration.ofSeconds(1)));
+  }
+
+  @Test
+  @DisplayName("should only wait for confirms of messages published by the same thread")
+  void waitForConfirmsShouldIgnoreOtherThreads() throws Exception {
+    RabbitClient rabbitClient = new RabbitClient(connection);
+    rabbitClient.enablePublisherConfirms();
+    ConfirmListener confirmListener = confirmListener();
+    when(channel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L);
+
+    rabbitClient.send("workflow", "there", message);
+    Thread otherWorker =
+        new Thread(
+            () -> {
+              try {
+                rabbitClient.send("workflow", "there", message);
+                rabbitClient.send("workflow", "there", message);
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    otherWorker.start();
+    otherWorker.join();
+    confirmListener.handleAck(1, false);
+    confirmListener.handleNack(3, false); // message 2 is never confirmed
+
+    rabbitClient.waitForConfirms(Duration.ofMillis(100));
+  }
+
+  @Test
+  @DisplayName("should confirm several messages at once")
+  void waitForConfirmsShouldHandleMultipleConfirms() throws Exception {
+    RabbitClient rabbitClient = new RabbitClient(connection);
+    rabbitClient.enablePublisherConfirms();
+    ConfirmListener confirmListener = confirmListener();
+    when(channel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L);
+
+    rabbitClient.send("workflow", "there", message);
+    rabbitClient.send("workflow", "there", message);
+    rabbitClient.send("workflow", "there", message);
+    confirmListener.handleAck(2, true);
+    assertThrows(IOException.class, () -> rabbitClient.waitForConfirms(Duration.ofMillis(100)));
+
+    rabbitClient.send("workflow", "there", message);
+    when(channel.getNextPublishSeqNo()).thenReturn(4L);
+    rabbitClient.send("workflow", "there", message);
+    confirmListener.handleAck(4, true);
+    rabbitClient.waitForConfirms(Duration.ofMillis(100));
+  }
+
+  private ConfirmListener confirmListener() {
+    ArgumentCaptor<ConfirmListener> confirmListener =
+        ArgumentCaptor.forClass(ConfirmListener.class);
+    verify(channel).addConfirmListener(confirmListener.capture());
+    return confirmListener.getValue();
+  }
+
   interface TestMessageMixin {
     @JsonIgnore
     List<String> getValues();
@@ -152,4 +333,58 @@ class RabbitClientTest {
         assertThrows(InvalidMessageException.class, () -> rabbitClient.receive("test"));
     assertThat(thrown.getMessage()).startsWith("Unrecognized token 'NoValidJson'");
   }
+
+  @Test
+  @DisplayName("Claim checks that cannot be loaded keep their reference")
+  void claimChecksThatCannotBeLoadedKeepTheirReference() throws IOException {
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    when(store.get("abc")).thenThrow(new IOException("Intentional"));
+    GetResponse getResponse = mock(GetResponse.class);
+    when(getResponse.getBody()).thenReturn(new byte[0]);
+    BasicProperties properties = mock(BasicProperties.class);
+    when(properties.getHeaders()).thenReturn(Map.of(ClaimCheck.HEADER, "abc"));
+    when(properties.getContentEncoding()).thenReturn("gzip");
+    when(getResponse.getProps()).thenReturn(properties);
+    when(getResponse.getEnvelope()).thenReturn(mock(com.rabbitmq.client.Envelope.class));
+    when(channel.basicGet("test", false)).thenReturn(getResponse);
+    RabbitClient rabbitClient =
+        new RabbitClient(
+            new FlusswerkObjectMapper(new IncomingMessageType()),
+            connection,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)));
+
+    InvalidMessageException thrown =
+        assertThrows(InvalidMessageException.class, () -> rabbitClient.receive("test"));
+    rabbitClient.ackKeepingClaimCheck(thrown.getEnvelope());
+
+    assertThat(thrown.getEnvelope().getClaimCheck()).isEqualTo("abc");
+    assertThat(thrown.getEnvelope().getContentEncoding()).isEqualTo("gzip");
+    verify(store, never()).delete(any());
+  }
+
+  @Test
+  @DisplayName("should send claim checks again without touching the payload")
+  void shouldSendClaimChecksAgain() throws IOException {
+    ClaimCheckStore store = mock(ClaimCheckStore.class);
+    RabbitClient rabbitClient =
+        new RabbitClient(
+            new FlusswerkObjectMapper(new IncomingMessageType()),
+            connection,
+            TransportOptions.defaults().withClaimCheck(new ClaimCheck(store, 0)));
+    message.getEnvelope().setClaimCheck("abc");
+    message.getEnvelope().setContentEncoding("gzip");
+
+    rabbitClient.sendClaimCheck("workflow", "failed", message.getEnvelope());
+
+    verify(channel)
+        .basicPublish(
+            eq("workflow"),
+            eq("failed"),
+            argThat(
+                properties ->
+                    "abc".equals(properties.getHeaders().get(ClaimCheck.HEADER))
+                        && "gzip".equals(properties.getContentEncoding())),
+            eq(new byte[0]));
+    verifyNoInteractions(store);
+  }
 }
@@ -6,6 +6,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.github.dbmdz.flusswerk.framework.reporting.Tracing.CurrentThread;
+import de.huxhorn.sulky.ulid.ULID;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
@@ -58,6 +60,29 @@ class TracingTest {
     tracing.deregister();
   }
 
+  @DisplayName("should share the incoming path and render the new id as ULID")
+  @Test
+  void registerShouldRenderNewIdAsUlid() {
+    List<String> incoming = List.of("A", "B");
+    tracing.register(incoming);
+
+    List<String> path = tracing.tracingPath();
+    assertThat(path).hasSize(3).startsWith("A", "B");
+    assertThat(ULID.parseULID(path.get(2)).toString()).isEqualTo(path.get(2));
+    assertThat(path.get(2)).isSameAs(path.get(2));
+    assertThat(path).isEqualTo(List.copyOf(path));
+  }
+
+  @DisplayName("should not change when the incoming ids are modified")
+  @Test
+  void registerShouldCopyMutableIds() {
+    List<String> incoming = new ArrayList<>(List.of("A", "B"));
+    tracing.register(incoming);
+    incoming.add("C");
+
+    assertThat(tracing.tracingPath()).hasSize(3).startsWith("A", "B").doesNotContain("C");
+  }
+
   @DisplayName("should return empty list if nothing is registered")
   @Test
   void register() {